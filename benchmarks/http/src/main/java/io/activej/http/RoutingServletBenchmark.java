@@ -0,0 +1,90 @@
+package io.activej.http;
+
+import io.activej.eventloop.Eventloop;
+import io.activej.promise.Promise;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.activej.http.HttpMethod.GET;
+import static io.activej.http.HttpMethod.POST;
+
+/**
+ * Measures the time {@link RoutingServlet} spends on routing a request
+ * in a routing table of thousands of static and parameterized routes.
+ */
+@State(Scope.Thread)
+public class RoutingServletBenchmark {
+	private static final int REQUESTS = 1024;
+
+	@Param({"100", "1000"})
+	int resources;
+
+	private RoutingServlet servlet;
+	private HttpRequest[] requests;
+	private int[] positions;
+	private int index;
+
+	@Setup
+	public void setup() {
+		Eventloop eventloop = Eventloop.builder()
+			.withCurrentThread()
+			.build();
+
+		AsyncServlet ok = request -> HttpResponse.ok200().toPromise();
+		RoutingServlet.Builder builder = RoutingServlet.builder(eventloop);
+		for (int i = 0; i < resources; i++) {
+			builder.with(GET, "/api/v1/resource" + i, ok);
+			builder.with(POST, "/api/v1/resource" + i, ok);
+			builder.with(GET, "/api/v1/resource" + i + "/:id", ok);
+			builder.with(GET, "/api/v1/resource" + i + "/:id/details", ok);
+		}
+		servlet = builder.build();
+
+		Random random = new Random(0);
+		requests = new HttpRequest[REQUESTS];
+		positions = new int[REQUESTS];
+		for (int i = 0; i < REQUESTS; i++) {
+			int resource = random.nextInt(resources);
+			String url = switch (random.nextInt(3)) {
+				case 0 -> "http://example.com/api/v1/resource" + resource;
+				case 1 -> "http://example.com/api/v1/resource" + resource + "/" + random.nextInt(1_000_000);
+				default -> "http://example.com/api/v1/resource" + resource + "/" + random.nextInt(1_000_000) + "/details";
+			};
+			requests[i] = HttpRequest.get(url).build();
+			positions[i] = requests[i].getPos();
+		}
+	}
+
+	@Benchmark
+	public void route(Blackhole blackhole) throws Exception {
+		int i = index++ & (REQUESTS - 1);
+		HttpRequest request = requests[i];
+		request.setPos(positions[i]);
+		Promise<HttpResponse> response = servlet.serve(request);
+		blackhole.consume(response.getResult());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		Options opt = new OptionsBuilder()
+			.include(RoutingServletBenchmark.class.getSimpleName())
+			.forks(2)
+			.warmupIterations(3)
+			.warmupTime(TimeValue.seconds(1L))
+			.measurementIterations(5)
+			.measurementTime(TimeValue.seconds(2L))
+			.mode(Mode.AverageTime)
+			.timeUnit(TimeUnit.NANOSECONDS)
+			.build();
+
+		new Runner(opt).run();
+	}
+}
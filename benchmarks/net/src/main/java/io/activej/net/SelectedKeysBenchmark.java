@@ -0,0 +1,132 @@
+package io.activej.net;
+
+import io.activej.csp.consumer.ChannelConsumers;
+import io.activej.csp.supplier.ChannelSuppliers;
+import io.activej.datastream.consumer.StreamConsumers;
+import io.activej.datastream.csp.ChannelDeserializer;
+import io.activej.datastream.csp.ChannelSerializer;
+import io.activej.datastream.processor.transformer.StreamTransformers;
+import io.activej.eventloop.Eventloop;
+import io.activej.net.TcpDataBenchmarkClient.StreamSupplierOfSequence;
+import io.activej.net.socket.tcp.TcpSocket;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.reactor.nio.ArraySelectedKeysIoEngine;
+import io.activej.reactor.nio.NioIoEngine;
+import io.activej.reactor.nio.SelectorIoEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static io.activej.serializer.BinarySerializers.INT_SERIALIZER;
+
+/**
+ * Compares {@link SelectorIoEngine} with {@link ArraySelectedKeysIoEngine}
+ * by streaming integers through many concurrent connections to an echo server
+ * which runs on the same {@link Eventloop}, similarly to {@link TcpDataBenchmarkServer}.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation rates of both engines.
+ */
+@State(Scope.Benchmark)
+public class SelectedKeysBenchmark {
+	@Param({"selector", "array"})
+	String engine;
+
+	@Param({"256"})
+	int connections;
+
+	@Param({"10000"})
+	int itemsPerConnection;
+
+	private Eventloop eventloop;
+	private Thread eventloopThread;
+	private SimpleServer server;
+	private InetSocketAddress address;
+
+	@Setup
+	public void setup() throws Exception {
+		NioIoEngine ioEngine = switch (engine) {
+			case "selector" -> SelectorIoEngine.create();
+			case "array" -> ArraySelectedKeysIoEngine.create();
+			default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+		};
+		eventloop = Eventloop.builder()
+			.withIoEngine(ioEngine)
+			.build();
+		eventloop.keepAlive(true);
+		eventloopThread = new Thread(eventloop);
+		eventloopThread.start();
+
+		server = eventloop.submit(() -> {
+				SimpleServer server = SimpleServer.builder(eventloop,
+						socket -> ChannelSuppliers.ofSocket(socket)
+							.transformWith(ChannelDeserializer.create(INT_SERIALIZER))
+							.transformWith(StreamTransformers.mapper(Function.identity()))
+							.transformWith(ChannelSerializer.create(INT_SERIALIZER))
+							.streamTo(ChannelConsumers.ofSocket(socket)))
+					.withListenAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+					.build();
+				server.listen();
+				return Promise.of(server);
+			})
+			.get();
+		address = server.getBoundAddresses().get(0);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		eventloop.submit(() -> server.close()).get();
+		eventloop.keepAlive(false);
+		eventloopThread.join();
+	}
+
+	@Benchmark
+	public void echo() throws Exception {
+		eventloop.submit(() -> {
+				List<Promise<Void>> rounds = IntStream.range(0, connections)
+					.mapToObj($ -> round())
+					.toList();
+				return Promises.all(rounds);
+			})
+			.get();
+	}
+
+	private Promise<Void> round() {
+		return TcpSocket.connect(eventloop, address)
+			.then(socket -> {
+				StreamSupplierOfSequence.create(itemsPerConnection)
+					.transformWith(ChannelSerializer.create(INT_SERIALIZER))
+					.streamTo(ChannelConsumers.ofSocket(socket));
+
+				return ChannelSuppliers.ofSocket(socket)
+					.transformWith(ChannelDeserializer.create(INT_SERIALIZER))
+					.streamTo(StreamConsumers.skip())
+					.whenComplete(socket::close);
+			});
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(SelectedKeysBenchmark.class.getSimpleName())
+			.forks(2)
+			.warmupIterations(3)
+			.warmupTime(TimeValue.seconds(1L))
+			.measurementIterations(5)
+			.measurementTime(TimeValue.seconds(2L))
+			.mode(Mode.AverageTime)
+			.timeUnit(TimeUnit.MILLISECONDS)
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -20,6 +20,7 @@ import io.activej.service.ServiceGraphModule;
 import io.activej.service.ServiceGraphModuleSettings;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 
 import static io.activej.config.converter.ConfigConverters.*;
@@ -131,17 +132,24 @@ public class RpcBenchmark extends Launcher {
 	int sent;
 	int completed;
 
+	/**
+	 * Amount of bytes allocated by a client reactor thread during the last round
+	 */
+	long allocated;
+
 	@Override
 	protected void run() throws Exception {
 		long time = 0;
 		long bestTime = -1;
 		long worstTime = -1;
+		long totalAllocated = 0;
 
 		System.out.println("Warming up ...");
 		for (int i = 0; i < warmupRounds; i++) {
 			long roundTime = round();
 			long rps = totalRequests * 1000L / roundTime;
-			System.out.printf("Round: %d; Round time: %dms; RPS : %d%n", i + 1, roundTime, rps);
+			System.out.printf("Round: %d; Round time: %dms; RPS : %d; Allocated per call: %d bytes%n",
+				i + 1, roundTime, rps, allocated / totalRequests);
 		}
 
 		System.out.println("Start benchmarking RPC");
@@ -150,6 +158,7 @@ public class RpcBenchmark extends Launcher {
 			long roundTime = round();
 
 			time += roundTime;
+			totalAllocated += allocated;
 
 			if (bestTime == -1 || roundTime < bestTime) {
 				bestTime = roundTime;
@@ -160,12 +169,15 @@ public class RpcBenchmark extends Launcher {
 			}
 
 			long rps = totalRequests * 1000L / roundTime;
-			System.out.printf("Round: %d; Round time: %dms; RPS : %d%n", i + 1, roundTime, rps);
+			System.out.printf("Round: %d; Round time: %dms; RPS : %d; Allocated per call: %d bytes%n",
+				i + 1, roundTime, rps, allocated / totalRequests);
 		}
 		double avgTime = (double) time / benchmarkRounds;
 		long requestsPerSecond = (long) (totalRequests / avgTime * 1000);
-		System.out.printf("Time: %dms; Average time: %sms; Best time: %dms; Worst time: %dms; Requests per second: %d%n",
-			time, avgTime, bestTime, worstTime, requestsPerSecond);
+		long allocatedPerCall = totalAllocated / ((long) totalRequests * benchmarkRounds);
+		System.out.printf("Time: %dms; Average time: %sms; Best time: %dms; Worst time: %dms; Requests per second: %d; " +
+				"Allocated per call: %d bytes%n",
+			time, avgTime, bestTime, worstTime, requestsPerSecond, allocatedPerCall);
 	}
 
 	private long round() throws Exception {
@@ -176,6 +188,7 @@ public class RpcBenchmark extends Launcher {
 		SettablePromise<Long> promise = new SettablePromise<>();
 
 		long start = System.currentTimeMillis();
+		long allocatedStart = allocatedBytes();
 
 		sent = 0;
 		completed = 0;
@@ -190,6 +203,7 @@ public class RpcBenchmark extends Launcher {
 
 				// Stop round
 				if (completed == totalRequests) {
+					allocated = allocatedBytes() - allocatedStart;
 					promise.set(null);
 					return;
 				}
@@ -210,6 +224,14 @@ public class RpcBenchmark extends Launcher {
 		return promise.map($ -> System.currentTimeMillis() - start);
 	}
 
+	/**
+	 * Returns the amount of bytes allocated by a current thread.
+	 * In a single-threaded mode this includes allocations made by an RPC server
+	 */
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+	}
+
 	public static void main(String[] args) throws Exception {
 		RpcBenchmark benchmark = new RpcBenchmark();
 		benchmark.launch(args);
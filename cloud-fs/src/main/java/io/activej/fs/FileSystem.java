@@ -279,6 +279,19 @@ public final class FileSystem extends AbstractReactive
 
 	@Override
 	public Promise<ChannelSupplier<ByteBuf>> download(String name, long offset, long limit) {
+		return downloadFile(name, offset, limit)
+			.map(reader -> reader
+				.withEndOfStream(eos -> completeDownload(name, offset, limit, eos)));
+	}
+
+	/**
+	 * Opens a file for a download as a {@link ChannelFileReader}.
+	 * <p>
+	 * Unlike a supplier returned from {@link #download}, the reader may be
+	 * {@link ChannelFileReader#transferTo transferred} to a socket without copying file contents through the heap.
+	 * A promise of such transfer should be passed to {@link #completeDownload}.
+	 */
+	public Promise<ChannelFileReader> downloadFile(String name, long offset, long limit) {
 		checkInReactorThread(this);
 		checkStarted();
 		checkArgument(offset >= 0, "offset < 0");
@@ -297,16 +310,24 @@ public final class FileSystem extends AbstractReactive
 				.withBufferSize(readerBufferSize)
 				.withOffset(offset)
 				.withLimit(limit)
-				.build()
-				.withEndOfStream(eos -> eos
-					.then(translateScalarErrorsFn(name))
-					.whenComplete(downloadFinishPromise.recordStats())
-					.whenComplete(toLogger(logger, TRACE, "onDownloadComplete", name, offset, limit))))
+				.build())
 			.then(translateScalarErrorsFn(name))
 			.whenComplete(toLogger(logger, TRACE, "download", name, offset, limit, this))
 			.whenComplete(downloadBeginPromise.recordStats());
 	}
 
+	/**
+	 * Completes a download of a file opened with {@link #downloadFile}, once a given transfer of the file finishes.
+	 * Errors of the transfer are translated and download stats are recorded,
+	 * the same way as on end of stream of a supplier returned from {@link #download}
+	 */
+	public Promise<Void> completeDownload(String name, long offset, long limit, Promise<Void> transfer) {
+		return transfer
+			.then(translateScalarErrorsFn(name))
+			.whenComplete(downloadFinishPromise.recordStats())
+			.whenComplete(toLogger(logger, TRACE, "onDownloadComplete", name, offset, limit));
+	}
+
 	@Override
 	public Promise<Map<String, FileMetadata>> list(String glob) {
 		checkInReactorThread(this);
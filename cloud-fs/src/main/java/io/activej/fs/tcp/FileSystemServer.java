@@ -16,11 +16,16 @@
 
 package io.activej.fs.tcp;
 
+import io.activej.bytebuf.ByteBuf;
 import io.activej.common.function.SupplierEx;
 import io.activej.csp.binary.codec.ByteBufsCodec;
 import io.activej.csp.binary.codec.ByteBufsCodecs;
+import io.activej.csp.file.ChannelFileReader;
 import io.activej.csp.net.IMessaging;
 import io.activej.csp.net.Messaging;
+import io.activej.csp.supplier.ChannelSupplier;
+import io.activej.fs.FileMetadata;
+import io.activej.fs.FileSystem;
 import io.activej.fs.IFileSystem;
 import io.activej.fs.exception.FileNotFoundException;
 import io.activej.fs.exception.FileSystemException;
@@ -229,18 +234,33 @@ public final class FileSystemServer extends AbstractReactiveServer {
 				//noinspection ConstantConditions
 				long fixedLimit = Math.max(0, Math.min(meta.getSize() - offset, limit));
 
-				return fileSystem.download(name, offset, fixedLimit)
-					.then(supplier -> messaging.send(new FileSystemResponse.DownloadSize(fixedLimit))
-						.whenException(supplier::closeEx)
-						.then(() -> supplier.streamTo(messaging.sendBinaryStream()
-							.withAcknowledgement(ack -> ack
-								.whenComplete(toLogger(logger, TRACE, "onDownloadComplete", meta, offset, fixedLimit, this))
-								.whenComplete(downloadFinishPromise.recordStats())))))
+				Promise<Void> transfer = fileSystem instanceof FileSystem localFileSystem ?
+					localFileSystem.downloadFile(name, offset, fixedLimit)
+						.then(reader -> localFileSystem.completeDownload(name, offset, fixedLimit,
+							sendDownload(messaging, reader, meta, offset, fixedLimit))) :
+					fileSystem.download(name, offset, fixedLimit)
+						.then(supplier -> sendDownload(messaging, supplier, meta, offset, fixedLimit));
+				return transfer
 					.whenComplete(toLogger(logger, "download", meta, offset, fixedLimit, this));
 			})
 			.whenComplete(downloadBeginPromise.recordStats());
 	}
 
+	/**
+	 * Files of a local {@link FileSystem} are sent as plain {@link ChannelFileReader}s,
+	 * so that they may be transferred to the socket without copying file contents through the heap
+	 */
+	private Promise<Void> sendDownload(
+		IMessaging<FileSystemRequest, FileSystemResponse> messaging, ChannelSupplier<ByteBuf> supplier,
+		FileMetadata meta, long offset, long limit
+	) {
+		return messaging.send(new FileSystemResponse.DownloadSize(limit))
+			.whenException(supplier::closeEx)
+			.then(() -> messaging.sendBinaryStream(supplier)
+				.whenComplete(toLogger(logger, TRACE, "onDownloadComplete", meta, offset, limit, this))
+				.whenComplete(downloadFinishPromise.recordStats()));
+	}
+
 	private Promise<Void> handleCopy(
 		IMessaging<FileSystemRequest, FileSystemResponse> messaging, FileSystemRequest.Copy copy
 	) throws Exception {
@@ -64,6 +64,7 @@ public final class FileSystemIntegrationTest {
 	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
 
 	private Path storage;
+	private FileSystem localFileSystem;
 	private FileSystemServer server;
 	private IFileSystem fileSystem;
 
@@ -73,9 +74,9 @@ public final class FileSystemIntegrationTest {
 		Executor executor = newCachedThreadPool();
 
 		storage = temporaryFolder.newFolder("server_storage").toPath();
-		FileSystem fs = FileSystem.create(Reactor.getCurrentReactor(), executor, storage);
-		await(fs.start());
-		server = FileSystemServer.builder(Reactor.getCurrentReactor(), fs)
+		localFileSystem = FileSystem.create(Reactor.getCurrentReactor(), executor, storage);
+		await(localFileSystem.start());
+		server = FileSystemServer.builder(Reactor.getCurrentReactor(), localFileSystem)
 			.withListenAddress(address)
 			.build();
 		server.listen();
@@ -225,6 +226,19 @@ public final class FileSystemIntegrationTest {
 		assertArrayEquals(CONTENT, result.asArray());
 	}
 
+	@Test
+	public void testDownloadRecordsFileSystemStats() throws Exception {
+		String file = "file1_downloaded.txt";
+		Files.write(storage.resolve(file), CONTENT);
+
+		ByteBuf result = await(download(file));
+
+		assertArrayEquals(CONTENT, result.asArray());
+		assertEquals(1, localFileSystem.getDownloadFinishPromise().getDuration().getCount());
+		assertEquals(0, localFileSystem.getDownloadFinishPromise().getActivePromises());
+		assertEquals(0, localFileSystem.getDownloadFinishPromise().getExceptions().getTotal());
+	}
+
 	@Test
 	public void testDownloadLong() throws Exception {
 		String file = "this/is/not/empty/directory/file.txt";
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.rpc.client;
+
+import io.activej.async.callback.Callback;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A table of pending request callbacks keyed by request index.
+ * <p>
+ * This is an open addressing hash table with linear probing over primitive {@code int} keys,
+ * so that neither keys are boxed nor nodes are allocated per request.
+ * As request indices are sequential, they are used as hashes as is,
+ * which makes the table behave like a ring buffer indexed by request index.
+ */
+final class RpcActiveRequests {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private int[] keys = new int[INITIAL_CAPACITY];
+	private Callback<?>[] values = new Callback<?>[INITIAL_CAPACITY];
+	private int mask = INITIAL_CAPACITY - 1;
+	private int size;
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void put(int key, Callback<?> value) {
+		if (size >= (keys.length >>> 1)) {
+			resize(keys.length << 1);
+		}
+		int[] keys = this.keys;
+		Callback<?>[] values = this.values;
+		int i = key & mask;
+		while (values[i] != null) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+	}
+
+	public @Nullable Callback<?> remove(int key) {
+		int[] keys = this.keys;
+		Callback<?>[] values = this.values;
+		int i = key & mask;
+		Callback<?> value;
+		while ((value = values[i]) != null) {
+			if (keys[i] == key) {
+				size--;
+				shiftBack(i);
+				return value;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes all the callbacks from this table
+	 *
+	 * @return a list of removed callbacks
+	 */
+	public List<Callback<?>> removeAll() {
+		List<Callback<?>> result = new ArrayList<>(size);
+		for (Callback<?> value : values) {
+			if (value != null) {
+				result.add(value);
+			}
+		}
+		Arrays.fill(values, null);
+		size = 0;
+		return result;
+	}
+
+	/**
+	 * Fills a freed slot by shifting back the following entries of the same probe chain,
+	 * so that no tombstones are needed
+	 */
+	private void shiftBack(int free) {
+		int[] keys = this.keys;
+		Callback<?>[] values = this.values;
+		int i = free;
+		for (; ; ) {
+			i = (i + 1) & mask;
+			Callback<?> value = values[i];
+			if (value == null) break;
+			int home = keys[i] & mask;
+			if (((i - home) & mask) >= ((i - free) & mask)) {
+				keys[free] = keys[i];
+				values[free] = value;
+				free = i;
+			}
+		}
+		values[free] = null;
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = keys;
+		Callback<?>[] oldValues = values;
+		keys = new int[capacity];
+		values = new Callback<?>[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			Callback<?> value = oldValues[i];
+			if (value == null) continue;
+			int j = oldKeys[i] & mask;
+			while (values[j] != null) {
+				j = (j + 1) & mask;
+			}
+			keys[j] = oldKeys[i];
+			values[j] = value;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RpcActiveRequests{size=" + size + ", capacity=" + keys.length + '}';
+	}
+}
@@ -133,7 +133,17 @@ public final class RpcClient extends AbstractNioReactive
 
 	private @Nullable SettablePromise<Void> stopPromise;
 
-	private final RpcClientConnectionPool pool = connections::get;
+	private final RpcClientConnectionPool pool = new RpcClientConnectionPool() {
+		@Override
+		public RpcSender get(InetSocketAddress address) {
+			return connections.get(address);
+		}
+
+		@Override
+		public RpcRequestStats getRequestStats() {
+			return generalRequestsStats;
+		}
+	};
 
 	// jmx
 	static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
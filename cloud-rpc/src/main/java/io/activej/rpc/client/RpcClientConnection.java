@@ -37,9 +37,6 @@ import org.slf4j.Logger;
 
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static io.activej.reactor.Reactive.checkInReactorThread;
@@ -59,7 +56,8 @@ public final class RpcClientConnection extends AbstractReactive implements RpcSt
 	private final RpcClient rpcClient;
 	private final RpcStream stream;
 	private final InetSocketAddress address;
-	private final Map<Integer, Callback<?>> activeRequests = new HashMap<>();
+	private final RpcActiveRequests activeRequests = new RpcActiveRequests();
+	private @Nullable RpcMessage reusableMessage = new RpcMessage(0, null);
 
 	private ArrayList<RpcMessage> initialBuffer = new ArrayList<>();
 
@@ -129,7 +127,7 @@ public final class RpcClientConnection extends AbstractReactive implements RpcSt
 			activeRequests.put(index, scheduledRunnable);
 		}
 
-		downstreamDataAcceptor.accept(new RpcMessage(index, request));
+		send(index, request);
 	}
 
 	public class ScheduledCallback<O> extends ScheduledRunnable implements Callback<O> {
@@ -199,7 +197,22 @@ public final class RpcClientConnection extends AbstractReactive implements RpcSt
 
 		activeRequests.put(index, cb);
 
-		downstreamDataAcceptor.accept(new RpcMessage(index, request));
+		send(index, request);
+	}
+
+	/**
+	 * Sends a request reusing a single message envelope, as the downstream serializer
+	 * encodes a message synchronously. A fresh envelope is used on a reentrant call.
+	 */
+	private void send(int index, Object request) {
+		RpcMessage message = reusableMessage;
+		if (message == null) {
+			downstreamDataAcceptor.accept(new RpcMessage(index, request));
+			return;
+		}
+		reusableMessage = null;
+		downstreamDataAcceptor.accept(message.reset(index, request));
+		reusableMessage = message.reset(0, null);
 	}
 
 	private <I, O> Callback<O> doJmxMonitoring(I request, int timeout, Callback<O> cb) {
@@ -250,6 +263,10 @@ public final class RpcClientConnection extends AbstractReactive implements RpcSt
 
 	private void processErrorMessage(RpcMessage message) {
 		RpcRemoteException remoteException = (RpcRemoteException) message.getMessage();
+		if (RpcOverloadException.class.getName().equals(remoteException.getCauseClassName())) {
+			processOverloadedMessage(message.getIndex(), remoteException);
+			return;
+		}
 		// jmx
 		connectionStats.getFailedRequests().recordEvent();
 		rpcClient.getGeneralRequestsStats().getFailedRequests().recordEvent();
@@ -262,6 +279,23 @@ public final class RpcClientConnection extends AbstractReactive implements RpcSt
 		}
 	}
 
+	/**
+	 * Handles a request rejected by a server because of its concurrency limit
+	 */
+	private void processOverloadedMessage(int index, RpcRemoteException remoteException) {
+		// jmx
+		connectionStats.getRejectedRequests().recordEvent();
+		rpcClient.getGeneralRequestsStats().getRejectedRequests().recordEvent();
+
+		Callback<?> cb = activeRequests.remove(index);
+		if (cb != null) {
+			cb.accept(null, new RpcOverloadException(remoteException.getMessage(), remoteException));
+		}
+		if (serverClosing && activeRequests.isEmpty()) {
+			shutdown();
+		}
+	}
+
 	private void processControlMessage(RpcControlMessage controlMessage) {
 		if (controlMessage == RpcControlMessage.CLOSE) {
 			rpcClient.onClosedConnection(address);
@@ -349,11 +383,8 @@ public final class RpcClientConnection extends AbstractReactive implements RpcSt
 		rpcClient.onClosedConnection(address);
 
 		while (!activeRequests.isEmpty()) {
-			for (Integer index : new HashSet<>(activeRequests.keySet())) {
-				Callback<?> cb = activeRequests.remove(index);
-				if (cb != null) {
-					cb.accept(null, new AsyncCloseException("Connection closed"));
-				}
+			for (Callback<?> cb : activeRequests.removeAll()) {
+				cb.accept(null, new AsyncCloseException("Connection closed"));
 			}
 		}
 	}
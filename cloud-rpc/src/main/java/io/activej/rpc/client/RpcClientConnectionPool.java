@@ -16,7 +16,9 @@
 
 package io.activej.rpc.client;
 
+import io.activej.rpc.client.jmx.RpcRequestStats;
 import io.activej.rpc.client.sender.RpcSender;
+import org.jetbrains.annotations.Nullable;
 
 import java.net.InetSocketAddress;
 
@@ -29,4 +31,14 @@ public interface RpcClientConnectionPool {
 	 * @return connection for specified address or null if there is no such connection
 	 */
 	RpcSender get(InetSocketAddress address);
+
+	/**
+	 * Returns general request stats of an RPC client that owns this pool, if any.
+	 * Strategies may record their own events, like hedged requests, into these stats
+	 *
+	 * @return general request stats or null if there are no such stats
+	 */
+	default @Nullable RpcRequestStats getRequestStats() {
+		return null;
+	}
 }
@@ -31,6 +31,8 @@ public final class RpcRequestStats implements JmxRefreshable {
 	private final EventStats failedRequests;
 	private final EventStats rejectedRequests;
 	private final EventStats expiredRequests;
+	private final EventStats hedgedRequests;
+	private final EventStats hedgeWins;
 	private final ValueStats responseTime;
 	private final ValueStats overdues;
 	private final ExceptionStats serverExceptions;
@@ -40,6 +42,8 @@ public final class RpcRequestStats implements JmxRefreshable {
 		failedRequests = EventStats.create(smoothingWindow);
 		rejectedRequests = EventStats.create(smoothingWindow);
 		expiredRequests = EventStats.create(smoothingWindow);
+		hedgedRequests = EventStats.create(smoothingWindow);
+		hedgeWins = EventStats.create(smoothingWindow);
 		responseTime = ValueStats.builder(smoothingWindow)
 			.withHistogram(POWERS_OF_TWO)
 			.withUnit("milliseconds")
@@ -62,6 +66,8 @@ public final class RpcRequestStats implements JmxRefreshable {
 		failedRequests.refresh(timestamp);
 		rejectedRequests.refresh(timestamp);
 		expiredRequests.refresh(timestamp);
+		hedgedRequests.refresh(timestamp);
+		hedgeWins.refresh(timestamp);
 		responseTime.refresh(timestamp);
 		overdues.refresh(timestamp);
 	}
@@ -86,6 +92,16 @@ public final class RpcRequestStats implements JmxRefreshable {
 		return expiredRequests;
 	}
 
+	@JmxAttribute(description = "duplicate requests sent by a hedging strategy", extraSubAttributes = "totalCount")
+	public EventStats getHedgedRequests() {
+		return hedgedRequests;
+	}
+
+	@JmxAttribute(description = "requests completed by a duplicate sent by a hedging strategy", extraSubAttributes = "totalCount")
+	public EventStats getHedgeWins() {
+		return hedgeWins;
+	}
+
 	@JmxAttribute(
 		description = "delay between successful or failed request/response (in milliseconds)",
 		extraSubAttributes = "histogram"
@@ -50,6 +50,30 @@ public class RpcStrategies {
 		return RoundRobin.create(strategies);
 	}
 
+	public static RpcStrategy powerOfTwoChoices(RpcStrategy... strategies) {
+		return powerOfTwoChoices(List.of(strategies));
+	}
+
+	public static RpcStrategy powerOfTwoChoices(List<? extends RpcStrategy> strategies) {
+		return PowerOfTwoChoices.create(strategies);
+	}
+
+	public static RpcStrategy leastLatency(RpcStrategy... strategies) {
+		return leastLatency(List.of(strategies));
+	}
+
+	public static RpcStrategy leastLatency(List<? extends RpcStrategy> strategies) {
+		return LeastLatency.create(strategies);
+	}
+
+	public static RpcStrategy hedged(RpcStrategy... strategies) {
+		return hedged(List.of(strategies));
+	}
+
+	public static RpcStrategy hedged(List<? extends RpcStrategy> strategies) {
+		return Hedged.create(strategies);
+	}
+
 	public static <T> RpcStrategy sharding(ToIntFunction<T> shardingFunction, RpcStrategy... strategies) {
 		return sharding(shardingFunction, List.of(strategies));
 	}
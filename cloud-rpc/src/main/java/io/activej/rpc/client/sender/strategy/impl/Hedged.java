@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.rpc.client.sender.strategy.impl;
+
+import io.activej.async.callback.Callback;
+import io.activej.common.annotation.ExposedInternals;
+import io.activej.common.builder.AbstractBuilder;
+import io.activej.common.recycle.Recyclers;
+import io.activej.reactor.Reactor;
+import io.activej.reactor.schedule.ScheduledRunnable;
+import io.activej.rpc.client.RpcClientConnectionPool;
+import io.activej.rpc.client.jmx.RpcRequestStats;
+import io.activej.rpc.client.sender.RpcSender;
+import io.activej.rpc.client.sender.Utils;
+import io.activej.rpc.client.sender.strategy.RpcStrategy;
+import io.activej.rpc.protocol.RpcOverloadException;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static io.activej.common.Checks.checkArgument;
+import static io.activej.reactor.Reactor.getCurrentReactor;
+
+/**
+ * A strategy for idempotent requests that sends a request to one sub-sender and,
+ * if there is no response within a hedge delay, sends a duplicate to the next sub-sender.
+ * The first successful result is passed to the callback, the other one is ignored.
+ * <p>
+ * The hedge delay follows a given percentile of observed response times,
+ * so that only the slowest requests get duplicated. A duplicate is also sent immediately
+ * if the first sub-sender fails before the hedge delay expires.
+ * <p>
+ * The amount of duplicates is limited by a hedge budget, which is a fraction of all the requests,
+ * so that hedging does not amplify the load on an overloaded fleet.
+ * A duplicate rejected with {@link RpcOverloadException} is not treated as a response.
+ */
+@ExposedInternals
+public final class Hedged implements RpcStrategy {
+	public static final Duration DEFAULT_HEDGE_DELAY = Duration.ofMillis(10);
+	public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+	public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+
+	public final List<? extends RpcStrategy> list;
+
+	public Duration hedgeDelay;
+	public double hedgePercentile;
+	public double maxHedgeRatio;
+
+	public Hedged(List<? extends RpcStrategy> list, Duration hedgeDelay, double hedgePercentile, double maxHedgeRatio) {
+		this.list = list;
+		this.hedgeDelay = hedgeDelay;
+		this.hedgePercentile = hedgePercentile;
+		this.maxHedgeRatio = maxHedgeRatio;
+	}
+
+	public static Hedged create(RpcStrategy... strategies) {
+		return builder(strategies).build();
+	}
+
+	public static Hedged create(List<? extends RpcStrategy> strategies) {
+		return builder(strategies).build();
+	}
+
+	public static Builder builder(RpcStrategy... strategies) {
+		return builder(List.of(strategies));
+	}
+
+	public static Builder builder(List<? extends RpcStrategy> strategies) {
+		return new Hedged(strategies, DEFAULT_HEDGE_DELAY, DEFAULT_HEDGE_PERCENTILE, DEFAULT_MAX_HEDGE_RATIO).new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, Hedged> {
+		private Builder() {}
+
+		/**
+		 * Sets a hedge delay which is used until enough response times are observed.
+		 * If hedge percentile is 0, this delay is used for all the requests
+		 */
+		public Builder withHedgeDelay(Duration hedgeDelay) {
+			checkNotBuilt(this);
+			checkArgument(hedgeDelay.toMillis() > 0, "Hedge delay should be at least 1 millisecond");
+			Hedged.this.hedgeDelay = hedgeDelay;
+			return this;
+		}
+
+		/**
+		 * Sets a percentile of observed response times to be used as a hedge delay,
+		 * or 0 to always use a fixed hedge delay
+		 */
+		public Builder withHedgePercentile(double hedgePercentile) {
+			checkNotBuilt(this);
+			checkArgument(hedgePercentile >= 0 && hedgePercentile < 1, "Hedge percentile should be in range [0, 1)");
+			Hedged.this.hedgePercentile = hedgePercentile;
+			return this;
+		}
+
+		/**
+		 * Sets a maximum ratio of duplicate requests to all the requests
+		 */
+		public Builder withMaxHedgeRatio(double maxHedgeRatio) {
+			checkNotBuilt(this);
+			checkArgument(maxHedgeRatio >= 0 && maxHedgeRatio <= 1, "Max hedge ratio should be in range [0, 1]");
+			Hedged.this.maxHedgeRatio = maxHedgeRatio;
+			return this;
+		}
+
+		@Override
+		protected Hedged doBuild() {
+			return Hedged.this;
+		}
+	}
+
+	@Override
+	public Set<InetSocketAddress> getAddresses() {
+		return Utils.getAddresses(list);
+	}
+
+	@Override
+	public @Nullable RpcSender createSender(RpcClientConnectionPool pool) {
+		List<RpcSender> subSenders = Utils.listOfSenders(list, pool);
+		if (subSenders.isEmpty())
+			return null;
+		if (subSenders.size() == 1)
+			return subSenders.get(0);
+		return new Sender(subSenders, hedgeDelay.toMillis(), hedgePercentile, maxHedgeRatio, pool.getRequestStats());
+	}
+
+	public static final class Sender implements RpcSender {
+		private static final int SAMPLES = 1024;
+		private static final int RECALCULATE_EVERY = 128;
+		private static final double MAX_HEDGE_CREDITS = 10.0;
+
+		private final RpcSender[] subSenders;
+		private final double hedgePercentile;
+		private final double maxHedgeRatio;
+		private final @Nullable RpcRequestStats stats;
+
+		private final long[] samples = new long[SAMPLES];
+		private int samplesIndex;
+		private int samplesSize;
+		private int samplesSinceRecalculation;
+		long responsesCount;
+		private long currentHedgeDelay;
+
+		private double hedgeCredits;
+		private int nextSender;
+
+		Sender(
+			List<RpcSender> senders, long hedgeDelay, double hedgePercentile, double maxHedgeRatio,
+			@Nullable RpcRequestStats stats
+		) {
+			assert senders.size() > 1;
+			this.subSenders = senders.toArray(new RpcSender[0]);
+			this.currentHedgeDelay = hedgeDelay;
+			this.hedgePercentile = hedgePercentile;
+			this.maxHedgeRatio = maxHedgeRatio;
+			this.stats = stats;
+		}
+
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, Callback<O> cb) {
+			Reactor reactor = getCurrentReactor();
+			int index = nextSender;
+			nextSender = (nextSender + 1) % subSenders.length;
+
+			hedgeCredits = Math.min(hedgeCredits + maxHedgeRatio, MAX_HEDGE_CREDITS);
+
+			long now = reactor.currentTimeMillis();
+			HedgedRequest<I, O> hedgedRequest = new HedgedRequest<>(now + currentHedgeDelay, request, timeout, index, cb, reactor);
+			if (currentHedgeDelay < timeout) {
+				reactor.scheduleBackground(hedgedRequest);
+			}
+			subSenders[index].sendRequest(request, timeout, hedgedRequest.primaryCallback());
+		}
+
+		public long getCurrentHedgeDelay() {
+			return currentHedgeDelay;
+		}
+
+		public long getResponsesCount() {
+			return responsesCount;
+		}
+
+		void recordResponseTime(long responseTime) {
+			responsesCount++;
+			samples[samplesIndex] = responseTime;
+			samplesIndex = (samplesIndex + 1) % SAMPLES;
+			if (samplesSize < SAMPLES) samplesSize++;
+			if (hedgePercentile != 0 && ++samplesSinceRecalculation == RECALCULATE_EVERY) {
+				samplesSinceRecalculation = 0;
+				long[] sorted = Arrays.copyOf(samples, samplesSize);
+				Arrays.sort(sorted);
+				currentHedgeDelay = Math.max(1, sorted[(int) (sorted.length * hedgePercentile)]);
+			}
+		}
+
+		private boolean tryAcquireHedge() {
+			if (hedgeCredits < 1.0) return false;
+			hedgeCredits -= 1.0;
+			return true;
+		}
+
+		private final class HedgedRequest<I, O> extends ScheduledRunnable {
+			private final I request;
+			private final int timeout;
+			private final int index;
+			private final Callback<O> cb;
+			private final Reactor reactor;
+			private final long sentTimestamp;
+
+			private boolean completed;
+			private boolean hedged;
+			private int pending = 1;
+			private @Nullable Exception lastException;
+
+			HedgedRequest(long timestamp, I request, int timeout, int index, Callback<O> cb, Reactor reactor) {
+				super(timestamp);
+				this.request = request;
+				this.timeout = timeout;
+				this.index = index;
+				this.cb = cb;
+				this.reactor = reactor;
+				this.sentTimestamp = reactor.currentTimeMillis();
+			}
+
+			Callback<O> primaryCallback() {
+				return (result, e) -> {
+					if (e == null) {
+						recordResponseTime(reactor.currentTimeMillis() - sentTimestamp);
+					}
+					onResult(result, e, false);
+				};
+			}
+
+			@Override
+			public void run() {
+				hedge();
+			}
+
+			private void hedge() {
+				if (completed || hedged) return;
+				cancel();
+				hedged = true;
+				if (!tryAcquireHedge()) return;
+
+				int remaining = timeout == Integer.MAX_VALUE ?
+					timeout :
+					(int) Math.max(1, timeout - (reactor.currentTimeMillis() - sentTimestamp));
+				pending++;
+				if (stats != null) stats.getHedgedRequests().recordEvent();
+				subSenders[(index + 1) % subSenders.length].sendRequest(request, remaining,
+					(O result, @Nullable Exception e) -> onResult(result, e, true));
+			}
+
+			private void onResult(O result, @Nullable Exception e, boolean fromHedge) {
+				pending--;
+				if (completed) {
+					if (e == null) Recyclers.recycle(result);
+					return;
+				}
+				if (e == null) {
+					completed = true;
+					cancel();
+					if (fromHedge && stats != null) stats.getHedgeWins().recordEvent();
+					cb.accept(result, null);
+					return;
+				}
+				if (!fromHedge || !(e instanceof RpcOverloadException) || lastException == null) {
+					lastException = e;
+				}
+				if (!fromHedge && !hedged) {
+					hedge();
+					if (completed) return;
+				}
+				if (pending == 0) {
+					completed = true;
+					cancel();
+					cb.accept(null, lastException);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.rpc.client.sender.strategy.impl;
+
+import io.activej.async.callback.Callback;
+import io.activej.common.annotation.ExposedInternals;
+import io.activej.common.builder.AbstractBuilder;
+import io.activej.rpc.client.RpcClientConnectionPool;
+import io.activej.rpc.client.sender.RpcSender;
+import io.activej.rpc.client.sender.Utils;
+import io.activej.rpc.client.sender.strategy.RpcStrategy;
+import io.activej.rpc.protocol.RpcOverloadException;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A strategy that picks two random sub-senders for each request
+ * and sends the request to the one with the lower expected latency.
+ * <p>
+ * The expected latency of a sub-sender is an exponentially weighted moving average
+ * of its response times multiplied by the number of its outstanding requests plus one.
+ * The average follows latency spikes immediately and decays slowly afterwards,
+ * so a server that experiences a GC pause is avoided until it recovers.
+ * <p>
+ * Sub-senders without any observed responses are preferred, so that new servers get probed.
+ */
+@ExposedInternals
+public final class LeastLatency implements RpcStrategy {
+	public static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+
+	public final List<? extends RpcStrategy> list;
+	public int minActiveSubStrategies;
+	public Duration decayTime;
+	public Random random;
+
+	public LeastLatency(List<? extends RpcStrategy> list, int minActiveSubStrategies, Duration decayTime, Random random) {
+		this.list = list;
+		this.minActiveSubStrategies = minActiveSubStrategies;
+		this.decayTime = decayTime;
+		this.random = random;
+	}
+
+	public static LeastLatency create(RpcStrategy... strategies) {
+		return builder(strategies).build();
+	}
+
+	public static LeastLatency create(List<? extends RpcStrategy> strategies) {
+		return builder(strategies).build();
+	}
+
+	public static Builder builder(RpcStrategy... strategies) {
+		return builder(List.of(strategies));
+	}
+
+	public static Builder builder(List<? extends RpcStrategy> strategies) {
+		return new LeastLatency(strategies, 0, DEFAULT_DECAY_TIME, new Random()).new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, LeastLatency> {
+		private Builder() {}
+
+		public Builder withMinActiveSubStrategies(int minActiveSubStrategies) {
+			checkNotBuilt(this);
+			LeastLatency.this.minActiveSubStrategies = minActiveSubStrategies;
+			return this;
+		}
+
+		/**
+		 * Sets a time window over which observed response times
+		 * lose their weight in the moving average
+		 */
+		public Builder withDecayTime(Duration decayTime) {
+			checkNotBuilt(this);
+			checkArgument(decayTime.toNanos() > 0, "Decay time should be positive");
+			LeastLatency.this.decayTime = decayTime;
+			return this;
+		}
+
+		public Builder withRandom(Random random) {
+			checkNotBuilt(this);
+			LeastLatency.this.random = random;
+			return this;
+		}
+
+		@Override
+		protected LeastLatency doBuild() {
+			return LeastLatency.this;
+		}
+	}
+
+	@Override
+	public Set<InetSocketAddress> getAddresses() {
+		return Utils.getAddresses(list);
+	}
+
+	@Override
+	public @Nullable RpcSender createSender(RpcClientConnectionPool pool) {
+		List<RpcSender> subSenders = Utils.listOfSenders(list, pool);
+		if (subSenders.size() < minActiveSubStrategies)
+			return null;
+		if (subSenders.isEmpty())
+			return null;
+		if (subSenders.size() == 1)
+			return subSenders.get(0);
+		long randomLong = random.nextLong();
+		return new Sender(subSenders, decayTime.toNanos(), randomLong != 0L ? randomLong : 2347230858016798896L);
+	}
+
+	public static final class Sender implements RpcSender {
+		private final RpcSender[] subSenders;
+		private final int[] activeRequests;
+		private final double[] averageLatencies;
+		private final long[] lastUpdates;
+		private final double decayNanos;
+
+		private long lastRandomLong;
+
+		Sender(List<RpcSender> senders, long decayNanos, long seed) {
+			assert senders.size() > 1;
+			this.subSenders = senders.toArray(new RpcSender[0]);
+			this.activeRequests = new int[subSenders.length];
+			this.averageLatencies = new double[subSenders.length];
+			this.lastUpdates = new long[subSenders.length];
+			this.decayNanos = decayNanos;
+			this.lastRandomLong = seed;
+		}
+
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, Callback<O> cb) {
+			int first = nextInt(subSenders.length);
+			int second = nextInt(subSenders.length - 1);
+			if (second >= first) second++;
+			int index = cost(first) <= cost(second) ? first : second;
+
+			activeRequests[index]++;
+			long start = System.nanoTime();
+			subSenders[index].sendRequest(request, timeout, (O result, @Nullable Exception e) -> {
+				activeRequests[index]--;
+				if (!(e instanceof RpcOverloadException)) {
+					updateLatency(index, start, System.nanoTime());
+				}
+				cb.accept(result, e);
+			});
+		}
+
+		public int getActiveRequests(int index) {
+			return activeRequests[index];
+		}
+
+		public double getAverageLatencyNanos(int index) {
+			return averageLatencies[index];
+		}
+
+		private double cost(int index) {
+			return (averageLatencies[index] + 1.0) * (activeRequests[index] + 1);
+		}
+
+		private void updateLatency(int index, long start, long now) {
+			double latency = now - start;
+			double average = averageLatencies[index];
+			if (latency > average) {
+				averageLatencies[index] = latency;
+			} else {
+				double weight = Math.exp(-(now - lastUpdates[index]) / decayNanos);
+				averageLatencies[index] = average * weight + latency * (1.0 - weight);
+			}
+			lastUpdates[index] = now;
+		}
+
+		private int nextInt(int bound) {
+			lastRandomLong ^= (lastRandomLong << 21);
+			lastRandomLong ^= (lastRandomLong >>> 35);
+			lastRandomLong ^= (lastRandomLong << 4);
+			return (int) ((lastRandomLong & Long.MAX_VALUE) % bound);
+		}
+	}
+}
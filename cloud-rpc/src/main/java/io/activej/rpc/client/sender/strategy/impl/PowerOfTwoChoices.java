@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.rpc.client.sender.strategy.impl;
+
+import io.activej.async.callback.Callback;
+import io.activej.common.annotation.ExposedInternals;
+import io.activej.common.builder.AbstractBuilder;
+import io.activej.rpc.client.RpcClientConnectionPool;
+import io.activej.rpc.client.sender.RpcSender;
+import io.activej.rpc.client.sender.Utils;
+import io.activej.rpc.client.sender.strategy.RpcStrategy;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A strategy that picks two random sub-senders for each request
+ * and sends the request to the one with fewer outstanding requests.
+ * <p>
+ * Outstanding requests are counted per sub-sender by this strategy itself,
+ * so that a slow or stalled server quickly stops receiving its full share of requests.
+ */
+@ExposedInternals
+public final class PowerOfTwoChoices implements RpcStrategy {
+	public final List<? extends RpcStrategy> list;
+	public int minActiveSubStrategies;
+	public Random random;
+
+	public PowerOfTwoChoices(List<? extends RpcStrategy> list, int minActiveSubStrategies, Random random) {
+		this.list = list;
+		this.minActiveSubStrategies = minActiveSubStrategies;
+		this.random = random;
+	}
+
+	public static PowerOfTwoChoices create(RpcStrategy... strategies) {
+		return builder(strategies).build();
+	}
+
+	public static PowerOfTwoChoices create(List<? extends RpcStrategy> strategies) {
+		return builder(strategies).build();
+	}
+
+	public static Builder builder(RpcStrategy... strategies) {
+		return builder(List.of(strategies));
+	}
+
+	public static Builder builder(List<? extends RpcStrategy> strategies) {
+		return new PowerOfTwoChoices(strategies, 0, new Random()).new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, PowerOfTwoChoices> {
+		private Builder() {}
+
+		public Builder withMinActiveSubStrategies(int minActiveSubStrategies) {
+			checkNotBuilt(this);
+			PowerOfTwoChoices.this.minActiveSubStrategies = minActiveSubStrategies;
+			return this;
+		}
+
+		public Builder withRandom(Random random) {
+			checkNotBuilt(this);
+			PowerOfTwoChoices.this.random = random;
+			return this;
+		}
+
+		@Override
+		protected PowerOfTwoChoices doBuild() {
+			return PowerOfTwoChoices.this;
+		}
+	}
+
+	@Override
+	public Set<InetSocketAddress> getAddresses() {
+		return Utils.getAddresses(list);
+	}
+
+	@Override
+	public @Nullable RpcSender createSender(RpcClientConnectionPool pool) {
+		List<RpcSender> subSenders = Utils.listOfSenders(list, pool);
+		if (subSenders.size() < minActiveSubStrategies)
+			return null;
+		if (subSenders.isEmpty())
+			return null;
+		if (subSenders.size() == 1)
+			return subSenders.get(0);
+		long randomLong = random.nextLong();
+		return new Sender(subSenders, randomLong != 0L ? randomLong : 2347230858016798896L);
+	}
+
+	public static final class Sender implements RpcSender {
+		private final RpcSender[] subSenders;
+		private final int[] activeRequests;
+
+		private long lastRandomLong;
+
+		Sender(List<RpcSender> senders, long seed) {
+			assert senders.size() > 1;
+			this.subSenders = senders.toArray(new RpcSender[0]);
+			this.activeRequests = new int[subSenders.length];
+			this.lastRandomLong = seed;
+		}
+
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, Callback<O> cb) {
+			int first = nextInt(subSenders.length);
+			int second = nextInt(subSenders.length - 1);
+			if (second >= first) second++;
+			int index = activeRequests[first] <= activeRequests[second] ? first : second;
+
+			activeRequests[index]++;
+			subSenders[index].sendRequest(request, timeout, (O result, @Nullable Exception e) -> {
+				activeRequests[index]--;
+				cb.accept(result, e);
+			});
+		}
+
+		public int getActiveRequests(int index) {
+			return activeRequests[index];
+		}
+
+		private int nextInt(int bound) {
+			lastRandomLong ^= (lastRandomLong << 21);
+			lastRandomLong ^= (lastRandomLong >>> 35);
+			lastRandomLong ^= (lastRandomLong << 4);
+			return (int) ((lastRandomLong & Long.MAX_VALUE) % bound);
+		}
+	}
+}
@@ -24,8 +24,8 @@ import io.activej.serializer.annotations.SerializeNullable;
 public final class RpcMessage {
 	public static final String SUBCLASSES_ID = "data";
 
-	private final int index;
-	private final Object message;
+	private int index;
+	private Object message;
 
 	public RpcMessage(@Deserialize("index") int index, @Deserialize("message") Object message) {
 		this.index = index;
@@ -36,6 +36,17 @@ public final class RpcMessage {
 		this(0, controlMessage);
 	}
 
+	/**
+	 * Reinitializes this message, so that a single instance may be reused for sending consecutive messages.
+	 * <p>
+	 * A message may only be reused once it has been serialized.
+	 */
+	public RpcMessage reset(int index, Object message) {
+		this.index = index;
+		this.message = message;
+		return this;
+	}
+
 	@Serialize(order = 1)
 	public int getIndex() {
 		return index;
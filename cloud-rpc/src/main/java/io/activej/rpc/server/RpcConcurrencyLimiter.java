@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.rpc.server;
+
+import io.activej.common.builder.AbstractBuilder;
+import io.activej.jmx.api.attribute.JmxAttribute;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * An adaptive limit of concurrently handled RPC requests.
+ * <p>
+ * The limit is adjusted once per window of completed requests (no smaller than the limit itself)
+ * using a latency gradient: a ratio between a long-term average of request handling time
+ * and an average handling time within the last window.
+ * While handling time stays close to its long-term average, the limit grows by a small queue allowance,
+ * once requests start to queue up and handling time rises, the limit shrinks proportionally.
+ * <p>
+ * A limiter is not thread-safe and should be used from a reactor thread only.
+ */
+public final class RpcConcurrencyLimiter {
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+	public static final int DEFAULT_MIN_LIMIT = 1;
+	public static final int DEFAULT_MAX_LIMIT = 1000;
+	public static final double DEFAULT_TOLERANCE = 1.5;
+	public static final double DEFAULT_SMOOTHING = 0.2;
+
+	private static final int MIN_WINDOW_SAMPLES = 10;
+	private static final double LONG_TERM_ALPHA = 2.0 / (20 + 1);
+
+	private int minLimit = DEFAULT_MIN_LIMIT;
+	private int maxLimit = DEFAULT_MAX_LIMIT;
+	private double tolerance = DEFAULT_TOLERANCE;
+	private double smoothing = DEFAULT_SMOOTHING;
+
+	private double limit = DEFAULT_INITIAL_LIMIT;
+	private int inflight;
+
+	private double longTermLatency;
+
+	private double windowLatencySum;
+	private int windowSamples;
+	private int windowMaxInflight;
+
+	private long rejected;
+
+	private RpcConcurrencyLimiter() {
+	}
+
+	public static RpcConcurrencyLimiter create() {
+		return builder().build();
+	}
+
+	public static Builder builder() {
+		return new RpcConcurrencyLimiter().new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, RpcConcurrencyLimiter> {
+		private Builder() {}
+
+		public Builder withInitialLimit(int initialLimit) {
+			checkNotBuilt(this);
+			checkArgument(initialLimit > 0, "Initial limit should be positive");
+			RpcConcurrencyLimiter.this.limit = initialLimit;
+			return this;
+		}
+
+		public Builder withMinLimit(int minLimit) {
+			checkNotBuilt(this);
+			checkArgument(minLimit > 0, "Min limit should be positive");
+			RpcConcurrencyLimiter.this.minLimit = minLimit;
+			return this;
+		}
+
+		public Builder withMaxLimit(int maxLimit) {
+			checkNotBuilt(this);
+			checkArgument(maxLimit > 0, "Max limit should be positive");
+			RpcConcurrencyLimiter.this.maxLimit = maxLimit;
+			return this;
+		}
+
+		/**
+		 * Sets how many times short-term handling time may exceed
+		 * its long-term average before the limit starts to shrink
+		 */
+		public Builder withTolerance(double tolerance) {
+			checkNotBuilt(this);
+			checkArgument(tolerance >= 1.0, "Tolerance should not be less than 1");
+			RpcConcurrencyLimiter.this.tolerance = tolerance;
+			return this;
+		}
+
+		/**
+		 * Sets how fast the limit moves towards a newly estimated value, in range (0, 1]
+		 */
+		public Builder withSmoothing(double smoothing) {
+			checkNotBuilt(this);
+			checkArgument(smoothing > 0 && smoothing <= 1.0, "Smoothing should be in range (0, 1]");
+			RpcConcurrencyLimiter.this.smoothing = smoothing;
+			return this;
+		}
+
+		@Override
+		protected RpcConcurrencyLimiter doBuild() {
+			checkArgument(minLimit <= maxLimit, "Min limit should not be greater than max limit");
+			limit = Math.max(minLimit, Math.min(maxLimit, limit));
+			return RpcConcurrencyLimiter.this;
+		}
+	}
+
+	/**
+	 * Tries to acquire a permit for a new request
+	 *
+	 * @return {@code true} if a request may be handled, {@code false} if it should be rejected
+	 */
+	public boolean tryAcquire() {
+		if (inflight >= (int) limit) {
+			rejected++;
+			return false;
+		}
+		inflight++;
+		return true;
+	}
+
+	/**
+	 * Releases a permit of a completed request and adjusts the limit
+	 *
+	 * @param handlingTimeNanos a time it took to handle a request
+	 */
+	public void onComplete(long handlingTimeNanos) {
+		windowMaxInflight = Math.max(windowMaxInflight, inflight--);
+		windowLatencySum += Math.max(1, handlingTimeNanos);
+		if (++windowSamples < Math.max(MIN_WINDOW_SAMPLES, (int) limit)) return;
+
+		double shortTermLatency = windowLatencySum / windowSamples;
+		int maxInflight = windowMaxInflight;
+		windowLatencySum = 0;
+		windowSamples = 0;
+		windowMaxInflight = 0;
+
+		if (longTermLatency == 0) {
+			longTermLatency = shortTermLatency;
+			return;
+		}
+		longTermLatency += (shortTermLatency - longTermLatency) * LONG_TERM_ALPHA;
+
+		// let long-term average recover faster after a period of sustained overload
+		if (longTermLatency / shortTermLatency > 2) {
+			longTermLatency *= 0.95;
+		}
+
+		// do not grow the limit while it is not actually reached
+		if (maxInflight < limit / 2) return;
+
+		double gradient = Math.max(0.5, Math.min(1.0, tolerance * longTermLatency / shortTermLatency));
+		double newLimit = limit * gradient + Math.sqrt(limit);
+		limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+	}
+
+	/**
+	 * Releases a permit of a request without adjusting the limit
+	 */
+	public void onIgnore() {
+		inflight--;
+	}
+
+	@JmxAttribute(description = "current limit of concurrently handled requests")
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	@JmxAttribute(description = "number of currently handled requests")
+	public int getInflight() {
+		return inflight;
+	}
+
+	@JmxAttribute(description = "total number of requests rejected because of the limit")
+	public long getRejected() {
+		return rejected;
+	}
+
+	@Override
+	public String toString() {
+		return "RpcConcurrencyLimiter{limit=" + getLimit() + ", inflight=" + inflight + ", rejected=" + rejected + '}';
+	}
+}
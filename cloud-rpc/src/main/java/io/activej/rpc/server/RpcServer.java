@@ -42,6 +42,7 @@ import org.jetbrains.annotations.Nullable;
 import java.net.InetAddress;
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static io.activej.common.Checks.checkArgument;
 import static io.activej.common.Checks.checkState;
@@ -85,6 +86,9 @@ public final class RpcServer extends AbstractReactiveServer {
 
 	private final List<RpcServerConnection> connections = new ArrayList<>();
 
+	private @Nullable RpcConcurrencyLimiter concurrencyLimiter;
+	private @Nullable Supplier<RpcConcurrencyLimiter> connectionConcurrencyLimiterFactory;
+
 	private BinarySerializer<RpcMessage> requestSerializer;
 	private BinarySerializer<RpcMessage> responseSerializer;
 
@@ -96,6 +100,7 @@ public final class RpcServer extends AbstractReactiveServer {
 	private final Map<InetAddress, EventStats> connectsPerAddress = new HashMap<>();
 	private final EventStats successfulRequests = EventStats.create(SMOOTHING_WINDOW);
 	private final EventStats failedRequests = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats rejectedRequests = EventStats.create(SMOOTHING_WINDOW);
 	private final ValueStats requestHandlingTime = ValueStats.builder(SMOOTHING_WINDOW)
 		.withUnit("milliseconds")
 		.build();
@@ -258,6 +263,33 @@ public final class RpcServer extends AbstractReactiveServer {
 			return this;
 		}
 
+		/**
+		 * Limits the number of requests handled concurrently by this server.
+		 * Requests that exceed the limit are rejected early with an {@link io.activej.rpc.protocol.RpcOverloadException}
+		 * on a client side.
+		 *
+		 * @param concurrencyLimiter a limiter shared by all the connections of this server
+		 * @return the builder for RPC server with a concurrency limit
+		 */
+		public Builder withConcurrencyLimiter(RpcConcurrencyLimiter concurrencyLimiter) {
+			checkNotBuilt(this);
+			RpcServer.this.concurrencyLimiter = concurrencyLimiter;
+			return this;
+		}
+
+		/**
+		 * Limits the number of requests handled concurrently by each connection of this server,
+		 * so that a single client cannot take up the whole capacity of a server.
+		 *
+		 * @param concurrencyLimiterFactory a factory of limiters, called for each new connection
+		 * @return the builder for RPC server with a per-connection concurrency limit
+		 */
+		public Builder withConnectionConcurrencyLimiter(Supplier<RpcConcurrencyLimiter> concurrencyLimiterFactory) {
+			checkNotBuilt(this);
+			RpcServer.this.connectionConcurrencyLimiterFactory = concurrencyLimiterFactory;
+			return this;
+		}
+
 		@Override
 		protected RpcServer doBuild() {
 			checkState(handlers.size() > 1, "No RPC handlers added");
@@ -270,7 +302,8 @@ public final class RpcServer extends AbstractReactiveServer {
 	protected void serve(ITcpSocket socket, InetAddress remoteAddress) {
 		RpcStream stream = new RpcStream(socket, requestSerializer, responseSerializer, initialBufferSize,
 			autoFlushInterval, frameFormat, true); // , statsSerializer, statsDeserializer, statsCompressor, statsDecompressor);
-		RpcServerConnection connection = new RpcServerConnection(reactor, this, remoteAddress, handlers, stream);
+		RpcServerConnection connection = new RpcServerConnection(reactor, this, remoteAddress, handlers, stream,
+			connectionConcurrencyLimiterFactory != null ? connectionConcurrencyLimiterFactory.get() : null);
 		stream.setListener(connection);
 		add(connection);
 
@@ -388,6 +421,16 @@ public final class RpcServer extends AbstractReactiveServer {
 		return failedRequests;
 	}
 
+	@JmxAttribute(extraSubAttributes = "totalCount", description = "requests rejected because of a concurrency limit")
+	public EventStats getRejectedRequests() {
+		return rejectedRequests;
+	}
+
+	@JmxAttribute(description = "server-wide concurrency limiter")
+	public @Nullable RpcConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
 	@JmxAttribute(description = "time for handling one request in milliseconds (both successful and failed)")
 	public ValueStats getRequestHandlingTime() {
 		return requestHandlingTime;
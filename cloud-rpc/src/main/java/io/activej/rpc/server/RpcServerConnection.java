@@ -28,6 +28,7 @@ import io.activej.reactor.AbstractReactive;
 import io.activej.reactor.Reactor;
 import io.activej.rpc.protocol.RpcControlMessage;
 import io.activej.rpc.protocol.RpcMessage;
+import io.activej.rpc.protocol.RpcOverloadException;
 import io.activej.rpc.protocol.RpcRemoteException;
 import io.activej.rpc.protocol.RpcStream;
 import org.jetbrains.annotations.Nullable;
@@ -40,11 +41,17 @@ import java.util.Map;
 public final class RpcServerConnection extends AbstractReactive implements RpcStream.Listener, JmxRefreshable {
 	private static final Logger logger = LoggerFactory.getLogger(RpcServerConnection.class);
 
+	private static final String OVERLOADED_MESSAGE = "RPC server is overloaded";
+
 	private StreamDataAcceptor<RpcMessage> downstreamDataAcceptor;
 
 	private final RpcServer rpcServer;
 	private final RpcStream stream;
 	private final Map<Class<?>, RpcRequestHandler<?, ?>> handlers;
+	private final @Nullable RpcConcurrencyLimiter serverLimiter;
+	private final @Nullable RpcConcurrencyLimiter connectionLimiter;
+
+	private @Nullable RpcMessage reusableMessage = new RpcMessage(0, null);
 
 	private int activeRequests = 1;
 
@@ -56,16 +63,20 @@ public final class RpcServerConnection extends AbstractReactive implements RpcSt
 		.build();
 	private final EventStats successfulRequests = EventStats.create(RpcServer.SMOOTHING_WINDOW);
 	private final EventStats failedRequests = EventStats.create(RpcServer.SMOOTHING_WINDOW);
+	private final EventStats rejectedRequests = EventStats.create(RpcServer.SMOOTHING_WINDOW);
 	private boolean monitoring = false;
 
 	RpcServerConnection(
 		Reactor reactor, RpcServer rpcServer, InetAddress remoteAddress,
-		Map<Class<?>, RpcRequestHandler<?, ?>> handlers, RpcStream stream
+		Map<Class<?>, RpcRequestHandler<?, ?>> handlers, RpcStream stream,
+		@Nullable RpcConcurrencyLimiter connectionLimiter
 	) {
 		super(reactor);
 		this.rpcServer = rpcServer;
 		this.stream = stream;
 		this.handlers = handlers;
+		this.serverLimiter = rpcServer.getConcurrencyLimiter();
+		this.connectionLimiter = connectionLimiter;
 
 		// jmx
 		this.remoteAddress = remoteAddress;
@@ -82,21 +93,32 @@ public final class RpcServerConnection extends AbstractReactive implements RpcSt
 
 	@Override
 	public void accept(RpcMessage message) {
+		int index = message.getIndex();
+		Object messageData = message.getMessage();
+
+		boolean limited = (serverLimiter != null || connectionLimiter != null) && !(messageData instanceof RpcControlMessage);
+		if (limited && !tryAcquire()) {
+			reject(index);
+			return;
+		}
+
 		activeRequests++;
 
-		int index = message.getIndex();
 		long startTime = monitoring ? System.currentTimeMillis() : 0;
+		long startNanos = limited ? System.nanoTime() : 0;
 
-		Object messageData = message.getMessage();
 		serve(messageData)
 			.subscribe((result, e) -> {
+				if (limited) {
+					release(System.nanoTime() - startNanos);
+				}
 				if (startTime != 0) {
 					long value = System.currentTimeMillis() - startTime;
 					requestHandlingTime.recordValue(value);
 					rpcServer.getRequestHandlingTime().recordValue(value);
 				}
 				if (e == null) {
-					downstreamDataAcceptor.accept(new RpcMessage(index, result));
+					send(index, result);
 
 					successfulRequests.recordEvent();
 					rpcServer.getSuccessfulRequests().recordEvent();
@@ -113,6 +135,47 @@ public final class RpcServerConnection extends AbstractReactive implements RpcSt
 			});
 	}
 
+	/**
+	 * Sends a response reusing a single message envelope, as the downstream serializer
+	 * encodes a message synchronously. A fresh envelope is used on a reentrant call.
+	 */
+	private void send(int index, Object result) {
+		RpcMessage message = reusableMessage;
+		if (message == null) {
+			downstreamDataAcceptor.accept(new RpcMessage(index, result));
+			return;
+		}
+		reusableMessage = null;
+		downstreamDataAcceptor.accept(message.reset(index, result));
+		reusableMessage = message.reset(0, null);
+	}
+
+	private boolean tryAcquire() {
+		if (connectionLimiter != null && !connectionLimiter.tryAcquire()) {
+			return false;
+		}
+		if (serverLimiter != null && !serverLimiter.tryAcquire()) {
+			if (connectionLimiter != null) connectionLimiter.onIgnore();
+			return false;
+		}
+		return true;
+	}
+
+	private void release(long handlingTimeNanos) {
+		if (connectionLimiter != null) connectionLimiter.onComplete(handlingTimeNanos);
+		if (serverLimiter != null) serverLimiter.onComplete(handlingTimeNanos);
+	}
+
+	/**
+	 * Rejects a request with an error that is seen as {@link RpcOverloadException} on a client side
+	 */
+	private void reject(int index) {
+		rejectedRequests.recordEvent();
+		rpcServer.getRejectedRequests().recordEvent();
+		RpcRemoteException overloaded = new RpcRemoteException(OVERLOADED_MESSAGE, RpcOverloadException.class.getName(), OVERLOADED_MESSAGE);
+		downstreamDataAcceptor.accept(new RpcMessage(index, overloaded));
+	}
+
 	@Override
 	public void onReceiverEndOfStream() {
 		activeRequests--;
@@ -195,6 +258,16 @@ public final class RpcServerConnection extends AbstractReactive implements RpcSt
 		return failedRequests;
 	}
 
+	@JmxAttribute
+	public EventStats getRejectedRequests() {
+		return rejectedRequests;
+	}
+
+	@JmxAttribute
+	public @Nullable RpcConcurrencyLimiter getConcurrencyLimiter() {
+		return connectionLimiter;
+	}
+
 	@JmxAttribute
 	public ValueStats getRequestHandlingTime() {
 		return requestHandlingTime;
@@ -214,6 +287,7 @@ public final class RpcServerConnection extends AbstractReactive implements RpcSt
 	public void refresh(long timestamp) {
 		successfulRequests.refresh(timestamp);
 		failedRequests.refresh(timestamp);
+		rejectedRequests.refresh(timestamp);
 		requestHandlingTime.refresh(timestamp);
 	}
 
@@ -0,0 +1,112 @@
+package io.activej.rpc;
+
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.reactor.Reactor;
+import io.activej.reactor.nio.NioReactor;
+import io.activej.rpc.client.RpcClient;
+import io.activej.rpc.protocol.RpcOverloadException;
+import io.activej.rpc.server.RpcConcurrencyLimiter;
+import io.activej.rpc.server.RpcServer;
+import io.activej.test.rules.ActivePromisesRule;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.ClassBuilderConstantsRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.activej.promise.TestUtils.await;
+import static io.activej.rpc.client.sender.strategy.RpcStrategies.server;
+import static io.activej.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public final class RpcConcurrencyLimitTest {
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@Rule
+	public final ActivePromisesRule activePromisesRule = new ActivePromisesRule();
+
+	@Rule
+	public final ClassBuilderConstantsRule classBuilderConstantsRule = new ClassBuilderConstantsRule();
+
+	private static final int SERVER_DELAY = 50;
+	private static final int LIMIT = 3;
+
+	private RpcClient client;
+	private RpcServer server;
+	private RpcConcurrencyLimiter limiter;
+
+	@Before
+	public void setUp() throws Exception {
+		int port = getFreePort();
+		NioReactor reactor = Reactor.getCurrentReactor();
+
+		limiter = RpcConcurrencyLimiter.builder()
+			.withInitialLimit(LIMIT)
+			.withMinLimit(LIMIT)
+			.withMaxLimit(LIMIT)
+			.build();
+
+		server = RpcServer.builder(reactor)
+			.withMessageTypes(String.class)
+			.withHandler(String.class, request -> Promises.delay(SERVER_DELAY, request))
+			.withConcurrencyLimiter(limiter)
+			.withListenPort(port)
+			.build();
+
+		client = RpcClient.builder(reactor)
+			.withMessageTypes(String.class)
+			.withStrategy(server(new InetSocketAddress(port)))
+			.build();
+
+		server.listen();
+	}
+
+	@Test
+	public void shouldRejectRequestsOverLimit() {
+		int requests = LIMIT * 3;
+		List<Object> results = new ArrayList<>();
+		await(client.start()
+			.then(() -> {
+				List<Promise<Void>> promises = new ArrayList<>();
+				for (int i = 0; i < requests; i++) {
+					promises.add(client.<String, String>sendRequest("request " + i)
+						.map((response, e) -> {
+							results.add(e == null ? response : e);
+							return null;
+						}));
+				}
+				return Promises.all(promises);
+			})
+			.then(() -> client.stop())
+			.then(server::close));
+
+		long rejected = results.stream().filter(result -> result instanceof RpcOverloadException).count();
+		assertEquals(requests - LIMIT, rejected);
+		assertEquals(requests - LIMIT, limiter.getRejected());
+		assertEquals(requests - LIMIT, server.getRejectedRequests().getTotalCount());
+		assertEquals(0, limiter.getInflight());
+	}
+
+	@Test
+	public void shouldAcceptRequestsWithinLimit() {
+		String response = await(client.start()
+			.then(() -> client.<String, String>sendRequest("request"))
+			.then(res -> client.stop()
+				.then(server::close)
+				.map($ -> res)));
+
+		assertEquals("request", response);
+		assertEquals(0, limiter.getRejected());
+	}
+}
@@ -0,0 +1,76 @@
+package io.activej.rpc;
+
+import io.activej.rpc.server.RpcConcurrencyLimiter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class RpcConcurrencyLimiterTest {
+
+	@Test
+	public void testLimitGrowsUnderStableLatency() {
+		RpcConcurrencyLimiter limiter = RpcConcurrencyLimiter.builder()
+			.withInitialLimit(10)
+			.build();
+
+		for (int round = 0; round < 100; round++) {
+			int acquired = acquireAll(limiter);
+			for (int i = 0; i < acquired; i++) {
+				limiter.onComplete(1_000_000);
+			}
+		}
+
+		assertTrue(limiter.getLimit() > 10);
+		assertEquals(0, limiter.getInflight());
+	}
+
+	@Test
+	public void testLimitShrinksWhenLatencyRises() {
+		RpcConcurrencyLimiter limiter = RpcConcurrencyLimiter.builder()
+			.withInitialLimit(100)
+			.withMinLimit(5)
+			.build();
+
+		for (int round = 0; round < 50; round++) {
+			int acquired = acquireAll(limiter);
+			for (int i = 0; i < acquired; i++) {
+				limiter.onComplete(1_000_000);
+			}
+		}
+		int stableLimit = limiter.getLimit();
+
+		for (int round = 0; round < 3; round++) {
+			int acquired = acquireAll(limiter);
+			for (int i = 0; i < acquired; i++) {
+				limiter.onComplete(20_000_000);
+			}
+		}
+
+		assertTrue(limiter.getLimit() < stableLimit);
+		assertTrue(limiter.getLimit() >= 5);
+	}
+
+	@Test
+	public void testRejectsOverLimit() {
+		RpcConcurrencyLimiter limiter = RpcConcurrencyLimiter.builder()
+			.withInitialLimit(2)
+			.withMaxLimit(2)
+			.build();
+
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(1, limiter.getRejected());
+
+		limiter.onIgnore();
+		assertTrue(limiter.tryAcquire());
+	}
+
+	private static int acquireAll(RpcConcurrencyLimiter limiter) {
+		int acquired = 0;
+		while (limiter.tryAcquire()) {
+			acquired++;
+		}
+		return acquired;
+	}
+}
@@ -0,0 +1,72 @@
+package io.activej.rpc.client;
+
+import io.activej.async.callback.Callback;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public final class RpcActiveRequestsTest {
+
+	@Test
+	public void testPutRemove() {
+		RpcActiveRequests requests = new RpcActiveRequests();
+		Callback<?> cb1 = (result, e) -> {};
+		Callback<?> cb2 = (result, e) -> {};
+
+		requests.put(1, cb1);
+		requests.put(2, cb2);
+		assertEquals(2, requests.size());
+
+		assertNull(requests.remove(3));
+		assertSame(cb2, requests.remove(2));
+		assertNull(requests.remove(2));
+		assertSame(cb1, requests.remove(1));
+		assertTrue(requests.isEmpty());
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(0);
+		RpcActiveRequests requests = new RpcActiveRequests();
+		Map<Integer, Callback<?>> expected = new HashMap<>();
+		List<Integer> pending = new ArrayList<>();
+
+		// indices wrap around to check negative keys as well
+		int index = Integer.MAX_VALUE - 50_000;
+		for (int i = 0; i < 100_000; i++) {
+			if (pending.isEmpty() || random.nextInt(3) != 0) {
+				index++;
+				Callback<?> cb = (result, e) -> {};
+				requests.put(index, cb);
+				expected.put(index, cb);
+				pending.add(index);
+			} else {
+				Integer key = pending.remove(random.nextInt(pending.size()));
+				assertSame(expected.remove(key), requests.remove(key));
+			}
+			assertEquals(expected.size(), requests.size());
+		}
+
+		for (Map.Entry<Integer, Callback<?>> entry : expected.entrySet()) {
+			assertSame(entry.getValue(), requests.remove(entry.getKey()));
+		}
+		assertTrue(requests.isEmpty());
+	}
+
+	@Test
+	public void testRemoveAll() {
+		RpcActiveRequests requests = new RpcActiveRequests();
+		Set<Callback<?>> callbacks = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			Callback<?> cb = (result, e) -> {};
+			callbacks.add(cb);
+			requests.put(i, cb);
+		}
+
+		assertEquals(callbacks, new HashSet<>(requests.removeAll()));
+		assertTrue(requests.isEmpty());
+		assertNull(requests.remove(10));
+	}
+}
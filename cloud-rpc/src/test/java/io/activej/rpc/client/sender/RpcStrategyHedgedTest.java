@@ -0,0 +1,148 @@
+package io.activej.rpc.client.sender;
+
+import io.activej.eventloop.Eventloop;
+import io.activej.reactor.Reactor;
+import io.activej.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.activej.rpc.client.sender.helper.RpcPendingSenderStub;
+import io.activej.rpc.client.sender.strategy.impl.Hedged;
+import io.activej.rpc.protocol.RpcOverloadException;
+import io.activej.test.ExpectedException;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.activej.rpc.client.sender.strategy.RpcStrategies.servers;
+import static io.activej.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public class RpcStrategyHedgedTest {
+	private static final String HOST = "localhost";
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	private final RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+	private final RpcPendingSenderStub connection1 = new RpcPendingSenderStub();
+	private final RpcPendingSenderStub connection2 = new RpcPendingSenderStub();
+	private final List<Object> results = new ArrayList<>();
+	private final List<Exception> exceptions = new ArrayList<>();
+
+	private Eventloop eventloop;
+	private InetSocketAddress address1;
+	private InetSocketAddress address2;
+
+	@Before
+	public void setUp() {
+		eventloop = Reactor.getCurrentReactor();
+		address1 = new InetSocketAddress(HOST, getFreePort());
+		address2 = new InetSocketAddress(HOST, getFreePort());
+		pool.put(address1, connection1);
+		pool.put(address2, connection2);
+	}
+
+	@Test
+	public void itShouldSendDuplicateAfterHedgeDelay() {
+		RpcSender sender = createSender(1.0);
+		eventloop.post(() -> {
+			send(sender);
+			eventloop.delay(50, () -> {
+				assertEquals(1, connection2.getRequests());
+				connection2.completeAll("hedge");
+			});
+		});
+		eventloop.run();
+
+		assertEquals(List.of("hedge"), results);
+		assertEquals(1, connection1.getPending());
+
+		connection1.completeAll("primary");
+		assertEquals(List.of("hedge"), results);
+		assertTrue(exceptions.isEmpty());
+	}
+
+	@Test
+	public void itShouldNotHedgeFastResponses() {
+		RpcSender sender = createSender(1.0);
+		eventloop.post(() -> {
+			send(sender);
+			connection1.completeAll("primary");
+			eventloop.delay(50, () -> {});
+		});
+		eventloop.run();
+
+		assertEquals(List.of("primary"), results);
+		assertEquals(0, connection2.getRequests());
+	}
+
+	@Test
+	public void itShouldRespectHedgeBudget() {
+		RpcSender sender = createSender(0.0);
+		eventloop.post(() -> {
+			send(sender);
+			eventloop.delay(50, () -> connection1.completeAll("primary"));
+		});
+		eventloop.run();
+
+		assertEquals(List.of("primary"), results);
+		assertEquals(0, connection2.getRequests());
+	}
+
+	@Test
+	public void itShouldHedgeImmediatelyOnFailure() {
+		RpcSender sender = createSender(1.0);
+		send(sender);
+		connection1.failAll(new ExpectedException());
+		assertEquals(1, connection2.getRequests());
+		assertTrue(results.isEmpty());
+
+		connection2.completeAll("hedge");
+		assertEquals(List.of("hedge"), results);
+		assertTrue(exceptions.isEmpty());
+	}
+
+	@Test
+	public void itShouldIgnoreOverloadedDuplicate() {
+		RpcSender sender = createSender(1.0);
+		eventloop.post(() -> {
+			send(sender);
+			eventloop.delay(50, () -> {
+				assertEquals(1, connection2.getRequests());
+				connection2.failAll(new RpcOverloadException("overloaded"));
+				assertTrue(results.isEmpty());
+				assertTrue(exceptions.isEmpty());
+				connection1.completeAll("primary");
+			});
+		});
+		eventloop.run();
+
+		assertEquals(List.of("primary"), results);
+		assertTrue(exceptions.isEmpty());
+	}
+
+	private RpcSender createSender(double maxHedgeRatio) {
+		RpcSender sender = Hedged.builder(servers(address1, address2))
+			.withHedgeDelay(Duration.ofMillis(10))
+			.withHedgePercentile(0)
+			.withMaxHedgeRatio(maxHedgeRatio)
+			.build()
+			.createSender(pool);
+		assertTrue(sender instanceof Hedged.Sender);
+		return sender;
+	}
+
+	private void send(RpcSender sender) {
+		sender.sendRequest(new Object(), 1000, (result, e) -> {
+			if (e == null) {
+				results.add(result);
+			} else {
+				exceptions.add(e);
+			}
+		});
+	}
+}
@@ -0,0 +1,84 @@
+package io.activej.rpc.client.sender;
+
+import io.activej.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.activej.rpc.client.sender.helper.RpcMessageDataStub;
+import io.activej.rpc.client.sender.helper.RpcPendingSenderStub;
+import io.activej.rpc.client.sender.strategy.impl.LeastLatency;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static io.activej.rpc.client.sender.Callbacks.ignore;
+import static io.activej.rpc.client.sender.strategy.RpcStrategies.leastLatency;
+import static io.activej.rpc.client.sender.strategy.RpcStrategies.servers;
+import static io.activej.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public class RpcStrategyLeastLatencyTest {
+	private static final String HOST = "localhost";
+
+	private InetSocketAddress address1;
+	private InetSocketAddress address2;
+
+	@Before
+	public void setUp() {
+		address1 = new InetSocketAddress(HOST, getFreePort());
+		address2 = new InetSocketAddress(HOST, getFreePort());
+	}
+
+	@Test
+	public void itShouldPreferFasterServer() throws InterruptedException {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcPendingSenderStub slow = new RpcPendingSenderStub();
+		RpcPendingSenderStub fast = new RpcPendingSenderStub();
+		pool.put(address1, slow);
+		pool.put(address2, fast);
+
+		LeastLatency.Sender sender = (LeastLatency.Sender) leastLatency(servers(address1, address2)).createSender(pool);
+		Object data = new RpcMessageDataStub();
+
+		// probe both servers
+		sender.sendRequest(data, 1000, ignore());
+		sender.sendRequest(data, 1000, ignore());
+		assertEquals(1, slow.getPending());
+		assertEquals(1, fast.getPending());
+		fast.completeAll();
+		Thread.sleep(20);
+		slow.completeAll();
+
+		assertTrue(sender.getAverageLatencyNanos(0) > sender.getAverageLatencyNanos(1));
+
+		for (int i = 0; i < 100; i++) {
+			sender.sendRequest(data, 1000, ignore());
+			fast.completeAll();
+		}
+
+		assertEquals(1, slow.getRequests());
+		assertEquals(101, fast.getRequests());
+	}
+
+	@Test
+	public void itShouldAccountForOutstandingRequests() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcPendingSenderStub connection1 = new RpcPendingSenderStub();
+		RpcPendingSenderStub connection2 = new RpcPendingSenderStub();
+		pool.put(address1, connection1);
+		pool.put(address2, connection2);
+
+		LeastLatency.Sender sender = (LeastLatency.Sender) leastLatency(servers(address1, address2)).createSender(pool);
+		Object data = new RpcMessageDataStub();
+		for (int i = 0; i < 10; i++) {
+			sender.sendRequest(data, 1000, ignore());
+		}
+		connection1.completeAll();
+		connection2.completeAll();
+
+		for (int i = 0; i < 100; i++) {
+			sender.sendRequest(data, 1000, ignore());
+		}
+
+		assertTrue(connection1.getPending() > 0);
+		assertTrue(connection2.getPending() > 0);
+	}
+}
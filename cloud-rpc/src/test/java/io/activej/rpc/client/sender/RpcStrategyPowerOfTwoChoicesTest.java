@@ -0,0 +1,84 @@
+package io.activej.rpc.client.sender;
+
+import io.activej.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.activej.rpc.client.sender.helper.RpcMessageDataStub;
+import io.activej.rpc.client.sender.helper.RpcPendingSenderStub;
+import io.activej.rpc.client.sender.helper.RpcSenderStub;
+import io.activej.rpc.client.sender.strategy.RpcStrategy;
+import io.activej.rpc.client.sender.strategy.impl.PowerOfTwoChoices;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static io.activej.rpc.client.sender.Callbacks.ignore;
+import static io.activej.rpc.client.sender.strategy.RpcStrategies.*;
+import static io.activej.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public class RpcStrategyPowerOfTwoChoicesTest {
+	private static final String HOST = "localhost";
+
+	private InetSocketAddress address1;
+	private InetSocketAddress address2;
+	private InetSocketAddress address3;
+
+	@Before
+	public void setUp() {
+		address1 = new InetSocketAddress(HOST, getFreePort());
+		address2 = new InetSocketAddress(HOST, getFreePort());
+		address3 = new InetSocketAddress(HOST, getFreePort());
+	}
+
+	@Test
+	public void itShouldAvoidStalledServer() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcPendingSenderStub stalled = new RpcPendingSenderStub();
+		RpcPendingSenderStub healthy = new RpcPendingSenderStub();
+		pool.put(address1, stalled);
+		pool.put(address2, healthy);
+
+		RpcSender sender = powerOfTwoChoices(servers(address1, address2)).createSender(pool);
+		Object data = new RpcMessageDataStub();
+		for (int i = 0; i < 100; i++) {
+			sender.sendRequest(data, 50, ignore());
+			healthy.completeAll();
+		}
+
+		assertEquals(1, stalled.getRequests());
+		assertEquals(99, healthy.getRequests());
+		assertEquals(1, ((PowerOfTwoChoices.Sender) sender).getActiveRequests(0));
+	}
+
+	@Test
+	public void itShouldBalanceOutstandingRequests() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcPendingSenderStub connection1 = new RpcPendingSenderStub();
+		RpcPendingSenderStub connection2 = new RpcPendingSenderStub();
+		RpcPendingSenderStub connection3 = new RpcPendingSenderStub();
+		pool.put(address1, connection1);
+		pool.put(address2, connection2);
+		pool.put(address3, connection3);
+
+		RpcSender sender = powerOfTwoChoices(servers(address1, address2, address3)).createSender(pool);
+		Object data = new RpcMessageDataStub();
+		for (int i = 0; i < 300; i++) {
+			sender.sendRequest(data, 50, ignore());
+		}
+
+		assertTrue(Math.abs(connection1.getPending() - 100) <= 2);
+		assertTrue(Math.abs(connection2.getPending() - 100) <= 2);
+		assertTrue(Math.abs(connection3.getPending() - 100) <= 2);
+	}
+
+	@Test
+	public void itShouldNotCreateSenderIfNotEnoughSubSenders() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		pool.put(address1, new RpcSenderStub());
+		RpcStrategy strategy = PowerOfTwoChoices.builder(servers(address1, address2, address3))
+			.withMinActiveSubStrategies(2)
+			.build();
+
+		assertNull(strategy.createSender(pool));
+	}
+}
@@ -0,0 +1,45 @@
+package io.activej.rpc.client.sender.helper;
+
+import io.activej.async.callback.Callback;
+import io.activej.rpc.client.sender.RpcSender;
+
+import java.util.ArrayDeque;
+
+/**
+ * A sender stub that keeps callbacks of requests until they are completed explicitly
+ */
+public final class RpcPendingSenderStub implements RpcSender {
+	private final ArrayDeque<Callback<Object>> pending = new ArrayDeque<>();
+	private int requests;
+
+	public int getRequests() {
+		return requests;
+	}
+
+	public int getPending() {
+		return pending.size();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <I, O> void sendRequest(I request, int timeout, Callback<O> cb) {
+		requests++;
+		pending.add((Callback<Object>) cb);
+	}
+
+	public void completeAll() {
+		completeAll(null);
+	}
+
+	public void completeAll(Object result) {
+		while (!pending.isEmpty()) {
+			pending.poll().accept(result, null);
+		}
+	}
+
+	public void failAll(Exception e) {
+		while (!pending.isEmpty()) {
+			pending.poll().accept(null, e);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package io.activej.rpc.client.sender.strategy.impl;
+
+import io.activej.rpc.client.sender.helper.RpcPendingSenderStub;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class HedgedSenderTest {
+
+	@Test
+	public void testResponsesCountOverflow() {
+		Hedged.Sender sender = new Hedged.Sender(List.of(new RpcPendingSenderStub(), new RpcPendingSenderStub()),
+			10, 0.5, 0.1, null);
+		sender.responsesCount = Integer.MAX_VALUE - 10;
+
+		for (int i = 0; i < 2048; i++) {
+			sender.recordResponseTime(100);
+		}
+		assertEquals(Integer.MAX_VALUE - 10 + 2048L, sender.getResponsesCount());
+		assertEquals(100, sender.getCurrentHedgeDelay());
+
+		for (int i = 0; i < 1024; i++) {
+			sender.recordResponseTime(i < 512 ? 1 : 50);
+		}
+		assertEquals(50, sender.getCurrentHedgeDelay());
+	}
+}
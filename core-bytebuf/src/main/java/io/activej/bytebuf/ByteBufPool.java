@@ -20,11 +20,14 @@ import io.activej.bytebuf.ByteBuf.ByteBufSlice;
 import io.activej.common.ApplicationSettings;
 import io.activej.common.MemSize;
 import io.activej.common.concurrent.ObjectPool;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.StackWalker.StackFrame;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
 
 import static io.activej.common.Checks.checkArgument;
 import static java.lang.Integer.numberOfLeadingZeros;
@@ -42,6 +45,9 @@ import static java.util.stream.Collectors.toList;
  * When you need a new ByteBuf, it is either created (if a ByteBuf of
  * such capacity hasn't been used and recycled yet) or popped from the
  * appropriate slabs' stack.
+ * <p>
+ * The pool also keeps 33 off-heap slabs of direct {@link ByteBuffer}s
+ * which may be used as a staging area for socket I/O, see {@link #allocateDirect(int)}.
  */
 @SuppressWarnings({"WeakerAccess", "unused"})
 public final class ByteBufPool {
@@ -86,6 +92,30 @@ public final class ByteBufPool {
 	 */
 	static final boolean CLEAR_ON_RECYCLE = ApplicationSettings.getBoolean(ByteBufPool.class, "clearOnRecycle", false);
 
+	/**
+	 * Enables off-heap slabs of pooled direct {@link ByteBuffer}s, which are used by socket I/O
+	 * as a staging area instead of JDK's temporary per-thread direct buffers.
+	 * By default, set at value {@code false}.
+	 * <p>
+	 * This is not a zero-copy mode: {@code ByteBuf}s stay on heap, so data is still copied
+	 * once per I/O between a {@code ByteBuf} and a pooled direct buffer, just like JDK does with
+	 * its temporary buffers. What is saved is allocation of direct memory for those temporary buffers,
+	 * which JDK caches per thread and reallocates whenever a larger buffer is needed.
+	 *
+	 * @see #allocateDirect(int)
+	 */
+	static final boolean DIRECT = ApplicationSettings.getBoolean(ByteBufPool.class, "direct", false);
+
+	/**
+	 * Defines the capacity of thread-local magazines which are placed in front
+	 * of each of the shared slabs. A magazine is refilled from and spilled to
+	 * the shared slab in batches of half of its capacity, so that most of
+	 * {@link #allocate(int)} and {@link #recycle(ByteBuf)} calls do not touch shared state.
+	 * By default, set at value 0, which means that magazines are disabled.
+	 */
+	static final int MAGAZINE_SIZE = ApplicationSettings.getInt(ByteBufPool.class, "magazineSize", 0);
+	static final boolean USE_MAGAZINES = MAGAZINE_SIZE > 0;
+
 	static final boolean USE_WATCHDOG = ApplicationSettings.getBoolean(ByteBufPool.class, "useWatchdog", false);
 	static final Duration WATCHDOG_INTERVAL = ApplicationSettings.getDuration(ByteBufPool.class, "watchdogInterval", Duration.ofSeconds(2));
 	static final Duration WATCHDOG_SMOOTHING_WINDOW = ApplicationSettings.getDuration(ByteBufPool.class, "watchdogSmoothingWindow", Duration.ofSeconds(10));
@@ -106,6 +136,23 @@ public final class ByteBufPool {
 	static final AtomicInteger[] created;
 	static final AtomicInteger[] reused;
 
+	/**
+	 * Off-heap counterparts of {@link #slabs}, each of them stores direct
+	 * {@link ByteBuffer}s of a particular capacity which is a power of two.
+	 */
+	static final ObjectPool<ByteBuffer>[] directSlabs;
+	static final SlabStats[] directSlabStats;
+	static final AtomicInteger[] directCreated;
+	static final AtomicInteger[] directReused;
+
+	private static volatile int magazinesEpoch;
+	private static final Map<Thread, Magazine> magazines = Collections.synchronizedMap(new WeakHashMap<>());
+	private static final ThreadLocal<Magazine> MAGAZINE = ThreadLocal.withInitial(() -> {
+		Magazine magazine = new Magazine(MAGAZINE_SIZE);
+		magazines.put(Thread.currentThread(), magazine);
+		return magazine;
+	});
+
 	private static final ByteBufPoolStats stats = new ByteBufPoolStats();
 
 	/**
@@ -168,19 +215,29 @@ public final class ByteBufPool {
 		slabStats = new SlabStats[NUMBER_OF_SLABS];
 		created = new AtomicInteger[NUMBER_OF_SLABS];
 		reused = new AtomicInteger[NUMBER_OF_SLABS];
+		directSlabs = new ObjectPool[NUMBER_OF_SLABS];
+		directSlabStats = new SlabStats[NUMBER_OF_SLABS];
+		directCreated = new AtomicInteger[NUMBER_OF_SLABS];
+		directReused = new AtomicInteger[NUMBER_OF_SLABS];
 		for (int i = 0; i < NUMBER_OF_SLABS; i++) {
 			slabs[i] = new ObjectPool<>();
 			created[i] = new AtomicInteger();
 			reused[i] = new AtomicInteger();
+			directSlabs[i] = new ObjectPool<>();
+			directCreated[i] = new AtomicInteger();
+			directReused[i] = new AtomicInteger();
 		}
 		if (USE_WATCHDOG) {
 			for (int i = 0; i < NUMBER_OF_SLABS; i++) {
 				slabStats[i] = new SlabStats();
+				directSlabStats[i] = new SlabStats();
 			}
 			Thread watchdogThread = new Thread(() -> {
 				while (true) {
-					updateStats();
-					evict();
+					updateStats(slabs, slabStats);
+					evict(slabs, slabStats);
+					updateStats(directSlabs, directSlabStats);
+					evict(directSlabs, directSlabStats);
 					try {
 						//noinspection BusyWait
 						Thread.sleep(WATCHDOG_INTERVAL.toMillis());
@@ -221,7 +278,7 @@ public final class ByteBufPool {
 		}
 		int index = 32 - numberOfLeadingZeros(size - 1); // index==32 for size==0
 		ObjectPool<ByteBuf> slab = slabs[index];
-		ByteBuf buf = slab.poll();
+		ByteBuf buf = USE_MAGAZINES ? magazine().poll(index) : slab.poll();
 		if (buf != null) {
 			if (USE_WATCHDOG) {
 				int slabSize = slab.size();
@@ -243,6 +300,15 @@ public final class ByteBufPool {
 		return buf;
 	}
 
+	private static Magazine magazine() {
+		Magazine magazine = MAGAZINE.get();
+		if (magazine.epoch != magazinesEpoch) {
+			magazine.clear();
+			magazine.epoch = magazinesEpoch;
+		}
+		return magazine;
+	}
+
 	private static void recordNew(int index) {
 		created[index].incrementAndGet();
 	}
@@ -316,7 +382,68 @@ public final class ByteBufPool {
 			recycleRegistry.put(buf, buildRegistryEntry(buf));
 			allocateRegistry.remove(buf);
 		}
-		pool.offer(buf);
+		if (USE_MAGAZINES) {
+			magazine().offer(slab, buf);
+		} else {
+			pool.offer(buf);
+		}
+	}
+
+	/**
+	 * Shows whether off-heap slabs are enabled for socket I/O
+	 * by means of {@code ByteBufPool.direct} setting.
+	 *
+	 * @return {@code true} if socket I/O should be staged through
+	 * direct buffers of this pool, otherwise {@code false}
+	 */
+	public static boolean isDirect() {
+		return DIRECT;
+	}
+
+	/**
+	 * Allocates direct {@link ByteBuffer} from the off-heap slabs of the pool with capacity of
+	 * <code>ceil(log<sub>2</sub>(size))<sup>2</sup></code>
+	 * (rounds up to the nearest power of 2) bytes.
+	 * <p>
+	 * Returned buffer is cleared, so its position is 0 and its limit is equal to its capacity.
+	 * The buffer should be returned to the pool via {@link #recycleDirect(ByteBuffer)}
+	 * once it is no longer used.
+	 *
+	 * @param size returned buffer capacity is guaranteed to be bigger or equal to requested size
+	 * @return direct byte buffer from this pool
+	 */
+	public static ByteBuffer allocateDirect(int size) {
+		assert size >= 0 : "Allocating ByteBuffer with negative size";
+		int index = 32 - numberOfLeadingZeros(size - 1); // index==32 for size==0
+		ObjectPool<ByteBuffer> slab = directSlabs[index];
+		ByteBuffer buffer = slab.poll();
+		if (buffer != null) {
+			if (USE_WATCHDOG) {
+				int slabSize = slab.size();
+				//noinspection NonAtomicOperationOnVolatileField
+				directSlabStats[index].min = Math.min(directSlabStats[index].min, slabSize);
+			}
+			buffer.clear();
+			if (STATS) directReused[index].incrementAndGet();
+		} else {
+			if (USE_WATCHDOG) directSlabStats[index].min = 0;
+			buffer = ByteBuffer.allocateDirect(index == 32 ? 0 : 1 << index);
+			if (STATS) directCreated[index].incrementAndGet();
+		}
+		return buffer;
+	}
+
+	/**
+	 * Returns provided direct ByteBuffer to the appropriate off-heap slab of the ByteBufPool.
+	 * <p>
+	 * Only buffers previously obtained from {@link #allocateDirect(int)} should be recycled.
+	 *
+	 * @param buffer the direct ByteBuffer to be recycled
+	 */
+	public static void recycleDirect(ByteBuffer buffer) {
+		assert buffer.isDirect() : "Recycling non-direct ByteBuffer";
+		int slab = 32 - numberOfLeadingZeros(buffer.capacity() - 1);
+		directSlabs[slab].offer(buffer);
 	}
 
 	public static ByteBuf ensureWriteRemaining(ByteBuf buf, int newWriteRemaining) {
@@ -405,13 +532,27 @@ public final class ByteBufPool {
 
 	/**
 	 * Clears all the slabs and stats.
+	 * <p>
+	 * If thread-local magazines are enabled, magazines of other threads
+	 * are emptied lazily, on their next access by owner threads.
 	 */
 	public static void clear() {
+		if (USE_MAGAZINES) {
+			//noinspection NonAtomicOperationOnVolatileField
+			magazinesEpoch++;
+			magazine();
+		}
 		for (int i = 0; i < ByteBufPool.NUMBER_OF_SLABS; i++) {
 			slabs[i].clear();
 			created[i].set(0);
 			reused[i].set(0);
-			if (USE_WATCHDOG) slabStats[i].clear();
+			directSlabs[i].clear();
+			directCreated[i].set(0);
+			directReused[i].set(0);
+			if (USE_WATCHDOG) {
+				slabStats[i].clear();
+				directSlabStats[i].clear();
+			}
 		}
 		allocateRegistry.clear();
 		recycleRegistry.clear();
@@ -438,6 +579,28 @@ public final class ByteBufPool {
 
 		List<String> getPoolSlabs();
 
+		int getMagazineItems();
+
+		long getMagazineHits();
+
+		long getMagazineRefills();
+
+		long getMagazineSpills();
+
+		double getMagazineHitRate();
+
+		int getDirectCreatedItems();
+
+		int getDirectReusedItems();
+
+		int getDirectPoolItems();
+
+		long getDirectPoolSize();
+
+		long getDirectPoolSizeKB();
+
+		List<String> getDirectPoolSlabs();
+
 		List<Entry> queryUnrecycledBufs(int limit);
 
 		void clear();
@@ -473,7 +636,7 @@ public final class ByteBufPool {
 
 		@Override
 		public int getPoolItems() {
-			return stream(slabs).mapToInt(ObjectPool::size).sum();
+			return stream(slabs).mapToInt(ObjectPool::size).sum() + getMagazineItems();
 		}
 
 		@SuppressWarnings("StringConcatenationInsideStringBufferAppend")
@@ -541,6 +704,82 @@ public final class ByteBufPool {
 
 		@Override
 		public List<String> getPoolSlabs() {
+			return getSlabs(slabs, slabStats, created, reused);
+		}
+
+		@Override
+		public int getMagazineItems() {
+			return (int) sumMagazines(Magazine::size);
+		}
+
+		@Override
+		public long getMagazineHits() {
+			return sumMagazines(magazine -> magazine.hits);
+		}
+
+		@Override
+		public long getMagazineRefills() {
+			return sumMagazines(magazine -> magazine.refills);
+		}
+
+		@Override
+		public long getMagazineSpills() {
+			return sumMagazines(magazine -> magazine.spills);
+		}
+
+		@Override
+		public double getMagazineHitRate() {
+			long hits = getMagazineHits();
+			long total = hits + getMagazineRefills();
+			return total == 0 ? 0.0 : (double) hits / total;
+		}
+
+		private static long sumMagazines(ToLongFunction<Magazine> fn) {
+			int epoch = magazinesEpoch;
+			synchronized (magazines) {
+				return magazines.values().stream()
+					.filter(magazine -> magazine.epoch == epoch)
+					.mapToLong(fn)
+					.sum();
+			}
+		}
+
+		@Override
+		public int getDirectCreatedItems() {
+			return stream(directCreated).mapToInt(AtomicInteger::get).sum();
+		}
+
+		@Override
+		public int getDirectReusedItems() {
+			return stream(directReused).mapToInt(AtomicInteger::get).sum();
+		}
+
+		@Override
+		public int getDirectPoolItems() {
+			return stream(directSlabs).mapToInt(ObjectPool::size).sum();
+		}
+
+		@Override
+		public long getDirectPoolSize() {
+			long result = 0;
+			for (int i = 0; i < directSlabs.length - 1; i++) {
+				long slabSize = 1L << i;
+				result += slabSize * directSlabs[i].size();
+			}
+			return result;
+		}
+
+		@Override
+		public long getDirectPoolSizeKB() {
+			return getDirectPoolSize() / 1024;
+		}
+
+		@Override
+		public List<String> getDirectPoolSlabs() {
+			return getSlabs(directSlabs, directSlabStats, directCreated, directReused);
+		}
+
+		private static List<String> getSlabs(ObjectPool<?>[] slabs, SlabStats[] slabStats, AtomicInteger[] created, AtomicInteger[] reused) {
 			List<String> result = new ArrayList<>(slabs.length + 1);
 			String header = "SlotSize,Created,Reused,InPool,Total(Kb)";
 			if (USE_WATCHDOG) header += ",Min,EstMin,Error,Evicted";
@@ -548,7 +787,7 @@ public final class ByteBufPool {
 			for (int i = 0; i < slabs.length; i++) {
 				int idx = (i + 32) % slabs.length;
 				long slabSize = idx == 32 ? 0 : 1L << idx;
-				ObjectPool<ByteBuf> slab = slabs[idx];
+				ObjectPool<?> slab = slabs[idx];
 				int count = slab.size();
 				String slabInfo =
 					slabSize + "," +
@@ -582,6 +821,119 @@ public final class ByteBufPool {
 		}
 	}
 
+	// region magazines
+
+	/**
+	 * A thread-local cache of ByteBufs, one bounded stack per slab.
+	 * <p>
+	 * When a stack becomes empty, it is refilled with a batch of ByteBufs
+	 * from the shared slab. When a stack becomes full, a batch of ByteBufs
+	 * is spilled back to the shared slab. This way ByteBufs which are allocated
+	 * on one thread and recycled on another eventually return to the shared slabs
+	 * and become available to all threads.
+	 * <p>
+	 * A magazine is only accessed by its owner thread, stats are read by JMX racily.
+	 */
+	static final class Magazine {
+		private final ByteBuf[][] stacks = new ByteBuf[NUMBER_OF_SLABS][];
+		private final int[] sizes = new int[NUMBER_OF_SLABS];
+		private final int capacity;
+		private final int batchSize;
+
+		volatile int epoch = magazinesEpoch;
+
+		long hits;
+		long refills;
+		long spills;
+
+		Magazine(int capacity) {
+			checkArgument(capacity > 0, "Magazine capacity must be positive");
+			this.capacity = capacity;
+			this.batchSize = max(1, capacity / 2);
+		}
+
+		@Nullable ByteBuf poll(int index) {
+			int size = sizes[index];
+			if (size == 0) {
+				size = refill(index);
+				if (size == 0) return null;
+			} else {
+				hits++;
+			}
+			ByteBuf[] stack = stacks[index];
+			ByteBuf buf = stack[--size];
+			stack[size] = null;
+			sizes[index] = size;
+			return buf;
+		}
+
+		void offer(int index, ByteBuf buf) {
+			int size = sizes[index];
+			ByteBuf[] stack = ensureStack(index);
+			if (size == capacity) {
+				size = spill(index);
+			}
+			stack[size] = buf;
+			sizes[index] = size + 1;
+		}
+
+		private int refill(int index) {
+			refills++;
+			ObjectPool<ByteBuf> slab = slabs[index];
+			ByteBuf[] stack = ensureStack(index);
+			int size = 0;
+			while (size < batchSize) {
+				ByteBuf buf = slab.poll();
+				if (buf == null) break;
+				stack[size++] = buf;
+			}
+			return size;
+		}
+
+		private int spill(int index) {
+			spills++;
+			ObjectPool<ByteBuf> slab = slabs[index];
+			ByteBuf[] stack = stacks[index];
+			int size = sizes[index];
+			for (int i = 0; i < batchSize; i++) {
+				slab.offer(stack[--size]);
+				stack[size] = null;
+			}
+			return size;
+		}
+
+		private ByteBuf[] ensureStack(int index) {
+			ByteBuf[] stack = stacks[index];
+			if (stack == null) {
+				stack = new ByteBuf[capacity];
+				stacks[index] = stack;
+			}
+			return stack;
+		}
+
+		int size(int index) {
+			return sizes[index];
+		}
+
+		int size() {
+			int result = 0;
+			for (int size : sizes) {
+				result += size;
+			}
+			return result;
+		}
+
+		void clear() {
+			for (int i = 0; i < NUMBER_OF_SLABS; i++) {
+				ByteBuf[] stack = stacks[i];
+				if (stack != null) Arrays.fill(stack, null);
+				sizes[i] = 0;
+			}
+			hits = refills = spills = 0;
+		}
+	}
+	//endregion
+
 	// region watchdog
 	public static final class SlabStats {
 		volatile int min = 0;
@@ -610,10 +962,10 @@ public final class ByteBufPool {
 		}
 	}
 
-	private static void updateStats() {
+	private static void updateStats(ObjectPool<?>[] slabs, SlabStats[] slabStats) {
 		for (int i = 0; i < slabs.length; i++) {
 			SlabStats stats = slabStats[i];
-			ObjectPool<ByteBuf> slab = slabs[i];
+			ObjectPool<?> slab = slabs[i];
 			int min = stats.min;
 			stats.min = slab.size();
 
@@ -628,14 +980,14 @@ public final class ByteBufPool {
 		}
 	}
 
-	private static void evict() {
+	private static void evict(ObjectPool<?>[] slabs, SlabStats[] slabStats) {
 		for (int i = 0; i < slabs.length; i++) {
-			ObjectPool<ByteBuf> slab = slabs[i];
+			ObjectPool<?> slab = slabs[i];
 			SlabStats stats = slabStats[i];
 			int evictCount = (int) Math.round(stats.estimatedMin - stats.estimatedError * WATCHDOG_ERROR_MARGIN);
 			stats.evictedLast = 0;
 			for (int j = 0; j < evictCount; j++) {
-				ByteBuf buf = slab.poll();
+				Object buf = slab.poll();
 				if (buf == null) {
 					if (USE_WATCHDOG) stats.min = 0;
 					break;
@@ -647,7 +999,7 @@ public final class ByteBufPool {
 				}
 				stats.estimatedMin--;
 				stats.evictedLast++;
-				if (REGISTRY) recycleRegistry.remove(buf);
+				if (REGISTRY && buf instanceof ByteBuf) recycleRegistry.remove(buf);
 			}
 			stats.evictedTotal += stats.evictedLast;
 			stats.evictedMax = Math.max(stats.evictedLast, stats.evictedMax);
@@ -3,6 +3,8 @@ package io.activej.bytebuf;
 import io.activej.common.concurrent.ObjectPool;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 import static io.activej.bytebuf.ByteBufTest.initByteBufPool;
 import static org.junit.Assert.*;
 
@@ -104,4 +106,58 @@ public class ByteArraySlabPoolTest {
 			checkReuse(i);
 		}
 	}
+
+	@Test
+	public void testDirectBuffersReuse() {
+		ByteBufPool.clear();
+
+		for (int i = 0; i < 100; i++) {
+			ByteBuffer buffer = ByteBufPool.allocateDirect(i);
+			assertTrue(buffer.isDirect());
+			assertTrue(buffer.capacity() >= i);
+			assertEquals(buffer.capacity(), buffer.limit());
+			buffer.put(new byte[i]);
+			ByteBufPool.recycleDirect(buffer);
+
+			ByteBuffer reallocated = ByteBufPool.allocateDirect(i);
+			assertSame(buffer, reallocated);
+			assertEquals(0, reallocated.position());
+			assertEquals(reallocated.capacity(), reallocated.limit());
+			ByteBufPool.recycleDirect(reallocated);
+		}
+		assertTrue(ByteBufPool.getStats().getDirectPoolItems() > 0);
+		assertTrue(ByteBufPool.slabs[7].isEmpty());
+	}
+
+	@Test
+	public void testMagazineRefillAndSpill() {
+		ByteBufPool.clear();
+		int index = 4;
+		ByteBufPool.Magazine magazine = new ByteBufPool.Magazine(4);
+
+		assertNull(magazine.poll(index));
+		assertEquals(1, magazine.refills);
+
+		ByteBuf[] bufs = new ByteBuf[5];
+		for (int i = 0; i < bufs.length; i++) {
+			bufs[i] = ByteBuf.wrapForWriting(new byte[16]);
+			magazine.offer(index, bufs[i]);
+		}
+		assertEquals(1, magazine.spills);
+		assertEquals(3, magazine.size(index));
+		assertEquals(2, ByteBufPool.slabs[index].size());
+
+		assertSame(bufs[4], magazine.poll(index));
+		assertSame(bufs[1], magazine.poll(index));
+		assertSame(bufs[0], magazine.poll(index));
+		assertEquals(3, magazine.hits);
+
+		assertNotNull(magazine.poll(index));
+		assertEquals(2, magazine.refills);
+		assertEquals(1, magazine.size(index));
+		assertTrue(ByteBufPool.slabs[index].isEmpty());
+
+		magazine.clear();
+		assertEquals(0, magazine.size());
+	}
 }
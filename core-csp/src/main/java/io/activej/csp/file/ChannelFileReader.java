@@ -24,6 +24,7 @@ import io.activej.bytebuf.ByteBufPool;
 import io.activej.common.MemSize;
 import io.activej.common.builder.AbstractBuilder;
 import io.activej.csp.supplier.AbstractChannelSupplier;
+import io.activej.net.socket.tcp.TcpSocket;
 import io.activej.promise.Promise;
 import io.activej.reactor.Reactor;
 import org.slf4j.Logger;
@@ -160,6 +161,39 @@ public final class ChannelFileReader extends AbstractChannelSupplier<ByteBuf> {
 		return position;
 	}
 
+	/**
+	 * Returns a maximum number of bytes left to be read, or {@link Long#MAX_VALUE} if the reader is not limited
+	 */
+	public long getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Transfers the rest of the file directly to a given socket by means of {@link FileChannel#transferTo},
+	 * so that file contents are not copied through the heap. The reader is closed once the transfer completes.
+	 * <p>
+	 * This method should be called instead of reading data from this supplier.
+	 */
+	public Promise<Void> transferTo(TcpSocket socket) {
+		if (isClosed()) return Promise.ofException(getException());
+		long count;
+		try {
+			count = limit != Long.MAX_VALUE ? limit : Math.max(0, channel.size() - position);
+		} catch (IOException e) {
+			closeEx(e);
+			return Promise.ofException(e);
+		}
+		return socket.transferFrom(channel, position, count)
+			.whenResult(() -> {
+				position += count;
+				if (limit != Long.MAX_VALUE) {
+					limit -= count;
+				}
+				close();
+			})
+			.whenException(this::closeEx);
+	}
+
 	@Override
 	protected Promise<ByteBuf> doGet() {
 		if (limit == 0) {
@@ -34,4 +34,13 @@ public interface IMessaging<I, O> extends AsyncCloseable {
 	ChannelSupplier<ByteBuf> receiveBinaryStream();
 
 	ChannelConsumer<ByteBuf> sendBinaryStream();
+
+	/**
+	 * Sends a given stream of binary data and returns a promise of the stream being fully sent.
+	 * <p>
+	 * Implementations may transfer file streams without copying their contents through the heap.
+	 */
+	default Promise<Void> sendBinaryStream(ChannelSupplier<ByteBuf> supplier) {
+		return supplier.streamTo(sendBinaryStream());
+	}
 }
@@ -25,9 +25,11 @@ import io.activej.csp.binary.BinaryChannelSupplier;
 import io.activej.csp.binary.codec.ByteBufsCodec;
 import io.activej.csp.consumer.ChannelConsumer;
 import io.activej.csp.consumer.ChannelConsumers;
+import io.activej.csp.file.ChannelFileReader;
 import io.activej.csp.supplier.ChannelSupplier;
 import io.activej.csp.supplier.ChannelSuppliers;
 import io.activej.net.socket.tcp.ITcpSocket;
+import io.activej.net.socket.tcp.TcpSocket;
 import io.activej.promise.Promise;
 
 import static io.activej.reactor.Reactive.checkInReactorThread;
@@ -125,6 +127,27 @@ public final class Messaging<I, O> extends AbstractAsyncCloseable implements IMe
 				.whenException(this::closeEx));
 	}
 
+	/**
+	 * Sends a given stream of binary data.
+	 * <p>
+	 * A {@link ChannelFileReader} is transferred with {@link TcpSocket#transferFrom zero-copy file transfer}
+	 * unless the socket is wrapped (e.g. by SSL), in which case the file is streamed through the heap.
+	 */
+	@Override
+	public Promise<Void> sendBinaryStream(ChannelSupplier<ByteBuf> supplier) {
+		if (CHECKS) checkInReactorThread(this);
+		if (supplier instanceof ChannelFileReader fileReader && socket instanceof TcpSocket tcpSocket) {
+			return fileReader.transferTo(tcpSocket)
+				.then(() -> socket.write(null))
+				.whenResult(() -> {
+					writeDone = true;
+					closeIfDone();
+				})
+				.whenException(this::closeEx);
+		}
+		return supplier.streamTo(sendBinaryStream());
+	}
+
 	@Override
 	public ChannelSupplier<ByteBuf> receiveBinaryStream() {
 		if (CHECKS) checkInReactorThread(this);
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.datastream.processor.reducer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A tournament tree of losers which selects the smallest of the head elements of sorted inputs.
+ * <p>
+ * Each input occupies a fixed slot. Polling a winner and offering the next element
+ * of the same input replays a single leaf-to-root path, which takes {@code log(k)} comparisons
+ * instead of {@code 2 * log(k)} comparisons of a binary heap. Offering an element
+ * to any other slot is rare (it only happens when an empty input receives data) and rebuilds the tree lazily.
+ *
+ * @param <E> type of elements
+ */
+final class LoserTree<E> {
+	private final Comparator<? super E> comparator;
+
+	private Object[] elements = new Object[0];
+	private int[] tree = new int[0];
+	private int[] winners = new int[0];
+	private int size;
+	private int count;
+
+	private int polled = -1;
+	private boolean dirty;
+
+	LoserTree(Comparator<? super E> comparator) {
+		this.comparator = comparator;
+	}
+
+	void offer(int slot, E element) {
+		if (slot >= size) {
+			grow(slot + 1);
+		}
+		assert elements[slot] == null;
+		elements[slot] = element;
+		count++;
+		if (slot == polled && !dirty) {
+			replay(slot);
+		} else {
+			dirty = true;
+		}
+		polled = -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	E poll() {
+		if (polled != -1) {
+			if (!dirty) replay(polled);
+			polled = -1;
+		}
+		if (dirty) rebuild();
+		if (count == 0) return null;
+		int winner = tree[0];
+		E element = (E) elements[winner];
+		elements[winner] = null;
+		count--;
+		polled = winner;
+		return element;
+	}
+
+	boolean isEmpty() {
+		return count == 0;
+	}
+
+	void clear() {
+		Arrays.fill(elements, null);
+		count = 0;
+		polled = -1;
+		dirty = true;
+	}
+
+	private void grow(int newSize) {
+		elements = Arrays.copyOf(elements, newSize);
+		tree = new int[newSize];
+		winners = new int[2 * newSize];
+		size = newSize;
+		dirty = true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean less(int slot1, int slot2) {
+		Object element1 = elements[slot1];
+		if (element1 == null) return false;
+		Object element2 = elements[slot2];
+		if (element2 == null) return true;
+		return comparator.compare((E) element1, (E) element2) < 0;
+	}
+
+	private void replay(int slot) {
+		int winner = slot;
+		for (int node = (slot + size) >>> 1; node != 0; node >>>= 1) {
+			int loser = tree[node];
+			if (less(loser, winner)) {
+				tree[node] = winner;
+				winner = loser;
+			}
+		}
+		tree[0] = winner;
+	}
+
+	private void rebuild() {
+		for (int i = 0; i < size; i++) {
+			winners[size + i] = i;
+		}
+		for (int node = size - 1; node != 0; node--) {
+			int left = winners[2 * node];
+			int right = winners[2 * node + 1];
+			if (less(right, left)) {
+				winners[node] = right;
+				tree[node] = left;
+			} else {
+				winners[node] = left;
+				tree[node] = right;
+			}
+		}
+		tree[0] = winners[1];
+		dirty = false;
+	}
+}
@@ -57,13 +57,13 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 	private @Nullable K key = null;
 	private @Nullable A accumulator;
 
-	private final PriorityQueue<Input<?>> priorityQueue;
+	private final LoserTree<Input<?>> loserTree;
 	private int streamsAwaiting;
 	private int streamsOpen;
 
-	private StreamReducer(PriorityQueue<Input<?>> priorityQueue) {
+	private StreamReducer(LoserTree<Input<?>> loserTree) {
 		this.output = new Output();
-		this.priorityQueue = priorityQueue;
+		this.loserTree = loserTree;
 	}
 
 	public static <K, O, A> StreamReducer<K, O, A> create(Comparator<K> keyComparator) {
@@ -75,7 +75,7 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 	}
 
 	public static <K, O, A> StreamReducer<K, O, A>.Builder builder(Comparator<K> keyComparator) {
-		return new StreamReducer<K, O, A>(new PriorityQueue<>(1, (input1, input2) -> {
+		return new StreamReducer<K, O, A>(new LoserTree<>((input1, input2) -> {
 			int compare = keyComparator.compare(input1.headKey, input2.headKey);
 			if (compare != 0) return compare;
 			return input1.index - input2.index;
@@ -84,7 +84,7 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 
 	@SuppressWarnings("ComparatorCombinators")
 	public static <K extends Comparable<K>, O, A> StreamReducer<K, O, A>.Builder builder() {
-		return new StreamReducer<K, O, A>(new PriorityQueue<>(1, (input1, input2) -> {
+		return new StreamReducer<K, O, A>(new LoserTree<>((input1, input2) -> {
 			int compare = input1.headKey.compareTo(input2.headKey);
 			if (compare != 0) return compare;
 			return input1.index - input2.index;
@@ -137,13 +137,13 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 		private I headItem;
 		private K headKey;
 		private final int index;
-		private final PriorityQueue<Input<?>> priorityQueue;
+		private final LoserTree<Input<?>> loserTree;
 		private final ArrayDeque<I> deque = new ArrayDeque<>();
 		private final int bufferSize;
 
 		protected Input() {
 			this.index = StreamReducer.this.inputs.size();
-			this.priorityQueue = StreamReducer.this.priorityQueue;
+			this.loserTree = StreamReducer.this.loserTree;
 			this.bufferSize = StreamReducer.this.bufferSize;
 		}
 
@@ -163,7 +163,7 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 			if (headItem == null) {
 				headItem = item;
 				headKey = this.apply(headItem);
-				priorityQueue.offer(this);
+				loserTree.offer(index, this);
 				if (advance() == 0) {
 					output.reduce();
 				}
@@ -250,7 +250,7 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 		@Override
 		protected void onResumed() {
 			while (streamsAwaiting == 0) {
-				Input<Object> input = (Input<Object>) priorityQueue.poll();
+				Input<Object> input = (Input<Object>) loserTree.poll();
 				if (input == null)
 					break;
 				if (input.isComplete())
@@ -269,7 +269,7 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 				lastInput = input;
 				if (input.headItem != null) {
 					input.headKey = input.apply(input.headItem);
-					priorityQueue.offer(input);
+					loserTree.offer(input.index, input);
 				} else {
 					if (!input.isEndOfStream()) {
 						input.await();
@@ -284,7 +284,7 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 				}
 			}
 
-			if (streamsOpen == 0 && priorityQueue.isEmpty()) {
+			if (streamsOpen == 0 && loserTree.isEmpty()) {
 				if (lastInput != null) {
 					lastInput.onComplete(getBufferedDataAcceptor(), key, accumulator);
 					lastInput = null;
@@ -304,7 +304,7 @@ public final class StreamReducer<K, O, A> extends ImplicitlyReactive implements
 
 		@Override
 		protected void onCleanup() {
-			priorityQueue.clear();
+			loserTree.clear();
 		}
 	}
 }
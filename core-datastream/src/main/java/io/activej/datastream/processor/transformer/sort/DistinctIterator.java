@@ -1,17 +1,17 @@
 package io.activej.datastream.processor.transformer.sort;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
 
 public final class DistinctIterator<K, T> implements Iterator<T> {
-	private final ArrayList<T> sortedList;
+	private final List<T> sortedList;
 	private final Function<T, K> keyFunction;
 	private final Comparator<K> keyComparator;
 	int i = 0;
 
-	DistinctIterator(ArrayList<T> sortedList, Function<T, K> keyFunction, Comparator<K> keyComparator) {
+	DistinctIterator(List<T> sortedList, Function<T, K> keyFunction, Comparator<K> keyComparator) {
 		this.sortedList = sortedList;
 		this.keyFunction = keyFunction;
 		this.keyComparator = keyComparator;
@@ -19,12 +19,16 @@ package io.activej.datastream.processor.transformer.sort;
 import io.activej.common.annotation.ComponentInterface;
 import io.activej.datastream.consumer.StreamConsumer;
 import io.activej.datastream.consumer.StreamConsumers;
+import io.activej.datastream.processor.transformer.StreamTransformers;
 import io.activej.datastream.supplier.StreamSupplier;
 import io.activej.datastream.supplier.StreamSuppliers;
 import io.activej.promise.Promise;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
+import static io.activej.common.Checks.checkState;
+
 /**
  * This class is for storing partitions of data from the stream during merge sort,
  * it stores data in some external storage to avoid RAM overflow.
@@ -58,6 +62,25 @@ public interface IStreamSorterStorage<T> {
 		return StreamSuppliers.ofPromise(read(partition));
 	}
 
+	/**
+	 * Returns an encoder of normalized sort keys which are stored next to the elements of partitions,
+	 * or {@code null} if partitions are merged by comparing deserialized elements
+	 */
+	default @Nullable SortKeyEncoder<T> getSortKeyEncoder() {
+		return null;
+	}
+
+	/**
+	 * Read a partition of elements together with their sort keys from the storage.
+	 * Should only be called if this storage has a {@link #getSortKeyEncoder() sort key encoder}
+	 */
+	default Promise<StreamSupplier<SortRecord<T>>> readRecords(int partition) {
+		SortKeyEncoder<T> sortKeyEncoder = getSortKeyEncoder();
+		checkState(sortKeyEncoder != null, "Storage has no sort key encoder");
+		return read(partition)
+			.map(supplier -> supplier.transformWith(StreamTransformers.mapper(SortRecord.encoder(sortKeyEncoder))));
+	}
+
 	/**
 	 * Removes listed partitions from the storage.
 	 */
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.datastream.processor.transformer.sort;
+
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes a sort key of an item into a normalized form, so that unsigned lexicographical order
+ * of encoded keys is the same as the order of the keys themselves, and equal keys are encoded into equal bytes.
+ * <p>
+ * Normalized keys let external sorting compare spilled items as raw bytes,
+ * without deserializing them.
+ *
+ * @param <T> type of items
+ */
+@FunctionalInterface
+public interface SortKeyEncoder<T> {
+	/**
+	 * Encodes a sort key of an item into a byte array
+	 *
+	 * @param array an array to write to
+	 * @param pos   a position to start writing at
+	 * @param item  an item whose key is encoded
+	 * @return a position after the encoded key
+	 * @throws ArrayIndexOutOfBoundsException if the key does not fit into the array
+	 */
+	int encode(byte[] array, int pos, T item);
+
+	/**
+	 * Encodes {@code int} keys ordered by {@link Integer#compare}
+	 */
+	static <T> SortKeyEncoder<T> ofInt(ToIntFunction<T> keyFunction) {
+		return (array, pos, item) -> {
+			int v = keyFunction.applyAsInt(item) ^ Integer.MIN_VALUE;
+			array[pos] = (byte) (v >>> 24);
+			array[pos + 1] = (byte) (v >>> 16);
+			array[pos + 2] = (byte) (v >>> 8);
+			array[pos + 3] = (byte) v;
+			return pos + 4;
+		};
+	}
+
+	/**
+	 * Encodes {@code long} keys ordered by {@link Long#compare}
+	 */
+	static <T> SortKeyEncoder<T> ofLong(ToLongFunction<T> keyFunction) {
+		return (array, pos, item) -> {
+			long v = keyFunction.applyAsLong(item) ^ Long.MIN_VALUE;
+			for (int i = 0; i < 8; i++) {
+				array[pos + i] = (byte) (v >>> (56 - 8 * i));
+			}
+			return pos + 8;
+		};
+	}
+
+	/**
+	 * Encodes string keys as UTF-8 bytes. The order of encoded keys is the same
+	 * as the order of {@link String#compareTo} for strings without supplementary characters
+	 */
+	static <T> SortKeyEncoder<T> ofString(Function<T, String> keyFunction) {
+		return (array, pos, item) -> {
+			byte[] bytes = keyFunction.apply(item).getBytes(UTF_8);
+			System.arraycopy(bytes, 0, array, pos, bytes.length);
+			return pos + bytes.length;
+		};
+	}
+}
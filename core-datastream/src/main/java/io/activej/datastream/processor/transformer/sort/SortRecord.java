@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.datastream.processor.transformer.sort;
+
+import io.activej.serializer.BinarySerializer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * An item of an external sort together with its normalized sort key.
+ * <p>
+ * Records are compared by their encoded keys. A value of a spilled record is deserialized
+ * only when it is requested, so that records which are merged away are never deserialized.
+ *
+ * @param <T> type of items
+ */
+public final class SortRecord<T> implements Comparable<SortRecord<T>> {
+	private final byte[] array;
+	private final int keyLength;
+	private final int valueOffset;
+	private final @Nullable BinarySerializer<T> serializer;
+	private T value;
+
+	private SortRecord(byte[] array, int keyLength, int valueOffset, @Nullable BinarySerializer<T> serializer, @Nullable T value) {
+		this.array = array;
+		this.keyLength = keyLength;
+		this.valueOffset = valueOffset;
+		this.serializer = serializer;
+		this.value = value;
+	}
+
+	/**
+	 * Creates a record of an encoded key followed by a serialized value
+	 *
+	 * @param array       an array which starts with an encoded key
+	 * @param keyLength   a length of an encoded key
+	 * @param valueOffset an offset of a serialized value
+	 * @param serializer  a serializer of values
+	 */
+	public static <T> SortRecord<T> ofSerialized(byte[] array, int keyLength, int valueOffset, BinarySerializer<T> serializer) {
+		return new SortRecord<>(array, keyLength, valueOffset, serializer, null);
+	}
+
+	/**
+	 * Returns a function which wraps items into records, encoding their keys with a given encoder
+	 */
+	public static <T> Function<T, SortRecord<T>> encoder(SortKeyEncoder<T> keyEncoder) {
+		return new Function<>() {
+			byte[] buf = new byte[64];
+
+			@Override
+			public SortRecord<T> apply(T item) {
+				while (true) {
+					try {
+						int keyLength = keyEncoder.encode(buf, 0, item);
+						return new SortRecord<>(Arrays.copyOf(buf, keyLength), keyLength, keyLength, null, item);
+					} catch (ArrayIndexOutOfBoundsException e) {
+						buf = new byte[buf.length * 2];
+					}
+				}
+			}
+		};
+	}
+
+	byte[] getArray() {
+		return array;
+	}
+
+	int getKeyLength() {
+		return keyLength;
+	}
+
+	int getValueOffset() {
+		return valueOffset;
+	}
+
+	/**
+	 * Returns whether the array of this record contains a serialized value after an encoded key
+	 */
+	boolean isSerialized() {
+		return serializer != null;
+	}
+
+	public T getValue() {
+		if (value == null) {
+			assert serializer != null;
+			value = serializer.decode(array, valueOffset);
+		}
+		return value;
+	}
+
+	@Override
+	public int compareTo(SortRecord<T> other) {
+		return Arrays.compareUnsigned(array, 0, keyLength, other.array, 0, other.keyLength);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		SortRecord<?> other = (SortRecord<?>) o;
+		return Arrays.equals(array, 0, keyLength, other.array, 0, other.keyLength);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (int i = 0; i < keyLength; i++) {
+			result = 31 * result + array[i];
+		}
+		return result;
+	}
+}
@@ -22,6 +22,7 @@ import io.activej.datastream.consumer.AbstractStreamConsumer;
 import io.activej.datastream.consumer.StreamConsumer;
 import io.activej.datastream.processor.reducer.StreamReducer;
 import io.activej.datastream.processor.transformer.StreamTransformer;
+import io.activej.datastream.processor.transformer.StreamTransformers;
 import io.activej.datastream.supplier.StreamDataAcceptor;
 import io.activej.datastream.supplier.StreamSupplier;
 import io.activej.datastream.supplier.StreamSuppliers;
@@ -29,15 +30,14 @@ import io.activej.promise.Promise;
 import io.activej.reactor.ImplicitlyReactive;
 import org.slf4j.Logger;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 import static io.activej.datastream.processor.reducer.Reducers.deduplicateReducer;
 import static io.activej.datastream.processor.reducer.Reducers.mergeReducer;
+import static java.util.function.Function.identity;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -61,6 +61,7 @@ public final class StreamSorter<K, T> extends ImplicitlyReactive implements Stre
 	private final StreamSupplier<T> output;
 
 	private Executor sortingExecutor = Runnable::run;
+	private boolean parallelSort;
 
 	private StreamSorter(
 		IStreamSorterStorage<T> storage, Function<T, K> keyFunction, Comparator<K> keyComparator, boolean deduplicate,
@@ -83,10 +84,10 @@ public final class StreamSorter<K, T> extends ImplicitlyReactive implements Stre
 			(this.temporaryStreamsAccumulator = AsyncAccumulator.create(partitionIds))
 				.get()
 				.then(streamIds -> {
-					ArrayList<T> sortedList = input.list;
+					ArrayList<T> list = input.list;
 					input.list = null;
-					return Promise.ofBlocking(sortingExecutor, () -> sortedList.sort(itemComparator))
-						.map($ -> {
+					return Promise.ofBlocking(sortingExecutor, () -> sort(list))
+						.map(sortedList -> {
 							StreamSupplier<T> listSupplier = StreamSuppliers.ofIterator(deduplicate ?
 								new DistinctIterator<>(sortedList, keyFunction, keyComparator) :
 								sortedList.iterator());
@@ -94,6 +95,10 @@ public final class StreamSorter<K, T> extends ImplicitlyReactive implements Stre
 							if (streamIds.isEmpty()) {
 								return listSupplier;
 							}
+							SortKeyEncoder<T> sortKeyEncoder = storage.getSortKeyEncoder();
+							if (sortKeyEncoder != null) {
+								return mergeRecords(listSupplier, streamIds, sortKeyEncoder);
+							}
 							StreamReducer<K, T, Void> streamMerger = StreamReducer.create(keyComparator);
 							listSupplier.streamTo(streamMerger.newInput(keyFunction, deduplicate ? deduplicateReducer() : mergeReducer()));
 							for (Integer streamId : streamIds) {
@@ -152,12 +157,51 @@ public final class StreamSorter<K, T> extends ImplicitlyReactive implements Stre
 			return this;
 		}
 
+		/**
+		 * Sorts each run with a parallel sort-merge, which splits a run into chunks
+		 * that are sorted concurrently and then merged.
+		 * <p>
+		 * Sorting is forked into the {@link ForkJoinPool} which runs the sorting task,
+		 * so a sorting executor that is a {@link ForkJoinPool} bounds the parallelism of all the runs.
+		 * Otherwise, the common pool is used
+		 */
+		public Builder withParallelSort(boolean parallelSort) {
+			checkNotBuilt(this);
+			StreamSorter.this.parallelSort = parallelSort;
+			return this;
+		}
+
 		@Override
 		protected StreamSorter<K, T> doBuild() {
 			return StreamSorter.this;
 		}
 	}
 
+	private StreamSupplier<T> mergeRecords(StreamSupplier<T> listSupplier, List<Integer> streamIds, SortKeyEncoder<T> sortKeyEncoder) {
+		StreamReducer<SortRecord<T>, SortRecord<T>, Void> streamMerger = StreamReducer.create();
+		listSupplier
+			.transformWith(StreamTransformers.mapper(SortRecord.encoder(sortKeyEncoder)))
+			.streamTo(streamMerger.newInput(identity(), distinct ? deduplicateReducer() : mergeReducer()));
+		for (Integer streamId : streamIds) {
+			StreamSuppliers.ofPromise(storage.readRecords(streamId))
+				.streamTo(streamMerger.newInput(identity(), distinct ? deduplicateReducer() : mergeReducer()));
+		}
+		return streamMerger.getOutput()
+			.transformWith(StreamTransformers.mapper(SortRecord::getValue));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<T> sort(ArrayList<T> list) {
+		if (!parallelSort) {
+			list.sort(itemComparator);
+			return list;
+		}
+		T[] array = (T[]) list.toArray();
+		list.clear();
+		Arrays.parallelSort(array, itemComparator);
+		return Arrays.asList(array);
+	}
+
 	public final class Input extends AbstractStreamConsumer<T> implements StreamDataAcceptor<T> {
 		private final List<Integer> partitionIds;
 
@@ -185,12 +229,12 @@ public final class StreamSorter<K, T> extends ImplicitlyReactive implements Stre
 			if (list.size() < itemsInMemory) {
 				return;
 			}
-			ArrayList<T> sortedList = this.list;
-			list = new ArrayList<>(itemsInMemory);
+			ArrayList<T> list = this.list;
+			this.list = new ArrayList<>(itemsInMemory);
 
 			temporaryStreamsAccumulator.addPromise(
-				Promise.ofBlocking(sortingExecutor, () -> sortedList.sort(itemComparator))
-					.then($ -> {
+				Promise.ofBlocking(sortingExecutor, () -> sort(list))
+					.then(sortedList -> {
 						Iterator<T> iterator = distinct ?
 							new DistinctIterator<>(sortedList, keyFunction, keyComparator) :
 							sortedList.iterator();
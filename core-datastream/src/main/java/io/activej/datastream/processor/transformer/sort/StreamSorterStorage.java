@@ -32,7 +32,12 @@ import io.activej.datastream.supplier.StreamSupplier;
 import io.activej.promise.Promise;
 import io.activej.reactor.AbstractReactive;
 import io.activej.reactor.Reactor;
+import io.activej.serializer.BinaryInput;
+import io.activej.serializer.BinaryOutput;
 import io.activej.serializer.BinarySerializer;
+import io.activej.serializer.CorruptedDataException;
+import io.activej.serializer.util.BinaryOutputUtils;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +45,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -71,6 +77,7 @@ public final class StreamSorterStorage<T> extends AbstractReactive
 	private String filePattern = DEFAULT_FILE_PATTERN;
 	private MemSize readBlockSize = ChannelSerializer.DEFAULT_INITIAL_BUFFER_SIZE;
 	private MemSize writeBlockSize = DEFAULT_SORTER_BLOCK_SIZE;
+	private @Nullable SortKeyEncoder<T> sortKeyEncoder;
 
 	private StreamSorterStorage(
 		Reactor reactor, Executor executor, BinarySerializer<T> serializer, FrameFormat frameFormat, Path path
@@ -138,12 +145,30 @@ public final class StreamSorterStorage<T> extends AbstractReactive
 			return this;
 		}
 
+		/**
+		 * Stores a normalized sort key next to each spilled item, so that spilled partitions
+		 * can be merged by comparing raw bytes, and only the items which are emitted
+		 * by the merge are deserialized.
+		 * <p>
+		 * An order of encoded keys should be the same as the order used by a sorter
+		 */
+		public Builder withSortKeyEncoder(SortKeyEncoder<T> sortKeyEncoder) {
+			checkNotBuilt(this);
+			StreamSorterStorage.this.sortKeyEncoder = sortKeyEncoder;
+			return this;
+		}
+
 		@Override
 		protected StreamSorterStorage<T> doBuild() {
 			return StreamSorterStorage.this;
 		}
 	}
 
+	@Override
+	public @Nullable SortKeyEncoder<T> getSortKeyEncoder() {
+		return sortKeyEncoder;
+	}
+
 	public Path getPath() {
 		return path;
 	}
@@ -162,7 +187,7 @@ public final class StreamSorterStorage<T> extends AbstractReactive
 		Path path = partitionPath(partition);
 		return Promise.of(StreamConsumers.ofSupplier(
 			supplier -> supplier
-				.transformWith(ChannelSerializer.builder(serializer)
+				.transformWith(ChannelSerializer.builder(sortKeyEncoder == null ? serializer : new KeyedSerializer<>(sortKeyEncoder, serializer))
 					.withInitialBufferSize(readBlockSize)
 					.build())
 				.transformWith(ChannelTransformers.chunkBytes(writeBlockSize.map(bytes -> bytes / 2), writeBlockSize))
@@ -184,7 +209,24 @@ public final class StreamSorterStorage<T> extends AbstractReactive
 		return ChannelFileReader.open(executor, path)
 			.map(file -> file
 				.transformWith(ChannelFrameDecoder.create(frameFormat))
-				.transformWith(ChannelDeserializer.create(serializer)));
+				.transformWith(ChannelDeserializer.create(sortKeyEncoder == null ? serializer : new KeyedSerializer<>(sortKeyEncoder, serializer))));
+	}
+
+	/**
+	 * Returns supplier of records for reading data from this storage. If sort keys are stored,
+	 * records are read without deserializing their values
+	 *
+	 * @param partition index of partition to read
+	 */
+	@Override
+	public Promise<StreamSupplier<SortRecord<T>>> readRecords(int partition) {
+		if (sortKeyEncoder == null) return IStreamSorterStorage.super.readRecords(partition);
+		Path path = partitionPath(partition);
+
+		return ChannelFileReader.open(executor, path)
+			.map(file -> file
+				.transformWith(ChannelFrameDecoder.create(frameFormat))
+				.transformWith(ChannelDeserializer.create(new RecordSerializer<>(serializer))));
 	}
 
 	/**
@@ -203,4 +245,111 @@ public final class StreamSorterStorage<T> extends AbstractReactive
 			}
 		});
 	}
+
+	/**
+	 * Serializes an item as an encoded key followed by a serialized value, each prefixed with its length
+	 */
+	private static final class KeyedSerializer<T> implements BinarySerializer<T> {
+		private static final int KEY_LENGTH_RESERVED = 1;
+		private static final int VALUE_LENGTH_RESERVED = 3;
+
+		private final SortKeyEncoder<T> sortKeyEncoder;
+		private final BinarySerializer<T> serializer;
+
+		KeyedSerializer(SortKeyEncoder<T> sortKeyEncoder, BinarySerializer<T> serializer) {
+			this.sortKeyEncoder = sortKeyEncoder;
+			this.serializer = serializer;
+		}
+
+		@Override
+		public int encode(byte[] array, int pos, T item) {
+			int keyEnd = sortKeyEncoder.encode(array, pos + KEY_LENGTH_RESERVED, item);
+			int valuePos = writeLength(array, pos, KEY_LENGTH_RESERVED, keyEnd);
+			int valueEnd = serializer.encode(array, valuePos + VALUE_LENGTH_RESERVED, item);
+			return writeLength(array, valuePos, VALUE_LENGTH_RESERVED, valueEnd);
+		}
+
+		@Override
+		public void encode(BinaryOutput out, T item) {
+			out.pos(encode(out.array(), out.pos(), item));
+		}
+
+		@Override
+		public T decode(BinaryInput in) throws CorruptedDataException {
+			int keyLength = in.readVarInt();
+			in.move(keyLength);
+			in.readVarInt();
+			return serializer.decode(in);
+		}
+
+		/**
+		 * Writes a length of data which follows {@code reserved} bytes at {@code pos},
+		 * as a varint padded to {@code reserved} bytes. Data is moved if its length does not fit
+		 */
+		private static int writeLength(byte[] array, int pos, int reserved, int end) {
+			int length = end - pos - reserved;
+			int lengthSize = varIntSize(length);
+			if (lengthSize > reserved) {
+				System.arraycopy(array, pos + reserved, array, pos + lengthSize, length);
+				return BinaryOutputUtils.writeVarInt(array, pos, length) + length;
+			}
+			for (int i = 0; i < reserved - 1; i++) {
+				array[pos + i] = (byte) (length & 0x7F | 0x80);
+				length >>>= 7;
+			}
+			array[pos + reserved - 1] = (byte) length;
+			return end;
+		}
+
+		private static int varIntSize(int value) {
+			return 1 + (31 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+		}
+	}
+
+	/**
+	 * Reads and writes records of an encoded key and a serialized value.
+	 * Values which have been read are not deserialized, and are written back as raw bytes
+	 */
+	static final class RecordSerializer<T> implements BinarySerializer<SortRecord<T>> {
+		private final BinarySerializer<T> serializer;
+
+		RecordSerializer(BinarySerializer<T> serializer) {
+			this.serializer = serializer;
+		}
+
+		/**
+		 * Partitions are written as plain items, so records are never written by a storage.
+		 * Writes a record in the same layout as {@link KeyedSerializer}, so that the layout read by
+		 * {@link #decode} can be verified by a round trip
+		 */
+		@Override
+		public void encode(BinaryOutput out, SortRecord<T> item) {
+			byte[] array = item.getArray();
+			int keyLength = item.getKeyLength();
+			out.writeVarInt(keyLength);
+			out.write(array, 0, keyLength);
+			if (item.isSerialized()) {
+				int valueOffset = item.getValueOffset();
+				int valueLength = array.length - valueOffset;
+				out.writeVarInt(valueLength);
+				out.write(array, valueOffset, valueLength);
+			} else {
+				int valuePos = out.pos();
+				int valueEnd = serializer.encode(out.array(), valuePos + KeyedSerializer.VALUE_LENGTH_RESERVED, item.getValue());
+				out.pos(KeyedSerializer.writeLength(out.array(), valuePos, KeyedSerializer.VALUE_LENGTH_RESERVED, valueEnd));
+			}
+		}
+
+		@Override
+		public SortRecord<T> decode(BinaryInput in) throws CorruptedDataException {
+			int keyLength = in.readVarInt();
+			int keyPos = in.pos();
+			in.move(keyLength);
+			int valueLength = in.readVarInt();
+			int valueOffset = in.pos() - keyPos;
+			byte[] bytes = Arrays.copyOfRange(in.array(), keyPos, in.pos() + valueLength);
+			in.move(valueLength);
+			return SortRecord.ofSerialized(bytes, keyLength, valueOffset, serializer);
+		}
+	}
 }
@@ -15,6 +15,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -56,6 +57,39 @@ public class StreamReducerTest {
 		assertConsumersEndOfStream(streamReducer.getInputs());
 	}
 
+	@Test
+	public void testMergeManyInputs() {
+		Random random = new Random(0);
+		StreamReducer<Integer, Integer, Void> streamReducer = StreamReducer.<Integer, Integer, Void>builder()
+			.withBufferSize(3)
+			.build();
+
+		List<Integer> expected = new ArrayList<>();
+		List<StreamSupplier<Integer>> sources = new ArrayList<>();
+		for (int i = 0; i < 37; i++) {
+			List<Integer> values = IntStream.range(0, random.nextInt(50))
+				.mapToObj($ -> random.nextInt(1000))
+				.sorted()
+				.toList();
+			expected.addAll(values);
+			StreamSupplier<Integer> source = StreamSuppliers.ofIterable(values);
+			source.streamTo(streamReducer.newInput(identity(), mergeReducer()));
+			sources.add(source);
+		}
+		expected.sort(null);
+
+		ToListStreamConsumer<Integer> consumer = ToListStreamConsumer.create();
+		await(streamReducer.getOutput()
+			.streamTo(consumer.transformWith(randomlySuspending())));
+
+		assertEquals(expected, consumer.getList());
+		for (StreamSupplier<Integer> source : sources) {
+			assertEndOfStream(source);
+		}
+		assertEndOfStream(streamReducer.getOutput());
+		assertConsumersEndOfStream(streamReducer.getInputs());
+	}
+
 	@Test
 	public void testDeduplicate2() {
 		StreamSupplier<Integer> source0 = StreamSuppliers.empty();
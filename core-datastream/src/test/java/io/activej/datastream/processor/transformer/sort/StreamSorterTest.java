@@ -11,6 +11,8 @@ import io.activej.datastream.supplier.StreamSuppliers;
 import io.activej.promise.Promise;
 import io.activej.promise.Promises;
 import io.activej.reactor.Reactor;
+import io.activej.serializer.BinaryInput;
+import io.activej.serializer.BinaryOutput;
 import io.activej.test.ExpectedException;
 import io.activej.test.rules.ByteBufRule;
 import io.activej.test.rules.EventloopRule;
@@ -24,9 +26,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static io.activej.datastream.TestStreamTransformers.*;
@@ -36,6 +41,7 @@ import static io.activej.datastream.processor.transformer.sort.FailingStubStream
 import static io.activej.promise.TestUtils.await;
 import static io.activej.promise.TestUtils.awaitException;
 import static io.activej.serializer.BinarySerializers.INT_SERIALIZER;
+import static io.activej.serializer.BinarySerializers.UTF8_SERIALIZER;
 import static org.junit.Assert.*;
 
 public final class StreamSorterTest {
@@ -100,6 +106,82 @@ public final class StreamSorterTest {
 		assertEndOfStream(sorter);
 	}
 
+	@Test
+	public void testParallelSort() throws Exception {
+		Random random = new Random(0);
+		List<Integer> values = IntStream.range(0, 100_000)
+			.mapToObj($ -> random.nextInt(50_000))
+			.toList();
+		StreamSupplier<Integer> source = StreamSuppliers.ofIterable(values);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		IStreamSorterStorage<Integer> storage = StreamSorterStorage.create(Reactor.getCurrentReactor(), pool, INT_SERIALIZER, FRAME_FORMAT, tempFolder.newFolder().toPath());
+		StreamSorter<Integer, Integer> sorter = StreamSorter.builder(storage, Function.identity(), Integer::compareTo, false, 30_000)
+			.withSortingExecutor(pool)
+			.withParallelSort(true)
+			.build();
+
+		ToListStreamConsumer<Integer> consumerToList = ToListStreamConsumer.create();
+
+		await(source.transformWith(sorter)
+			.streamTo(consumerToList.transformWith(randomlySuspending())));
+
+		assertEquals(values.stream().sorted().toList(), consumerToList.getList());
+		assertEndOfStream(source, consumerToList);
+		assertEndOfStream(sorter);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testSortKeys() throws Exception {
+		Random random = new Random(0);
+		List<Integer> values = IntStream.range(0, 10_000)
+			.mapToObj($ -> random.nextInt(2_000) - 1_000)
+			.toList();
+
+		for (boolean distinct : new boolean[]{false, true}) {
+			StreamSupplier<Integer> source = StreamSuppliers.ofIterable(values);
+
+			Executor executor = Executors.newSingleThreadExecutor();
+			IStreamSorterStorage<Integer> storage = StreamSorterStorage.builder(Reactor.getCurrentReactor(), executor, INT_SERIALIZER, FRAME_FORMAT, tempFolder.newFolder().toPath())
+				.withSortKeyEncoder(SortKeyEncoder.ofInt(Integer::intValue))
+				.build();
+			StreamSorter<Integer, Integer> sorter = StreamSorter.create(storage, Function.identity(), Integer::compareTo, distinct, 1_000);
+
+			ToListStreamConsumer<Integer> consumerToList = ToListStreamConsumer.create();
+
+			await(source.transformWith(sorter)
+				.streamTo(consumerToList.transformWith(randomlySuspending())));
+
+			Stream<Integer> expected = values.stream().sorted();
+			assertEquals((distinct ? expected.distinct() : expected).toList(), consumerToList.getList());
+			assertEndOfStream(source, consumerToList);
+			assertEndOfStream(sorter);
+		}
+	}
+
+	@Test
+	public void testSortKeysOfLongRecords() throws Exception {
+		Random random = new Random(0);
+		List<String> values = IntStream.range(0, 1_000)
+			.mapToObj($ -> "x".repeat(random.nextInt(300)) + random.nextInt(10))
+			.toList();
+		StreamSupplier<String> source = StreamSuppliers.ofIterable(values);
+
+		Executor executor = Executors.newSingleThreadExecutor();
+		StreamSorterStorage<String> storage = StreamSorterStorage.builder(Reactor.getCurrentReactor(), executor, UTF8_SERIALIZER, FRAME_FORMAT, tempFolder.newFolder().toPath())
+			.withSortKeyEncoder(SortKeyEncoder.ofString(Function.identity()))
+			.build();
+		StreamSorter<String, String> sorter = StreamSorter.create(storage, Function.identity(), String::compareTo, false, 100);
+
+		ToListStreamConsumer<String> consumerToList = ToListStreamConsumer.create();
+
+		await(source.transformWith(sorter)
+			.streamTo(consumerToList.transformWith(randomlySuspending())));
+
+		assertEquals(values.stream().sorted().toList(), consumerToList.getList());
+	}
+
 	@Test
 	public void testErrorOnConsumer() throws IOException {
 		StreamSupplier<Integer> source = StreamSuppliers.ofValues(3, 1, 3, 2, 5, 1, 4, 3, 2);
@@ -246,6 +328,26 @@ public final class StreamSorterTest {
 		assertEndOfStream(sorter);
 	}
 
+	@Test
+	public void testRecordSerializerRoundTrip() {
+		StreamSorterStorage.RecordSerializer<String> serializer = new StreamSorterStorage.RecordSerializer<>(UTF8_SERIALIZER);
+		SortRecord<String> record = SortRecord.encoder(SortKeyEncoder.ofString(Function.<String>identity())).apply("hello");
+
+		byte[] array = new byte[1024];
+		BinaryOutput out = new BinaryOutput(array);
+		serializer.encode(out, record);
+		SortRecord<String> decoded = serializer.decode(new BinaryInput(array));
+		assertEquals(record, decoded);
+		assertEquals("hello", decoded.getValue());
+
+		byte[] array2 = new byte[1024];
+		BinaryOutput out2 = new BinaryOutput(array2);
+		serializer.encode(out2, serializer.decode(new BinaryInput(array)));
+		SortRecord<String> decoded2 = serializer.decode(new BinaryInput(array2));
+		assertEquals(record, decoded2);
+		assertEquals("hello", decoded2.getValue());
+	}
+
 	private void doTestFailingStorage(FailingStubStreamSorterStorage<Integer> failingStorage, StreamSorterValidator<Integer, Integer> validator) throws IOException {
 		StreamSupplier<Integer> source = StreamSuppliers.ofValues(3, 1, 3, 2, 5, 1, 4, 3, 2);
 
@@ -269,5 +371,4 @@ public final class StreamSorterTest {
 	private interface StreamSorterValidator<K, T> {
 		void validate(Promise<Void> streamPromise, StreamSorter<K, T> sorter, StreamSupplier<T> supplier, ToListStreamConsumer<T> consumerToList);
 	}
-
 }
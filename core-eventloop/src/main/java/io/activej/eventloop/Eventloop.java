@@ -36,9 +36,13 @@ import io.activej.reactor.Reactor;
 import io.activej.reactor.jmx.ReactiveJmxBeanWithStats;
 import io.activej.reactor.net.ServerSocketSettings;
 import io.activej.reactor.nio.NioChannelEventHandler;
+import io.activej.reactor.nio.NioIoEngine;
 import io.activej.reactor.nio.NioReactor;
+import io.activej.reactor.nio.SelectorIoEngine;
 import io.activej.reactor.schedule.ScheduledPriorityQueue;
+import io.activej.reactor.schedule.ScheduledQueue;
 import io.activej.reactor.schedule.ScheduledRunnable;
+import io.activej.reactor.schedule.ScheduledTimerWheel;
 import org.jetbrains.annotations.Async;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -52,8 +56,6 @@ import java.nio.channels.spi.SelectorProvider;
 import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -64,7 +66,6 @@ import static io.activej.common.Checks.checkState;
 import static io.activej.common.Utils.nonNullElseGet;
 import static io.activej.common.exception.FatalErrorHandler.handleError;
 import static io.activej.common.exception.FatalErrorHandler.setThreadFatalErrorHandler;
-import static java.util.Collections.emptyIterator;
 
 /**
  * It is an internal class for asynchronous programming. In asynchronous
@@ -107,13 +108,13 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 	 * Collection of scheduled tasks that are scheduled
 	 * to be executed at particular timestamp.
 	 */
-	private final ScheduledPriorityQueue scheduledTasks = new ScheduledPriorityQueue();
+	private ScheduledQueue scheduledTasks = new ScheduledPriorityQueue();
 
 	/**
 	 * Collection of background tasks,
 	 * if eventloop contains only background tasks, it will be closed.
 	 */
-	private final ScheduledPriorityQueue backgroundTasks = new ScheduledPriorityQueue();
+	private ScheduledQueue backgroundTasks = new ScheduledPriorityQueue();
 
 	/**
 	 * Amount of concurrent operations in other threads,
@@ -141,6 +142,14 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 
 	private @Nullable SelectorProvider selectorProvider;
 
+	/**
+	 * The I/O engine which waits for ready keys and hands them
+	 * to this eventloop for processing.
+	 */
+	private NioIoEngine ioEngine = SelectorIoEngine.create();
+
+	private final Consumer<SelectionKey> selectedKeyProcessor = this::processSelectedKey;
+
 	/**
 	 * The thread in which eventloop is running.
 	 */
@@ -166,6 +175,9 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 	private int cancelledKeys;
 	private int lastExternalTasksCount;
 
+	private int invalidKeys, acceptKeys, connectKeys, readKeys, writeKeys;
+	private @Nullable Stopwatch selectedKeyStopwatch;
+
 	// JMX
 
 	private @Nullable EventloopInspector inspector;
@@ -258,6 +270,20 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 			return this;
 		}
 
+		/**
+		 * Sets a custom {@link NioIoEngine} for this {@link Eventloop}
+		 * <p>
+		 * An I/O engine opens a {@link Selector} using a selector provider and processes ready keys.
+		 * If no custom I/O engine is set, a default {@link SelectorIoEngine} will be used
+		 *
+		 * @param ioEngine a custom I/O engine
+		 */
+		public Builder withIoEngine(NioIoEngine ioEngine) {
+			checkNotBuilt(this);
+			Eventloop.this.ioEngine = ioEngine;
+			return this;
+		}
+
 		/**
 		 * Sets a custom {@link CurrentTimeProvider} for this {@link Eventloop}
 		 * <p>
@@ -284,6 +310,39 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 			return this;
 		}
 
+		/**
+		 * Uses a {@link ScheduledTimerWheel} instead of a binary heap for both scheduled and background tasks.
+		 * <p>
+		 * A timer wheel adds and cancels tasks in constant time, at the cost of executing tasks
+		 * in batches with a precision of a single tick
+		 *
+		 * @param tickDuration a duration of a single tick of the wheel
+		 * @param wheelSize    a number of slots in the wheel, should be a power of 2
+		 * @see ScheduledTimerWheel
+		 */
+		public Builder withTimerWheel(Duration tickDuration, int wheelSize) {
+			checkNotBuilt(this);
+			Eventloop.this.scheduledTasks = ScheduledTimerWheel.create(tickDuration, wheelSize);
+			Eventloop.this.backgroundTasks = ScheduledTimerWheel.create(tickDuration, wheelSize);
+			return this;
+		}
+
+		/**
+		 * Uses a {@link ScheduledTimerWheel} instead of a binary heap for background tasks only.
+		 * <p>
+		 * This is useful when background tasks are mostly timeouts that get cancelled
+		 * before they are due, like timeouts of RPC requests
+		 *
+		 * @param tickDuration a duration of a single tick of the wheel
+		 * @param wheelSize    a number of slots in the wheel, should be a power of 2
+		 * @see ScheduledTimerWheel
+		 */
+		public Builder withBackgroundTimerWheel(Duration tickDuration, int wheelSize) {
+			checkNotBuilt(this);
+			Eventloop.this.backgroundTasks = ScheduledTimerWheel.create(tickDuration, wheelSize);
+			return this;
+		}
+
 		/**
 		 * Register this {@link Eventloop} to an inner {@link ThreadLocal}.
 		 * <p>
@@ -322,7 +381,7 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 	private void openSelector() {
 		if (selector == null) {
 			try {
-				selector = nonNullElseGet(selectorProvider, SelectorProvider::provider).openSelector();
+				selector = ioEngine.openSelector(nonNullElseGet(selectorProvider, SelectorProvider::provider));
 			} catch (Exception e) {
 				logger.error("Could not open selector", e);
 				throw new RuntimeException(e);
@@ -458,11 +517,7 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 			try {
 				long selectTimeout = getSelectTimeout();
 				if (inspector != null) inspector.onUpdateSelectorSelectTimeout(selectTimeout);
-				if (selectTimeout <= 0) {
-					lastSelectedKeys = selector.selectNow();
-				} else {
-					lastSelectedKeys = selector.select(selectTimeout);
-				}
+				lastSelectedKeys = ioEngine.select(selector, selectTimeout);
 				cancelledKeys = 0;
 			} catch (ClosedChannelException e) {
 				logger.error("Selector is closed, exiting...", e);
@@ -472,7 +527,7 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 			}
 
 			timeAfterSelectorSelect = refreshTimestamp();
-			int keys = processSelectedKeys(selector.selectedKeys());
+			int keys = processSelectedKeys(selector);
 			int concurrentTasks = executeConcurrentTasks();
 			int scheduledTasks = executeScheduledTasks();
 			int backgroundTasks = executeBackgroundTasks();
@@ -510,57 +565,23 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 		return Math.min(getTimeBeforeExecution(scheduledTasks), getTimeBeforeExecution(backgroundTasks));
 	}
 
-	private long getTimeBeforeExecution(ScheduledPriorityQueue taskQueue) {
-		return taskQueue.isEmpty() ? idleInterval.toMillis() : taskQueue.peek().timestamp() - currentTimeMillis();
+	private long getTimeBeforeExecution(ScheduledQueue taskQueue) {
+		return taskQueue.isEmpty() ? idleInterval.toMillis() : taskQueue.nextTimestamp() - currentTimeMillis();
 	}
 
 	/**
 	 * Processes selected keys related to various I/O events: accept, connect, read, write.
 	 *
-	 * @param selectedKeys set that contains all selected keys, returned from NIO Selector.select()
+	 * @param selector a selector which keys were selected by the last {@link NioIoEngine#select} call
 	 */
-	private int processSelectedKeys(Set<SelectionKey> selectedKeys) {
+	private int processSelectedKeys(Selector selector) {
 		long startTimestamp = timestamp;
-		Stopwatch sw = monitoring ? Stopwatch.createUnstarted() : null;
+		selectedKeyStopwatch = monitoring ? Stopwatch.createUnstarted() : null;
 
-		int invalidKeys = 0, acceptKeys = 0, connectKeys = 0, readKeys = 0, writeKeys = 0;
+		invalidKeys = acceptKeys = connectKeys = readKeys = writeKeys = 0;
 
-		Iterator<SelectionKey> iterator = lastSelectedKeys != 0 ? selectedKeys.iterator() : emptyIterator();
-		while (iterator.hasNext()) {
-			SelectionKey key = iterator.next();
-			iterator.remove();
-
-			if (!key.isValid()) {
-				invalidKeys++;
-				continue;
-			}
-
-			if (sw != null) {
-				sw.reset();
-				sw.start();
-			}
-
-			if (key.isAcceptable()) {
-				onAccept(key);
-				acceptKeys++;
-			} else if (key.isConnectable()) {
-				onConnect(key);
-				connectKeys++;
-			} else {
-				if (key.isReadable()) {
-					onRead(key);
-					readKeys++;
-				}
-				if (key.isValid()) {
-					if (key.isWritable()) {
-						onWrite(key);
-						writeKeys++;
-					}
-				} else {
-					invalidKeys++;
-				}
-			}
-			if (sw != null && inspector != null) inspector.onUpdateSelectedKeyDuration(sw);
+		if (lastSelectedKeys != 0) {
+			ioEngine.processSelectedKeys(selector, selectedKeyProcessor);
 		}
 
 		int keys = acceptKeys + connectKeys + readKeys + writeKeys + invalidKeys;
@@ -574,6 +595,41 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 		return keys;
 	}
 
+	private void processSelectedKey(SelectionKey key) {
+		if (!key.isValid()) {
+			invalidKeys++;
+			return;
+		}
+
+		Stopwatch sw = selectedKeyStopwatch;
+		if (sw != null) {
+			sw.reset();
+			sw.start();
+		}
+
+		if (key.isAcceptable()) {
+			onAccept(key);
+			acceptKeys++;
+		} else if (key.isConnectable()) {
+			onConnect(key);
+			connectKeys++;
+		} else {
+			if (key.isReadable()) {
+				onRead(key);
+				readKeys++;
+			}
+			if (key.isValid()) {
+				if (key.isWritable()) {
+					onWrite(key);
+					writeKeys++;
+				}
+			} else {
+				invalidKeys++;
+			}
+		}
+		if (sw != null && inspector != null) inspector.onUpdateSelectedKeyDuration(sw);
+	}
+
 	private static void executeTask(@Async.Execute Runnable task) {
 		task.run();
 	}
@@ -669,7 +725,7 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 		return executeScheduledTasks(backgroundTasks);
 	}
 
-	private int executeScheduledTasks(ScheduledPriorityQueue taskQueue) {
+	private int executeScheduledTasks(ScheduledQueue taskQueue) {
 		long startTimestamp = timestamp;
 		boolean background = taskQueue == backgroundTasks;
 
@@ -1168,6 +1224,11 @@ public final class Eventloop implements NioReactor, NioReactive, Runnable, React
 		return BaseInspector.lookup(inspector, EventloopStats.class);
 	}
 
+	@JmxAttribute
+	public String getIoEngine() {
+		return ioEngine.toString();
+	}
+
 	@JmxAttribute
 	public Duration getIdleInterval() {
 		return idleInterval;
@@ -108,6 +108,7 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 		long loopTime
 	) {
 		keys.all.recordEvents(lastSelectedKeys);
+		keys.allPerLoop.recordValue(lastSelectedKeys);
 		keys.invalid.recordEvents(invalidKeys);
 		keys.acceptPerLoop.recordValue(acceptKeys);
 		keys.connectPerLoop.recordValue(connectKeys);
@@ -346,6 +347,7 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 
 	public static final class Keys {
 		private final EventStats all;
+		private final ValueStats allPerLoop;
 		private final EventStats invalid;
 		private final ValueStats acceptPerLoop;
 		private final ValueStats connectPerLoop;
@@ -358,6 +360,9 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 			all = EventStats.builder(DEFAULT_SMOOTHING_WINDOW)
 				.withRateUnit("keys")
 				.build();
+			allPerLoop = ValueStats.builder(DEFAULT_SMOOTHING_WINDOW)
+				.withHistogram(POWERS_OF_TWO)
+				.build();
 			invalid = EventStats.builder(DEFAULT_SMOOTHING_WINDOW)
 				.withRateUnit("keys")
 				.build();
@@ -388,6 +393,11 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 			return all;
 		}
 
+		@JmxAttribute(extraSubAttributes = "histogram")
+		public ValueStats getAllPerLoop() {
+			return allPerLoop;
+		}
+
 		@JmxAttribute
 		public EventStats getInvalid() {
 			return invalid;
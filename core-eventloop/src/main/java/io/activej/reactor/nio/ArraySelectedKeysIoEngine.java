@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.reactor.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A {@link NioIoEngine} which collects ready keys into a reusable array
+ * instead of the {@link Selector#selectedKeys() selected-key set} of a {@link Selector}.
+ * <p>
+ * Keys are collected by means of {@link Selector#select(Consumer, long)},
+ * so a selector never populates its {@code HashSet} of selected keys,
+ * and no iterators are created while processing ready keys.
+ * Once the array has grown to fit a typical number of ready keys,
+ * a steady-state reactor loop does not allocate any objects.
+ * <p>
+ * An instance of this engine holds a mutable state, so
+ * it should not be shared between different reactors.
+ */
+public final class ArraySelectedKeysIoEngine implements NioIoEngine {
+	public static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+	private SelectionKey[] keys;
+	private int size;
+
+	private final Consumer<SelectionKey> collector = this::add;
+
+	private ArraySelectedKeysIoEngine(int initialCapacity) {
+		this.keys = new SelectionKey[initialCapacity];
+	}
+
+	public static ArraySelectedKeysIoEngine create() {
+		return new ArraySelectedKeysIoEngine(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	public static ArraySelectedKeysIoEngine create(int initialCapacity) {
+		checkArgument(initialCapacity > 0, "Initial capacity should be positive");
+		return new ArraySelectedKeysIoEngine(initialCapacity);
+	}
+
+	@Override
+	public Selector openSelector(SelectorProvider selectorProvider) throws IOException {
+		return selectorProvider.openSelector();
+	}
+
+	@Override
+	public int select(Selector selector, long timeout) throws IOException {
+		return timeout <= 0 ? selector.selectNow(collector) : selector.select(collector, timeout);
+	}
+
+	@Override
+	public void processSelectedKeys(Selector selector, Consumer<SelectionKey> processor) {
+		SelectionKey[] keys = this.keys;
+		int size = this.size;
+		this.size = 0;
+		for (int i = 0; i < size; i++) {
+			SelectionKey key = keys[i];
+			keys[i] = null;
+			processor.accept(key);
+		}
+	}
+
+	private void add(SelectionKey key) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+		}
+		keys[size++] = key;
+	}
+
+	public int getCapacity() {
+		return keys.length;
+	}
+
+	@Override
+	public String toString() {
+		return "ArraySelectedKeysIoEngine{capacity=" + keys.length + '}';
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.reactor.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.function.Consumer;
+
+/**
+ * A strategy of selecting ready channels of a {@link NioReactor NIO reactor}.
+ * <p>
+ * An engine opens a {@link Selector}, waits for I/O readiness of registered channels
+ * and hands ready {@link SelectionKey keys} to a reactor in a single batch per reactor loop.
+ * Different engines may use different strategies of collecting and iterating over ready keys,
+ * see {@link SelectorIoEngine} and {@link ArraySelectedKeysIoEngine}.
+ * <p>
+ * Engines are bound to the readiness model of {@link Selector}: channels are registered
+ * with a selector and are read from and written to by sockets themselves.
+ * A completion-based backend (such as io_uring) does not fit this interface,
+ * as it would require a different way of submitting reads and writes from sockets.
+ */
+public interface NioIoEngine {
+	/**
+	 * Opens a new {@link Selector} to be used by a reactor
+	 *
+	 * @param selectorProvider a selector provider to open a selector with
+	 * @return a new selector
+	 * @throws IOException if an I/O error occurs on opening a selector
+	 */
+	Selector openSelector(SelectorProvider selectorProvider) throws IOException;
+
+	/**
+	 * Waits for registered channels to become ready for I/O operations.
+	 *
+	 * @param selector a selector previously opened by this engine
+	 * @param timeout  a time to block for in milliseconds, a non-positive value means no blocking
+	 * @return a number of ready keys
+	 * @throws IOException if an I/O error occurs
+	 */
+	int select(Selector selector, long timeout) throws IOException;
+
+	/**
+	 * Passes each of the keys selected by the last {@link #select} call to a given processor.
+	 * Processed keys are removed from the selected-key set.
+	 *
+	 * @param selector  a selector previously opened by this engine
+	 * @param processor a processor of ready keys
+	 */
+	void processSelectedKeys(Selector selector, Consumer<SelectionKey> processor);
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.reactor.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A default {@link NioIoEngine} which relies on a plain {@link Selector}
+ * and iterates over its {@link Selector#selectedKeys() selected-key set}.
+ */
+public final class SelectorIoEngine implements NioIoEngine {
+	private static final SelectorIoEngine INSTANCE = new SelectorIoEngine();
+
+	private SelectorIoEngine() {
+	}
+
+	public static SelectorIoEngine create() {
+		return INSTANCE;
+	}
+
+	@Override
+	public Selector openSelector(SelectorProvider selectorProvider) throws IOException {
+		return selectorProvider.openSelector();
+	}
+
+	@Override
+	public int select(Selector selector, long timeout) throws IOException {
+		return timeout <= 0 ? selector.selectNow() : selector.select(timeout);
+	}
+
+	@Override
+	public void processSelectedKeys(Selector selector, Consumer<SelectionKey> processor) {
+		Set<SelectionKey> selectedKeys = selector.selectedKeys();
+		if (selectedKeys.isEmpty()) return;
+		Iterator<SelectionKey> iterator = selectedKeys.iterator();
+		while (iterator.hasNext()) {
+			SelectionKey key = iterator.next();
+			iterator.remove();
+			processor.accept(key);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SelectorIoEngine";
+	}
+}
@@ -8,18 +8,21 @@ import java.util.Arrays;
 import static io.activej.common.Checks.checkArgument;
 import static java.util.stream.Collectors.toList;
 
-public final class ScheduledPriorityQueue {
+public final class ScheduledPriorityQueue extends ScheduledQueue {
 	private ScheduledRunnable[] entries = new ScheduledRunnable[10];
 	private int size;
 
+	@Override
 	public int size() {
 		return size;
 	}
 
+	@Override
 	public boolean isEmpty() {
 		return size == 0;
 	}
 
+	@Override
 	public void add(ScheduledRunnable entry) {
 		checkArgument(entry.queue == null);
 		entry.queue = this;
@@ -34,8 +37,13 @@ public final class ScheduledPriorityQueue {
 		return entries[0];
 	}
 
-	@Nullable
-	public ScheduledRunnable take(long now) {
+	@Override
+	public long nextTimestamp() {
+		return entries[0].timestamp;
+	}
+
+	@Override
+	public @Nullable ScheduledRunnable take(long now) {
 		ScheduledRunnable entry = entries[0];
 		if (entry == null || entry.timestamp > now) return null;
 		size--;
@@ -48,6 +56,7 @@ public final class ScheduledPriorityQueue {
 		return entry;
 	}
 
+	@Override
 	void remove(ScheduledRunnable entry) {
 		int index = entry.index;
 		entry.queue = null;
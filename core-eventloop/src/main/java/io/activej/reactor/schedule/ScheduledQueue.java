@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.reactor.schedule;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A queue of {@link ScheduledRunnable} tasks ordered by their timestamps.
+ * <p>
+ * A task that has been added to a queue may be cancelled via {@link ScheduledRunnable#cancel()},
+ * which removes it from the queue it belongs to.
+ */
+public abstract class ScheduledQueue {
+	public abstract int size();
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public abstract void add(ScheduledRunnable entry);
+
+	/**
+	 * Returns a timestamp at which the earliest task of this queue is due to be executed.
+	 * This method should only be called on a non-empty queue.
+	 */
+	public abstract long nextTimestamp();
+
+	/**
+	 * Removes and returns a task that is due to be executed at given time,
+	 * or {@code null} if there is no such task
+	 */
+	public abstract @Nullable ScheduledRunnable take(long now);
+
+	abstract void remove(ScheduledRunnable entry);
+}
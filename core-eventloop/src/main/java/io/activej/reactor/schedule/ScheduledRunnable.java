@@ -22,8 +22,10 @@ import java.time.Instant;
 
 public abstract class ScheduledRunnable implements Runnable {
 	final long timestamp;
-	ScheduledPriorityQueue queue;
+	ScheduledQueue queue;
 	int index;
+	ScheduledRunnable prev;
+	ScheduledRunnable next;
 
 	public ScheduledRunnable(long timestamp) {
 		this.timestamp = timestamp;
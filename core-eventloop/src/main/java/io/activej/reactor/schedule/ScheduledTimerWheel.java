@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.reactor.schedule;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A hashed timer wheel implementation of {@link ScheduledQueue}.
+ * <p>
+ * Tasks are distributed into slots of a fixed duration (a tick), each slot being a doubly linked list,
+ * so that both adding and cancelling a task take constant time. Tasks of the same tick are executed
+ * in a batch once the whole tick has elapsed, so a task may be executed up to one tick later
+ * than its timestamp, but never earlier.
+ * <p>
+ * Tasks that are scheduled further than one full rotation of the wheel are kept
+ * in an overflow {@link ScheduledPriorityQueue} and are moved into the wheel as it turns.
+ * <p>
+ * This queue is best suited for a large amount of tasks that are mostly cancelled before
+ * they are due, like request timeouts.
+ */
+public final class ScheduledTimerWheel extends ScheduledQueue {
+	public static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+	public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+	private final long tickMillis;
+	private final int mask;
+	private final ScheduledRunnable[] slots;
+	private final long[] occupied;
+
+	private final ScheduledPriorityQueue overflow = new ScheduledPriorityQueue();
+
+	private long cursorTick;
+	private int size;
+
+	private ScheduledTimerWheel(long tickMillis, int wheelSize) {
+		this.tickMillis = tickMillis;
+		this.mask = wheelSize - 1;
+		this.slots = new ScheduledRunnable[wheelSize];
+		this.occupied = new long[wheelSize >>> 6];
+	}
+
+	public static ScheduledTimerWheel create() {
+		return create(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	 * Creates a new timer wheel
+	 *
+	 * @param tickDuration a duration of a single slot of the wheel
+	 * @param wheelSize    a number of slots, should be a power of 2, not less than 64
+	 */
+	public static ScheduledTimerWheel create(Duration tickDuration, int wheelSize) {
+		checkArgument(tickDuration.toMillis() > 0, "Tick duration should be at least 1 millisecond");
+		checkArgument(wheelSize >= 64 && Integer.bitCount(wheelSize) == 1, "Wheel size should be a power of 2, not less than 64");
+		return new ScheduledTimerWheel(tickDuration.toMillis(), wheelSize);
+	}
+
+	public Duration getTickDuration() {
+		return Duration.ofMillis(tickMillis);
+	}
+
+	public int getWheelSize() {
+		return slots.length;
+	}
+
+	@Override
+	public int size() {
+		return size + overflow.size();
+	}
+
+	@Override
+	public void add(ScheduledRunnable entry) {
+		checkArgument(entry.queue == null);
+		long tick = entry.timestamp / tickMillis;
+		if (tick - cursorTick >= slots.length) {
+			overflow.add(entry);
+			return;
+		}
+		link(entry, tick);
+	}
+
+	@Override
+	public long nextTimestamp() {
+		if (size == 0) {
+			return overflow.nextTimestamp();
+		}
+		return (nextOccupiedTick(cursorTick) + 1) * tickMillis - 1;
+	}
+
+	@Override
+	public @Nullable ScheduledRunnable take(long now) {
+		long readyTick = (now + 1) / tickMillis;
+		for (; ; ) {
+			if (size == 0) {
+				if (overflow.isEmpty()) return null;
+				cursorTick = Math.max(cursorTick, readyTick - 1);
+			}
+			transferOverflow();
+			if (cursorTick >= readyTick || size == 0) return null;
+
+			int slot = (int) (cursorTick & mask);
+			ScheduledRunnable entry = slots[slot];
+			if (entry != null) {
+				unlink(entry);
+				return entry;
+			}
+
+			cursorTick = Math.min(nextOccupiedTick(cursorTick + 1), readyTick);
+		}
+	}
+
+	@Override
+	void remove(ScheduledRunnable entry) {
+		unlink(entry);
+	}
+
+	private void transferOverflow() {
+		long limit = cursorTick + slots.length;
+		while (!overflow.isEmpty() && overflow.nextTimestamp() / tickMillis < limit) {
+			ScheduledRunnable entry = overflow.take(Long.MAX_VALUE);
+			assert entry != null;
+			link(entry, entry.timestamp / tickMillis);
+		}
+	}
+
+	private void link(ScheduledRunnable entry, long tick) {
+		int slot = (int) (Math.max(tick, cursorTick) & mask);
+		ScheduledRunnable head = slots[slot];
+		entry.queue = this;
+		entry.index = slot;
+		entry.prev = null;
+		entry.next = head;
+		if (head != null) {
+			head.prev = entry;
+		} else {
+			occupied[slot >>> 6] |= 1L << slot;
+		}
+		slots[slot] = entry;
+		size++;
+	}
+
+	private void unlink(ScheduledRunnable entry) {
+		int slot = entry.index;
+		ScheduledRunnable prev = entry.prev;
+		ScheduledRunnable next = entry.next;
+		if (next != null) {
+			next.prev = prev;
+		}
+		if (prev != null) {
+			prev.next = next;
+		} else {
+			slots[slot] = next;
+			if (next == null) {
+				occupied[slot >>> 6] &= ~(1L << slot);
+			}
+		}
+		entry.queue = null;
+		entry.prev = null;
+		entry.next = null;
+		size--;
+	}
+
+	/**
+	 * Finds the first tick starting from a given one whose slot is not empty,
+	 * scanning the occupancy bitmap a word at a time. The wheel should not be empty.
+	 */
+	private long nextOccupiedTick(long fromTick) {
+		int start = (int) (fromTick & mask);
+		int index = start;
+		for (int scanned = 0; scanned <= slots.length; ) {
+			int word = index >>> 6;
+			long bits = occupied[word] & (-1L << index);
+			if (bits != 0) {
+				int found = (word << 6) + Long.numberOfTrailingZeros(bits);
+				return fromTick + ((found - start) & mask);
+			}
+			scanned += 64 - (index & 63);
+			index = ((word + 1) << 6) & mask;
+		}
+		throw new AssertionError();
+	}
+
+	@Override
+	public String toString() {
+		return "ScheduledTimerWheel{" +
+			"tick=" + tickMillis + "ms" +
+			", wheelSize=" + slots.length +
+			", size=" + size +
+			", overflow=" + overflow.size() +
+			'}';
+	}
+}
@@ -2,12 +2,26 @@ package io.activej.eventloop;
 
 import io.activej.common.ref.Ref;
 import io.activej.eventloop.inspector.EventloopStats;
+import io.activej.reactor.net.ServerSocketSettings;
+import io.activej.reactor.nio.ArraySelectedKeysIoEngine;
+import io.activej.reactor.nio.NioIoEngine;
+import io.activej.reactor.nio.SelectorIoEngine;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.spi.SelectorProvider;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static java.util.Objects.requireNonNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public final class EventloopTest {
 	@Test
@@ -47,4 +61,80 @@ public final class EventloopTest {
 			.getSmoothingWindow();
 		assertEquals(Eventloop.DEFAULT_SMOOTHING_WINDOW, smoothingWindow);
 	}
+
+	@Test
+	public void testCustomIoEngine() throws IOException {
+		AtomicInteger processedKeys = new AtomicInteger();
+		NioIoEngine defaultEngine = SelectorIoEngine.create();
+		Eventloop eventloop = Eventloop.builder()
+			.withCurrentThread()
+			.withIoEngine(new NioIoEngine() {
+				@Override
+				public Selector openSelector(SelectorProvider selectorProvider) throws IOException {
+					return defaultEngine.openSelector(selectorProvider);
+				}
+
+				@Override
+				public int select(Selector selector, long timeout) throws IOException {
+					return defaultEngine.select(selector, timeout);
+				}
+
+				@Override
+				public void processSelectedKeys(Selector selector, Consumer<SelectionKey> processor) {
+					defaultEngine.processSelectedKeys(selector, key -> {
+						processedKeys.incrementAndGet();
+						processor.accept(key);
+					});
+				}
+			})
+			.build();
+
+		AtomicInteger accepted = new AtomicInteger();
+		ServerSocketChannel[] serverChannel = new ServerSocketChannel[1];
+		serverChannel[0] = eventloop.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), ServerSocketSettings.create(16),
+			channel -> {
+				accepted.incrementAndGet();
+				eventloop.closeChannel(channel, null);
+				eventloop.closeChannel(serverChannel[0], null);
+			});
+		eventloop.connect(serverChannel[0].getLocalAddress(), (channel, e) -> eventloop.closeChannel(channel, null));
+		eventloop.run();
+
+		assertEquals(1, accepted.get());
+		assertTrue(processedKeys.get() >= 2);
+	}
+
+	@Test
+	public void testArraySelectedKeysIoEngine() throws IOException {
+		ArraySelectedKeysIoEngine ioEngine = ArraySelectedKeysIoEngine.create(1);
+		EventloopStats stats = EventloopStats.create();
+		Eventloop eventloop = Eventloop.builder()
+			.withCurrentThread()
+			.withIoEngine(ioEngine)
+			.withInspector(stats)
+			.build();
+
+		int connections = 10;
+		AtomicInteger accepted = new AtomicInteger();
+		AtomicInteger connected = new AtomicInteger();
+		ServerSocketChannel[] serverChannel = new ServerSocketChannel[1];
+		serverChannel[0] = eventloop.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), ServerSocketSettings.create(16),
+			channel -> {
+				eventloop.closeChannel(channel, null);
+				if (accepted.incrementAndGet() == connections) {
+					eventloop.closeChannel(serverChannel[0], null);
+				}
+			});
+		for (int i = 0; i < connections; i++) {
+			eventloop.connect(serverChannel[0].getLocalAddress(), (channel, e) -> {
+				connected.incrementAndGet();
+				eventloop.closeChannel(channel, null);
+			});
+		}
+		eventloop.run();
+
+		assertEquals(connections, accepted.get());
+		assertEquals(connections, connected.get());
+		assertTrue(stats.getKeys().getAllPerLoop().getCount() > 0);
+	}
 }
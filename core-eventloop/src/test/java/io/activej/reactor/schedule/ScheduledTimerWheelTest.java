@@ -0,0 +1,121 @@
+package io.activej.reactor.schedule;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public final class ScheduledTimerWheelTest {
+	private static final Runnable NOOP = () -> {};
+
+	@Test
+	public void testTakeInTickBatches() {
+		ScheduledTimerWheel wheel = ScheduledTimerWheel.create(Duration.ofMillis(10), 64);
+		ScheduledRunnable a = ScheduledRunnable.of(1003, NOOP);
+		ScheduledRunnable b = ScheduledRunnable.of(1007, NOOP);
+		ScheduledRunnable c = ScheduledRunnable.of(1015, NOOP);
+		wheel.add(a);
+		wheel.add(b);
+		wheel.add(c);
+		assertEquals(3, wheel.size());
+
+		assertNull(wheel.take(1000));
+		assertEquals(1009, wheel.nextTimestamp());
+		assertNull(wheel.take(1008));
+
+		List<ScheduledRunnable> taken = takeAll(wheel, 1009);
+		assertEquals(2, taken.size());
+		assertTrue(taken.contains(a) && taken.contains(b));
+		assertFalse(a.isActive());
+		assertEquals(1019, wheel.nextTimestamp());
+
+		assertEquals(List.of(c), takeAll(wheel, 1100));
+		assertTrue(wheel.isEmpty());
+	}
+
+	@Test
+	public void testCancel() {
+		ScheduledTimerWheel wheel = ScheduledTimerWheel.create(Duration.ofMillis(1), 64);
+		List<ScheduledRunnable> entries = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			ScheduledRunnable entry = ScheduledRunnable.of(100 + i % 3, NOOP);
+			entries.add(entry);
+			wheel.add(entry);
+		}
+		for (int i = 0; i < 10; i += 2) {
+			entries.get(i).cancel();
+			assertFalse(entries.get(i).isActive());
+		}
+		assertEquals(5, wheel.size());
+
+		List<ScheduledRunnable> taken = takeAll(wheel, 200);
+		assertEquals(5, taken.size());
+		for (int i = 1; i < 10; i += 2) {
+			assertTrue(taken.contains(entries.get(i)));
+		}
+		assertTrue(wheel.isEmpty());
+	}
+
+	@Test
+	public void testOverflow() {
+		ScheduledTimerWheel wheel = ScheduledTimerWheel.create(Duration.ofMillis(1), 64);
+		ScheduledRunnable near = ScheduledRunnable.of(10, NOOP);
+		ScheduledRunnable far = ScheduledRunnable.of(1_000, NOOP);
+		ScheduledRunnable cancelled = ScheduledRunnable.of(2_000, NOOP);
+		wheel.add(near);
+		wheel.add(far);
+		wheel.add(cancelled);
+		cancelled.cancel();
+		assertEquals(2, wheel.size());
+
+		assertEquals(List.of(near), takeAll(wheel, 500));
+		assertEquals(1_000, wheel.nextTimestamp());
+		assertNull(wheel.take(999));
+		assertEquals(List.of(far), takeAll(wheel, 1_000));
+		assertTrue(wheel.isEmpty());
+	}
+
+	@Test
+	public void testNeverTakesEarly() {
+		Random random = new Random(0);
+		ScheduledTimerWheel wheel = ScheduledTimerWheel.create(Duration.ofMillis(7), 64);
+		ScheduledPriorityQueue heap = new ScheduledPriorityQueue();
+		List<ScheduledRunnable> entries = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			long timestamp = random.nextInt(5_000);
+			ScheduledRunnable entry = ScheduledRunnable.of(timestamp, NOOP);
+			entries.add(entry);
+			if (random.nextInt(4) == 0) {
+				heap.add(entry);
+			} else {
+				wheel.add(entry);
+			}
+		}
+		for (ScheduledRunnable entry : entries) {
+			if (entry.isActive() && random.nextInt(2) == 0) entry.cancel();
+		}
+		int expected = wheel.size();
+
+		int taken = 0;
+		for (long now = 0; now < 6_000; now += random.nextInt(20)) {
+			for (ScheduledRunnable entry; (entry = wheel.take(now)) != null; taken++) {
+				assertTrue(entry.timestamp() <= now);
+				assertTrue(now - entry.timestamp() < 7 + 20);
+			}
+		}
+		assertEquals(expected, taken);
+		assertTrue(wheel.isEmpty());
+	}
+
+	private static List<ScheduledRunnable> takeAll(ScheduledQueue queue, long now) {
+		List<ScheduledRunnable> result = new ArrayList<>();
+		for (ScheduledRunnable entry; (entry = queue.take(now)) != null; ) {
+			result.add(entry);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,775 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import io.activej.async.exception.AsyncCloseException;
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.common.ApplicationSettings;
+import io.activej.common.MemSize;
+import io.activej.common.recycle.Recyclable;
+import io.activej.csp.supplier.ChannelSupplier;
+import io.activej.http.HpackTable.HeaderField;
+import io.activej.net.socket.tcp.ITcpSocket;
+import io.activej.promise.Promise;
+import io.activej.reactor.Reactor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static io.activej.common.Utils.nullify;
+import static io.activej.http.Http2Constants.*;
+import static io.activej.http.HttpHeaderValue.ofDecimal;
+import static io.activej.http.HttpHeaders.*;
+import static io.activej.http.HttpUtils.translateToHttpException;
+import static java.lang.Math.min;
+
+/**
+ * A base for HTTP/2 connections (RFC 9113).
+ * <p>
+ * A single connection multiplexes many concurrent {@link Http2Stream streams}, each of which carries
+ * one request-response exchange. Frames are parsed from the same read buffer which is used
+ * by HTTP/1.x connections, header blocks are compressed with HPACK, and both connection-level and
+ * stream-level flow control windows are respected in both directions.
+ * <p>
+ * Stream priorities are ignored and server push is not supported.
+ */
+abstract class AbstractHttp2Connection extends AbstractHttpConnection {
+	static final int INITIAL_WINDOW_SIZE = ApplicationSettings.getMemSize(AbstractHttp2Connection.class, "initialWindowSize", MemSize.kilobytes(256)).toInt();
+	static final int CONNECTION_WINDOW_SIZE = ApplicationSettings.getMemSize(AbstractHttp2Connection.class, "connectionWindowSize", MemSize.megabytes(1)).toInt();
+	static final int MAX_HEADER_LIST_SIZE = ApplicationSettings.getMemSize(AbstractHttp2Connection.class, "maxHeaderListSize", MemSize.kilobytes(64)).toInt();
+	private static final int INITIAL_WRITE_BUFFER_SIZE = ApplicationSettings.getMemSize(AbstractHttp2Connection.class, "initialWriteBufferSize", MemSize.kilobytes(16)).toInt();
+
+	private static final Set<HttpHeader> CONNECTION_SPECIFIC_HEADERS = Set.of(CONNECTION, HttpHeaders.KEEP_ALIVE, TRANSFER_ENCODING, UPGRADE, TE, HOST,
+		HttpHeaders.of("Proxy-Connection"));
+
+	protected final HpackEncoder encoder = new HpackEncoder();
+	protected final HpackDecoder decoder = new HpackDecoder(DEFAULT_HEADER_TABLE_SIZE);
+
+	protected final Map<Integer, Http2Stream> streams = new HashMap<>();
+	protected int lastStreamId;
+	protected boolean goAwaySent;
+
+	protected int peerMaxConcurrentStreams = Integer.MAX_VALUE;
+	private int peerInitialWindowSize = DEFAULT_WINDOW_SIZE;
+	private int peerMaxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+	private int sendWindow = DEFAULT_WINDOW_SIZE;
+	private int receiveWindow = DEFAULT_WINDOW_SIZE;
+	private int unacknowledgedBytes;
+
+	private int headerBlockStreamId;
+	private int headerBlockFlags;
+	private @Nullable ByteBuf headerBlock;
+
+	private @Nullable ByteBuf writeBuf;
+	private boolean flushPosted;
+	private @Nullable Promise<Void> pendingWrite;
+
+	private @Nullable Exception streamsCloseException;
+
+	protected AbstractHttp2Connection(Reactor reactor, ITcpSocket socket, int maxBodySize) {
+		super(reactor, socket, maxBodySize);
+	}
+
+	// region abstract methods
+	protected abstract void onHeaderBlock(int streamId, int flags, byte[] array, int offset, int limit) throws Http2Exception;
+
+	protected abstract void onGoAway(int lastStreamId, int errorCode);
+
+	protected abstract void onStreamClosed(Http2Stream stream, @Nullable Exception e);
+
+	protected abstract void onConnectionClosed();
+
+	protected void onSettings() {
+	}
+
+	protected void onBodyConsumed(Http2Stream stream) {
+	}
+	// endregion
+
+	protected final void writeConnectionPreface() {
+		ensureWriteBuf(CONNECTION_PREFACE.length).put(CONNECTION_PREFACE);
+	}
+
+	/**
+	 * Sends local SETTINGS and enlarges the connection receive window beyond the default one.
+	 * Setting ids and values are given as consecutive pairs.
+	 */
+	protected final void writeInitialSettings(int... settings) {
+		ByteBuf buf = ensureWriteBuf(FRAME_HEADER_SIZE + settings.length * 3);
+		writeFrameHeader(buf, settings.length * 3, SETTINGS, 0, 0);
+		for (int i = 0; i < settings.length; i += 2) {
+			buf.writeByte((byte) (settings[i] >>> 8));
+			buf.writeByte((byte) settings[i]);
+			buf.writeInt(settings[i + 1]);
+		}
+		if (CONNECTION_WINDOW_SIZE > DEFAULT_WINDOW_SIZE) {
+			writeWindowUpdate(0, CONNECTION_WINDOW_SIZE - DEFAULT_WINDOW_SIZE);
+			receiveWindow += CONNECTION_WINDOW_SIZE - DEFAULT_WINDOW_SIZE;
+		}
+	}
+
+	protected final Http2Stream createStream(int streamId) {
+		Http2Stream stream = new Http2Stream(this, streamId, peerInitialWindowSize, INITIAL_WINDOW_SIZE);
+		streams.put(streamId, stream);
+		return stream;
+	}
+
+	// region reading
+	@Override
+	protected final void readMessage() {
+		try {
+			while (readBuf != null) {
+				int remaining = readBuf.readRemaining();
+				if (remaining < FRAME_HEADER_SIZE) break;
+				byte[] array = readBuf.array();
+				int head = readBuf.head();
+				int length = (array[head] & 0xFF) << 16 | (array[head + 1] & 0xFF) << 8 | (array[head + 2] & 0xFF);
+				if (length > DEFAULT_MAX_FRAME_SIZE) {
+					throw new Http2Exception(FRAME_SIZE_ERROR, "Frame size exceeds the maximum: " + length);
+				}
+				if (remaining < FRAME_HEADER_SIZE + length) break;
+				int type = array[head + 3] & 0xFF;
+				int flags = array[head + 4] & 0xFF;
+				int streamId = readInt(array, head + 5) & 0x7FFFFFFF;
+				int payload = head + FRAME_HEADER_SIZE;
+				readBuf.head(payload + length);
+				onFrame(type, flags, streamId, readBuf, payload, length);
+				if (isClosed()) return;
+				if (!readBuf.canRead()) {
+					readBuf.recycle();
+					readBuf = null;
+				}
+			}
+		} catch (Http2Exception e) {
+			onConnectionError(e);
+			return;
+		}
+		stashedBufs = nullify(stashedBufs, Recyclable::recycle);
+		socket.read().subscribe(readMessageConsumer);
+	}
+
+	private void onFrame(int type, int flags, int streamId, ByteBuf buf, int offset, int length) throws Http2Exception {
+		if (headerBlock != null && type != CONTINUATION) {
+			throw new Http2Exception(PROTOCOL_ERROR, "Expected CONTINUATION frame");
+		}
+		byte[] array = buf.array();
+		switch (type) {
+			case DATA -> onDataFrame(flags, streamId, buf, offset, length);
+			case HEADERS -> onHeadersFrame(flags, streamId, array, offset, length);
+			case PRIORITY -> {
+				checkStreamFrame(streamId);
+				checkLength(length, 5);
+			}
+			case RST_STREAM -> onRstStreamFrame(streamId, array, offset, length);
+			case SETTINGS -> onSettingsFrame(flags, streamId, array, offset, length);
+			case PUSH_PROMISE -> throw new Http2Exception(PROTOCOL_ERROR, "Server push is not supported");
+			case PING -> onPingFrame(flags, streamId, array, offset, length);
+			case GOAWAY -> {
+				checkConnectionFrame(streamId);
+				if (length < 8) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid GOAWAY frame size");
+				onGoAway(readInt(array, offset) & 0x7FFFFFFF, readInt(array, offset + 4));
+			}
+			case WINDOW_UPDATE -> onWindowUpdateFrame(streamId, array, offset, length);
+			case CONTINUATION -> onContinuationFrame(flags, streamId, array, offset, length);
+			default -> {
+				// unknown frame types are ignored
+			}
+		}
+	}
+
+	private void onDataFrame(int flags, int streamId, ByteBuf buf, int offset, int length) throws Http2Exception {
+		checkStreamFrame(streamId);
+		int dataOffset = offset;
+		int padding = 0;
+		if ((flags & FLAG_PADDED) != 0) {
+			if (length == 0) throw new Http2Exception(PROTOCOL_ERROR, "Missing padding length");
+			padding = buf.array()[dataOffset++] & 0xFF;
+		}
+		int dataLength = offset + length - padding - dataOffset;
+		if (dataLength < 0) throw new Http2Exception(PROTOCOL_ERROR, "Padding exceeds frame payload");
+
+		receiveWindow -= length;
+		if (receiveWindow < 0) throw new Http2Exception(FLOW_CONTROL_ERROR, "Connection flow control window exceeded");
+		unacknowledgedBytes += length;
+		if (unacknowledgedBytes >= CONNECTION_WINDOW_SIZE / 2) {
+			writeWindowUpdate(0, unacknowledgedBytes);
+			receiveWindow += unacknowledgedBytes;
+			unacknowledgedBytes = 0;
+		}
+
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null) return;
+		if (stream.remoteEnd) {
+			resetStream(stream, STREAM_CLOSED, new Http2Exception(STREAM_CLOSED, "DATA frame after end of stream"));
+			return;
+		}
+		stream.receiveWindow -= length;
+		if (stream.receiveWindow < 0) {
+			resetStream(stream, FLOW_CONTROL_ERROR, new Http2Exception(FLOW_CONTROL_ERROR, "Stream flow control window exceeded"));
+			return;
+		}
+		if (dataLength != length) {
+			onDataConsumed(stream, length - dataLength);
+		}
+		if (dataLength != 0) {
+			if (stream.body != null) {
+				stream.body.onData(buf.slice(dataOffset, dataLength));
+			} else {
+				onDataConsumed(stream, dataLength);
+			}
+		}
+		if ((flags & FLAG_END_STREAM) != 0) {
+			onRemoteEnd(stream);
+		}
+	}
+
+	private void onHeadersFrame(int flags, int streamId, byte[] array, int offset, int length) throws Http2Exception {
+		checkStreamFrame(streamId);
+		int start = offset;
+		int limit = offset + length;
+		if ((flags & FLAG_PADDED) != 0) {
+			if (length == 0) throw new Http2Exception(PROTOCOL_ERROR, "Missing padding length");
+			limit -= array[start++] & 0xFF;
+		}
+		if ((flags & FLAG_PRIORITY) != 0) {
+			start += 5;
+		}
+		if (start > limit) throw new Http2Exception(PROTOCOL_ERROR, "Padding exceeds frame payload");
+		if ((flags & FLAG_END_HEADERS) != 0) {
+			onHeaderBlock(streamId, flags, array, start, limit);
+			return;
+		}
+		headerBlock = ByteBufPool.allocate(Math.max(limit - start, 256));
+		headerBlock.put(array, start, limit - start);
+		headerBlockStreamId = streamId;
+		headerBlockFlags = flags;
+	}
+
+	private void onContinuationFrame(int flags, int streamId, byte[] array, int offset, int length) throws Http2Exception {
+		if (headerBlock == null || streamId != headerBlockStreamId) {
+			throw new Http2Exception(PROTOCOL_ERROR, "Unexpected CONTINUATION frame");
+		}
+		if (headerBlock.readRemaining() + length > MAX_HEADER_LIST_SIZE) {
+			throw new Http2Exception(PROTOCOL_ERROR, "Header block is too large");
+		}
+		headerBlock = ByteBufPool.ensureWriteRemaining(headerBlock, length);
+		headerBlock.put(array, offset, length);
+		if ((flags & FLAG_END_HEADERS) == 0) return;
+		ByteBuf block = headerBlock;
+		headerBlock = null;
+		try {
+			onHeaderBlock(headerBlockStreamId, headerBlockFlags, block.array(), block.head(), block.tail());
+		} finally {
+			block.recycle();
+		}
+	}
+
+	private void onRstStreamFrame(int streamId, byte[] array, int offset, int length) throws Http2Exception {
+		checkStreamFrame(streamId);
+		checkLength(length, 4);
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null) return;
+		int errorCode = readInt(array, offset);
+		stream.reset = true;
+		if (errorCode == NO_ERROR && stream.remoteEnd) {
+			// a peer does not need the rest of a message being sent
+			closeStream(stream, null);
+		} else {
+			closeStream(stream, new Http2Exception(errorCode, "Stream has been reset by peer"));
+		}
+	}
+
+	private void onSettingsFrame(int flags, int streamId, byte[] array, int offset, int length) throws Http2Exception {
+		checkConnectionFrame(streamId);
+		if ((flags & FLAG_ACK) != 0) {
+			checkLength(length, 0);
+			return;
+		}
+		if (length % 6 != 0) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid SETTINGS frame size");
+		for (int p = offset; p < offset + length; p += 6) {
+			int id = (array[p] & 0xFF) << 8 | (array[p + 1] & 0xFF);
+			int value = readInt(array, p + 2);
+			switch (id) {
+				case SETTINGS_HEADER_TABLE_SIZE -> encoder.setMaxTableSize(value < 0 ? Integer.MAX_VALUE : value);
+				case SETTINGS_ENABLE_PUSH -> {
+					if (value != 0 && value != 1) throw new Http2Exception(PROTOCOL_ERROR, "Invalid ENABLE_PUSH setting");
+				}
+				case SETTINGS_MAX_CONCURRENT_STREAMS -> peerMaxConcurrentStreams = value < 0 ? Integer.MAX_VALUE : value;
+				case SETTINGS_INITIAL_WINDOW_SIZE -> {
+					if (value < 0) throw new Http2Exception(FLOW_CONTROL_ERROR, "Invalid INITIAL_WINDOW_SIZE setting");
+					int delta = value - peerInitialWindowSize;
+					peerInitialWindowSize = value;
+					for (Http2Stream stream : streams.values()) {
+						if ((long) stream.sendWindow + delta > Integer.MAX_VALUE) {
+							throw new Http2Exception(FLOW_CONTROL_ERROR, "Stream flow control window overflow");
+						}
+						stream.sendWindow += delta;
+					}
+				}
+				case SETTINGS_MAX_FRAME_SIZE -> {
+					if (value < DEFAULT_MAX_FRAME_SIZE || value > MAX_FRAME_SIZE_UPPER_BOUND) {
+						throw new Http2Exception(PROTOCOL_ERROR, "Invalid MAX_FRAME_SIZE setting");
+					}
+					peerMaxFrameSize = value;
+				}
+				default -> {
+					// MAX_HEADER_LIST_SIZE is advisory, unknown settings are ignored
+				}
+			}
+		}
+		ByteBuf buf = ensureWriteBuf(FRAME_HEADER_SIZE);
+		writeFrameHeader(buf, 0, SETTINGS, FLAG_ACK, 0);
+		onSettings();
+		resumeSending();
+	}
+
+	private void onPingFrame(int flags, int streamId, byte[] array, int offset, int length) throws Http2Exception {
+		checkConnectionFrame(streamId);
+		checkLength(length, 8);
+		if ((flags & FLAG_ACK) != 0) return;
+		ByteBuf buf = ensureWriteBuf(FRAME_HEADER_SIZE + 8);
+		writeFrameHeader(buf, 8, PING, FLAG_ACK, 0);
+		buf.put(array, offset, 8);
+	}
+
+	private void onWindowUpdateFrame(int streamId, byte[] array, int offset, int length) throws Http2Exception {
+		checkLength(length, 4);
+		int increment = readInt(array, offset) & 0x7FFFFFFF;
+		if (streamId == 0) {
+			if (increment == 0) throw new Http2Exception(PROTOCOL_ERROR, "Zero WINDOW_UPDATE increment");
+			if ((long) sendWindow + increment > Integer.MAX_VALUE) {
+				throw new Http2Exception(FLOW_CONTROL_ERROR, "Connection flow control window overflow");
+			}
+			sendWindow += increment;
+			resumeSending();
+			return;
+		}
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null) return;
+		if (increment == 0) {
+			resetStream(stream, PROTOCOL_ERROR, new Http2Exception(PROTOCOL_ERROR, "Zero WINDOW_UPDATE increment"));
+			return;
+		}
+		if ((long) stream.sendWindow + increment > Integer.MAX_VALUE) {
+			resetStream(stream, FLOW_CONTROL_ERROR, new Http2Exception(FLOW_CONTROL_ERROR, "Stream flow control window overflow"));
+			return;
+		}
+		stream.sendWindow += increment;
+		sendData(stream);
+	}
+
+	private void onRemoteEnd(Http2Stream stream) {
+		stream.remoteEnd = true;
+		if (stream.body != null) {
+			stream.body.onEndOfStream();
+		}
+		if (stream.isComplete()) {
+			closeStream(stream, null);
+		}
+	}
+
+	/**
+	 * Handles a trailing header block of a stream, trailers themselves are ignored
+	 */
+	protected final void onTrailers(Http2Stream stream, int flags, byte[] array, int offset, int limit) throws Http2Exception {
+		decoder.decode(array, offset, limit, (name, value) -> {});
+		if ((flags & FLAG_END_STREAM) == 0) {
+			resetStream(stream, PROTOCOL_ERROR, new Http2Exception(PROTOCOL_ERROR, "Trailers must end a stream"));
+			return;
+		}
+		onRemoteEnd(stream);
+	}
+
+	void onDataConsumed(Http2Stream stream, int size) {
+		if (stream.remoteEnd || stream.reset || isClosed()) return;
+		stream.unacknowledgedBytes += size;
+		if (stream.unacknowledgedBytes >= INITIAL_WINDOW_SIZE / 2) {
+			writeWindowUpdate(stream.id, stream.unacknowledgedBytes);
+			stream.receiveWindow += stream.unacknowledgedBytes;
+			stream.unacknowledgedBytes = 0;
+		}
+	}
+
+	void onBodyClosed(Http2Stream stream, Exception e) {
+		if (!stream.remoteEnd) {
+			resetStream(stream, CANCEL, e);
+		}
+	}
+
+	protected final void initBody(Http2Stream stream, HttpMessage message, int flags) {
+		message.flags |= HttpMessage.MUST_LOAD_BODY;
+		message.maxBodySize = maxBodySize;
+		if ((flags & FLAG_END_STREAM) != 0) {
+			message.body = ByteBuf.empty();
+			stream.remoteEnd = true;
+			return;
+		}
+		message.bodyStream = stream.createBody();
+		HttpHeaderValue contentEncoding = message.headers.get(CONTENT_ENCODING);
+		if (contentEncoding != null && contentEncoding.toString().equalsIgnoreCase("gzip")) {
+			message.flags |= HttpMessage.BODY_STREAM_GZIPPED;
+		}
+	}
+
+	protected static HttpHeader toHttpHeader(byte[] name) {
+		return HttpHeaders.of(HttpUtils.hashCodeCI(name), name, 0, name.length);
+	}
+	// endregion
+
+	// region writing
+	/**
+	 * Writes headers and a body of a message to a stream.
+	 * A body should already be encoded, compression is not performed here
+	 *
+	 * @param fields pseudo-header fields of a message, regular fields will be appended to them
+	 */
+	protected final void writeMessage(Http2Stream stream, HttpMessage message, List<HeaderField> fields) {
+		ByteBuf body = message.body;
+		ChannelSupplier<ByteBuf> bodyStream = message.bodyStream;
+		message.body = null;
+		message.bodyStream = null;
+		if (body != null) {
+			int size = body.readRemaining();
+			message.headers.addIfAbsent(CONTENT_LENGTH, () -> ofDecimal(size));
+		} else if (bodyStream == null && message.isContentLengthExpected()) {
+			message.headers.addIfAbsent(CONTENT_LENGTH, ZERO_HEADER);
+		}
+
+		Object[] kvPairs = message.headers.kvPairs;
+		for (int i = 0; i < kvPairs.length - 1; i += 2) {
+			HttpHeader header = (HttpHeader) kvPairs[i];
+			if (header == null || CONNECTION_SPECIFIC_HEADERS.contains(header)) continue;
+			fields.add(new HeaderField(toLowerCase(header), toBytes((HttpHeaderValue) kvPairs[i + 1])));
+		}
+
+		boolean endStream = bodyStream == null && (body == null || !body.canRead());
+		writeHeaders(stream.id, fields, endStream);
+		if (endStream) {
+			if (body != null) body.recycle();
+			onLocalEnd(stream);
+			return;
+		}
+		if (body != null) {
+			stream.outgoing.add(body);
+			stream.outgoingEnd = true;
+		} else {
+			stream.outgoingStream = bodyStream;
+		}
+		sendData(stream);
+	}
+
+	private void writeHeaders(int streamId, List<HeaderField> fields, boolean endStream) {
+		int estimatedSize = 10;
+		for (HeaderField field : fields) {
+			estimatedSize += HpackEncoder.estimateSize(field);
+		}
+		ByteBuf block = ByteBufPool.allocate(estimatedSize);
+		encoder.beginBlock(block);
+		for (HeaderField field : fields) {
+			encoder.encode(block, field);
+		}
+		int type = HEADERS;
+		int flags = endStream ? FLAG_END_STREAM : 0;
+		do {
+			int size = min(block.readRemaining(), peerMaxFrameSize);
+			boolean last = size == block.readRemaining();
+			ByteBuf buf = ensureWriteBuf(FRAME_HEADER_SIZE + size);
+			writeFrameHeader(buf, size, type, last ? flags | FLAG_END_HEADERS : flags, streamId);
+			buf.put(block.array(), block.head(), size);
+			block.moveHead(size);
+			type = CONTINUATION;
+			flags = 0;
+		} while (block.canRead());
+		block.recycle();
+	}
+
+	/**
+	 * Sends as much of queued data of a stream as flow control windows allow,
+	 * pulling more data from a body stream once the queue is drained and the socket is not busy
+	 */
+	protected final void sendData(Http2Stream stream) {
+		if (stream.localEnd || stream.reset || isClosed()) return;
+		while (stream.outgoing.hasRemaining()) {
+			int size = min(min(stream.outgoing.peekBuf().readRemaining(), peerMaxFrameSize), min(stream.sendWindow, sendWindow));
+			if (size <= 0) return;
+			ByteBuf data = stream.outgoing.takeAtMost(size);
+			stream.sendWindow -= data.readRemaining();
+			sendWindow -= data.readRemaining();
+			boolean endStream = stream.outgoingEnd && !stream.outgoing.hasRemaining();
+			writeData(stream.id, endStream, data);
+			if (endStream) {
+				onLocalEnd(stream);
+				return;
+			}
+		}
+		if (stream.outgoingEnd) {
+			writeData(stream.id, true, ByteBuf.empty());
+			onLocalEnd(stream);
+			return;
+		}
+		if (stream.outgoingStream == null || stream.outgoingRequested) return;
+		stream.outgoingRequested = true;
+		if (pendingWrite != null) {
+			pendingWrite.whenComplete(() -> {
+				stream.outgoingRequested = false;
+				sendData(stream);
+			});
+			return;
+		}
+		stream.outgoingStream.get()
+			.subscribe((buf, e) -> {
+				stream.outgoingRequested = false;
+				if (stream.reset || isClosed()) {
+					if (buf != null) buf.recycle();
+					return;
+				}
+				if (e != null) {
+					stream.outgoingStream = null;
+					resetStream(stream, INTERNAL_ERROR, e);
+					return;
+				}
+				if (buf == null) {
+					stream.outgoingStream = null;
+					stream.outgoingEnd = true;
+				} else if (buf.canRead()) {
+					stream.outgoing.add(buf);
+				} else {
+					buf.recycle();
+				}
+				sendData(stream);
+			});
+	}
+
+	private void resumeSending() {
+		for (Http2Stream stream : new ArrayList<>(streams.values())) {
+			sendData(stream);
+		}
+	}
+
+	private void onLocalEnd(Http2Stream stream) {
+		stream.localEnd = true;
+		if (stream.isComplete()) {
+			closeStream(stream, null);
+		}
+	}
+
+	protected final void resetStream(Http2Stream stream, int errorCode, Exception e) {
+		if (streams.get(stream.id) != stream) return;
+		stream.reset = true;
+		writeRstStream(stream.id, errorCode);
+		closeStream(stream, e);
+	}
+
+	protected final void closeStream(Http2Stream stream, @Nullable Exception e) {
+		if (streams.get(stream.id) != stream) return;
+		streams.remove(stream.id);
+		stream.outgoing.recycle();
+		if (stream.outgoingStream != null) {
+			ChannelSupplier<ByteBuf> outgoingStream = stream.outgoingStream;
+			stream.outgoingStream = null;
+			outgoingStream.closeEx(e != null ? e : new AsyncCloseException("Stream closed"));
+		}
+		if (e != null && stream.body != null && !stream.body.isEndOfStreamTaken()) {
+			stream.body.closeEx(e);
+		}
+		onStreamClosed(stream, e);
+	}
+
+	protected final void writeRstStream(int streamId, int errorCode) {
+		ByteBuf buf = ensureWriteBuf(FRAME_HEADER_SIZE + 4);
+		writeFrameHeader(buf, 4, RST_STREAM, 0, streamId);
+		buf.writeInt(errorCode);
+	}
+
+	protected final void writeGoAway(int errorCode) {
+		goAwaySent = true;
+		ByteBuf buf = ensureWriteBuf(FRAME_HEADER_SIZE + 8);
+		writeFrameHeader(buf, 8, GOAWAY, 0, 0);
+		buf.writeInt(lastStreamId);
+		buf.writeInt(errorCode);
+	}
+
+	private void writeWindowUpdate(int streamId, int increment) {
+		ByteBuf buf = ensureWriteBuf(FRAME_HEADER_SIZE + 4);
+		writeFrameHeader(buf, 4, WINDOW_UPDATE, 0, streamId);
+		buf.writeInt(increment);
+	}
+
+	private void writeData(int streamId, boolean endStream, ByteBuf data) {
+		int size = data.readRemaining();
+		ByteBuf buf = ensureWriteBuf(FRAME_HEADER_SIZE + size);
+		writeFrameHeader(buf, size, DATA, endStream ? FLAG_END_STREAM : 0, streamId);
+		buf.put(data);
+		data.recycle();
+	}
+
+	private static void writeFrameHeader(ByteBuf buf, int length, int type, int flags, int streamId) {
+		buf.writeByte((byte) (length >>> 16));
+		buf.writeByte((byte) (length >>> 8));
+		buf.writeByte((byte) length);
+		buf.writeByte((byte) type);
+		buf.writeByte((byte) flags);
+		buf.writeInt(streamId);
+	}
+
+	private ByteBuf ensureWriteBuf(int size) {
+		writeBuf = writeBuf == null ?
+			ByteBufPool.allocate(Math.max(size, INITIAL_WRITE_BUFFER_SIZE)) :
+			ByteBufPool.ensureWriteRemaining(writeBuf, size);
+		if (!flushPosted) {
+			flushPosted = true;
+			reactor.post(this::flush);
+		}
+		return writeBuf;
+	}
+
+	private Promise<Void> flush() {
+		flushPosted = false;
+		if (isClosed() || writeBuf == null) return Promise.complete();
+		ByteBuf buf = writeBuf;
+		writeBuf = null;
+		Promise<Void> write = socket.write(buf);
+		pendingWrite = write;
+		write.subscribe(($, e) -> {
+			if (pendingWrite == write) pendingWrite = null;
+			if (e != null) closeEx(translateToHttpException(e));
+		});
+		return write;
+	}
+
+	/**
+	 * Gracefully closes this connection: a GOAWAY frame is sent, then the connection is closed
+	 * once all the frames are written
+	 */
+	protected final void closeWithGoAway() {
+		if (isClosed()) return;
+		if (!goAwaySent) writeGoAway(NO_ERROR);
+		flush().whenComplete(this::close);
+	}
+
+	protected final void onConnectionError(Http2Exception e) {
+		if (isClosed()) return;
+		writeGoAway(e.getErrorCode());
+		flush().whenComplete(() -> closeEx(e));
+	}
+	// endregion
+
+	@Override
+	protected void onClosedWithError(Exception e) {
+		streamsCloseException = e;
+	}
+
+	@Override
+	protected final void onClosed() {
+		Exception e = streamsCloseException != null ? streamsCloseException : new AsyncCloseException("Connection closed");
+		for (Http2Stream stream : new ArrayList<>(streams.values())) {
+			stream.reset = true;
+			closeStream(stream, e);
+		}
+		readBuf = nullify(readBuf, ByteBuf::recycle);
+		stashedBufs = nullify(stashedBufs, Recyclable::recycle);
+		writeBuf = nullify(writeBuf, ByteBuf::recycle);
+		headerBlock = nullify(headerBlock, ByteBuf::recycle);
+		onConnectionClosed();
+	}
+
+	@Override
+	protected void onMalformedHttpException(MalformedHttpException e) {
+		closeEx(e);
+	}
+
+	// region HTTP/1.x methods
+	@Override
+	protected final boolean isValidStartLinePrefix(byte[] line, int pos, int limit) {
+		throw new AssertionError("This method should not be called on an HTTP/2 connection");
+	}
+
+	@Override
+	protected final void onStartLine(byte[] line, int pos, int limit) {
+		throw new AssertionError("This method should not be called on an HTTP/2 connection");
+	}
+
+	@Override
+	protected final void onHeader(HttpHeader header, byte[] array, int off, int len) {
+		throw new AssertionError("This method should not be called on an HTTP/2 connection");
+	}
+
+	@Override
+	protected final void onHeadersReceived(@Nullable ByteBuf body, @Nullable ChannelSupplier<ByteBuf> bodySupplier) {
+		throw new AssertionError("This method should not be called on an HTTP/2 connection");
+	}
+
+	@Override
+	protected final void onBodyReceived() {
+		throw new AssertionError("This method should not be called on an HTTP/2 connection");
+	}
+
+	@Override
+	protected final void onBodySent() {
+		throw new AssertionError("This method should not be called on an HTTP/2 connection");
+	}
+
+	@Override
+	protected final void onNoContentLength() {
+		throw new AssertionError("This method should not be called on an HTTP/2 connection");
+	}
+	// endregion
+
+	private static void checkConnectionFrame(int streamId) throws Http2Exception {
+		if (streamId != 0) throw new Http2Exception(PROTOCOL_ERROR, "Frame must be sent on a connection stream");
+	}
+
+	private static void checkStreamFrame(int streamId) throws Http2Exception {
+		if (streamId == 0) throw new Http2Exception(PROTOCOL_ERROR, "Frame must not be sent on a connection stream");
+	}
+
+	private static void checkLength(int length, int expected) throws Http2Exception {
+		if (length != expected) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid frame size: " + length);
+	}
+
+	private static int readInt(byte[] array, int offset) {
+		return (array[offset] & 0xFF) << 24 | (array[offset + 1] & 0xFF) << 16 | (array[offset + 2] & 0xFF) << 8 | (array[offset + 3] & 0xFF);
+	}
+
+	private static byte[] toLowerCase(HttpHeader header) {
+		if (header.lowerCase != null) return header.lowerCase;
+		byte[] name = new byte[header.length];
+		for (int i = 0; i < name.length; i++) {
+			byte b = header.bytes[header.offset + i];
+			name[i] = b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+		}
+		return name;
+	}
+
+	private static byte[] toBytes(HttpHeaderValue value) {
+		byte[] bytes = new byte[value.estimateSize()];
+		int size = value.writeTo(bytes, 0);
+		return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+	}
+
+	@Override
+	public String toString() {
+		return
+			", streams=" + streams.size() +
+			", lastStreamId=" + lastStreamId +
+			", goAwaySent=" + goAwaySent +
+			super.toString();
+	}
+}
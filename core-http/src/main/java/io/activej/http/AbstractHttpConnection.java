@@ -28,6 +28,7 @@ import io.activej.common.recycle.Recyclable;
 import io.activej.csp.ChannelOutput;
 import io.activej.csp.binary.BinaryChannelSupplier;
 import io.activej.csp.consumer.ChannelConsumers;
+import io.activej.csp.file.ChannelFileReader;
 import io.activej.csp.queue.ChannelZeroBuffer;
 import io.activej.csp.supplier.AbstractChannelSupplier;
 import io.activej.csp.supplier.ChannelSupplier;
@@ -37,6 +38,7 @@ import io.activej.http.stream.BufsConsumerChunkedEncoder;
 import io.activej.http.stream.BufsConsumerDelimiter;
 import io.activej.http.stream.BufsConsumerGzipDeflater;
 import io.activej.net.socket.tcp.ITcpSocket;
+import io.activej.net.socket.tcp.TcpSocket;
 import io.activej.promise.Promise;
 import io.activej.reactor.AbstractReactive;
 import io.activej.reactor.Reactor;
@@ -557,6 +559,12 @@ public abstract class AbstractHttpConnection extends AbstractReactive {
 				BufsConsumerGzipDeflater deflater = BufsConsumerGzipDeflater.create();
 				bodyStream.bindTo(deflater.getInput());
 				bodyStream = deflater.getOutput().getSupplier();
+			} else if (bodyStream instanceof ChannelFileReader fileReader && fileReader.getLimit() != Long.MAX_VALUE) {
+				httpMessage.headers.addIfAbsent(CONTENT_LENGTH, () -> HttpHeaderValue.of(Long.toString(fileReader.getLimit())));
+				if (socket instanceof TcpSocket tcpSocket) {
+					writeFile(writeBuf, httpMessage, fileReader, tcpSocket);
+					return;
+				}
 			}
 
 			if (httpMessage.headers.get(CONTENT_LENGTH) == null) {
@@ -585,6 +593,29 @@ public abstract class AbstractHttpConnection extends AbstractReactive {
 			});
 	}
 
+	/**
+	 * Sends a file body with zero-copy {@link TcpSocket#transferFrom file transfer}, right after the headers
+	 */
+	private void writeFile(@Nullable ByteBuf writeBuf, HttpMessage httpMessage, ChannelFileReader fileReader, TcpSocket tcpSocket) {
+		ByteBuf buf = ByteBufPool.allocate((writeBuf != null ? writeBuf.readRemaining() : 0) + httpMessage.estimateSize());
+		if (writeBuf != null) {
+			buf.put(writeBuf);
+			writeBuf.recycle();
+		}
+		httpMessage.writeTo(buf);
+
+		tcpSocket.write(buf);
+		fileReader.transferTo(tcpSocket)
+			.subscribe(($, e) -> {
+				if (isClosed()) return;
+				if (e == null) {
+					onBodySent();
+				} else {
+					closeEx(translateToHttpException(e));
+				}
+			});
+	}
+
 	private void writeStream(ChannelSupplier<ByteBuf> supplier) {
 		supplier.streamTo(ChannelConsumers.ofAsyncConsumer(
 				buf -> socket.write(buf)
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.csp.supplier.ChannelSupplier;
+import io.activej.http.stream.BufsConsumerGzipDeflater;
+
+import java.util.zip.Deflater;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A content coding which {@link HttpServer} may apply to bodies of responses
+ * that were built with {@link HttpMessage.Builder#withBodyGzipCompression()}.
+ * <p>
+ * An encoder is chosen for each response by matching {@link #getName() names} of
+ * configured encoders against the {@code Accept-Encoding} header of a request.
+ * Codecs other than gzip (e.g. brotli or zstd) may be plugged in by implementing this interface.
+ */
+public interface ContentEncoder {
+	/**
+	 * Returns a content coding token, as used in {@code Content-Encoding} and {@code Accept-Encoding} headers
+	 */
+	String getName();
+
+	/**
+	 * Encodes a whole body. The given buffer is consumed.
+	 * <p>
+	 * This method may be called outside a reactor thread, so it must be thread-safe.
+	 */
+	ByteBuf encode(ByteBuf body);
+
+	/**
+	 * Returns a channel supplier which encodes data of the given body stream
+	 */
+	ChannelSupplier<ByteBuf> encode(ChannelSupplier<ByteBuf> bodyStream);
+
+	static ContentEncoder gzip() {
+		return gzip(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Returns a gzip encoder with a given compression level, from 0 to 9
+	 * or {@link Deflater#DEFAULT_COMPRESSION}
+	 */
+	static ContentEncoder gzip(int level) {
+		checkArgument(level == Deflater.DEFAULT_COMPRESSION || level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+			"Illegal compression level");
+		return new ContentEncoder() {
+			@Override
+			public String getName() {
+				return "gzip";
+			}
+
+			@Override
+			public ByteBuf encode(ByteBuf body) {
+				return GzipProcessorUtils.toGzip(body, level);
+			}
+
+			@Override
+			public ChannelSupplier<ByteBuf> encode(ChannelSupplier<ByteBuf> bodyStream) {
+				BufsConsumerGzipDeflater deflater = BufsConsumerGzipDeflater.builder()
+					.withDeflater(new Deflater(level, true))
+					.build();
+				bodyStream.bindTo(deflater.getInput());
+				return deflater.getOutput().getSupplier();
+			}
+
+			@Override
+			public String toString() {
+				return "gzip(" + level + ')';
+			}
+		};
+	}
+}
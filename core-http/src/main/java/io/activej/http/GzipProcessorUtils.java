@@ -75,9 +75,13 @@ public final class GzipProcessorUtils {
 	}
 
 	public static ByteBuf toGzip(ByteBuf src) {
+		return toGzip(src, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public static ByteBuf toGzip(ByteBuf src, int level) {
 		if (CHECKS) checkArgument(src.readRemaining() >= 0);
 
-		Deflater compressor = ensureCompressor();
+		Deflater compressor = ensureCompressor(level);
 		compressor.setInput(src.array(), src.head(), src.readRemaining());
 		compressor.finish();
 		int dataSize = src.readRemaining();
@@ -86,6 +90,7 @@ public final class GzipProcessorUtils {
 		ByteBuf dst = ByteBufPool.allocate(GZIP_HEADER_SIZE + maxDataSize + GZIP_FOOTER_SIZE + SPARE_BYTES_COUNT);
 		dst.put(GZIP_HEADER);
 		dst = writeCompressedData(compressor, src, dst);
+		compressor.end();
 		dst.writeInt(Integer.reverseBytes(crc));
 		dst.writeInt(Integer.reverseBytes(dataSize));
 
@@ -189,8 +194,8 @@ public final class GzipProcessorUtils {
 		return new Inflater(true);
 	}
 
-	private static Deflater ensureCompressor() {
-		return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	private static Deflater ensureCompressor(int level) {
+		return new Deflater(level, true);
 	}
 
 	private static void check(boolean condition, ByteBuf buf1, ByteBuf buf2, Supplier<MalformedHttpException> exceptionSupplier) throws MalformedHttpException {
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import io.activej.http.HpackTable.DynamicTable;
+import io.activej.http.HpackTable.HeaderField;
+
+import java.util.Arrays;
+
+import static io.activej.http.Http2Constants.COMPRESSION_ERROR;
+import static io.activej.http.HpackTable.STATIC_TABLE;
+import static io.activej.http.HpackTable.STATIC_TABLE_LENGTH;
+
+/**
+ * Decoder of HPACK header blocks (RFC 7541).
+ * <p>
+ * A single instance is bound to a connection, as its dynamic table is shared by all the header blocks
+ * received by the connection.
+ */
+final class HpackDecoder {
+	private final DynamicTable table;
+	private final int maxTableSize;
+
+	private int pos;
+
+	HpackDecoder(int maxTableSize) {
+		this.table = new DynamicTable(maxTableSize);
+		this.maxTableSize = maxTableSize;
+	}
+
+	@FunctionalInterface
+	interface HeaderListener {
+		void onHeader(byte[] name, byte[] value) throws Http2Exception;
+	}
+
+	/**
+	 * Decodes a complete header block, passing every decoded field to the listener in order
+	 */
+	void decode(byte[] array, int offset, int limit, HeaderListener listener) throws Http2Exception {
+		pos = offset;
+		boolean fieldsDecoded = false;
+		while (pos < limit) {
+			int b = array[pos] & 0xFF;
+			if ((b & 0x80) != 0) {
+				HeaderField field = getField(readInteger(array, limit, 7));
+				listener.onHeader(field.name, field.value);
+				fieldsDecoded = true;
+			} else if ((b & 0x40) != 0) {
+				int index = readInteger(array, limit, 6);
+				byte[] name = index == 0 ? readString(array, limit) : getField(index).name;
+				byte[] value = readString(array, limit);
+				table.add(new HeaderField(name, value));
+				listener.onHeader(name, value);
+				fieldsDecoded = true;
+			} else if ((b & 0x20) != 0) {
+				if (fieldsDecoded) {
+					throw new Http2Exception(COMPRESSION_ERROR, "Dynamic table size update after a header field");
+				}
+				int size = readInteger(array, limit, 5);
+				if (size > maxTableSize) {
+					throw new Http2Exception(COMPRESSION_ERROR, "Dynamic table size update exceeds the limit");
+				}
+				table.setMaxSize(size);
+			} else {
+				// literal header field without indexing or never indexed, both have 4-bit prefix
+				int index = readInteger(array, limit, 4);
+				byte[] name = index == 0 ? readString(array, limit) : getField(index).name;
+				byte[] value = readString(array, limit);
+				listener.onHeader(name, value);
+				fieldsDecoded = true;
+			}
+		}
+	}
+
+	int getTableSize() {
+		return table.size();
+	}
+
+	private HeaderField getField(int index) throws Http2Exception {
+		if (index > 0 && index <= STATIC_TABLE_LENGTH) {
+			return STATIC_TABLE[index];
+		}
+		int dynamicIndex = index - STATIC_TABLE_LENGTH - 1;
+		if (index == 0 || dynamicIndex >= table.count()) {
+			throw new Http2Exception(COMPRESSION_ERROR, "Invalid header table index " + index);
+		}
+		return table.get(dynamicIndex);
+	}
+
+	private int readInteger(byte[] array, int limit, int prefixBits) throws Http2Exception {
+		int maxPrefix = (1 << prefixBits) - 1;
+		int value = array[pos++] & maxPrefix;
+		if (value < maxPrefix) return value;
+		for (int shift = 0; shift <= 28; shift += 7) {
+			if (pos == limit) break;
+			int b = array[pos++];
+			value += (b & 0x7F) << shift;
+			if (value < 0) break;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new Http2Exception(COMPRESSION_ERROR, "Invalid integer encoding");
+	}
+
+	private byte[] readString(byte[] array, int limit) throws Http2Exception {
+		if (pos == limit) {
+			throw new Http2Exception(COMPRESSION_ERROR, "Truncated string literal");
+		}
+		boolean huffman = (array[pos] & 0x80) != 0;
+		int length = readInteger(array, limit, 7);
+		if (length > limit - pos) {
+			throw new Http2Exception(COMPRESSION_ERROR, "Truncated string literal");
+		}
+		byte[] result = huffman ?
+			HpackHuffman.decode(array, pos, length) :
+			Arrays.copyOfRange(array, pos, pos + length);
+		pos += length;
+		return result;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.http.HpackTable.DynamicTable;
+import io.activej.http.HpackTable.HeaderField;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.http.Http2Constants.DEFAULT_HEADER_TABLE_SIZE;
+import static io.activej.http.HpackTable.EMPTY;
+import static io.activej.http.HpackTable.STATIC_TABLE_LENGTH;
+
+/**
+ * Encoder of HPACK header blocks (RFC 7541).
+ * <p>
+ * Fields which are likely to be repeated are added to the dynamic table, so that subsequent messages
+ * of the same connection refer to them by a single index. Fields with values that change on every message
+ * are not indexed, and credentials are marked as never indexed.
+ */
+final class HpackEncoder {
+	private static final Set<HeaderField> NOT_INDEXED = Set.of(
+		name(":path"), name("content-length"), name("date"), name("etag"), name("last-modified"), name("age"),
+		name("expires"), name("if-modified-since"), name("if-none-match"), name("content-range"), name("location"));
+	private static final Set<HeaderField> NEVER_INDEXED = Set.of(
+		name("authorization"), name("proxy-authorization"), name("cookie"), name("set-cookie"));
+
+	private final Map<HeaderField, HeaderField> fields = new HashMap<>();
+	private final DynamicTable table = new DynamicTable(DEFAULT_HEADER_TABLE_SIZE) {
+		@Override
+		protected void onEvicted(HeaderField field) {
+			fields.remove(field);
+		}
+	};
+	private long insertions;
+	private int pendingMinTableSize = -1;
+
+	/**
+	 * Returns an upper bound of the number of bytes needed to encode a field
+	 */
+	static int estimateSize(HeaderField field) {
+		return field.name.length + field.value.length + 16;
+	}
+
+	/**
+	 * Applies a {@link Http2Constants#SETTINGS_HEADER_TABLE_SIZE} setting received from a peer.
+	 * The change is signalled to the peer at the beginning of the next header block.
+	 */
+	void setMaxTableSize(int maxTableSize) {
+		int size = Math.min(maxTableSize, DEFAULT_HEADER_TABLE_SIZE);
+		if (size == table.maxSize()) return;
+		pendingMinTableSize = pendingMinTableSize == -1 ? size : Math.min(pendingMinTableSize, size);
+		table.setMaxSize(size);
+	}
+
+	/**
+	 * Must be called before encoding the fields of each header block
+	 */
+	void beginBlock(ByteBuf buf) {
+		if (pendingMinTableSize == -1) return;
+		if (pendingMinTableSize < table.maxSize()) {
+			writeInteger(buf, 0x20, 5, pendingMinTableSize);
+		}
+		writeInteger(buf, 0x20, 5, table.maxSize());
+		pendingMinTableSize = -1;
+	}
+
+	void encode(ByteBuf buf, HeaderField field) {
+		int index = HpackTable.staticIndexOf(field);
+		if (index != 0) {
+			writeInteger(buf, 0x80, 7, index);
+			return;
+		}
+		HeaderField indexed = fields.get(field);
+		if (indexed != null) {
+			writeInteger(buf, 0x80, 7, (int) (STATIC_TABLE_LENGTH + insertions - indexed.sequence));
+			return;
+		}
+		HeaderField name = new HeaderField(field.name, EMPTY);
+		int nameIndex = HpackTable.staticNameIndexOf(field.name);
+		if (NEVER_INDEXED.contains(name)) {
+			writeLiteral(buf, 0x10, 4, nameIndex, field);
+		} else if (NOT_INDEXED.contains(name) || field.size() > table.maxSize() / 2) {
+			writeLiteral(buf, 0x00, 4, nameIndex, field);
+		} else {
+			writeLiteral(buf, 0x40, 6, nameIndex, field);
+			field.sequence = insertions++;
+			table.add(field);
+			fields.put(field, field);
+		}
+	}
+
+	private static void writeLiteral(ByteBuf buf, int mask, int prefixBits, int nameIndex, HeaderField field) {
+		writeInteger(buf, mask, prefixBits, nameIndex);
+		if (nameIndex == 0) {
+			writeString(buf, field.name);
+		}
+		writeString(buf, field.value);
+	}
+
+	private static void writeInteger(ByteBuf buf, int mask, int prefixBits, int value) {
+		int maxPrefix = (1 << prefixBits) - 1;
+		if (value < maxPrefix) {
+			buf.writeByte((byte) (mask | value));
+			return;
+		}
+		buf.writeByte((byte) (mask | maxPrefix));
+		value -= maxPrefix;
+		while (value >= 0x80) {
+			buf.writeByte((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buf.writeByte((byte) value);
+	}
+
+	private static void writeString(ByteBuf buf, byte[] string) {
+		int huffmanLength = HpackHuffman.encodedLength(string, 0, string.length);
+		if (huffmanLength < string.length) {
+			writeInteger(buf, 0x80, 7, huffmanLength);
+			HpackHuffman.encode(buf, string, 0, string.length);
+		} else {
+			writeInteger(buf, 0x00, 7, string.length);
+			buf.put(string);
+		}
+	}
+
+	private static HeaderField name(String name) {
+		return new HeaderField(encodeAscii(name), EMPTY);
+	}
+}
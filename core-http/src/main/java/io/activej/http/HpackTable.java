@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+
+/**
+ * Static and dynamic header tables of HPACK (RFC 7541, section 2.3).
+ */
+final class HpackTable {
+	static final byte[] EMPTY = new byte[0];
+
+	/**
+	 * Per-entry overhead used to calculate the size of a table (RFC 7541, section 4.1)
+	 */
+	static final int ENTRY_OVERHEAD = 32;
+
+	static final HeaderField[] STATIC_TABLE = {
+		null,
+		field(":authority", ""),
+		field(":method", "GET"),
+		field(":method", "POST"),
+		field(":path", "/"),
+		field(":path", "/index.html"),
+		field(":scheme", "http"),
+		field(":scheme", "https"),
+		field(":status", "200"),
+		field(":status", "204"),
+		field(":status", "206"),
+		field(":status", "304"),
+		field(":status", "400"),
+		field(":status", "404"),
+		field(":status", "500"),
+		field("accept-charset", ""),
+		field("accept-encoding", "gzip, deflate"),
+		field("accept-language", ""),
+		field("accept-ranges", ""),
+		field("accept", ""),
+		field("access-control-allow-origin", ""),
+		field("age", ""),
+		field("allow", ""),
+		field("authorization", ""),
+		field("cache-control", ""),
+		field("content-disposition", ""),
+		field("content-encoding", ""),
+		field("content-language", ""),
+		field("content-length", ""),
+		field("content-location", ""),
+		field("content-range", ""),
+		field("content-type", ""),
+		field("cookie", ""),
+		field("date", ""),
+		field("etag", ""),
+		field("expect", ""),
+		field("expires", ""),
+		field("from", ""),
+		field("host", ""),
+		field("if-match", ""),
+		field("if-modified-since", ""),
+		field("if-none-match", ""),
+		field("if-range", ""),
+		field("if-unmodified-since", ""),
+		field("last-modified", ""),
+		field("link", ""),
+		field("location", ""),
+		field("max-forwards", ""),
+		field("proxy-authenticate", ""),
+		field("proxy-authorization", ""),
+		field("range", ""),
+		field("referer", ""),
+		field("refresh", ""),
+		field("retry-after", ""),
+		field("server", ""),
+		field("set-cookie", ""),
+		field("strict-transport-security", ""),
+		field("transfer-encoding", ""),
+		field("user-agent", ""),
+		field("vary", ""),
+		field("via", ""),
+		field("www-authenticate", ""),
+	};
+
+	static final int STATIC_TABLE_LENGTH = STATIC_TABLE.length - 1;
+
+	private static final Map<HeaderField, Integer> STATIC_FIELDS = new HashMap<>();
+	private static final Map<HeaderField, Integer> STATIC_NAMES = new HashMap<>();
+
+	static {
+		for (int i = STATIC_TABLE_LENGTH; i > 0; i--) {
+			HeaderField field = STATIC_TABLE[i];
+			STATIC_FIELDS.put(field, i);
+			STATIC_NAMES.put(new HeaderField(field.name, EMPTY), i);
+		}
+	}
+
+	private static HeaderField field(String name, String value) {
+		return new HeaderField(encodeAscii(name), encodeAscii(value));
+	}
+
+	/**
+	 * Returns an index of a static table entry with the same name and value, or {@code 0} if there is none
+	 */
+	static int staticIndexOf(HeaderField field) {
+		Integer index = STATIC_FIELDS.get(field);
+		return index != null ? index : 0;
+	}
+
+	/**
+	 * Returns an index of the first static table entry with the same name, or {@code 0} if there is none
+	 */
+	static int staticNameIndexOf(byte[] name) {
+		Integer index = STATIC_NAMES.get(new HeaderField(name, EMPTY));
+		return index != null ? index : 0;
+	}
+
+	static final class HeaderField {
+		final byte[] name;
+		final byte[] value;
+		private final int hashCode;
+
+		/**
+		 * A sequence number of an insertion into the dynamic table, used by the encoder to calculate the index
+		 */
+		long sequence;
+
+		HeaderField(byte[] name, byte[] value) {
+			this.name = name;
+			this.value = value;
+			this.hashCode = 31 * Arrays.hashCode(name) + Arrays.hashCode(value);
+		}
+
+		int size() {
+			return name.length + value.length + ENTRY_OVERHEAD;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof HeaderField that)) return false;
+			return hashCode == that.hashCode && Arrays.equals(name, that.name) && Arrays.equals(value, that.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * A FIFO of header fields where the newest field has the lowest index
+	 */
+	static class DynamicTable {
+		private HeaderField[] fields = new HeaderField[16];
+		private int first;
+		private int count;
+		private int size;
+		private int maxSize;
+
+		DynamicTable(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		int count() {
+			return count;
+		}
+
+		int size() {
+			return size;
+		}
+
+		int maxSize() {
+			return maxSize;
+		}
+
+		/**
+		 * Returns a field by its zero-based index, where {@code 0} is the most recently added field
+		 */
+		HeaderField get(int index) {
+			return fields[(first + index) & (fields.length - 1)];
+		}
+
+		void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+			while (size > maxSize) {
+				removeOldest();
+			}
+		}
+
+		/**
+		 * Evicts old entries to make room for a new field and adds the field if it fits into the table
+		 * (RFC 7541, section 4.4)
+		 */
+		void add(HeaderField field) {
+			int fieldSize = field.size();
+			while (count != 0 && size + fieldSize > maxSize) {
+				removeOldest();
+			}
+			if (fieldSize > maxSize) return;
+			if (count == fields.length) {
+				HeaderField[] newFields = new HeaderField[fields.length * 2];
+				for (int i = 0; i < count; i++) {
+					newFields[i] = get(i);
+				}
+				fields = newFields;
+				first = 0;
+			}
+			first = (first - 1) & (fields.length - 1);
+			fields[first] = field;
+			count++;
+			size += fieldSize;
+		}
+
+		private void removeOldest() {
+			int index = (first + count - 1) & (fields.length - 1);
+			HeaderField field = fields[index];
+			fields[index] = null;
+			count--;
+			size -= field.size();
+			onEvicted(field);
+		}
+
+		protected void onEvicted(HeaderField field) {
+		}
+	}
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import io.activej.async.exception.AsyncCloseException;
+import io.activej.bytebuf.ByteBuf;
+import io.activej.http.HpackTable.HeaderField;
+import io.activej.http.HttpClient.Inspector;
+import io.activej.net.socket.tcp.ITcpSocket;
+import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
+import io.activej.reactor.Reactor;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.http.Http2Constants.*;
+import static io.activej.http.HttpHeaderValue.ofBytes;
+import static io.activej.http.HttpHeaders.HOST;
+import static io.activej.http.HttpVersion.HTTP_2_0;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * A client side of an HTTP/2 connection.
+ * <p>
+ * Requests to the same address are multiplexed over a single connection as concurrent streams.
+ * Requests which exceed the concurrent streams limit of a server are queued until other streams complete.
+ * Responses of this connection are not bound to a {@link HttpClientConnection}.
+ */
+final class Http2ClientConnection extends AbstractHttp2Connection {
+	private static final byte[] PSEUDO_METHOD = encodeAscii(":method");
+	private static final byte[] PSEUDO_SCHEME = encodeAscii(":scheme");
+	private static final byte[] PSEUDO_AUTHORITY = encodeAscii(":authority");
+	private static final byte[] PSEUDO_PATH = encodeAscii(":path");
+	private static final byte[] PSEUDO_STATUS = encodeAscii(":status");
+	private static final byte[] SCHEME_HTTP = encodeAscii("http");
+	private static final byte[] SCHEME_HTTPS = encodeAscii("https");
+
+	final InetSocketAddress remoteAddress;
+	private final HttpClient client;
+	private final @Nullable Inspector inspector;
+
+	private final ArrayDeque<PendingRequest> pendingRequests = new ArrayDeque<>();
+	private int nextStreamId = 1;
+	private boolean goAwayReceived;
+
+	Http2ClientConnection(Reactor reactor, HttpClient client, ITcpSocket socket, InetSocketAddress remoteAddress) {
+		super(reactor, socket, client.maxBodySize);
+		this.remoteAddress = remoteAddress;
+		this.client = client;
+		this.inspector = client.inspector;
+	}
+
+	void start() {
+		(pool = client.poolReadWrite).addLastNode(this);
+		poolTimestamp = reactor.currentTimeMillis();
+		writeConnectionPreface();
+		writeInitialSettings(
+			SETTINGS_ENABLE_PUSH, 0,
+			SETTINGS_INITIAL_WINDOW_SIZE, INITIAL_WINDOW_SIZE,
+			SETTINGS_MAX_HEADER_LIST_SIZE, MAX_HEADER_LIST_SIZE);
+		socket.read().subscribe(readMessageConsumer);
+	}
+
+	/**
+	 * Returns {@code true} if new requests may be sent over this connection
+	 */
+	boolean isAvailable() {
+		return !isClosed() && !goAwaySent && !goAwayReceived && nextStreamId > 0;
+	}
+
+	Promise<HttpResponse> send(HttpRequest request) {
+		if (!isAvailable()) {
+			request.recycleBody();
+			return Promise.ofException(new AsyncCloseException("Connection closed"));
+		}
+		SettablePromise<HttpResponse> promise = new SettablePromise<>();
+		if (streams.size() >= peerMaxConcurrentStreams) {
+			pendingRequests.add(new PendingRequest(request, promise));
+		} else {
+			startStream(request, promise);
+		}
+		return promise;
+	}
+
+	private void startStream(HttpRequest request, SettablePromise<HttpResponse> promise) {
+		Http2Stream stream = createStream(nextStreamId);
+		nextStreamId += 2;
+		if (nextStreamId < 0) {
+			// stream identifiers are exhausted, new requests will use another connection
+			client.http2Connections.remove(remoteAddress, this);
+		}
+		stream.promise = promise;
+		numberOfRequests++;
+		switchPool(client.poolReadWrite);
+
+		UrlParser url = request.getUrl();
+		byte[] path = new byte[url.getPathAndQueryLength()];
+		url.writePathAndQuery(ByteBuf.wrapForWriting(path));
+		HttpHeaderValue host = request.headers.get(HOST);
+
+		List<HeaderField> fields = new ArrayList<>();
+		fields.add(new HeaderField(PSEUDO_METHOD, request.getMethod().bytes));
+		fields.add(new HeaderField(PSEUDO_SCHEME, request.getProtocol().isSecure() ? SCHEME_HTTPS : SCHEME_HTTP));
+		if (host != null) {
+			fields.add(new HeaderField(PSEUDO_AUTHORITY, encodeAscii(host.toString())));
+		}
+		fields.add(new HeaderField(PSEUDO_PATH, path));
+		writeMessage(stream, request, fields);
+	}
+
+	@Override
+	public PoolLabel getCurrentPool() {
+		if (pool == client.poolKeepAlive) return PoolLabel.KEEP_ALIVE;
+		if (pool == client.poolReadWrite) return PoolLabel.READ_WRITE;
+		return PoolLabel.NONE;
+	}
+
+	@Override
+	protected void onHeaderBlock(int streamId, int flags, byte[] array, int offset, int limit) throws Http2Exception {
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null) {
+			// a header block still has to be decoded to keep HPACK state consistent
+			decoder.decode(array, offset, limit, (name, value) -> {});
+			if ((streamId & 1) == 0 || streamId >= nextStreamId && nextStreamId > 0) {
+				throw new Http2Exception(PROTOCOL_ERROR, "Unexpected stream id: " + streamId);
+			}
+			return;
+		}
+		if (stream.message != null) {
+			onTrailers(stream, flags, array, offset, limit);
+			return;
+		}
+
+		ResponseHeaders headers = new ResponseHeaders();
+		decoder.decode(array, offset, limit, headers);
+		HttpResponse response;
+		try {
+			response = headers.toResponse();
+		} catch (MalformedHttpException e) {
+			resetStream(stream, PROTOCOL_ERROR, e);
+			return;
+		}
+		if (response == null) {
+			// informational responses are skipped
+			if ((flags & FLAG_END_STREAM) != 0) {
+				resetStream(stream, PROTOCOL_ERROR, new Http2Exception(PROTOCOL_ERROR, "Informational response ends a stream"));
+			}
+			return;
+		}
+
+		stream.message = response;
+		initBody(stream, response, flags);
+		if (inspector != null) inspector.onHttpResponse(response);
+		SettablePromise<HttpResponse> promise = stream.promise;
+		stream.promise = null;
+		//noinspection ConstantConditions
+		promise.set(response);
+		if (stream.isComplete()) {
+			closeStream(stream, null);
+		}
+	}
+
+	@Override
+	protected void onStreamClosed(Http2Stream stream, @Nullable Exception e) {
+		if (stream.promise != null) {
+			SettablePromise<HttpResponse> promise = stream.promise;
+			stream.promise = null;
+			Exception exception = e != null ? e : new HttpException("Stream closed without a response");
+			if (inspector != null) inspector.onHttpError(null, exception);
+			promise.setException(exception);
+		} else if (stream.message != null) {
+			HttpResponse response = (HttpResponse) stream.message;
+			if (e != null) {
+				if (inspector != null) inspector.onHttpError(null, e);
+			} else {
+				if (inspector != null) inspector.onRequestComplete(response, null);
+				if (stream.body == null || stream.body.isEndOfStreamTaken()) {
+					reactor.post(response::recycle);
+				}
+			}
+		}
+		if (isClosed()) return;
+
+		while (!pendingRequests.isEmpty() && streams.size() < peerMaxConcurrentStreams && nextStreamId > 0) {
+			PendingRequest pendingRequest = pendingRequests.poll();
+			startStream(pendingRequest.request, pendingRequest.promise);
+		}
+		if (!streams.isEmpty()) return;
+
+		if (!isAvailable() || client.keepAliveTimeoutMillis == 0 ||
+			client.maxKeepAliveRequests != 0 && numberOfRequests >= client.maxKeepAliveRequests
+		) {
+			client.http2Connections.remove(remoteAddress, this);
+			closeWithGoAway();
+			return;
+		}
+		client.returnToKeepAlivePool(this);
+	}
+
+	@Override
+	protected void onBodyConsumed(Http2Stream stream) {
+		if (streams.get(stream.id) != stream && stream.message != null) {
+			reactor.post(stream.message::recycle);
+		}
+	}
+
+	@Override
+	protected void onSettings() {
+		while (!pendingRequests.isEmpty() && streams.size() < peerMaxConcurrentStreams && nextStreamId > 0) {
+			PendingRequest pendingRequest = pendingRequests.poll();
+			startStream(pendingRequest.request, pendingRequest.promise);
+		}
+	}
+
+	@Override
+	protected void onGoAway(int lastStreamId, int errorCode) {
+		goAwayReceived = true;
+		client.http2Connections.remove(remoteAddress, this);
+		Http2Exception e = new Http2Exception(errorCode == NO_ERROR ? REFUSED_STREAM : errorCode, "Connection is going away");
+		for (Http2Stream stream : new ArrayList<>(streams.values())) {
+			if (stream.id > lastStreamId) {
+				stream.reset = true;
+				closeStream(stream, e);
+			}
+		}
+		failPendingRequests(e);
+		if (streams.isEmpty()) {
+			closeWithGoAway();
+		}
+	}
+
+	@Override
+	protected void onConnectionClosed() {
+		client.http2Connections.remove(remoteAddress, this);
+		failPendingRequests(new AsyncCloseException("Connection closed"));
+		if (inspector != null) inspector.onDisconnect(null);
+		//noinspection ConstantConditions
+		pool.removeNode(this);
+		//noinspection AssertWithSideEffects,ConstantConditions
+		assert (pool = null) == null;
+		client.handleShutdown();
+	}
+
+	private void failPendingRequests(Exception e) {
+		while (!pendingRequests.isEmpty()) {
+			PendingRequest pendingRequest = pendingRequests.poll();
+			pendingRequest.request.recycleBody();
+			pendingRequest.promise.setException(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return
+			"Http2ClientConnection{" +
+			"pool=" + getCurrentPool() +
+			", remoteAddress=" + remoteAddress +
+			", pendingRequests=" + pendingRequests.size() +
+			super.toString() +
+			'}';
+	}
+
+	private record PendingRequest(HttpRequest request, SettablePromise<HttpResponse> promise) {
+	}
+
+	private static final class ResponseHeaders implements HpackDecoder.HeaderListener {
+		private byte @Nullable [] status;
+		private final List<byte[]> headers = new ArrayList<>();
+		private boolean malformed;
+
+		@Override
+		public void onHeader(byte[] name, byte[] value) {
+			if (name.length != 0 && name[0] == ':') {
+				if (!headers.isEmpty() || !Arrays.equals(name, PSEUDO_STATUS)) {
+					malformed = true;
+				} else {
+					status = value;
+				}
+				return;
+			}
+			headers.add(name);
+			headers.add(value);
+		}
+
+		@Nullable HttpResponse toResponse() throws MalformedHttpException {
+			if (malformed || status == null || status.length != 3) {
+				throw new MalformedHttpException("Malformed pseudo-header fields");
+			}
+			int code;
+			try {
+				code = Integer.parseInt(new String(status, ISO_8859_1));
+			} catch (NumberFormatException e) {
+				throw new MalformedHttpException("Invalid status code");
+			}
+			if (code < 100) throw new MalformedHttpException("Invalid status code");
+			if (code < 200) return null;
+			if (headers.size() / 2 >= MAX_HEADERS) throw new MalformedHttpException("Too many headers");
+
+			HttpResponse response = new HttpResponse(HTTP_2_0, code, null);
+			for (int i = 0; i < headers.size(); i += 2) {
+				response.headers.add(toHttpHeader(headers.get(i)), ofBytes(headers.get(i + 1)));
+			}
+			return response;
+		}
+	}
+}
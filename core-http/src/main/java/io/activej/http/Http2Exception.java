@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import io.activej.common.ApplicationSettings;
+
+/**
+ * An HTTP/2 connection or stream error together with its error code (RFC 7540, section 7).
+ * <p>
+ * It is sent to a peer in a GOAWAY or RST_STREAM frame, or it is received from a peer in one of those frames.
+ */
+public final class Http2Exception extends HttpException {
+	public static final boolean WITH_STACK_TRACE = ApplicationSettings.getBoolean(Http2Exception.class, "withStackTrace", false);
+
+	private final int errorCode;
+
+	public Http2Exception(int errorCode, String message) {
+		super(message);
+		this.errorCode = errorCode;
+	}
+
+	public int getErrorCode() {
+		return errorCode;
+	}
+
+	@Override
+	public Throwable fillInStackTrace() {
+		return WITH_STACK_TRACE ? super.fillInStackTrace() : this;
+	}
+
+	@Override
+	public String getMessage() {
+		return "[" + errorCode + "] " + super.getMessage();
+	}
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.common.Checks;
+import io.activej.http.HpackTable.HeaderField;
+import io.activej.http.HttpServer.Inspector;
+import io.activej.net.socket.tcp.ITcpSocket;
+import io.activej.net.socket.tcp.SslTcpSocket;
+import io.activej.promise.Promise;
+import io.activej.reactor.Reactor;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.common.exception.FatalErrorHandler.handleError;
+import static io.activej.http.Http2Constants.*;
+import static io.activej.http.HttpHeaders.ACCEPT_ENCODING;
+import static io.activej.http.HttpHeaderValue.ofBytes;
+import static io.activej.http.HttpVersion.HTTP_2_0;
+import static io.activej.http.Protocol.HTTP;
+import static io.activej.http.Protocol.HTTPS;
+import static io.activej.reactor.Reactive.checkInReactorThread;
+
+/**
+ * A server side of an HTTP/2 connection. It is created by an {@link HttpServerConnection}
+ * as soon as an HTTP/2 connection preface is received, either over a cleartext connection
+ * (prior knowledge) or over an SSL connection which negotiated {@code h2} protocol.
+ * <p>
+ * Each stream is served by the servlet independently, so a slow response does not block
+ * other requests of the same connection.
+ */
+final class Http2ServerConnection extends AbstractHttp2Connection {
+	private static final boolean CHECKS = Checks.isEnabled(Http2ServerConnection.class);
+
+	private static final byte[] PSEUDO_METHOD = encodeAscii(":method");
+	private static final byte[] PSEUDO_SCHEME = encodeAscii(":scheme");
+	private static final byte[] PSEUDO_AUTHORITY = encodeAscii(":authority");
+	private static final byte[] PSEUDO_PATH = encodeAscii(":path");
+	private static final byte[] PSEUDO_STATUS = encodeAscii(":status");
+
+	private final HttpServerConnection connection;
+	private final InetAddress remoteAddress;
+	private final HttpServer server;
+	private final AsyncServlet servlet;
+	private final @Nullable Inspector inspector;
+
+	/**
+	 * @param connection an HTTP/1.x connection which has received the connection preface,
+	 *                   it represents this connection to the server inspector
+	 */
+	Http2ServerConnection(
+		Reactor reactor, HttpServerConnection connection, ITcpSocket socket, InetAddress remoteAddress, HttpServer server,
+		AsyncServlet servlet
+	) {
+		super(reactor, socket, server.maxBodySize);
+		this.connection = connection;
+		this.remoteAddress = remoteAddress;
+		this.server = server;
+		this.servlet = servlet;
+		this.inspector = server.inspector;
+	}
+
+	void serve(ByteBuf readBuf) {
+		(pool = server.poolKeepAlive).addLastNode(this);
+		poolTimestamp = reactor.currentTimeMillis();
+		writeInitialSettings(
+			SETTINGS_MAX_CONCURRENT_STREAMS, server.http2MaxConcurrentStreams,
+			SETTINGS_INITIAL_WINDOW_SIZE, INITIAL_WINDOW_SIZE,
+			SETTINGS_MAX_HEADER_LIST_SIZE, MAX_HEADER_LIST_SIZE);
+		readBuf.moveHead(CONNECTION_PREFACE.length);
+		if (readBuf.canRead()) {
+			this.readBuf = readBuf;
+		} else {
+			readBuf.recycle();
+		}
+		readMessage();
+	}
+
+	@Override
+	public PoolLabel getCurrentPool() {
+		if (pool == server.poolKeepAlive) return PoolLabel.KEEP_ALIVE;
+		if (pool == server.poolServing) return PoolLabel.SERVING;
+		return PoolLabel.NONE;
+	}
+
+	public InetAddress getRemoteAddress() {
+		return remoteAddress;
+	}
+
+	@Override
+	protected void onHeaderBlock(int streamId, int flags, byte[] array, int offset, int limit) throws Http2Exception {
+		Http2Stream existing = streams.get(streamId);
+		if (existing != null) {
+			onTrailers(existing, flags, array, offset, limit);
+			return;
+		}
+		if ((streamId & 1) == 0 || streamId <= lastStreamId) {
+			throw new Http2Exception(PROTOCOL_ERROR, "Invalid stream id: " + streamId);
+		}
+		lastStreamId = streamId;
+
+		RequestHeaders headers = new RequestHeaders();
+		decoder.decode(array, offset, limit, headers);
+		if (goAwaySent || streams.size() >= server.http2MaxConcurrentStreams) {
+			writeRstStream(streamId, REFUSED_STREAM);
+			return;
+		}
+
+		HttpRequest request;
+		try {
+			request = headers.toRequest();
+		} catch (MalformedHttpException e) {
+			if (inspector != null) inspector.onMalformedHttpRequest(connection, e, EMPTY_BYTE_ARRAY);
+			writeRstStream(streamId, PROTOCOL_ERROR);
+			return;
+		}
+
+		Http2Stream stream = createStream(streamId);
+		stream.message = request;
+		request.setProtocol(socket instanceof SslTcpSocket ? HTTPS : HTTP);
+		request.setRemoteAddress(remoteAddress);
+		initBody(stream, request, flags);
+
+		numberOfRequests++;
+		if (inspector != null) inspector.onHttpRequest(request);
+
+		if (pool != server.poolServing) {
+			switchPool(server.poolServing);
+		}
+
+		Promise<HttpResponse> servletResult;
+		try {
+			servletResult = servlet.serve(request);
+		} catch (Exception e) {
+			handleError(e, this);
+			servletResult = Promise.ofException(e);
+		}
+		servletResult.subscribe((response, e) -> {
+			if (CHECKS) checkInReactorThread(this);
+			if (isClosed() || stream.reset) {
+				request.recycle();
+				if (response != null) {
+					response.recycleBody();
+				}
+				return;
+			}
+			if (e == null) {
+				if (inspector != null) inspector.onHttpResponse(request, response);
+				String acceptEncoding = (response.flags & HttpMessage.USE_GZIP) != 0 ? request.getHeader(ACCEPT_ENCODING) : null;
+				request.recycle();
+				server.encodeBody(response, acceptEncoding)
+					.subscribe(($, e2) -> {
+						if (isClosed() || stream.reset) {
+							response.recycleBody();
+							return;
+						}
+						if (e2 == null) {
+							writeResponse(stream, response);
+						} else {
+							resetStream(stream, INTERNAL_ERROR, e2);
+						}
+					});
+			} else {
+				if (inspector != null) inspector.onServletException(request, e);
+				String acceptEncoding = request.getHeader(ACCEPT_ENCODING);
+				request.recycle();
+				server.formatHttpError(e)
+					.then(errorResponse -> server.encodeBody(errorResponse, acceptEncoding)
+						.map($ -> errorResponse))
+					.whenComplete((errorResponse, e2) -> {
+						if (isClosed() || stream.reset) {
+							if (errorResponse != null) errorResponse.recycleBody();
+							return;
+						}
+						if (e2 == null) {
+							writeResponse(stream, errorResponse);
+						} else {
+							resetStream(stream, INTERNAL_ERROR, e2);
+						}
+					});
+			}
+		});
+	}
+
+	private void writeResponse(Http2Stream stream, HttpResponse response) {
+		List<HeaderField> fields = new ArrayList<>();
+		fields.add(new HeaderField(PSEUDO_STATUS, encodeAscii(Integer.toString(response.getCode()))));
+		writeMessage(stream, response, fields);
+	}
+
+	@Override
+	protected void onStreamClosed(Http2Stream stream, @Nullable Exception e) {
+		if (stream.message != null && inspector != null) inspector.onHttpResponseComplete(connection);
+		if (isClosed()) return;
+		if (!goAwaySent && (server.keepAliveTimeoutMillis == 0 ||
+			server.maxKeepAliveRequests != 0 && numberOfRequests >= server.maxKeepAliveRequests)
+		) {
+			writeGoAway(NO_ERROR);
+		}
+		if (!streams.isEmpty()) return;
+		if (goAwaySent) {
+			closeWithGoAway();
+			return;
+		}
+		switchPool(server.poolKeepAlive);
+	}
+
+	@Override
+	protected void onGoAway(int lastStreamId, int errorCode) {
+		if (!goAwaySent) writeGoAway(NO_ERROR);
+		if (streams.isEmpty()) {
+			closeWithGoAway();
+		}
+	}
+
+	@Override
+	protected void onClosedWithError(Exception e) {
+		super.onClosedWithError(e);
+		if (inspector != null) inspector.onHttpError(connection, e);
+	}
+
+	@Override
+	protected void onConnectionClosed() {
+		if (inspector != null) inspector.onDisconnect(connection);
+		//noinspection ConstantConditions
+		pool.removeNode(this);
+		//noinspection AssertWithSideEffects,ConstantConditions
+		assert (pool = null) == null;
+		server.onConnectionClosed();
+	}
+
+	@Override
+	public String toString() {
+		return
+			"Http2ServerConnection{" +
+			"pool=" + getCurrentPool() +
+			", remoteAddress=" + remoteAddress +
+			super.toString() +
+			'}';
+	}
+
+	private static final class RequestHeaders implements HpackDecoder.HeaderListener {
+		private byte @Nullable [] method;
+		private byte @Nullable [] path;
+		private byte @Nullable [] authority;
+		private final List<byte[]> headers = new ArrayList<>();
+		private boolean malformed;
+
+		@Override
+		public void onHeader(byte[] name, byte[] value) {
+			if (name.length != 0 && name[0] == ':') {
+				if (!headers.isEmpty()) {
+					malformed = true;
+				} else if (Arrays.equals(name, PSEUDO_METHOD)) {
+					method = value;
+				} else if (Arrays.equals(name, PSEUDO_PATH)) {
+					path = value;
+				} else if (Arrays.equals(name, PSEUDO_AUTHORITY)) {
+					authority = value;
+				} else if (!Arrays.equals(name, PSEUDO_SCHEME)) {
+					malformed = true;
+				}
+				return;
+			}
+			headers.add(name);
+			headers.add(value);
+		}
+
+		HttpRequest toRequest() throws MalformedHttpException {
+			if (malformed) throw new MalformedHttpException("Malformed pseudo-header fields");
+			if (method == null || path == null) throw new MalformedHttpException("Missing pseudo-header fields");
+			HttpMethod httpMethod = null;
+			for (HttpMethod m : HttpMethod.values()) {
+				if (Arrays.equals(m.bytes, method)) {
+					httpMethod = m;
+					break;
+				}
+			}
+			if (httpMethod == null) throw new MalformedHttpException("Unknown HTTP method");
+			if (headers.size() / 2 >= MAX_HEADERS) throw new MalformedHttpException("Too many headers");
+
+			HttpRequest request = new HttpRequest(HTTP_2_0, httpMethod, UrlParser.parse(path, 0, path.length), null);
+			for (int i = 0; i < headers.size(); i += 2) {
+				request.headers.add(toHttpHeader(headers.get(i)), ofBytes(headers.get(i + 1)));
+			}
+			if (authority != null) {
+				request.headers.addIfAbsent(HttpHeaders.HOST, ofBytes(authority));
+			}
+			return request;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufs;
+import io.activej.csp.supplier.AbstractChannelSupplier;
+import io.activej.csp.supplier.ChannelSupplier;
+import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A state of a single HTTP/2 stream, which carries one request-response exchange of a multiplexed connection.
+ */
+final class Http2Stream {
+	final AbstractHttp2Connection connection;
+	final int id;
+
+	int sendWindow;
+	int receiveWindow;
+	int unacknowledgedBytes;
+
+	boolean localEnd;
+	boolean remoteEnd;
+	boolean reset;
+
+	final ByteBufs outgoing = new ByteBufs();
+	boolean outgoingEnd;
+	@Nullable ChannelSupplier<ByteBuf> outgoingStream;
+	boolean outgoingRequested;
+
+	@Nullable BodySupplier body;
+	@Nullable HttpMessage message;
+	@Nullable SettablePromise<HttpResponse> promise;
+
+	Http2Stream(AbstractHttp2Connection connection, int id, int sendWindow, int receiveWindow) {
+		this.connection = connection;
+		this.id = id;
+		this.sendWindow = sendWindow;
+		this.receiveWindow = receiveWindow;
+	}
+
+	boolean isComplete() {
+		return localEnd && remoteEnd;
+	}
+
+	BodySupplier createBody() {
+		return body = new BodySupplier();
+	}
+
+	/**
+	 * A supplier of received DATA frames. Flow control credit is returned to a peer only after the data
+	 * has been taken by a consumer, so that a slow consumer throttles the sender of this stream.
+	 */
+	final class BodySupplier extends AbstractChannelSupplier<ByteBuf> {
+		private final ByteBufs bufs = new ByteBufs();
+		private @Nullable SettablePromise<ByteBuf> pendingGet;
+		private boolean endOfStream;
+		private boolean endOfStreamTaken;
+
+		@Override
+		protected Promise<ByteBuf> doGet() {
+			if (bufs.hasRemaining()) {
+				ByteBuf buf = bufs.take();
+				connection.onDataConsumed(Http2Stream.this, buf.readRemaining());
+				return Promise.of(buf);
+			}
+			if (endOfStream) {
+				endOfStreamTaken = true;
+				connection.onBodyConsumed(Http2Stream.this);
+				return Promise.of(null);
+			}
+			SettablePromise<ByteBuf> pendingGet = new SettablePromise<>();
+			this.pendingGet = pendingGet;
+			return pendingGet;
+		}
+
+		boolean isEndOfStreamTaken() {
+			return endOfStreamTaken;
+		}
+
+		void onData(ByteBuf buf) {
+			if (isClosed()) {
+				connection.onDataConsumed(Http2Stream.this, buf.readRemaining());
+				buf.recycle();
+				return;
+			}
+			if (pendingGet != null) {
+				SettablePromise<ByteBuf> pendingGet = this.pendingGet;
+				this.pendingGet = null;
+				connection.onDataConsumed(Http2Stream.this, buf.readRemaining());
+				pendingGet.set(buf);
+				return;
+			}
+			bufs.add(buf);
+		}
+
+		void onEndOfStream() {
+			endOfStream = true;
+			if (pendingGet != null) {
+				SettablePromise<ByteBuf> pendingGet = this.pendingGet;
+				this.pendingGet = null;
+				endOfStreamTaken = true;
+				connection.onBodyConsumed(Http2Stream.this);
+				pendingGet.set(null);
+			}
+		}
+
+		@Override
+		protected void onClosed(Exception e) {
+			bufs.recycle();
+			if (pendingGet != null) {
+				SettablePromise<ByteBuf> pendingGet = this.pendingGet;
+				this.pendingGet = null;
+				pendingGet.setException(e);
+			}
+			connection.onBodyClosed(Http2Stream.this, e);
+		}
+	}
+}
@@ -19,12 +19,14 @@ package io.activej.http;
 import io.activej.async.exception.AsyncCloseException;
 import io.activej.async.exception.AsyncTimeoutException;
 import io.activej.async.service.ReactiveService;
+import io.activej.bytebuf.ByteBuf;
 import io.activej.common.ApplicationSettings;
 import io.activej.common.Checks;
 import io.activej.common.MemSize;
 import io.activej.common.builder.AbstractBuilder;
 import io.activej.common.inspector.AbstractInspector;
 import io.activej.common.inspector.BaseInspector;
+import io.activej.csp.supplier.ChannelSupplier;
 import io.activej.dns.IDnsClient;
 import io.activej.dns.protocol.DnsQueryException;
 import io.activej.dns.protocol.DnsResponse;
@@ -33,7 +35,9 @@ import io.activej.jmx.api.attribute.JmxOperation;
 import io.activej.jmx.api.attribute.JmxReducers.JmxReducerSum;
 import io.activej.jmx.stats.EventStats;
 import io.activej.jmx.stats.ExceptionStats;
+import io.activej.jmx.stats.ValueStats;
 import io.activej.net.socket.tcp.ITcpSocket;
+import io.activej.net.socket.tcp.SslTcpSocket;
 import io.activej.net.socket.tcp.TcpSocket;
 import io.activej.promise.Promise;
 import io.activej.promise.SettablePromise;
@@ -46,10 +50,13 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -60,11 +67,13 @@ import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
 import static io.activej.common.Checks.checkArgument;
 import static io.activej.common.Checks.checkState;
 import static io.activej.http.AbstractHttpConnection.WEB_SOCKET_VERSION;
+import static io.activej.http.Http2Constants.ALPN_HTTP_1_1;
+import static io.activej.http.Http2Constants.ALPN_HTTP_2;
 import static io.activej.http.HttpHeaders.*;
 import static io.activej.http.HttpUtils.translateToHttpException;
 import static io.activej.http.Protocol.*;
+import static io.activej.jmx.stats.JmxHistogram.POWERS_OF_TWO;
 import static io.activej.jmx.stats.MBeanFormat.formatListAsMultilineString;
-import static io.activej.net.socket.tcp.SslTcpSocket.wrapClientSocket;
 import static io.activej.reactor.Reactive.checkInReactorThread;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -89,6 +98,11 @@ public final class HttpClient extends AbstractNioReactive
 	public static final MemSize MAX_BODY_SIZE = ApplicationSettings.getMemSize(HttpClient.class, "maxBodySize", MemSize.ZERO);
 	public static final MemSize MAX_WEB_SOCKET_MESSAGE_SIZE = ApplicationSettings.getMemSize(HttpClient.class, "maxWebSocketMessageSize", MemSize.megabytes(1));
 	public static final int MAX_KEEP_ALIVE_REQUESTS = ApplicationSettings.getInt(HttpClient.class, "maxKeepAliveRequests", 0);
+	public static final boolean HTTP2_ENABLED = ApplicationSettings.getBoolean(HttpClient.class, "http2Enabled", false);
+	public static final boolean HTTP2_PRIOR_KNOWLEDGE = ApplicationSettings.getBoolean(HttpClient.class, "http2PriorKnowledge", false);
+	public static final int MAX_CONNECTIONS_PER_ADDRESS = ApplicationSettings.getInt(HttpClient.class, "maxConnectionsPerAddress", 0);
+	public static final Duration CONNECTION_WAIT_TIMEOUT = ApplicationSettings.getDuration(HttpClient.class, "connectionWaitTimeout", Duration.ZERO);
+	public static final int MIN_IDLE_CONNECTIONS_PER_ADDRESS = ApplicationSettings.getInt(HttpClient.class, "minIdleConnectionsPerAddress", 0);
 
 	public static final HttpHeaderValue UPGRADE_HEADER = HttpHeaderValue.ofBytes(encodeAscii("Upgrade"));
 	public static final HttpHeaderValue WEBSOCKET_HEADER = HttpHeaderValue.ofBytes(encodeAscii("Websocket"));
@@ -101,9 +115,19 @@ public final class HttpClient extends AbstractNioReactive
 	final HashMap<InetSocketAddress, AddressLinkedList> addresses = new HashMap<>();
 	final ConnectionsLinkedList poolKeepAlive = new ConnectionsLinkedList();
 	final ConnectionsLinkedList poolReadWrite = new ConnectionsLinkedList();
+	final HashMap<InetSocketAddress, Http2ClientConnection> http2Connections = new HashMap<>();
+	private final HashMap<InetSocketAddress, Promise<@Nullable Http2ClientConnection>> http2Connects = new HashMap<>();
+	private final HashMap<InetSocketAddress, AddressConnections> addressConnections = new HashMap<>();
 	private int poolKeepAliveExpired;
 	private int poolReadWriteExpired;
 
+	private int pendingRequests;
+	private int pendingRequestsExpired;
+	private final ValueStats connectionWaitTime = ValueStats.builder(Duration.ofMinutes(1))
+		.withHistogram(POWERS_OF_TWO)
+		.withUnit("milliseconds")
+		.build();
+
 	private @Nullable ScheduledRunnable expiredConnectionsCheck;
 
 	// timeouts
@@ -114,11 +138,21 @@ public final class HttpClient extends AbstractNioReactive
 	int maxBodySize = MAX_BODY_SIZE.toInt();
 	int maxWebSocketMessageSize = MAX_WEB_SOCKET_MESSAGE_SIZE.toInt();
 	int maxKeepAliveRequests = MAX_KEEP_ALIVE_REQUESTS;
+	boolean http2Enabled = HTTP2_ENABLED;
+	boolean http2PriorKnowledge = HTTP2_PRIOR_KNOWLEDGE;
+	int maxConnectionsPerAddress = MAX_CONNECTIONS_PER_ADDRESS;
+	int connectionWaitTimeoutMillis = (int) CONNECTION_WAIT_TIMEOUT.toMillis();
+	int minIdleConnectionsPerAddress = MIN_IDLE_CONNECTIONS_PER_ADDRESS;
 
 	// SSL
 	private SSLContext sslContext;
 	private Executor sslExecutor;
 
+	// compression
+	private final ContentEncoder gzipEncoder = ContentEncoder.gzip();
+	private @Nullable Executor compressionExecutor;
+	private int compressionExecutorMinSize;
+
 	private @Nullable TcpSocket.Inspector socketInspector;
 	private @Nullable TcpSocket.Inspector socketSslInspector;
 	@Nullable
@@ -133,25 +167,37 @@ public final class HttpClient extends AbstractNioReactive
 	public interface Inspector extends BaseInspector<Inspector> {
 		void onRequest(HttpRequest request);
 
-		void onRequestComplete(HttpResponse response, HttpClientConnection httpClientConnection);
+		/**
+		 * @param httpClientConnection a connection of the request, or {@code null} for HTTP/2 requests
+		 */
+		void onRequestComplete(HttpResponse response, @Nullable HttpClientConnection httpClientConnection);
 
 		void onResolve(HttpRequest request, DnsResponse dnsResponse);
 
 		void onResolveError(HttpRequest request, Exception e);
 
-		void onConnecting(HttpRequest request, InetSocketAddress address);
+		/**
+		 * @param request a request which caused a connection, or {@code null} if the connection is being prewarmed
+		 */
+		void onConnecting(@Nullable HttpRequest request, InetSocketAddress address);
 
-		void onConnect(HttpRequest request, HttpClientConnection connection);
+		/**
+		 * @param request a request which caused a connection, or {@code null} if the connection is being prewarmed
+		 */
+		void onConnect(@Nullable HttpRequest request, @Nullable HttpClientConnection connection);
 
-		void onConnectError(HttpRequest request, InetSocketAddress address, Exception e);
+		/**
+		 * @param request a request which caused a connection, or {@code null} if the connection is being prewarmed
+		 */
+		void onConnectError(@Nullable HttpRequest request, InetSocketAddress address, Exception e);
 
 		void onHttpResponse(HttpResponse response);
 
-		void onHttpError(HttpClientConnection connection, Exception e);
+		void onHttpError(@Nullable HttpClientConnection connection, Exception e);
 
 		void onMalformedHttpResponse(HttpClientConnection connection, MalformedHttpException e, byte[] malformedResponseBytes);
 
-		void onDisconnect(HttpClientConnection connection);
+		void onDisconnect(@Nullable HttpClientConnection connection);
 	}
 
 	@SuppressWarnings("WeakerAccess")
@@ -178,7 +224,7 @@ public final class HttpClient extends AbstractNioReactive
 		}
 
 		@Override
-		public void onRequestComplete(HttpResponse response, HttpClientConnection httpClientConnection) {
+		public void onRequestComplete(HttpResponse response, @Nullable HttpClientConnection httpClientConnection) {
 			activeRequests--;
 		}
 
@@ -193,21 +239,25 @@ public final class HttpClient extends AbstractNioReactive
 		}
 
 		@Override
-		public void onConnecting(HttpRequest request, InetSocketAddress address) {
+		public void onConnecting(@Nullable HttpRequest request, InetSocketAddress address) {
 			connecting++;
 		}
 
 		@Override
-		public void onConnect(HttpRequest request, HttpClientConnection connection) {
+		public void onConnect(@Nullable HttpRequest request, @Nullable HttpClientConnection connection) {
 			activeConnections++;
 			connecting--;
 			connected.recordEvent();
 		}
 
 		@Override
-		public void onConnectError(HttpRequest request, InetSocketAddress address, Exception e) {
-			activeRequests--;
+		public void onConnectError(@Nullable HttpRequest request, InetSocketAddress address, Exception e) {
 			connecting--;
+			if (request == null) {
+				connectErrors.recordException(e, address.getHostString());
+				return;
+			}
+			activeRequests--;
 			connectErrors.recordException(e, request.getUrl().getHost());
 		}
 
@@ -217,8 +267,8 @@ public final class HttpClient extends AbstractNioReactive
 		}
 
 		@Override
-		public void onHttpError(HttpClientConnection connection, Exception e) {
-			if (connection.getCurrentPool() == PoolLabel.READ_WRITE) {
+		public void onHttpError(@Nullable HttpClientConnection connection, Exception e) {
+			if (connection == null || connection.getCurrentPool() == PoolLabel.READ_WRITE) {
 				activeRequests--;
 			}
 			if (e instanceof AsyncTimeoutException) {
@@ -239,7 +289,7 @@ public final class HttpClient extends AbstractNioReactive
 		}
 
 		@Override
-		public void onDisconnect(HttpClientConnection connection) {
+		public void onDisconnect(@Nullable HttpClientConnection connection) {
 			activeConnections--;
 		}
 
@@ -335,6 +385,37 @@ public final class HttpClient extends AbstractNioReactive
 			return this;
 		}
 
+		/**
+		 * Offloads compression of request bodies that are at least {@code minSize} large
+		 * to a given executor, so that compression of large bodies does not stall the reactor
+		 */
+		public Builder withCompressionExecutor(Executor compressionExecutor, MemSize minSize) {
+			checkNotBuilt(this);
+			HttpClient.this.compressionExecutor = compressionExecutor;
+			HttpClient.this.compressionExecutorMinSize = minSize.toInt();
+			return this;
+		}
+
+		/**
+		 * Enables HTTP/2 for secure requests. HTTP/2 is negotiated via ALPN during SSL handshake,
+		 * servers which do not support it are talked to over HTTP/1.1
+		 */
+		public Builder withHttp2Enabled(boolean http2Enabled) {
+			checkNotBuilt(this);
+			HttpClient.this.http2Enabled = http2Enabled;
+			return this;
+		}
+
+		/**
+		 * Makes cleartext requests be sent over HTTP/2 without any negotiation,
+		 * which requires prior knowledge that servers support HTTP/2
+		 */
+		public Builder withHttp2PriorKnowledge(boolean http2PriorKnowledge) {
+			checkNotBuilt(this);
+			HttpClient.this.http2PriorKnowledge = http2PriorKnowledge;
+			return this;
+		}
+
 		public Builder withKeepAliveTimeout(Duration keepAliveTime) {
 			checkNotBuilt(this);
 			HttpClient.this.keepAliveTimeoutMillis = (int) keepAliveTime.toMillis();
@@ -353,6 +434,42 @@ public final class HttpClient extends AbstractNioReactive
 			return this;
 		}
 
+		/**
+		 * Limits a number of HTTP/1.1 connections which may be opened to a single address.
+		 * Requests which exceed the limit wait in a FIFO queue until some connection is released.
+		 * Zero means no limit
+		 */
+		public Builder withMaxConnectionsPerAddress(int maxConnectionsPerAddress) {
+			checkNotBuilt(this);
+			checkArgument(maxConnectionsPerAddress >= 0, "Maximum number of connections per address should not be less than zero");
+			HttpClient.this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+			return this;
+		}
+
+		/**
+		 * Sets a maximum time a request may wait for a connection when
+		 * {@link #withMaxConnectionsPerAddress(int) a limit of connections} is reached.
+		 * Zero means that requests wait indefinitely
+		 */
+		public Builder withConnectionWaitTimeout(Duration connectionWaitTimeout) {
+			checkNotBuilt(this);
+			HttpClient.this.connectionWaitTimeoutMillis = (int) connectionWaitTimeout.toMillis();
+			return this;
+		}
+
+		/**
+		 * Keeps at least a given number of idle keep-alive connections to each address that requests are sent to,
+		 * opening new connections in background whenever a connection is opened for a request,
+		 * or idle connections are taken or closed.
+		 * Has no effect if keep-alive is disabled or if requests to an address are sent over HTTP/2
+		 */
+		public Builder withMinIdleConnectionsPerAddress(int minIdleConnectionsPerAddress) {
+			checkNotBuilt(this);
+			checkArgument(minIdleConnectionsPerAddress >= 0, "Minimum number of idle connections per address should not be less than zero");
+			HttpClient.this.minIdleConnectionsPerAddress = minIdleConnectionsPerAddress;
+			return this;
+		}
+
 		public Builder withReadWriteTimeout(Duration readWriteTimeout) {
 			checkNotBuilt(this);
 			HttpClient.this.readWriteTimeoutMillis = (int) readWriteTimeout.toMillis();
@@ -467,6 +584,131 @@ public final class HttpClient extends AbstractNioReactive
 		if (expiredConnectionsCheck == null) {
 			scheduleExpiredConnectionsCheck();
 		}
+
+		AddressConnections connections = addressConnections.get(connection.remoteAddress);
+		if (connections != null && !connections.pendingRequests.isEmpty()) {
+			// a connection may still be in the middle of processing a response, so it is handed over on next tick
+			reactor.post(() -> dispatchPendingRequests(connection.remoteAddress));
+		}
+	}
+
+	/**
+	 * Should be called when an HTTP/1.1 connection to a given address is closed, or when it could not be established
+	 *
+	 * @param wasIdle whether the connection was idle in keep-alive pool
+	 */
+	void onConnectionClosed(InetSocketAddress address, boolean wasIdle) {
+		AddressConnections connections = addressConnections.get(address);
+		assert connections != null && connections.count > 0;
+		connections.count--;
+		dispatchPendingRequests(address);
+		if (wasIdle) {
+			prewarmConnections(address, connections);
+		}
+		removeIfUnused(address, connections);
+	}
+
+	private void removeIfUnused(InetSocketAddress address, AddressConnections connections) {
+		if (connections.count == 0 && connections.pendingRequests.isEmpty()) {
+			addressConnections.remove(address, connections);
+		}
+	}
+
+	private Promise<?> enqueue(InetSocketAddress address, AddressConnections connections, HttpRequest request, boolean isWebSocket) {
+		PendingRequest pendingRequest = new PendingRequest(request, isWebSocket, reactor.currentTimeMillis());
+		connections.pendingRequests.add(pendingRequest);
+		pendingRequests++;
+		if (connectionWaitTimeoutMillis != 0) {
+			pendingRequest.timeout = reactor.delay(connectionWaitTimeoutMillis, () -> {
+				connections.pendingRequests.remove(pendingRequest);
+				pendingRequests--;
+				pendingRequestsExpired++;
+				removeIfUnused(address, connections);
+				AsyncTimeoutException e = new AsyncTimeoutException("Timed out waiting for a connection to " + address);
+				if (inspector != null) inspector.onHttpError(null, e);
+				request.recycleBody();
+				pendingRequest.promise.setException(translateToHttpException(e));
+			});
+		}
+		return pendingRequest.promise;
+	}
+
+	private void dispatchPendingRequests(InetSocketAddress address) {
+		AddressConnections connections = addressConnections.get(address);
+		if (connections == null) return;
+		while (!connections.pendingRequests.isEmpty() &&
+			(this.addresses.containsKey(address) ||
+				maxConnectionsPerAddress == 0 || connections.count < maxConnectionsPerAddress)
+		) {
+			PendingRequest pendingRequest = connections.pendingRequests.poll();
+			pendingRequests--;
+			if (pendingRequest.timeout != null) {
+				pendingRequest.timeout.cancel();
+			}
+			connectionWaitTime.recordValue(reactor.currentTimeMillis() - pendingRequest.timestamp);
+			Promise<?> response;
+			try {
+				response = doSend(pendingRequest.request, address, pendingRequest.isWebSocket, true);
+			} catch (Exception e) {
+				response = Promise.ofException(e);
+			}
+			response.subscribe(pendingRequest.promise);
+		}
+	}
+
+	private void prewarmConnections(InetSocketAddress address, AddressConnections connections) {
+		if (minIdleConnectionsPerAddress == 0 || keepAliveTimeoutMillis == 0 || shutdownPromise != null) return;
+		if (connections.host == null || (connections.isSecure ? http2Enabled : http2PriorKnowledge)) return;
+		AddressLinkedList idleConnections = this.addresses.get(address);
+		int idle = (idleConnections != null ? idleConnections.size() : 0) + connections.prewarming;
+		while (idle < minIdleConnectionsPerAddress &&
+			(maxConnectionsPerAddress == 0 || connections.count < maxConnectionsPerAddress)
+		) {
+			idle++;
+			prewarmConnection(address, connections);
+		}
+	}
+
+	private void prewarmConnection(InetSocketAddress address, AddressConnections connections) {
+		connections.count++;
+		connections.prewarming++;
+		if (inspector != null) inspector.onConnecting(null, address);
+		++pendingConnects;
+		TcpSocket.connect(reactor, address, connectTimeoutMillis, socketSettings)
+			.then((v, e) -> handleShutdown(v, e, --pendingConnects))
+			.subscribe((tcpSocket, e) -> {
+				connections.prewarming--;
+				if (e != null) {
+					if (inspector != null) inspector.onConnectError(null, address, e);
+					onConnectionClosed(address, false);
+					return;
+				}
+				boolean isSecure = connections.isSecure;
+				TcpSocket.Inspector socketInspector = isSecure ? this.socketInspector : socketSslInspector;
+				if (socketInspector != null) {
+					socketInspector.onConnect(tcpSocket);
+					tcpSocket.setInspector(socketInspector);
+				}
+
+				ITcpSocket socket = tcpSocket;
+				if (isSecure) {
+					SSLEngine sslEngine = sslContext.createSSLEngine(connections.host, address.getPort());
+					sslEngine.setUseClientMode(true);
+					socket = SslTcpSocket.create(reactor, tcpSocket, sslEngine, sslExecutor);
+				}
+				HttpClientConnection connection = new HttpClientConnection(reactor, this, socket, address);
+				if (inspector != null) inspector.onConnect(null, connection);
+				connection.startIdle();
+			});
+	}
+
+	void returnToKeepAlivePool(Http2ClientConnection connection) {
+		assert !connection.isClosed();
+		connection.switchPool(poolKeepAlive);
+
+		if (expiredConnectionsCheck == null) {
+			scheduleExpiredConnectionsCheck();
+		}
 	}
 
 	@Override
@@ -525,7 +767,8 @@ public final class HttpClient extends AbstractNioReactive
 		String host = colonIndex == -1 ? hostAndPort : hostAndPort.substring(0, colonIndex);
 
 		++pendingResolves;
-		return dnsClient.resolve4(host)
+		return encodeBody(request)
+			.then(() -> dnsClient.resolve4(host))
 			.then((v, e) -> handleShutdown(v, e, --pendingResolves))
 			.thenCallback(
 				(dnsResponse, cb) -> {
@@ -545,12 +788,71 @@ public final class HttpClient extends AbstractNioReactive
 				});
 	}
 
+	/**
+	 * Encodes a body of a request with {@link HttpMessage.Builder#withBodyGzipCompression() compression} enabled.
+	 * Large bodies are encoded on a {@link Builder#withCompressionExecutor compression executor}, if it is set
+	 */
+	private Promise<Void> encodeBody(HttpRequest request) {
+		if ((request.flags & HttpMessage.USE_GZIP) == 0) return Promise.complete();
+		request.flags &= ~HttpMessage.USE_GZIP;
+
+		ByteBuf body = request.body;
+		if (body == null) {
+			ChannelSupplier<ByteBuf> bodyStream = request.bodyStream;
+			if (bodyStream != null) {
+				request.headers.addIfAbsent(CONTENT_ENCODING, HttpHeaderValue.of(gzipEncoder.getName()));
+				request.bodyStream = gzipEncoder.encode(bodyStream);
+			}
+			return Promise.complete();
+		}
+
+		request.headers.addIfAbsent(CONTENT_ENCODING, HttpHeaderValue.of(gzipEncoder.getName()));
+		if (compressionExecutor == null || body.readRemaining() < compressionExecutorMinSize) {
+			request.body = gzipEncoder.encode(body);
+			return Promise.complete();
+		}
+		request.body = null;
+		return Promise.ofBlocking(compressionExecutor, () -> gzipEncoder.encode(body))
+			.whenResult(encoded -> request.body = encoded)
+			.toVoid();
+	}
+
 	private Promise<?> doSend(HttpRequest request, InetAddress[] inetAddresses, boolean isWebSocket) {
 		InetAddress inetAddress = inetAddresses[(inetAddressIdx++ & Integer.MAX_VALUE) % inetAddresses.length];
 		InetSocketAddress address = new InetSocketAddress(inetAddress, request.getUrl().getPort());
+		return doSend(request, address, isWebSocket, false);
+	}
+
+	private Promise<?> doSend(HttpRequest request, InetSocketAddress address, boolean isWebSocket, boolean isDequeued) {
+		boolean isSecure = request.getProtocol().isSecure();
+		boolean isHttp2 = !isWebSocket && (isSecure ? http2Enabled : http2PriorKnowledge);
+		if (isHttp2) {
+			Http2ClientConnection http2Connection = http2Connections.get(address);
+			if (http2Connection != null) {
+				return http2Connection.send(request);
+			}
+			Promise<@Nullable Http2ClientConnection> http2Connect = http2Connects.get(address);
+			if (http2Connect != null) {
+				return http2Connect.then(
+					connection -> connection != null ?
+						connection.send(request).cast() :
+						doSend(request, address, false, isDequeued).cast(),
+					e -> {
+						request.recycleBody();
+						return Promise.ofException(translateToHttpException(e));
+					});
+			}
+		}
+
+		AddressConnections connections = addressConnections.get(address);
+		if (!isDequeued && connections != null && !connections.pendingRequests.isEmpty()) {
+			return enqueue(address, connections, request, isWebSocket);
+		}
 
 		HttpClientConnection keepAliveConnection = takeKeepAliveConnection(address);
 		if (keepAliveConnection != null) {
+			assert connections != null;
+			prewarmConnections(address, connections);
 			if (isWebSocket) {
 				return keepAliveConnection.sendWebSocketRequest(request);
 			} else {
@@ -558,12 +860,29 @@ public final class HttpClient extends AbstractNioReactive
 			}
 		}
 
-		boolean isSecure = request.getProtocol().isSecure();
 		if (isSecure && sslContext == null) {
 			request.recycleBody();
 			throw new IllegalArgumentException("Cannot send Secure Request without SSL enabled");
 		}
 
+		if (connections == null) {
+			connections = new AddressConnections();
+			addressConnections.put(address, connections);
+		} else if (maxConnectionsPerAddress != 0 && connections.count >= maxConnectionsPerAddress) {
+			return enqueue(address, connections, request, isWebSocket);
+		}
+		connections.count++;
+		connections.host = request.getUrl().getHost();
+		connections.isSecure = isSecure;
+		prewarmConnections(address, connections);
+
+		SettablePromise<@Nullable Http2ClientConnection> http2Connect = null;
+		if (isHttp2) {
+			http2Connect = new SettablePromise<>();
+			http2Connects.put(address, http2Connect);
+		}
+		SettablePromise<@Nullable Http2ClientConnection> finalHttp2Connect = http2Connect;
+
 		if (inspector != null) inspector.onConnecting(request, address);
 		++pendingConnects;
 		return TcpSocket.connect(reactor, address, connectTimeoutMillis, socketSettings)
@@ -579,32 +898,84 @@ public final class HttpClient extends AbstractNioReactive
 					String host = request.getUrl().getHost();
 					assert host != null;
 
-					ITcpSocket socket = isSecure ?
-						wrapClientSocket(reactor, tcpSocket,
-							host, request.getUrl().getPort(),
-							sslContext, sslExecutor) :
-						tcpSocket;
-
-					HttpClientConnection connection = new HttpClientConnection(reactor, this, socket, address);
-
-					if (inspector != null) inspector.onConnect(request, connection);
-
 					if (expiredConnectionsCheck == null)
 						scheduleExpiredConnectionsCheck();
 
-					if (isWebSocket) {
-						return connection.sendWebSocketRequest(request).cast();
-					} else {
-						return connection.send(request).cast();
+					if (!isSecure) {
+						return finalHttp2Connect != null ?
+							sendHttp2(request, tcpSocket, address, finalHttp2Connect) :
+							sendHttp1(request, tcpSocket, address, isWebSocket);
+					}
+
+					SSLEngine sslEngine = sslContext.createSSLEngine(host, request.getUrl().getPort());
+					sslEngine.setUseClientMode(true);
+					if (finalHttp2Connect == null) {
+						return sendHttp1(request, SslTcpSocket.create(reactor, tcpSocket, sslEngine, sslExecutor), address, isWebSocket);
 					}
+
+					SSLParameters sslParameters = sslEngine.getSSLParameters();
+					sslParameters.setApplicationProtocols(new String[]{ALPN_HTTP_2, ALPN_HTTP_1_1});
+					sslEngine.setSSLParameters(sslParameters);
+					SslTcpSocket sslSocket = SslTcpSocket.create(reactor, tcpSocket, sslEngine, sslExecutor);
+					return sslSocket.getHandshake()
+						.then(
+							$ -> {
+								if (ALPN_HTTP_2.equals(sslSocket.getApplicationProtocol())) {
+									return sendHttp2(request, sslSocket, address, finalHttp2Connect);
+								}
+								http2Connects.remove(address, finalHttp2Connect);
+								finalHttp2Connect.set(null);
+								return sendHttp1(request, sslSocket, address, false);
+							},
+							e -> {
+								http2Connects.remove(address, finalHttp2Connect);
+								finalHttp2Connect.setException(e);
+								onConnectionClosed(address, false);
+								request.recycleBody();
+								return Promise.ofException(translateToHttpException(e));
+							});
 				},
 				e -> {
+					if (finalHttp2Connect != null) {
+						http2Connects.remove(address, finalHttp2Connect);
+						finalHttp2Connect.setException(e);
+					}
 					if (inspector != null) inspector.onConnectError(request, address, e);
+					onConnectionClosed(address, false);
 					request.recycleBody();
 					return Promise.ofException(translateToHttpException(e));
 				});
 	}
 
+	private Promise<Object> sendHttp1(HttpRequest request, ITcpSocket socket, InetSocketAddress address, boolean isWebSocket) {
+		HttpClientConnection connection = new HttpClientConnection(reactor, this, socket, address);
+
+		if (inspector != null) inspector.onConnect(request, connection);
+
+		if (isWebSocket) {
+			return connection.sendWebSocketRequest(request).cast();
+		} else {
+			return connection.send(request).cast();
+		}
+	}
+
+	private Promise<Object> sendHttp2(
+		HttpRequest request, ITcpSocket socket, InetSocketAddress address, SettablePromise<@Nullable Http2ClientConnection> http2Connect
+	) {
+		Http2ClientConnection connection = new Http2ClientConnection(reactor, this, socket, address);
+		connection.start();
+		http2Connects.remove(address, http2Connect);
+		http2Connections.put(address, connection);
+		// HTTP/2 connection is shared by all requests to the address, so it is not subject to per-address limits
+		onConnectionClosed(address, false);
+
+		if (inspector != null) inspector.onConnect(request, null);
+
+		Promise<HttpResponse> response = connection.send(request);
+		http2Connect.set(connection);
+		return response.cast();
+	}
+
 	private <T> Promise<T> handleShutdown(T value, Exception e, int countdown) {
 		if (shutdownPromise != null) {
 			if (countdown == 0) handleShutdown();
@@ -634,12 +1005,23 @@ public final class HttpClient extends AbstractNioReactive
 		checkInReactorThread(this);
 		SettablePromise<Void> promise = new SettablePromise<>();
 
+		keepAliveTimeoutMillis = 0;
 		poolKeepAlive.closeAllConnections();
 		if (forcedShutdown) {
 			poolReadWrite.closeAllConnections();
+			for (AddressConnections connections : new ArrayList<>(addressConnections.values())) {
+				while (!connections.pendingRequests.isEmpty()) {
+					PendingRequest pendingRequest = connections.pendingRequests.poll();
+					pendingRequests--;
+					if (pendingRequest.timeout != null) {
+						pendingRequest.timeout.cancel();
+					}
+					pendingRequest.request.recycleBody();
+					pendingRequest.promise.setException(new AsyncCloseException("Client is closed"));
+				}
+			}
 		}
 		assert addresses.isEmpty();
-		keepAliveTimeoutMillis = 0;
 		if (pendingResolves == 0 && pendingConnects == 0 && getConnectionsCount() == 0) {
 			assert poolReadWrite.isEmpty();
 			promise.set(null);
@@ -676,6 +1058,21 @@ public final class HttpClient extends AbstractNioReactive
 		return poolReadWriteExpired;
 	}
 
+	@JmxAttribute(description = "number of requests waiting for a connection due to per-address limit", reducer = JmxReducerSum.class)
+	public int getPendingRequestsCount() {
+		return pendingRequests;
+	}
+
+	@JmxAttribute(description = "number of requests that timed out waiting for a connection", reducer = JmxReducerSum.class)
+	public int getPendingRequestsExpired() {
+		return pendingRequestsExpired;
+	}
+
+	@JmxAttribute(description = "time requests spent waiting for a connection due to per-address limit")
+	public ValueStats getConnectionWaitTime() {
+		return connectionWaitTime;
+	}
+
 	@JmxOperation(description = "number of connections per address")
 	public String getAddressConnections() {
 		if (addresses.isEmpty())
@@ -706,6 +1103,28 @@ public final class HttpClient extends AbstractNioReactive
 	}
 	// endregion
 
+	private static final class AddressConnections {
+		final ArrayDeque<PendingRequest> pendingRequests = new ArrayDeque<>();
+		int count;
+		int prewarming;
+		@Nullable String host;
+		boolean isSecure;
+	}
+
+	private static final class PendingRequest {
+		final SettablePromise<Object> promise = new SettablePromise<>();
+		final HttpRequest request;
+		final boolean isWebSocket;
+		final long timestamp;
+		@Nullable ScheduledRunnable timeout;
+
+		PendingRequest(HttpRequest request, boolean isWebSocket, long timestamp) {
+			this.request = request;
+			this.isWebSocket = isWebSocket;
+			this.timestamp = timestamp;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "HttpClient" + "{" + "read/write:" + poolReadWrite.size() + " keep-alive:" + poolKeepAlive.size() + "}";
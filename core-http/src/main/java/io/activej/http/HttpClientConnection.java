@@ -377,19 +377,7 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 			((flags & CHUNKED) != 0 || contentLength != UNSET_CONTENT_LENGTH)
 		) {
 			flags = 0;
-			socket.read()
-				.subscribe((buf, e) -> {
-					if (e == null) {
-						if (buf != null) {
-							buf.recycle();
-							closeEx(new HttpException("Unexpected read data"));
-						} else {
-							close();
-						}
-					} else {
-						closeEx(translateToHttpException(e));
-					}
-				});
+			watchKeepAlive();
 			if (isClosed()) return;
 			client.returnToKeepAlivePool(this);
 		} else {
@@ -397,6 +385,33 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 		}
 	}
 
+	/**
+	 * Puts a freshly opened connection into keep-alive pool, so that it is ready to send requests
+	 */
+	void startIdle() {
+		assert !isClosed() && pool == null;
+		(pool = client.poolReadWrite).addLastNode(this);
+		watchKeepAlive();
+		if (isClosed()) return;
+		client.returnToKeepAlivePool(this);
+	}
+
+	private void watchKeepAlive() {
+		socket.read()
+			.subscribe((buf, e) -> {
+				if (e == null) {
+					if (buf != null) {
+						buf.recycle();
+						closeEx(new HttpException("Unexpected read data"));
+					} else {
+						close();
+					}
+				} else {
+					closeEx(translateToHttpException(e));
+				}
+			});
+	}
+
 	/**
 	 * Sends the request, recycles it and closes connection in case of timeout
 	 *
@@ -441,7 +456,8 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 			this.promise = null;
 			promise.setException(new AsyncCloseException("Connection closed"));
 		}
-		if (pool == client.poolKeepAlive) {
+		boolean wasIdle = pool == client.poolKeepAlive;
+		if (wasIdle) {
 			AddressLinkedList addresses = client.addresses.get(remoteAddress);
 			addresses.removeNode(this);
 			if (addresses.isEmpty()) {
@@ -454,6 +470,7 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 		//noinspection ConstantConditions
 		pool.removeNode(this);
 
+		client.onConnectionClosed(remoteAddress, wasIdle);
 		client.handleShutdown();
 		response = nullify(response, HttpMessage::recycle);
 		readBuf = nullify(readBuf, ByteBuf::recycle);
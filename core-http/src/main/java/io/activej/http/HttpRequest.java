@@ -299,6 +299,16 @@ public final class HttpRequest extends HttpMessage implements ToPromise<HttpRequ
 		return url.pollUrlPart();
 	}
 
+	int pollPlainUrlPart() {
+		if (CHECKS) checkState(!isRecycled());
+		return url.pollPlainUrlPart();
+	}
+
+	byte[] getRawUrl() {
+		if (CHECKS) checkState(!isRecycled());
+		return url.getRaw();
+	}
+
 	void removePathParameter(String key) {
 		if (CHECKS) checkState(!isRecycled());
 		pathParameters.remove(key);
@@ -17,10 +17,12 @@
 package io.activej.http;
 
 import io.activej.async.exception.AsyncTimeoutException;
+import io.activej.bytebuf.ByteBuf;
 import io.activej.common.ApplicationSettings;
 import io.activej.common.MemSize;
 import io.activej.common.inspector.AbstractInspector;
 import io.activej.common.inspector.BaseInspector;
+import io.activej.csp.supplier.ChannelSupplier;
 import io.activej.jmx.api.attribute.JmxAttribute;
 import io.activej.jmx.api.attribute.JmxReducers.JmxReducerSum;
 import io.activej.jmx.stats.EventStats;
@@ -34,10 +36,19 @@ import io.activej.reactor.nio.NioReactor;
 import io.activej.reactor.schedule.ScheduledRunnable;
 import org.jetbrains.annotations.Nullable;
 
+import javax.net.ssl.SSLEngine;
 import java.net.InetAddress;
 import java.time.Duration;
 import java.util.List;
-
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+import static io.activej.common.Checks.checkArgument;
+import static io.activej.http.Http2Constants.ALPN_HTTP_1_1;
+import static io.activej.http.Http2Constants.ALPN_HTTP_2;
+import static io.activej.http.HttpHeaders.CONTENT_ENCODING;
+import static io.activej.http.HttpHeaders.VARY;
+import static io.activej.http.HttpUtils.getAcceptEncodingQuality;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
 /**
@@ -53,6 +64,12 @@ public final class HttpServer extends AbstractReactiveServer {
 	public static final MemSize MAX_BODY_SIZE = ApplicationSettings.getMemSize(HttpServer.class, "maxBodySize", MemSize.ZERO);
 	public static final MemSize MAX_WEB_SOCKET_MESSAGE_SIZE = ApplicationSettings.getMemSize(HttpServer.class, "maxWebSocketMessageSize", MemSize.megabytes(1));
 	public static final int MAX_KEEP_ALIVE_REQUESTS = ApplicationSettings.getInt(HttpServer.class, "maxKeepAliveRequests", 0);
+	public static final boolean HTTP2_ENABLED = ApplicationSettings.getBoolean(HttpServer.class, "http2Enabled", false);
+	public static final int HTTP2_MAX_CONCURRENT_STREAMS = ApplicationSettings.getInt(HttpServer.class, "http2MaxConcurrentStreams", 100);
+	public static final int COMPRESSION_LEVEL = ApplicationSettings.getInt(HttpServer.class, "compressionLevel", Deflater.DEFAULT_COMPRESSION);
+	public static final MemSize COMPRESSION_MIN_SIZE = ApplicationSettings.getMemSize(HttpServer.class, "compressionMinSize", MemSize.ZERO);
+
+	private static final HttpHeaderValue VARY_ACCEPT_ENCODING_HEADER = HttpHeaderValue.of("Accept-Encoding");
 
 	private final AsyncServlet servlet;
 	private HttpExceptionFormatter errorFormatter = HttpExceptionFormatter.COMMON_FORMATTER;
@@ -64,6 +81,12 @@ public final class HttpServer extends AbstractReactiveServer {
 	int maxBodySize = MAX_BODY_SIZE.toInt();
 	int maxWebSocketMessageSize = MAX_WEB_SOCKET_MESSAGE_SIZE.toInt();
 	int maxKeepAliveRequests = MAX_KEEP_ALIVE_REQUESTS;
+	boolean http2Enabled = HTTP2_ENABLED;
+	int http2MaxConcurrentStreams = HTTP2_MAX_CONCURRENT_STREAMS;
+	private List<ContentEncoder> contentEncoders = List.of(ContentEncoder.gzip(COMPRESSION_LEVEL));
+	private int compressionMinSize = COMPRESSION_MIN_SIZE.toInt();
+	private @Nullable Executor compressionExecutor;
+	private int compressionExecutorMinSize;
 
 	final ConnectionsLinkedList poolNew = new ConnectionsLinkedList();
 	final ConnectionsLinkedList poolReadWrite = new ConnectionsLinkedList();
@@ -126,8 +149,7 @@ public final class HttpServer extends AbstractReactiveServer {
 
 		@Override
 		public void onServletException(HttpRequest request, Exception e) {
-			HttpServerConnection connection = request.getConnection();
-			InetAddress remoteAddress = connection.getRemoteAddress();
+			InetAddress remoteAddress = request.getRemoteAddress();
 			servletExceptions.recordException(e, remoteAddress + ": " + request);
 		}
 
@@ -249,6 +271,69 @@ public final class HttpServer extends AbstractReactiveServer {
 			return this;
 		}
 
+		/**
+		 * Enables HTTP/2 support. HTTP/2 is served over cleartext connections to clients
+		 * which start with the HTTP/2 connection preface (prior knowledge), and over SSL connections
+		 * which negotiate {@code h2} protocol via ALPN. Other connections are served with HTTP/1.x
+		 */
+		public Builder withHttp2Enabled(boolean http2Enabled) {
+			checkNotBuilt(this);
+			HttpServer.this.http2Enabled = http2Enabled;
+			return this;
+		}
+
+		/**
+		 * Sets a maximum number of concurrently served streams of a single HTTP/2 connection
+		 */
+		public Builder withHttp2MaxConcurrentStreams(int http2MaxConcurrentStreams) {
+			checkNotBuilt(this);
+			checkArgument(http2MaxConcurrentStreams > 0, "Maximum number of concurrent streams must be positive");
+			HttpServer.this.http2MaxConcurrentStreams = http2MaxConcurrentStreams;
+			return this;
+		}
+
+		/**
+		 * Sets content encoders, which may be applied to responses with
+		 * {@link HttpMessage.Builder#withBodyGzipCompression() compression} enabled.
+		 * An encoder is negotiated from the {@code Accept-Encoding} header of a request,
+		 * preferring encoders that come first when a client accepts several of them equally.
+		 * If a client accepts none of the encoders, a response is sent uncompressed.
+		 * <p>
+		 * By default, only gzip is used
+		 */
+		public Builder withContentEncoders(List<ContentEncoder> contentEncoders) {
+			checkNotBuilt(this);
+			checkArgument(!contentEncoders.isEmpty(), "At least one content encoder is required");
+			HttpServer.this.contentEncoders = List.copyOf(contentEncoders);
+			return this;
+		}
+
+		public Builder withContentEncoders(ContentEncoder... contentEncoders) {
+			checkNotBuilt(this);
+			return withContentEncoders(List.of(contentEncoders));
+		}
+
+		/**
+		 * Sets a minimum size of a response body to be compressed.
+		 * Smaller bodies are sent as is, as compressing them barely saves any traffic
+		 */
+		public Builder withCompressionMinSize(MemSize compressionMinSize) {
+			checkNotBuilt(this);
+			HttpServer.this.compressionMinSize = compressionMinSize.toInt();
+			return this;
+		}
+
+		/**
+		 * Offloads compression of response bodies that are at least {@code minSize} large
+		 * to a given executor, so that compression of large bodies does not stall the reactor
+		 */
+		public Builder withCompressionExecutor(Executor compressionExecutor, MemSize minSize) {
+			checkNotBuilt(this);
+			HttpServer.this.compressionExecutor = compressionExecutor;
+			HttpServer.this.compressionExecutorMinSize = minSize.toInt();
+			return this;
+		}
+
 		public Builder withNoKeepAlive() {
 			checkNotBuilt(this);
 			return withKeepAliveTimeout(Duration.ZERO);
@@ -342,6 +427,15 @@ public final class HttpServer extends AbstractReactiveServer {
 		});
 	}
 
+	@Override
+	protected void configureSslEngine(SSLEngine sslEngine) {
+		if (!http2Enabled) return;
+		sslEngine.setHandshakeApplicationProtocolSelector((engine, protocols) ->
+			protocols.contains(ALPN_HTTP_2) ? ALPN_HTTP_2 :
+				protocols.contains(ALPN_HTTP_1_1) ? ALPN_HTTP_1_1 :
+					null);
+	}
+
 	@Override
 	protected void serve(ITcpSocket socket, InetAddress remoteAddress) {
 		if (expiredConnectionsCheck == null) {
@@ -386,6 +480,60 @@ public final class HttpServer extends AbstractReactiveServer {
 		return errorFormatter.formatException(e);
 	}
 
+	/**
+	 * Encodes a body of a response with {@link HttpMessage.Builder#withBodyGzipCompression() compression} enabled,
+	 * using a content encoder negotiated from the {@code Accept-Encoding} header of a request.
+	 * Large bodies are encoded on a {@link Builder#withCompressionExecutor compression executor}, if it is set
+	 */
+	Promise<Void> encodeBody(HttpResponse response, @Nullable String acceptEncoding) {
+		if ((response.flags & HttpMessage.USE_GZIP) == 0) return Promise.complete();
+		response.flags &= ~HttpMessage.USE_GZIP;
+		response.headers.addIfAbsent(VARY, VARY_ACCEPT_ENCODING_HEADER);
+
+		ContentEncoder encoder = negotiateContentEncoder(contentEncoders, acceptEncoding);
+		if (encoder == null) return Promise.complete();
+
+		ByteBuf body = response.body;
+		if (body == null) {
+			ChannelSupplier<ByteBuf> bodyStream = response.bodyStream;
+			if (bodyStream != null) {
+				response.headers.addIfAbsent(CONTENT_ENCODING, HttpHeaderValue.of(encoder.getName()));
+				response.bodyStream = encoder.encode(bodyStream);
+			}
+			return Promise.complete();
+		}
+
+		int size = body.readRemaining();
+		if (size < compressionMinSize) return Promise.complete();
+		response.headers.addIfAbsent(CONTENT_ENCODING, HttpHeaderValue.of(encoder.getName()));
+		if (compressionExecutor == null || size < compressionExecutorMinSize) {
+			response.body = encoder.encode(body);
+			return Promise.complete();
+		}
+		response.body = null;
+		return Promise.ofBlocking(compressionExecutor, () -> encoder.encode(body))
+			.whenResult(encoded -> response.body = encoded)
+			.toVoid();
+	}
+
+	/**
+	 * Chooses the most preferred encoder accepted by a client,
+	 * or the first encoder if a client has not specified accepted encodings
+	 */
+	static @Nullable ContentEncoder negotiateContentEncoder(List<ContentEncoder> encoders, @Nullable String acceptEncoding) {
+		if (acceptEncoding == null) return encoders.get(0);
+		ContentEncoder result = null;
+		double resultQuality = 0.0;
+		for (ContentEncoder encoder : encoders) {
+			double quality = getAcceptEncodingQuality(acceptEncoding, encoder.getName());
+			if (quality > resultQuality) {
+				result = encoder;
+				resultQuality = quality;
+			}
+		}
+		return result;
+	}
+
 	@JmxAttribute(description = "current number of connections", reducer = JmxReducerSum.class)
 	public int getConnectionsCount() {
 		return poolNew.size() + poolKeepAlive.size() + poolReadWrite.size() + poolServing.size();
@@ -33,6 +33,7 @@ import io.activej.reactor.Reactor;
 import org.jetbrains.annotations.Nullable;
 
 import java.net.InetAddress;
+import java.util.Arrays;
 
 import static io.activej.bytebuf.ByteBufStrings.*;
 import static io.activej.common.Utils.nullify;
@@ -40,6 +41,7 @@ import static io.activej.common.exception.FatalErrorHandler.handleError;
 import static io.activej.csp.supplier.ChannelSuppliers.concat;
 import static io.activej.http.HttpHeaderValue.ofBytes;
 import static io.activej.http.HttpHeaderValue.ofDecimal;
+import static io.activej.http.Http2Constants.CONNECTION_PREFACE;
 import static io.activej.http.HttpHeaders.*;
 import static io.activej.http.HttpMessage.MUST_LOAD_BODY;
 import static io.activej.http.HttpMethod.*;
@@ -142,6 +144,17 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 
 	@Override
 	protected void readMessage() throws MalformedHttpException {
+		if (server.http2Enabled && pool == server.poolNew) {
+			int prefaceBytes = min(readBuf.readRemaining(), CONNECTION_PREFACE.length);
+			if (Arrays.equals(readBuf.array(), readBuf.head(), readBuf.head() + prefaceBytes, CONNECTION_PREFACE, 0, prefaceBytes)) {
+				if (prefaceBytes == CONNECTION_PREFACE.length) {
+					switchToHttp2();
+				} else {
+					socket.read().subscribe(readMessageConsumer);
+				}
+				return;
+			}
+		}
 		boolean continueReading;
 		do {
 			request = nullify(request, HttpMessage::recycle); // nullify any previous request
@@ -162,6 +175,16 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 		}
 	}
 
+	private void switchToHttp2() {
+		//noinspection ConstantConditions
+		pool.removeNode(this);
+		pool = null;
+		ByteBuf readBuf = this.readBuf;
+		this.readBuf = null;
+		stashedBufs = nullify(stashedBufs, Recyclable::recycle);
+		new Http2ServerConnection(reactor, this, socket, remoteAddress, server, servlet).serve(readBuf);
+	}
+
 	@Override
 	protected void onClosedWithError(Exception e) {
 		if (inspector != null) {
@@ -434,8 +457,20 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 				if (inspector != null) {
 					inspector.onHttpResponse(request, response);
 				}
+				String acceptEncoding = (response.flags & HttpMessage.USE_GZIP) != 0 ? request.getHeader(ACCEPT_ENCODING) : null;
 				recycle();
-				writeHttpResponse(response);
+				server.encodeBody(response, acceptEncoding)
+					.subscribe(($, e2) -> {
+						if (isClosed()) {
+							response.recycleBody();
+							return;
+						}
+						if (e2 == null) {
+							writeHttpResponse(response);
+						} else {
+							writeException(e2);
+						}
+					});
 			} else {
 				if (inspector != null) {
 					inspector.onServletException(request, e);
@@ -498,4 +498,33 @@ public final class HttpUtils {
 	static int hashCodeCI(byte[] array) {
 		return hashCodeCI(array, 0, array.length);
 	}
+
+	/**
+	 * Returns a quality with which a given content coding is accepted according to an {@code Accept-Encoding} header.
+	 * An explicit entry for the coding takes precedence over a {@code *} wildcard,
+	 * a coding which is not listed at all has a quality of 0
+	 */
+	static double getAcceptEncodingQuality(String acceptEncoding, String coding) {
+		double wildcardQuality = 0.0;
+		for (String entry : acceptEncoding.split(",")) {
+			String[] parts = entry.split(";");
+			String name = parts[0].trim();
+			boolean isWildcard = name.equals("*");
+			if (!isWildcard && !name.equalsIgnoreCase(coding)) continue;
+			double quality = 1.0;
+			for (int i = 1; i < parts.length; i++) {
+				String param = parts[i].replace(" ", "");
+				if (param.length() < 2 || Character.toLowerCase(param.charAt(0)) != 'q' || param.charAt(1) != '=') continue;
+				try {
+					quality = Double.parseDouble(param.substring(2));
+				} catch (NumberFormatException e) {
+					quality = 0.0;
+				}
+				break;
+			}
+			if (!isWildcard) return quality;
+			wildcardQuality = quality;
+		}
+		return wildcardQuality;
+	}
 }
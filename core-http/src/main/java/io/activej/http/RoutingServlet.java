@@ -30,7 +30,6 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
@@ -61,6 +60,19 @@ public final class RoutingServlet extends AbstractReactive
 	private final Map<String, RoutingServlet> routes = new HashMap<>();
 	private final Map<String, RoutingServlet> parameters = new HashMap<>();
 
+	/**
+	 * A lookup-friendly form of {@link #routes} and {@link #parameters},
+	 * which is built on the first request and dropped whenever routes change
+	 */
+	private @Nullable CompiledRoutes compiledRoutes;
+
+	private record CompiledRoutes(
+		UrlPartTable<RoutingServlet> routes,
+		String[] parameterNames,
+		RoutingServlet[] parameterServlets
+	) {
+	}
+
 	private RoutingServlet(Reactor reactor) {
 		super(reactor);
 	}
@@ -164,21 +176,31 @@ public final class RoutingServlet extends AbstractReactive
 
 	private @Nullable Promise<HttpResponse> tryServe(HttpRequest request) throws Exception {
 		int introPosition = request.getPos();
-		String urlPart = request.pollUrlPart();
-		if (urlPart == null) {
-			throw HttpError.badRequest400("Path contains bad percent encoding");
-		}
 		Protocol protocol = request.getProtocol();
 		int ordinal = protocol == WS || protocol == WSS ? WS_ORDINAL : request.getMethod().ordinal();
+		CompiledRoutes compiledRoutes = ensureCompiledRoutes();
+
+		// most path parts do not need decoding, so they are looked up by raw bytes of URL
+		String urlPart = null;
+		RoutingServlet transit;
+		int urlPartEnd = request.pollPlainUrlPart();
+		if (urlPartEnd != -1) {
+			transit = compiledRoutes.routes.get(request.getRawUrl(), introPosition + 1, urlPartEnd);
+		} else {
+			urlPart = request.pollUrlPart();
+			if (urlPart == null) {
+				throw HttpError.badRequest400("Path contains bad percent encoding");
+			}
+			transit = urlPart.isEmpty() ? null : routes.get(urlPart);
+		}
 
-		if (urlPart.isEmpty()) {
+		if (urlPart != null && urlPart.isEmpty()) {
 			AsyncServlet servlet = getOrDefault(servlets, ordinal);
 			if (servlet != null) {
 				return servlet.serve(request);
 			}
 		} else {
 			int position = request.getPos();
-			RoutingServlet transit = routes.get(urlPart);
 			if (transit != null) {
 				Promise<HttpResponse> result = transit.tryServe(request);
 				if (result != null) {
@@ -186,15 +208,23 @@ public final class RoutingServlet extends AbstractReactive
 				}
 				request.setPos(position);
 			}
-			for (Entry<String, RoutingServlet> entry : parameters.entrySet()) {
-				String key = entry.getKey();
-				request.putPathParameter(key, urlPart);
-				Promise<HttpResponse> result = entry.getValue().tryServe(request);
-				if (result != null) {
-					return result;
+			String[] parameterNames = compiledRoutes.parameterNames;
+			if (parameterNames.length != 0) {
+				if (urlPart == null) {
+					request.setPos(introPosition);
+					urlPart = request.pollUrlPart();
+					assert urlPart != null;
+				}
+				for (int i = 0; i < parameterNames.length; i++) {
+					String key = parameterNames[i];
+					request.putPathParameter(key, urlPart);
+					Promise<HttpResponse> result = compiledRoutes.parameterServlets[i].tryServe(request);
+					if (result != null) {
+						return result;
+					}
+					request.removePathParameter(key);
+					request.setPos(position);
 				}
-				request.removePathParameter(key);
-				request.setPos(position);
 			}
 		}
 
@@ -206,6 +236,18 @@ public final class RoutingServlet extends AbstractReactive
 		return null;
 	}
 
+	private CompiledRoutes ensureCompiledRoutes() {
+		CompiledRoutes compiledRoutes = this.compiledRoutes;
+		if (compiledRoutes == null) {
+			compiledRoutes = new CompiledRoutes(
+				UrlPartTable.of(routes),
+				parameters.keySet().toArray(new String[0]),
+				parameters.values().toArray(new RoutingServlet[0]));
+			this.compiledRoutes = compiledRoutes;
+		}
+		return compiledRoutes;
+	}
+
 	public @Nullable RoutingServlet getChild(String path) {
 		return getChildImpl(path, (servlet, name) ->
 			name.startsWith(":") ?
@@ -214,10 +256,12 @@ public final class RoutingServlet extends AbstractReactive
 	}
 
 	private RoutingServlet ensureChild(String path) {
-		return getChildImpl(path, (servlet, name) ->
-			name.startsWith(":") ?
+		return getChildImpl(path, (servlet, name) -> {
+			servlet.compiledRoutes = null;
+			return name.startsWith(":") ?
 				servlet.parameters.computeIfAbsent(name.substring(1), $ -> new RoutingServlet(reactor)) :
-				servlet.routes.computeIfAbsent(name, $ -> new RoutingServlet(reactor)));
+				servlet.routes.computeIfAbsent(name, $ -> new RoutingServlet(reactor));
+		});
 	}
 
 	private RoutingServlet getChildImpl(String path, BiFunction<RoutingServlet, String, @Nullable RoutingServlet> childGetter) {
@@ -247,6 +291,7 @@ public final class RoutingServlet extends AbstractReactive
 	}
 
 	private static void mergeInto(RoutingServlet into, RoutingServlet from) {
+		into.compiledRoutes = null;
 		for (int i = 0; i < from.servlets.length; i++) {
 			AsyncServlet rootServlet = from.servlets[i];
 			if (rootServlet != null) {
@@ -17,7 +17,6 @@
 package io.activej.http;
 
 import io.activej.async.function.AsyncSupplier;
-import io.activej.bytebuf.ByteBuf;
 import io.activej.common.Checks;
 import io.activej.common.builder.AbstractBuilder;
 import io.activej.http.loader.IStaticLoader;
@@ -40,7 +39,8 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static io.activej.http.HttpHeaderValue.ofContentType;
-import static io.activej.http.HttpHeaders.CONTENT_TYPE;
+import static io.activej.http.HttpHeaders.*;
+import static io.activej.http.HttpUtils.getAcceptEncodingQuality;
 import static io.activej.reactor.Reactive.checkInReactorThread;
 
 /**
@@ -52,6 +52,9 @@ public final class StaticServlet extends AbstractReactive
 
 	public static final Charset DEFAULT_TXT_ENCODING = StandardCharsets.UTF_8;
 
+	private static final HttpHeaderValue ACCEPT_ENCODING_HEADER = HttpHeaderValue.of("Accept-Encoding");
+	private static final HttpHeaderValue CONTENT_ENCODING_GZIP_HEADER = HttpHeaderValue.of("gzip");
+
 	private final IStaticLoader resourceLoader;
 	private Function<String, ContentType> contentTypeResolver = StaticServlet::getContentType;
 	private Function<HttpRequest, @Nullable String> pathMapper = HttpRequest::getRelativePath;
@@ -59,6 +62,7 @@ public final class StaticServlet extends AbstractReactive
 	private final Set<String> indexResources = new LinkedHashSet<>();
 
 	private @Nullable String defaultResource;
+	private boolean gzipCompression;
 
 	private StaticServlet(Reactor reactor, IStaticLoader resourceLoader) {
 		super(reactor);
@@ -139,6 +143,19 @@ public final class StaticServlet extends AbstractReactive
 			return this;
 		}
 
+		/**
+		 * Serves gzip-compressed resources to clients which accept gzip encoding.
+		 * Resources are obtained by means of {@link IStaticLoader#loadGzipped}, so that
+		 * a {@link io.activej.http.loader.CacheStaticLoader caching loader} compresses each resource only once.
+		 * <p>
+		 * Responses should not be configured with {@link HttpMessage.Builder#withBodyGzipCompression()}
+		 */
+		public Builder withGzipCompression() {
+			checkNotBuilt(this);
+			StaticServlet.this.gzipCompression = true;
+			return this;
+		}
+
 		@Override
 		protected StaticServlet doBuild() {
 			return StaticServlet.this;
@@ -168,11 +185,38 @@ public final class StaticServlet extends AbstractReactive
 		return type;
 	}
 
-	private Promise<HttpResponse> createHttpResponse(ByteBuf buf, ContentType contentType) {
-		return responseBuilderSupplier.get()
-			.withBody(buf)
-			.withHeader(CONTENT_TYPE, ofContentType(contentType))
-			.toPromise();
+	private Promise<HttpResponse> loadHttpResponse(String path, ContentType contentType, boolean gzip) {
+		if (gzip) {
+			return resourceLoader.loadGzipped(path)
+				.then(buf -> createResponseBuilder(contentType, true)
+					.withBody(buf)
+					.toPromise());
+		}
+		return resourceLoader.loadFile(path)
+			.then(fileReader -> fileReader != null ?
+				createResponseBuilder(contentType, false)
+					.withBodyStream(fileReader)
+					.toPromise() :
+				resourceLoader.load(path)
+					.then(buf -> createResponseBuilder(contentType, false)
+						.withBody(buf)
+						.toPromise()));
+	}
+
+	private HttpResponse.Builder createResponseBuilder(ContentType contentType, boolean gzip) {
+		HttpResponse.Builder builder = responseBuilderSupplier.get()
+			.withHeader(CONTENT_TYPE, ofContentType(contentType));
+		if (gzipCompression) {
+			builder.withHeader(VARY, ACCEPT_ENCODING_HEADER);
+		}
+		if (gzip) {
+			builder.withHeader(CONTENT_ENCODING, CONTENT_ENCODING_GZIP_HEADER);
+		}
+		return builder;
+	}
+
+	static boolean acceptsGzip(@Nullable String acceptEncoding) {
+		return acceptEncoding != null && getAcceptEncodingQuality(acceptEncoding, "gzip") > 0;
 	}
 
 	@Override
@@ -181,38 +225,36 @@ public final class StaticServlet extends AbstractReactive
 		String mappedPath = pathMapper.apply(request);
 		if (mappedPath == null) return Promise.ofException(HttpError.notFound404());
 		ContentType contentType = contentTypeResolver.apply(mappedPath);
+		boolean gzip = gzipCompression && acceptsGzip(request.getHeader(ACCEPT_ENCODING));
 		return Promise.complete()
 			.then(() -> (mappedPath.endsWith("/") || mappedPath.isEmpty()) ?
-				tryLoadIndexResource(mappedPath) :
-				resourceLoader.load(mappedPath)
-					.then(byteBuf -> createHttpResponse(byteBuf, contentType))
+				tryLoadIndexResource(mappedPath, gzip) :
+				loadHttpResponse(mappedPath, contentType, gzip)
 					.then((value, e) -> {
 						if (e instanceof ResourceIsADirectoryException) {
-							return tryLoadIndexResource(mappedPath);
+							return tryLoadIndexResource(mappedPath, gzip);
 						} else {
 							return Promise.of(value, e);
 						}
 					}))
 			.then(Promise::of,
 				e -> e instanceof ResourceNotFoundException ?
-					tryLoadDefaultResource() :
+					tryLoadDefaultResource(gzip) :
 					Promise.ofException(HttpError.ofCode(400, e)));
 	}
 
-	private Promise<HttpResponse> tryLoadIndexResource(String mappedPath) {
+	private Promise<HttpResponse> tryLoadIndexResource(String mappedPath, boolean gzip) {
 		String dirPath = mappedPath.endsWith("/") || mappedPath.isEmpty() ? mappedPath : (mappedPath + '/');
 		return Promises.first(
 				indexResources.stream()
 					.map(indexResource -> (AsyncSupplier<HttpResponse>) () ->
-						resourceLoader.load(dirPath + indexResource)
-							.then(byteBuf -> createHttpResponse(byteBuf, contentTypeResolver.apply(indexResource)))))
+						loadHttpResponse(dirPath + indexResource, contentTypeResolver.apply(indexResource), gzip)))
 			.mapException(e -> new ResourceNotFoundException("Could not find '" + mappedPath + '\'', e));
 	}
 
-	private Promise<HttpResponse> tryLoadDefaultResource() {
+	private Promise<HttpResponse> tryLoadDefaultResource(boolean gzip) {
 		return defaultResource != null ?
-			resourceLoader.load(defaultResource)
-				.then(buf -> createHttpResponse(buf, contentTypeResolver.apply(defaultResource))) :
+			loadHttpResponse(defaultResource, contentTypeResolver.apply(defaultResource), gzip) :
 			Promise.ofException(HttpError.notFound404());
 	}
 }
@@ -482,6 +482,36 @@ public final class UrlParser {
 		}
 	}
 
+	/**
+	 * Works like {@link #pollUrlPart()}, but does not decode a path part into a string.
+	 * Instead, returns an end position of the part in a {@link #getRaw() raw} URL,
+	 * the part starting right after the previous position.
+	 * <p>
+	 * If the part is empty or would be changed by decoding,
+	 * the position is not moved and {@code -1} is returned
+	 */
+	int pollPlainUrlPart() {
+		if (pos >= pathEnd) return -1;
+		int start = pos + 1;
+		int end = start;
+		for (; end < pathEnd; end++) {
+			byte b = raw[end];
+			if (b == '/') break;
+			if (b == '%' || b == '+' || b == '&' || b == '#' || b < 0) return -1;
+		}
+		if (end == start) return -1;
+		int nextSlash = end < pathEnd ? end : indexOf(SLASH, pathEnd);
+		pos = nextSlash > pathEnd ? pathEnd : (short) nextSlash;
+		if (no(pos)) {
+			pos = limit;
+		}
+		return end;
+	}
+
+	byte[] getRaw() {
+		return raw;
+	}
+
 	private boolean isEqual(String key, int start, int end) {
 		if (end - start != key.length()) {
 			return false;
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.http;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable open addressing hash table, which maps parts of a URL path to values.
+ * <p>
+ * Parts are looked up by raw bytes of a URL, so that they do not need to be decoded into strings.
+ * Hence, only keys that are not changed by URL decoding are stored in this table:
+ * those which consist of ASCII characters other than {@code '%'}, {@code '+'}, {@code '&'} and {@code '#'}
+ */
+final class UrlPartTable<T> {
+	private final byte[][] keys;
+	private final Object[] values;
+	private final int mask;
+
+	private UrlPartTable(byte[][] keys, Object[] values) {
+		this.keys = keys;
+		this.values = values;
+		this.mask = keys.length - 1;
+	}
+
+	static <T> UrlPartTable<T> of(Map<String, T> map) {
+		// keep load factor at most 0.5, so that probe sequences stay short
+		int capacity = Integer.highestOneBit(Math.max(1, map.size() * 2 - 1)) << 1;
+		UrlPartTable<T> table = new UrlPartTable<>(new byte[capacity][], new Object[capacity]);
+		for (Map.Entry<String, T> entry : map.entrySet()) {
+			byte[] key = toRawKey(entry.getKey());
+			if (key != null) {
+				table.put(key, entry.getValue());
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Returns a value mapped to a part of URL which lies in a given range of a given array
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable T get(byte[] array, int from, int to) {
+		int i = hash(array, from, to) & mask;
+		while (true) {
+			byte[] key = keys[i];
+			if (key == null) return null;
+			if (Arrays.equals(key, 0, key.length, array, from, to)) return (T) values[i];
+			i = (i + 1) & mask;
+		}
+	}
+
+	private void put(byte[] key, T value) {
+		int i = hash(key, 0, key.length) & mask;
+		while (keys[i] != null) {
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+	}
+
+	private static byte @Nullable [] toRawKey(String key) {
+		byte[] bytes = new byte[key.length()];
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c >= 0x80 || c == '%' || c == '+' || c == '&' || c == '#') return null;
+			bytes[i] = (byte) c;
+		}
+		return bytes;
+	}
+
+	private static int hash(byte[] array, int from, int to) {
+		int h = 0;
+		for (int i = from; i < to; i++) {
+			h = 31 * h + array[i];
+		}
+		return h ^ (h >>> 16);
+	}
+}
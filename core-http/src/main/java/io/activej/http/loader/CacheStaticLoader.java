@@ -18,49 +18,282 @@ package io.activej.http.loader;
 
 import io.activej.bytebuf.ByteBuf;
 import io.activej.common.Checks;
+import io.activej.common.MemSize;
+import io.activej.common.builder.AbstractBuilder;
+import io.activej.http.GzipProcessorUtils;
+import io.activej.jmx.api.attribute.JmxAttribute;
+import io.activej.jmx.api.attribute.JmxOperation;
+import io.activej.jmx.stats.EventStats;
 import io.activej.promise.Promise;
 import io.activej.reactor.AbstractReactive;
 import io.activej.reactor.Reactor;
+import io.activej.reactor.jmx.ReactiveJmxBeanWithStats;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import static io.activej.bytebuf.ByteBuf.wrapForReading;
+import static io.activej.common.Checks.checkArgument;
 import static io.activej.reactor.Reactive.checkInReactorThread;
 
+/**
+ * A cache of resources loaded by another {@link IStaticLoader}.
+ * <p>
+ * By default, a cache is an unbounded LRU cache. A cache may be bounded by the total size
+ * of cached resources, in which case the least recently used resources are evicted.
+ * Gzip-compressed variants of resources are cached alongside, so that each resource
+ * is compressed at most once while it stays in the cache.
+ * <p>
+ * A cache may also be backed by custom get/put functions, in which case
+ * size bounds, expiration and compressed variants are managed by those functions' owner
+ */
 public class CacheStaticLoader extends AbstractReactive
-	implements IStaticLoader {
+	implements IStaticLoader, ReactiveJmxBeanWithStats {
 	private static final boolean CHECKS = Checks.isEnabled(CacheStaticLoader.class);
 
 	public static final byte[] NOT_FOUND = {};
 
+	private static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
+
 	private final IStaticLoader resourceLoader;
-	private final Function<String, byte[]> get;
-	private final BiConsumer<String, byte[]> put;
+	private final @Nullable Function<String, byte[]> get;
+	private final @Nullable BiConsumer<String, byte[]> put;
+
+	private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private long maxSize = Long.MAX_VALUE;
+	private long expirationMillis;
+	private long size;
+
+	// region JMX
+	private final EventStats hits = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats misses = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats evictions = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats expirations = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats compressions = EventStats.create(SMOOTHING_WINDOW);
+	// endregion
+
+	private static final class Entry {
+		final byte[] bytes;
+		byte @Nullable [] gzipped;
+		final long timestamp;
 
-	CacheStaticLoader(Reactor reactor, IStaticLoader resourceLoader, Function<String, byte[]> get, BiConsumer<String, byte[]> put) {
+		Entry(byte[] bytes, long timestamp) {
+			this.bytes = bytes;
+			this.timestamp = timestamp;
+		}
+
+		long weight() {
+			return bytes.length + (gzipped != null ? gzipped.length : 0);
+		}
+	}
+
+	CacheStaticLoader(Reactor reactor, IStaticLoader resourceLoader, @Nullable Function<String, byte[]> get, @Nullable BiConsumer<String, byte[]> put) {
 		super(reactor);
 		this.resourceLoader = resourceLoader;
 		this.get = get;
 		this.put = put;
 	}
 
+	public static CacheStaticLoader create(Reactor reactor, IStaticLoader resourceLoader) {
+		return builder(reactor, resourceLoader).build();
+	}
+
+	public static Builder builder(Reactor reactor, IStaticLoader resourceLoader) {
+		return new CacheStaticLoader(reactor, resourceLoader, null, null).new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, CacheStaticLoader> {
+		private Builder() {}
+
+		/**
+		 * Sets a maximum total size of cached resources, including their compressed variants
+		 */
+		public Builder withMaxSize(MemSize maxSize) {
+			checkNotBuilt(this);
+			checkArgument(maxSize.toLong() > 0, "Maximum size should be greater than 0");
+			CacheStaticLoader.this.maxSize = maxSize.toLong();
+			return this;
+		}
+
+		/**
+		 * Sets a duration after which a cached resource (or a cached absence of a resource)
+		 * is loaded again
+		 */
+		public Builder withExpiration(Duration expiration) {
+			checkNotBuilt(this);
+			checkArgument(expiration.toMillis() > 0, "Expiration should be positive");
+			CacheStaticLoader.this.expirationMillis = expiration.toMillis();
+			return this;
+		}
+
+		@Override
+		protected CacheStaticLoader doBuild() {
+			return CacheStaticLoader.this;
+		}
+	}
+
 	@Override
 	public Promise<ByteBuf> load(String path) {
 		if (CHECKS) checkInReactorThread(this);
-		byte[] bytes = get.apply(path);
+		byte[] bytes = get != null ? get.apply(path) : getBytes(path);
 		if (bytes == NOT_FOUND) {
+			hits.recordEvent();
 			return Promise.ofException(new ResourceNotFoundException("Could not find '" + path + '\''));
 		} else if (bytes != null) {
+			hits.recordEvent();
 			return Promise.of(wrapForReading(bytes));
 		} else {
+			misses.recordEvent();
 			return doLoad(path);
 		}
 	}
 
+	@Override
+	public Promise<ByteBuf> loadGzipped(String path) {
+		if (CHECKS) checkInReactorThread(this);
+		if (get != null) return IStaticLoader.super.loadGzipped(path);
+		Entry entry = getEntry(path);
+		if (entry == null) {
+			return load(path)
+				.map(buf -> {
+					Entry loaded = cache.get(path);
+					if (loaded == null) {
+						compressions.recordEvent();
+						return GzipProcessorUtils.toGzip(buf);
+					}
+					buf.recycle();
+					return wrapForReading(gzipped(path, loaded));
+				});
+		}
+		hits.recordEvent();
+		if (entry.bytes == NOT_FOUND) {
+			return Promise.ofException(new ResourceNotFoundException("Could not find '" + path + '\''));
+		}
+		return Promise.of(wrapForReading(gzipped(path, entry)));
+	}
+
 	private Promise<ByteBuf> doLoad(String path) {
 		return resourceLoader.load(path)
-			.whenResult(buf -> put.accept(path, buf.getArray()))
-			.whenException(ResourceNotFoundException.class, e -> put.accept(path, NOT_FOUND));
+			.whenResult(buf -> putBytes(path, buf.getArray()))
+			.whenException(ResourceNotFoundException.class, e -> putBytes(path, NOT_FOUND));
+	}
+
+	private byte @Nullable [] getBytes(String path) {
+		Entry entry = getEntry(path);
+		return entry != null ? entry.bytes : null;
+	}
+
+	private @Nullable Entry getEntry(String path) {
+		Entry entry = cache.get(path);
+		if (entry != null && expirationMillis != 0 && reactor.currentTimeMillis() - entry.timestamp >= expirationMillis) {
+			expirations.recordEvent();
+			remove(path);
+			return null;
+		}
+		return entry;
+	}
+
+	private void putBytes(String path, byte[] bytes) {
+		if (put != null) {
+			put.accept(path, bytes);
+			return;
+		}
+		remove(path);
+		if (bytes.length > maxSize) return;
+		Entry entry = new Entry(bytes, reactor.currentTimeMillis());
+		cache.put(path, entry);
+		size += entry.weight();
+		evict();
+	}
+
+	private byte[] gzipped(String path, Entry entry) {
+		if (entry.gzipped == null) {
+			compressions.recordEvent();
+			byte[] gzipped = GzipProcessorUtils.toGzip(wrapForReading(entry.bytes)).asArray();
+			if (entry.weight() + gzipped.length > maxSize) {
+				remove(path);
+				return gzipped;
+			}
+			entry.gzipped = gzipped;
+			size += gzipped.length;
+			evict();
+		}
+		return entry.gzipped;
+	}
+
+	private void remove(String path) {
+		Entry removed = cache.remove(path);
+		if (removed != null) {
+			size -= removed.weight();
+		}
+	}
+
+	private void evict() {
+		Iterator<Entry> iterator = cache.values().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			Entry eldest = iterator.next();
+			iterator.remove();
+			size -= eldest.weight();
+			evictions.recordEvent();
+		}
+	}
+
+	// region JMX
+	@JmxAttribute
+	public EventStats getHits() {
+		return hits;
+	}
+
+	@JmxAttribute
+	public EventStats getMisses() {
+		return misses;
+	}
+
+	@JmxAttribute
+	public EventStats getEvictions() {
+		return evictions;
+	}
+
+	@JmxAttribute
+	public EventStats getExpirations() {
+		return expirations;
+	}
+
+	@JmxAttribute(description = "number of gzip compressions of resources")
+	public EventStats getCompressions() {
+		return compressions;
+	}
+
+	@JmxAttribute
+	public int getCachedResources() {
+		return cache.size();
+	}
+
+	@JmxAttribute(description = "total size of cached resources and their compressed variants, in bytes")
+	public long getCachedSize() {
+		return size;
+	}
+
+	@JmxAttribute
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	@JmxAttribute
+	public void setMaxSize(long maxSize) {
+		checkArgument(maxSize > 0, "Maximum size should be greater than 0");
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	@JmxOperation
+	public void invalidateAll() {
+		cache.clear();
+		size = 0;
 	}
+	// endregion
 }
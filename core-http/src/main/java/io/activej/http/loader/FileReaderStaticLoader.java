@@ -24,11 +24,14 @@ import io.activej.promise.Promise;
 import io.activej.reactor.AbstractReactive;
 import io.activej.reactor.Reactor;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.Executor;
 
 import static io.activej.reactor.Reactive.checkInReactorThread;
+import static java.nio.file.StandardOpenOption.READ;
 
 public class FileReaderStaticLoader extends AbstractReactive
 	implements IStaticLoader {
@@ -45,6 +48,12 @@ public class FileReaderStaticLoader extends AbstractReactive
 
 	@Override
 	public Promise<ByteBuf> load(String path) {
+		return loadFile(path)
+			.then(cfr -> cfr.toCollector(ByteBufs.collector()));
+	}
+
+	@Override
+	public Promise<ChannelFileReader> loadFile(String path) {
 		if (CHECKS) checkInReactorThread(this);
 		Path file = root.resolve(path).normalize();
 
@@ -55,7 +64,7 @@ public class FileReaderStaticLoader extends AbstractReactive
 		return Promise.ofBlocking(executor,
 				() -> {
 					if (Files.isRegularFile(file)) {
-						return;
+						return FileChannel.open(file, READ);
 					}
 					if (Files.isDirectory(file)) {
 						throw new ResourceIsADirectoryException("Resource '" + path + "' is a directory");
@@ -63,7 +72,15 @@ public class FileReaderStaticLoader extends AbstractReactive
 						throw new ResourceNotFoundException("Could not find '" + path + '\'');
 					}
 				})
-			.then(() -> ChannelFileReader.open(executor, file))
-			.then(cfr -> cfr.toCollector(ByteBufs.collector()));
+			.map(channel -> {
+				try {
+					return ChannelFileReader.builder(reactor, executor, channel)
+						.withLimit(channel.size())
+						.build();
+				} catch (IOException e) {
+					channel.close();
+					throw e;
+				}
+			});
 	}
 }
@@ -17,13 +17,16 @@
 package io.activej.http.loader;
 
 import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
 import io.activej.common.annotation.ComponentInterface;
+import io.activej.csp.file.ChannelFileReader;
+import io.activej.http.GzipProcessorUtils;
 import io.activej.http.StaticServlet;
 import io.activej.promise.Promise;
 import io.activej.reactor.Reactor;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
@@ -39,14 +42,69 @@ public interface IStaticLoader {
 
 	Promise<ByteBuf> load(String path);
 
+	/**
+	 * Loads a gzip-compressed resource.
+	 * <p>
+	 * By default, a resource is loaded and compressed on each call.
+	 * Caching loaders may return precompressed variants instead.
+	 */
+	default Promise<ByteBuf> loadGzipped(String path) {
+		return load(path).map(buf -> GzipProcessorUtils.toGzip(buf));
+	}
+
+	/**
+	 * Opens a resource as a {@link ChannelFileReader} limited to the size of the resource,
+	 * so that a server may send it without copying its contents through the heap.
+	 * <p>
+	 * By default, resources are not backed by files and {@code null} is returned,
+	 * in which case a resource should be {@link #load loaded} instead.
+	 */
+	default Promise<@Nullable ChannelFileReader> loadFile(String path) {
+		return Promise.of(null);
+	}
+
 	default IStaticLoader filter(Predicate<String> predicate) {
-		return path -> predicate.test(path) ?
-			load(path) :
-			Promise.ofException(new ResourceNotFoundException("Resource '" + path + "' has been filtered out"));
+		IStaticLoader self = this;
+		return new IStaticLoader() {
+			@Override
+			public Promise<ByteBuf> load(String path) {
+				return predicate.test(path) ? self.load(path) : filteredOut(path);
+			}
+
+			@Override
+			public Promise<ByteBuf> loadGzipped(String path) {
+				return predicate.test(path) ? self.loadGzipped(path) : filteredOut(path);
+			}
+
+			@Override
+			public Promise<@Nullable ChannelFileReader> loadFile(String path) {
+				return predicate.test(path) ? self.loadFile(path) : filteredOut(path);
+			}
+
+			private static <T> Promise<T> filteredOut(String path) {
+				return Promise.ofException(new ResourceNotFoundException("Resource '" + path + "' has been filtered out"));
+			}
+		};
 	}
 
 	default IStaticLoader map(UnaryOperator<String> fn) {
-		return path -> this.load(fn.apply(path));
+		IStaticLoader self = this;
+		return new IStaticLoader() {
+			@Override
+			public Promise<ByteBuf> load(String path) {
+				return self.load(fn.apply(path));
+			}
+
+			@Override
+			public Promise<ByteBuf> loadGzipped(String path) {
+				return self.loadGzipped(fn.apply(path));
+			}
+
+			@Override
+			public Promise<@Nullable ChannelFileReader> loadFile(String path) {
+				return self.loadFile(fn.apply(path));
+			}
+		};
 	}
 
 	default IStaticLoader subdirectory(String subdirectory) {
@@ -58,12 +116,18 @@ public interface IStaticLoader {
 		return cacheOf(reactor, this);
 	}
 
+	default IStaticLoader cached(Reactor reactor, MemSize maxSize) {
+		return CacheStaticLoader.builder(reactor, this)
+			.withMaxSize(maxSize)
+			.build();
+	}
+
 	default IStaticLoader cached(Reactor reactor, Map<String, byte[]> map) {
 		return cacheOf(reactor, this, map);
 	}
 
 	static IStaticLoader cacheOf(Reactor reactor, IStaticLoader loader) {
-		return cacheOf(reactor, loader, new HashMap<>());
+		return CacheStaticLoader.create(reactor, loader);
 	}
 
 	static IStaticLoader cacheOf(Reactor reactor, IStaticLoader loader, Map<String, byte[]> map) {
@@ -19,30 +19,59 @@ package io.activej.http.session;
 import io.activej.common.Checks;
 import io.activej.common.builder.AbstractBuilder;
 import io.activej.common.time.CurrentTimeProvider;
+import io.activej.jmx.api.attribute.JmxAttribute;
+import io.activej.jmx.stats.EventStats;
 import io.activej.promise.Promise;
 import io.activej.reactor.AbstractReactive;
 import io.activej.reactor.Reactor;
+import io.activej.reactor.jmx.ReactiveJmxBeanWithStats;
+import io.activej.reactor.schedule.ScheduledRunnable;
 import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
 
+import static io.activej.common.Checks.checkArgument;
 import static io.activej.reactor.Reactive.checkInReactorThread;
 
 /**
  * A simple reference implementation of the session storage over a hash map.
+ * <p>
+ * Sessions are kept in the order of their last access, so the least recently used sessions
+ * are the first to expire. If a session lifetime is set, expired sessions are removed periodically
+ * in the background, not only when they are accessed. If a maximum number of sessions is set,
+ * the least recently used sessions are evicted when it is exceeded.
+ * <p>
+ * Session objects may be stored in a serialized form, which keeps a store of millions of sessions
+ * as a set of byte arrays instead of object graphs which have to be traversed by GC.
  */
 public final class InMemorySessionStore<T> extends AbstractReactive
-	implements ISessionStore<T> {
+	implements ISessionStore<T>, ReactiveJmxBeanWithStats {
 	private static final boolean CHECKS = Checks.isEnabled(InMemorySessionStore.class);
 
-	private final Map<String, TWithTimestamp> store = new HashMap<>();
+	public static final Duration DEFAULT_CLEANUP_INTERVAL = Duration.ofSeconds(1);
+
+	private static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
+
+	private final LinkedHashMap<String, TWithTimestamp> store = new LinkedHashMap<>(16, 0.75f, true);
 
 	private @Nullable Duration sessionLifetime;
+	private int maxSessions = Integer.MAX_VALUE;
+	private Duration cleanupInterval = DEFAULT_CLEANUP_INTERVAL;
+	private @Nullable Function<T, byte[]> serializer;
+	private @Nullable Function<byte[], T> deserializer;
+
+	private @Nullable ScheduledRunnable scheduledCleanup;
 
 	CurrentTimeProvider now = CurrentTimeProvider.ofSystem();
 
+	// region JMX
+	private final EventStats expiredSessions = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats evictedSessions = EventStats.create(SMOOTHING_WINDOW);
+	// endregion
+
 	private InMemorySessionStore(Reactor reactor) {
 		super(reactor);
 	}
@@ -64,6 +93,38 @@ public final class InMemorySessionStore<T> extends AbstractReactive
 			return this;
 		}
 
+		/**
+		 * Sets a maximum number of stored sessions. When it is exceeded,
+		 * the least recently used sessions are evicted
+		 */
+		public Builder withMaxSessions(int maxSessions) {
+			checkNotBuilt(this);
+			checkArgument(maxSessions > 0, "Maximum number of sessions should be greater than 0");
+			InMemorySessionStore.this.maxSessions = maxSessions;
+			return this;
+		}
+
+		/**
+		 * Sets an interval of background removal of expired sessions
+		 */
+		public Builder withCleanupInterval(Duration cleanupInterval) {
+			checkNotBuilt(this);
+			checkArgument(cleanupInterval.toMillis() > 0, "Cleanup interval should be positive");
+			InMemorySessionStore.this.cleanupInterval = cleanupInterval;
+			return this;
+		}
+
+		/**
+		 * Stores session objects in a serialized form.
+		 * A session object is deserialized each time it is retrieved
+		 */
+		public Builder withSerialization(Function<T, byte[]> serializer, Function<byte[], T> deserializer) {
+			checkNotBuilt(this);
+			InMemorySessionStore.this.serializer = serializer;
+			InMemorySessionStore.this.deserializer = deserializer;
+			return this;
+		}
+
 		@Override
 		protected InMemorySessionStore<T> doBuild() {
 			return InMemorySessionStore.this;
@@ -73,7 +134,14 @@ public final class InMemorySessionStore<T> extends AbstractReactive
 	@Override
 	public Promise<Void> save(String sessionId, T sessionObject) {
 		if (CHECKS) checkInReactorThread(this);
-		store.put(sessionId, new TWithTimestamp(sessionObject, now.currentTimeMillis()));
+		long timestamp = now.currentTimeMillis();
+		store.put(sessionId, serializer != null ?
+			new TWithTimestamp(null, serializer.apply(sessionObject), timestamp) :
+			new TWithTimestamp(sessionObject, timestamp));
+		if (store.size() > maxSessions) {
+			evict();
+		}
+		ensureCleanup();
 		return Promise.complete();
 	}
 
@@ -87,10 +155,13 @@ public final class InMemorySessionStore<T> extends AbstractReactive
 		}
 		if (sessionLifetime != null && tWithTimestamp.timestamp + sessionLifetime.toMillis() < timestamp) {
 			store.remove(sessionId);
+			expiredSessions.recordEvent();
 			return Promise.of(null);
 		}
 		tWithTimestamp.timestamp = timestamp;
-		return Promise.of(tWithTimestamp.value);
+		return Promise.of(deserializer != null ?
+			deserializer.apply(tWithTimestamp.serializedValue) :
+			tWithTimestamp.value);
 	}
 
 	@Override
@@ -105,12 +176,65 @@ public final class InMemorySessionStore<T> extends AbstractReactive
 		return sessionLifetime;
 	}
 
+	private void evict() {
+		Iterator<TWithTimestamp> iterator = store.values().iterator();
+		while (store.size() > maxSessions) {
+			iterator.next();
+			iterator.remove();
+			evictedSessions.recordEvent();
+		}
+	}
+
+	private void ensureCleanup() {
+		if (sessionLifetime == null || scheduledCleanup != null) return;
+		scheduledCleanup = reactor.delayBackground(cleanupInterval, this::cleanup);
+	}
+
+	private void cleanup() {
+		scheduledCleanup = null;
+		assert sessionLifetime != null;
+		long expirationTimestamp = now.currentTimeMillis() - sessionLifetime.toMillis();
+		Iterator<TWithTimestamp> iterator = store.values().iterator();
+		while (iterator.hasNext()) {
+			TWithTimestamp tWithTimestamp = iterator.next();
+			if (tWithTimestamp.timestamp >= expirationTimestamp) break;
+			iterator.remove();
+			expiredSessions.recordEvent();
+		}
+		if (!store.isEmpty()) {
+			ensureCleanup();
+		}
+	}
+
+	// region JMX
+	@JmxAttribute
+	public int getSessions() {
+		return store.size();
+	}
+
+	@JmxAttribute
+	public EventStats getExpiredSessions() {
+		return expiredSessions;
+	}
+
+	@JmxAttribute
+	public EventStats getEvictedSessions() {
+		return evictedSessions;
+	}
+	// endregion
+
 	public class TWithTimestamp {
 		final T value;
+		final byte @Nullable [] serializedValue;
 		long timestamp;
 
 		public TWithTimestamp(T value, long timestamp) {
+			this(value, null, timestamp);
+		}
+
+		private TWithTimestamp(T value, byte @Nullable [] serializedValue, long timestamp) {
 			this.value = value;
+			this.serializedValue = serializedValue;
 			this.timestamp = timestamp;
 		}
 	}
@@ -0,0 +1,131 @@
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.http.HpackTable.HeaderField;
+import io.activej.test.rules.ByteBufRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.*;
+
+public final class HpackTest {
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	// RFC 7541, Appendix C.4: requests with Huffman coding
+	private static final String[][][] REQUESTS = {
+		{{":method", "GET"}, {":scheme", "http"}, {":path", "/"}, {":authority", "www.example.com"}},
+		{{":method", "GET"}, {":scheme", "http"}, {":path", "/"}, {":authority", "www.example.com"}, {"cache-control", "no-cache"}},
+		{{":method", "GET"}, {":scheme", "https"}, {":path", "/index.html"}, {":authority", "www.example.com"}, {"custom-key", "custom-value"}},
+	};
+
+	private static final String[] ENCODED = {
+		"828684418cf1e3c2e5f23a6ba0ab90f4ff",
+		"828684be5886a8eb10649cbf",
+		"828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf",
+	};
+
+	@Test
+	public void testEncoderProducesRfcExamples() {
+		HpackEncoder encoder = new HpackEncoder();
+		for (int i = 0; i < REQUESTS.length; i++) {
+			ByteBuf buf = ByteBufPool.allocate(256);
+			encoder.beginBlock(buf);
+			for (String[] header : REQUESTS[i]) {
+				encoder.encode(buf, field(header[0], header[1]));
+			}
+			assertEquals(ENCODED[i], HexFormat.of().formatHex(buf.asArray()));
+		}
+	}
+
+	@Test
+	public void testDecoderParsesRfcExamples() throws Http2Exception {
+		HpackDecoder decoder = new HpackDecoder(4096);
+		for (int i = 0; i < REQUESTS.length; i++) {
+			byte[] block = HexFormat.of().parseHex(ENCODED[i]);
+			List<String[]> decoded = decode(decoder, block);
+			assertEquals(REQUESTS[i].length, decoded.size());
+			for (int j = 0; j < decoded.size(); j++) {
+				assertArrayEquals(REQUESTS[i][j], decoded.get(j));
+			}
+		}
+		assertEquals(164, decoder.getTableSize());
+	}
+
+	@Test
+	public void testRoundTripWithEvictionsAndTableResize() throws Http2Exception {
+		Random random = new Random(0);
+		HpackEncoder encoder = new HpackEncoder();
+		HpackDecoder decoder = new HpackDecoder(4096);
+		for (int block = 0; block < 500; block++) {
+			if (block == 250) {
+				encoder.setMaxTableSize(256);
+			}
+			List<String[]> headers = new ArrayList<>();
+			int count = 1 + random.nextInt(10);
+			for (int i = 0; i < count; i++) {
+				String name = "x-header-" + random.nextInt(30);
+				String value = random.nextInt(4) == 0 ? "" : randomValue(random);
+				headers.add(new String[]{name, value});
+			}
+			ByteBuf buf = ByteBufPool.allocate(8192);
+			encoder.beginBlock(buf);
+			for (String[] header : headers) {
+				encoder.encode(buf, field(header[0], header[1]));
+			}
+			List<String[]> decoded = decode(decoder, buf.asArray());
+			assertEquals(headers.size(), decoded.size());
+			for (int i = 0; i < headers.size(); i++) {
+				assertArrayEquals(headers.get(i), decoded.get(i));
+			}
+			assertTrue(decoder.getTableSize() <= (block < 250 ? 4096 : 256));
+		}
+	}
+
+	@Test
+	public void testHuffmanRoundTrip() throws Http2Exception {
+		Random random = new Random(0);
+		for (int i = 0; i < 1000; i++) {
+			byte[] bytes = new byte[random.nextInt(100)];
+			random.nextBytes(bytes);
+			ByteBuf buf = ByteBufPool.allocate(HpackHuffman.encodedLength(bytes, 0, bytes.length));
+			HpackHuffman.encode(buf, bytes, 0, bytes.length);
+			byte[] encoded = buf.asArray();
+			assertArrayEquals(bytes, HpackHuffman.decode(encoded, 0, encoded.length));
+		}
+	}
+
+	@Test
+	public void testInvalidIndex() {
+		HpackDecoder decoder = new HpackDecoder(4096);
+		byte[] block = {(byte) 0xbe}; // index 62 with an empty dynamic table
+		assertThrows(Http2Exception.class, () -> decode(decoder, block));
+	}
+
+	private static List<String[]> decode(HpackDecoder decoder, byte[] block) throws Http2Exception {
+		List<String[]> decoded = new ArrayList<>();
+		decoder.decode(block, 0, block.length,
+			(name, value) -> decoded.add(new String[]{new String(name, ISO_8859_1), new String(value, ISO_8859_1)}));
+		return decoded;
+	}
+
+	private static HeaderField field(String name, String value) {
+		return new HeaderField(name.getBytes(ISO_8859_1), value.getBytes(ISO_8859_1));
+	}
+
+	private static String randomValue(Random random) {
+		char[] chars = new char[1 + random.nextInt(40)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) (0x20 + random.nextInt(0x5f));
+		}
+		return new String(chars);
+	}
+}
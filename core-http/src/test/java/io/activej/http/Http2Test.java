@@ -0,0 +1,299 @@
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufStrings;
+import io.activej.common.MemSize;
+import io.activej.csp.supplier.ChannelSuppliers;
+import io.activej.dns.DnsClient;
+import io.activej.http.HttpClient.JmxInspector;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.reactor.Reactor;
+import io.activej.reactor.nio.NioReactor;
+import io.activej.test.rules.ActivePromisesRule;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static io.activej.bytebuf.ByteBufStrings.wrapUtf8;
+import static io.activej.http.HttpHeaders.ACCEPT_ENCODING;
+import static io.activej.http.HttpHeaders.CONTENT_ENCODING;
+import static io.activej.https.SslUtils.createTestSslContext;
+import static io.activej.promise.TestUtils.await;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public final class Http2Test {
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	@Rule
+	public final ActivePromisesRule activePromisesRule = new ActivePromisesRule();
+
+	private NioReactor reactor;
+	private DnsClient dnsClient;
+	private int port;
+	private String url;
+
+	@Before
+	public void setUp() {
+		reactor = Reactor.getCurrentReactor();
+		dnsClient = DnsClient.create(reactor, HttpUtils.inetAddress("8.8.8.8"));
+		port = getFreePort();
+		url = "http://127.0.0.1:" + port;
+	}
+
+	@Test
+	public void testPriorKnowledge() throws IOException {
+		HttpServer.builder(reactor,
+				request -> HttpResponse.ok200()
+					.withBody(wrapUtf8(request.getVersion() + " " + request.getMethod() + " " + request.getPath() + "?" + request.getQuery()))
+					.toPromise())
+			.withHttp2Enabled(true)
+			.withListenPort(port)
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		HttpClient client = HttpClient.builder(reactor, dnsClient)
+			.withHttp2PriorKnowledge(true)
+			.build();
+
+		String result = await(client.request(HttpRequest.get(url + "/path?a=b").build())
+			.then(response -> response.loadBody()
+				.map(body -> response.getVersion() + " " + response.getCode() + " " + body.getString(UTF_8))));
+		assertEquals("HTTP_2_0 200 HTTP_2_0 GET /path?a=b", result);
+	}
+
+	@Test
+	public void testMultiplexing() throws IOException {
+		int requests = 50;
+		Random random = new Random(0);
+		HttpServer.builder(reactor,
+				request -> Promise.ofCallback(cb -> reactor.delay(random.nextInt(20),
+					() -> cb.set(HttpResponse.ok200()
+						.withBody(wrapUtf8(request.getPath()))
+						.build()))))
+			.withHttp2Enabled(true)
+			.withListenPort(port)
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		JmxInspector inspector = new JmxInspector();
+		HttpClient client = HttpClient.builder(reactor, dnsClient)
+			.withHttp2PriorKnowledge(true)
+			.withInspector(inspector)
+			.build();
+
+		List<String> bodies = await(Promises.toList(IntStream.range(0, requests)
+			.mapToObj(i -> client.request(HttpRequest.get(url + "/" + i).build())
+				.then(response -> response.loadBody())
+				.map(body -> body.getString(UTF_8)))));
+
+		for (int i = 0; i < requests; i++) {
+			assertEquals("/" + i, bodies.get(i));
+		}
+		assertEquals(1, inspector.getConnected().getTotalCount());
+	}
+
+	@Test
+	public void testLargeBodiesWithFlowControl() throws IOException {
+		byte[] data = new byte[5 * 1024 * 1024 + 17];
+		new Random(0).nextBytes(data);
+
+		HttpServer.builder(reactor,
+				request -> request.loadBody(data.length)
+					.map(body -> HttpResponse.ok200()
+						.withBody(body.slice())
+						.build()))
+			.withHttp2Enabled(true)
+			.withListenPort(port)
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		HttpClient client = HttpClient.builder(reactor, dnsClient)
+			.withHttp2PriorKnowledge(true)
+			.build();
+
+		byte[] body = await(client.request(HttpRequest.post(url)
+				.withBody(data)
+				.build())
+			.then(response -> response.loadBody(data.length))
+			.map(ByteBuf::getArray));
+		assertArrayEquals(data, body);
+	}
+
+	@Test
+	public void testStreamedResponse() throws IOException {
+		List<String> chunks = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			chunks.add("chunk-" + i + ";");
+		}
+
+		HttpServer.builder(reactor,
+				request -> HttpResponse.ok200()
+					.withBodyStream(ChannelSuppliers.ofList(chunks.stream().map(ByteBufStrings::wrapUtf8).toList()))
+					.toPromise())
+			.withHttp2Enabled(true)
+			.withListenPort(port)
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		HttpClient client = HttpClient.builder(reactor, dnsClient)
+			.withHttp2PriorKnowledge(true)
+			.build();
+
+		String body = await(client.request(HttpRequest.get(url).build())
+			.then(response -> response.loadBody())
+			.map(buf -> buf.getString(UTF_8)));
+		assertEquals(String.join("", chunks), body);
+	}
+
+	@Test
+	public void testGzip() throws IOException {
+		String message = "Hello, compressed world! ".repeat(100);
+		HttpServer.builder(reactor,
+				request -> HttpResponse.ok200()
+					.withBodyGzipCompression()
+					.withBody(wrapUtf8(message))
+					.toPromise())
+			.withHttp2Enabled(true)
+			.withListenPort(port)
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		HttpClient client = HttpClient.builder(reactor, dnsClient)
+			.withHttp2PriorKnowledge(true)
+			.build();
+
+		String body = await(client.request(HttpRequest.get(url)
+				.withHeader(ACCEPT_ENCODING, "gzip")
+				.build())
+			.then(response -> response.loadBody())
+			.map(buf -> buf.getString(UTF_8)));
+		assertEquals(message, body);
+	}
+
+	@Test
+	public void testGzipRequest() throws IOException {
+		String message = "Hello, compressed request! ".repeat(100);
+		HttpServer.builder(reactor,
+				request -> request.loadBody()
+					.map(body -> HttpResponse.ok200()
+						.withBody(wrapUtf8(request.getHeader(CONTENT_ENCODING) + " " + body.getString(UTF_8)))
+						.build()))
+			.withHttp2Enabled(true)
+			.withListenPort(port)
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		AtomicInteger compressions = new AtomicInteger();
+		Executor executor = Executors.newSingleThreadExecutor();
+		HttpClient client = HttpClient.builder(reactor, dnsClient)
+			.withHttp2PriorKnowledge(true)
+			.withCompressionExecutor(runnable -> {
+				compressions.incrementAndGet();
+				executor.execute(runnable);
+			}, MemSize.ZERO)
+			.build();
+
+		String body = await(client.request(HttpRequest.post(url)
+				.withBodyGzipCompression()
+				.withBody(wrapUtf8(message))
+				.build())
+			.then(response -> response.loadBody())
+			.map(buf -> buf.getString(UTF_8)));
+		assertEquals("gzip " + message, body);
+		assertEquals(1, compressions.get());
+	}
+
+	@Test
+	public void testHttp1ClientOnHttp2Server() throws IOException {
+		HttpServer.builder(reactor,
+				request -> HttpResponse.ok200()
+					.withBody(wrapUtf8(request.getVersion().name()))
+					.toPromise())
+			.withHttp2Enabled(true)
+			.withListenPort(port)
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		HttpClient client = HttpClient.create(reactor, dnsClient);
+
+		String body = await(client.request(HttpRequest.get(url).build())
+			.then(response -> response.loadBody())
+			.map(buf -> buf.getString(UTF_8)));
+		assertEquals("HTTP_1_1", body);
+	}
+
+	@Test
+	public void testAlpn() throws Exception {
+		HttpServer.builder(reactor,
+				request -> HttpResponse.ok200()
+					.withBody(wrapUtf8(request.getVersion() + " " + request.getProtocol()))
+					.toPromise())
+			.withHttp2Enabled(true)
+			.withSslListenAddress(createTestSslContext(), Executors.newSingleThreadExecutor(), new InetSocketAddress(port))
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		HttpClient client = HttpClient.builder(reactor, dnsClient)
+			.withSslEnabled(createTestSslContext(), Executors.newSingleThreadExecutor())
+			.withHttp2Enabled(true)
+			.build();
+
+		String result = await(client.request(HttpRequest.get("https://127.0.0.1:" + port).build())
+			.then(response -> response.loadBody()
+				.map(body -> response.getVersion() + " " + body.getString(UTF_8))));
+		assertEquals("HTTP_2_0 HTTP_2_0 HTTPS", result);
+	}
+
+	@Test
+	public void testAlpnFallbackToHttp1() throws Exception {
+		HttpServer.builder(reactor,
+				request -> HttpResponse.ok200()
+					.withBody(wrapUtf8(request.getVersion().name()))
+					.toPromise())
+			.withSslListenAddress(createTestSslContext(), Executors.newSingleThreadExecutor(), new InetSocketAddress(port))
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		HttpClient client = HttpClient.builder(reactor, dnsClient)
+			.withSslEnabled(createTestSslContext(), Executors.newSingleThreadExecutor())
+			.withHttp2Enabled(true)
+			.withKeepAliveTimeout(Duration.ZERO)
+			.build();
+
+		String result = await(client.request(HttpRequest.get("https://127.0.0.1:" + port).build())
+			.then(response -> response.loadBody()
+				.map(body -> response.getVersion() + " " + body.getString(UTF_8))));
+		assertEquals("HTTP_1_1 HTTP_1_1", result);
+	}
+}
@@ -436,6 +436,106 @@ public final class HttpClientTest {
 		return null;
 	};
 
+	@Test
+	public void testMaxConnectionsPerAddress() throws IOException {
+		int[] activeRequests = {0};
+		int[] maxActiveRequests = {0};
+		HttpServer server = HttpServer.builder(Reactor.getCurrentReactor(),
+				request -> {
+					maxActiveRequests[0] = Math.max(maxActiveRequests[0], ++activeRequests[0]);
+					return Promises.delay(Duration.ofMillis(10), HttpResponse.ok200().withBody(HELLO_WORLD).build())
+						.whenComplete(() -> activeRequests[0]--);
+				})
+			.withListenPort(port)
+			.build();
+		server.listen();
+
+		HttpClient client = HttpClient.builder(Reactor.getCurrentReactor(), dnsClient)
+			.withKeepAliveTimeout(Duration.ofSeconds(30))
+			.withMaxConnectionsPerAddress(2)
+			.build();
+
+		List<String> bodies = await(Promises.toList(IntStream.range(0, 10)
+				.mapToObj($ -> client.request(HttpRequest.get("http://127.0.0.1:" + port).build())
+					.then(response -> response.loadBody())
+					.map(body -> body.getString(UTF_8))))
+			.whenResult(() -> assertEquals(8, client.getConnectionWaitTime().getCount()))
+			.whenComplete(server::close)
+			.whenComplete(client::stop));
+
+		assertEquals(10, bodies.size());
+		bodies.forEach(body -> assertEquals(decodeAscii(HELLO_WORLD), body));
+		assertEquals(2, maxActiveRequests[0]);
+		assertEquals(0, client.getPendingRequestsCount());
+	}
+
+	@Test
+	public void testConnectionWaitTimeout() throws IOException {
+		HttpServer server = HttpServer.builder(Reactor.getCurrentReactor(),
+				request -> Promises.delay(Duration.ofMillis(200), HttpResponse.ok200().withBody(HELLO_WORLD).build()))
+			.withListenPort(port)
+			.build();
+		server.listen();
+
+		HttpClient client = HttpClient.builder(Reactor.getCurrentReactor(), dnsClient)
+			.withMaxConnectionsPerAddress(1)
+			.withConnectionWaitTimeout(Duration.ofMillis(20))
+			.build();
+
+		Ref<Exception> secondException = new Ref<>();
+		Promise<String> first = client.request(HttpRequest.get("http://127.0.0.1:" + port).build())
+			.then(response -> response.loadBody())
+			.map(body -> body.getString(UTF_8));
+		Promise<Void> second = client.request(HttpRequest.get("http://127.0.0.1:" + port).build())
+			.then((response, e) -> {
+				assertNull(response);
+				secondException.set(e);
+				return Promise.complete();
+			});
+		await(Promises.all(first, second)
+			.whenComplete(server::close)
+			.whenComplete(client::stop));
+
+		assertEquals(decodeAscii(HELLO_WORLD), first.getResult());
+		assertThat(secondException.get(), instanceOf(HttpException.class));
+		assertThat(secondException.get().getCause(), instanceOf(AsyncTimeoutException.class));
+		assertEquals(1, client.getPendingRequestsExpired());
+		assertEquals(0, client.getPendingRequestsCount());
+	}
+
+	@Test
+	public void testMinIdleConnectionsPerAddress() throws IOException {
+		HttpServer server = HttpServer.builder(Reactor.getCurrentReactor(),
+				request -> HttpResponse.ok200().withBody(HELLO_WORLD).toPromise())
+			.withListenPort(port)
+			.build();
+		server.listen();
+
+		HttpClient client = HttpClient.builder(Reactor.getCurrentReactor(), dnsClient)
+			.withKeepAliveTimeout(Duration.ofSeconds(30))
+			.withMinIdleConnectionsPerAddress(3)
+			.build();
+
+		List<Integer> idleConnections = new ArrayList<>();
+		await(client.request(HttpRequest.get("http://127.0.0.1:" + port).build())
+			.then(response -> response.loadBody())
+			.then(() -> Promises.delay(Duration.ofMillis(100)))
+			.whenResult(() -> idleConnections.add(client.getConnectionsKeepAliveCount()))
+			.then(() -> client.request(HttpRequest.get("http://127.0.0.1:" + port).build()))
+			.whenResult(() -> idleConnections.add(client.getConnectionsKeepAliveCount()))
+			.then(response -> response.loadBody())
+			.then(() -> Promises.delay(Duration.ofMillis(100)))
+			.whenResult(() -> idleConnections.add(client.getConnectionsKeepAliveCount()))
+			.whenComplete(server::close)
+			.whenComplete(client::stop));
+
+		// a connection of the first request is returned to the pool along with 3 prewarmed ones
+		// then taking a connection out of the pool leaves 3 idle connections
+		// and once the second request completes, its connection gets back into the pool
+		assertEquals(List.of(4, 3, 4), idleConnections);
+		assertEquals(0, client.getConnectionsCount());
+	}
+
 	private Promise<HttpResponse> customResponse(ByteBuf rawResponse, boolean ssl) throws IOException {
 		SimpleServer.Builder builder = SimpleServer.builder(Reactor.getCurrentReactor(), socket ->
 				BinaryChannelSupplier.of(ChannelSuppliers.ofSocket(socket))
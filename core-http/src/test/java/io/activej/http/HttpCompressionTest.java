@@ -0,0 +1,254 @@
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
+import io.activej.csp.supplier.ChannelSupplier;
+import io.activej.csp.supplier.ChannelSuppliers;
+import io.activej.dns.DnsClient;
+import io.activej.promise.Promise;
+import io.activej.reactor.Reactor;
+import io.activej.reactor.nio.NioReactor;
+import io.activej.test.rules.ActivePromisesRule;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.activej.bytebuf.ByteBufStrings.wrapUtf8;
+import static io.activej.http.HttpHeaders.*;
+import static io.activej.http.HttpServer.negotiateContentEncoder;
+import static io.activej.http.HttpUtils.inetAddress;
+import static io.activej.promise.TestUtils.await;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public final class HttpCompressionTest {
+	private static final String SMALL_TEXT = "Hello, World!";
+	private static final String LARGE_TEXT = "Hello, World! ".repeat(10_000);
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	@Rule
+	public final ActivePromisesRule activePromisesRule = new ActivePromisesRule();
+
+	private NioReactor reactor;
+	private IHttpClient client;
+	private String url;
+	private int port;
+
+	@Before
+	public void setUp() {
+		reactor = Reactor.getCurrentReactor();
+		client = HttpClient.create(reactor, DnsClient.create(reactor, inetAddress("8.8.8.8")));
+		port = getFreePort();
+		url = "http://127.0.0.1:" + port;
+	}
+
+	@Test
+	public void testNegotiation() {
+		ContentEncoder gzip = ContentEncoder.gzip();
+		ContentEncoder test = new TestContentEncoder("x-test");
+		List<ContentEncoder> encoders = List.of(gzip, test);
+
+		assertSame(gzip, negotiateContentEncoder(encoders, null));
+		assertSame(gzip, negotiateContentEncoder(encoders, "gzip, deflate"));
+		assertSame(gzip, negotiateContentEncoder(encoders, "x-test, gzip"));
+		assertSame(test, negotiateContentEncoder(encoders, "X-Test"));
+		assertSame(test, negotiateContentEncoder(encoders, "gzip;q=0.5, x-test;q=0.8"));
+		assertSame(gzip, negotiateContentEncoder(encoders, "*"));
+		assertSame(test, negotiateContentEncoder(encoders, "gzip;q=0, *;q=0.1"));
+		assertNull(negotiateContentEncoder(encoders, "br"));
+		assertNull(negotiateContentEncoder(encoders, "identity"));
+		assertNull(negotiateContentEncoder(encoders, "gzip;q=0, x-test;q=0.0"));
+		assertSame(gzip, negotiateContentEncoder(encoders, "*;q=0, gzip"));
+		assertSame(test, negotiateContentEncoder(encoders, "gzip;level=1;q=0.2, x-test;q=0.5"));
+		assertNull(negotiateContentEncoder(encoders, "gzip;level=1;q=0, x-test;Q=0"));
+	}
+
+	@Test
+	public void testNotAcceptedEncoding() throws IOException {
+		HttpServer server = startServer(HttpServer.builder(reactor, request -> HttpResponse.ok200()
+			.withBodyGzipCompression()
+			.withBody(wrapUtf8(LARGE_TEXT))
+			.toPromise()));
+
+		Result response = await(client.request(HttpRequest.get(url)
+				.withHeader(ACCEPT_ENCODING, "br, gzip;q=0")
+				.build())
+			.then(this::loadBody)
+			.whenComplete(server::close));
+
+		assertNull(response.contentEncoding());
+		assertEquals("Accept-Encoding", response.vary());
+		assertEquals(String.valueOf(LARGE_TEXT.length()), response.contentLength());
+		assertEquals(LARGE_TEXT, response.body());
+	}
+
+	@Test
+	public void testCustomEncoder() throws IOException {
+		HttpServer server = startServer(HttpServer.builder(reactor, request -> HttpResponse.ok200()
+				.withBodyGzipCompression()
+				.withBody(wrapUtf8(SMALL_TEXT))
+				.toPromise())
+			.withContentEncoders(ContentEncoder.gzip(), new TestContentEncoder("x-test")));
+
+		Result response = await(client.request(HttpRequest.get(url)
+				.withHeader(ACCEPT_ENCODING, "x-test")
+				.build())
+			.then(this::loadBody)
+			.whenComplete(server::close));
+
+		assertEquals("x-test", response.contentEncoding());
+		assertEquals("[x-test]" + SMALL_TEXT, response.body());
+	}
+
+	@Test
+	public void testCompressionMinSize() throws IOException {
+		HttpServer server = startServer(HttpServer.builder(reactor, request -> HttpResponse.ok200()
+				.withBodyGzipCompression()
+				.withBody(wrapUtf8(request.getPath().equals("/large") ? LARGE_TEXT : SMALL_TEXT))
+				.toPromise())
+			.withCompressionMinSize(MemSize.kilobytes(1)));
+
+		List<Result> results = await(client.request(HttpRequest.get(url + "/small").build())
+			.then(this::loadBody)
+			.then(small -> client.request(HttpRequest.get(url + "/large").build())
+				.then(this::loadBody)
+				.map(large -> List.of(small, large)))
+			.whenComplete(server::close));
+
+		Result small = results.get(0);
+		assertNull(small.contentEncoding());
+		assertEquals(SMALL_TEXT, small.body());
+
+		Result large = results.get(1);
+		assertEquals("gzip", large.contentEncoding());
+		assertTrue(Integer.parseInt(large.contentLength()) < LARGE_TEXT.length());
+		assertEquals(LARGE_TEXT, large.body());
+	}
+
+	@Test
+	public void testCompressionExecutor() throws IOException {
+		Thread reactorThread = Thread.currentThread();
+		Set<Thread> encodingThreads = ConcurrentHashMap.newKeySet();
+		ContentEncoder gzip = ContentEncoder.gzip(9);
+		ContentEncoder encoder = new ContentEncoder() {
+			@Override
+			public String getName() {
+				return gzip.getName();
+			}
+
+			@Override
+			public ByteBuf encode(ByteBuf body) {
+				encodingThreads.add(Thread.currentThread());
+				return gzip.encode(body);
+			}
+
+			@Override
+			public ChannelSupplier<ByteBuf> encode(ChannelSupplier<ByteBuf> bodyStream) {
+				return gzip.encode(bodyStream);
+			}
+		};
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		HttpServer server = startServer(HttpServer.builder(reactor, request -> HttpResponse.ok200()
+				.withBodyGzipCompression()
+				.withBody(wrapUtf8(LARGE_TEXT))
+				.toPromise())
+			.withContentEncoders(encoder)
+			.withCompressionExecutor(executor, MemSize.kilobytes(64)));
+
+		Result response = await(client.request(HttpRequest.get(url).build())
+			.then(this::loadBody)
+			.whenComplete(server::close));
+		executor.shutdown();
+
+		assertEquals("gzip", response.contentEncoding());
+		assertEquals(LARGE_TEXT, response.body());
+		assertEquals(1, encodingThreads.size());
+		assertNotSame(reactorThread, encodingThreads.iterator().next());
+	}
+
+	@Test
+	public void testStreamedCompression() throws IOException {
+		HttpServer server = startServer(HttpServer.builder(reactor, request -> HttpResponse.ok200()
+				.withBodyGzipCompression()
+				.withBodyStream(ChannelSuppliers.ofValues(wrapUtf8(LARGE_TEXT), wrapUtf8(SMALL_TEXT)))
+				.toPromise())
+			.withContentEncoders(ContentEncoder.gzip(1)));
+
+		Result response = await(client.request(HttpRequest.get(url)
+				.withHeader(ACCEPT_ENCODING, "gzip")
+				.build())
+			.then(this::loadBody)
+			.whenComplete(server::close));
+
+		assertEquals("gzip", response.contentEncoding());
+		assertEquals("chunked", response.transferEncoding());
+		assertEquals(LARGE_TEXT + SMALL_TEXT, response.body());
+	}
+
+	private HttpServer startServer(HttpServer.Builder builder) throws IOException {
+		HttpServer server = builder
+			.withListenPort(port)
+			.build();
+		server.listen();
+		return server;
+	}
+
+	private Promise<Result> loadBody(HttpResponse response) {
+		return response.loadBody()
+			.map(body -> new Result(
+				response.getHeader(CONTENT_ENCODING),
+				response.getHeader(CONTENT_LENGTH),
+				response.getHeader(TRANSFER_ENCODING),
+				response.getHeader(VARY),
+				body.getString(UTF_8)));
+	}
+
+	private record Result(
+		@Nullable String contentEncoding,
+		@Nullable String contentLength,
+		@Nullable String transferEncoding,
+		@Nullable String vary,
+		String body
+	) {
+	}
+
+	private static final class TestContentEncoder implements ContentEncoder {
+		private final String name;
+
+		TestContentEncoder(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public ByteBuf encode(ByteBuf body) {
+			return wrapUtf8("[" + name + "]" + body.asString(UTF_8));
+		}
+
+		@Override
+		public ChannelSupplier<ByteBuf> encode(ChannelSupplier<ByteBuf> bodyStream) {
+			return bodyStream.map(this::encode);
+		}
+	}
+}
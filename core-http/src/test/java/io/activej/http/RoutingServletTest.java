@@ -500,4 +500,41 @@ public final class RoutingServletTest {
 		HttpError e = assertThrows(HttpError.class, () -> router.serve(HttpRequest.get("http://example.com/a%2").build()));
 		assertEquals("HTTP code 400: Path contains bad percent encoding", e.getMessage());
 	}
+
+	@Test
+	public void testManyRoutes() throws Exception {
+		RoutingServlet.Builder builder = RoutingServlet.builder(getCurrentReactor());
+		for (int i = 0; i < 1000; i++) {
+			int n = i;
+			builder.with(GET, "/api/v1/resource" + i + "/items", request -> HttpResponse.ok200()
+				.withBody(wrapUtf8("items " + n))
+				.toPromise());
+			builder.with(GET, "/api/v1/resource" + i + "/:id", request -> HttpResponse.ok200()
+				.withBody(wrapUtf8("item " + n + " " + request.getPathParameter("id")))
+				.toPromise());
+		}
+		builder.with(GET, "/api/v1/%D1%80%D0%B5%D1%81%D1%83%D1%80%D1%81/a+b", request -> HttpResponse.ok200()
+			.withBody(wrapUtf8("encoded"))
+			.toPromise());
+		RoutingServlet main = builder.build();
+
+		check(main.serve(HttpRequest.get("http://example.com/api/v1/resource0/items").build()), "items 0", 200);
+		check(main.serve(HttpRequest.get("http://example.com/api/v1/resource999/items?x=1").build()), "items 999", 200);
+		check(main.serve(HttpRequest.get("http://example.com/api/v1/resource500/123").build()), "item 500 123", 200);
+		check(main.serve(HttpRequest.get("http://example.com/api/v1/resource500/a%20b").build()), "item 500 a b", 200);
+		check(main.serve(HttpRequest.get("http://example.com/api/v1/resource%35%30%30/items").build()), "items 500", 200);
+		check(main.serve(HttpRequest.get("http://example.com/api/v1/%D1%80%D0%B5%D1%81%D1%83%D1%80%D1%81/a+b").build()), "encoded", 200);
+		check(main.serve(HttpRequest.get("http://example.com/api/v1/resource1000/items").build()), "", 404);
+		check(main.serve(HttpRequest.get("http://example.com/api/v1/resource1/items/1").build()), "", 404);
+
+		RoutingServlet extra = RoutingServlet.builder(getCurrentReactor())
+			.with(GET, "/api/v1/resource1000/items", request -> HttpResponse.ok200()
+				.withBody(wrapUtf8("items 1000"))
+				.toPromise())
+			.build();
+		RoutingServlet merged = RoutingServlet.merge(main, extra);
+
+		check(merged.serve(HttpRequest.get("http://example.com/api/v1/resource1000/items").build()), "items 1000", 200);
+		check(merged.serve(HttpRequest.get("http://example.com/api/v1/resource7/items").build()), "items 7", 200);
+	}
 }
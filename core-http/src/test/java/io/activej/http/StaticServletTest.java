@@ -1,8 +1,12 @@
 package io.activej.http;
 
+import io.activej.async.function.AsyncRunnable;
 import io.activej.bytebuf.ByteBuf;
+import io.activej.dns.DnsClient;
 import io.activej.http.loader.IStaticLoader;
+import io.activej.promise.Promises;
 import io.activej.reactor.Reactor;
+import io.activej.reactor.nio.NioReactor;
 import io.activej.test.rules.ByteBufRule;
 import io.activej.test.rules.EventloopRule;
 import org.junit.BeforeClass;
@@ -13,6 +17,11 @@ import org.junit.rules.TemporaryFolder;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
 
 import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
 import static io.activej.http.loader.IStaticLoader.ofClassPath;
@@ -20,9 +29,12 @@ import static io.activej.http.loader.IStaticLoader.ofPath;
 import static io.activej.promise.TestUtils.await;
 import static io.activej.promise.TestUtils.awaitException;
 import static io.activej.reactor.Reactor.getCurrentReactor;
+import static io.activej.test.TestUtils.getFreePort;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public final class StaticServletTest {
 	public static final String EXPECTED_CONTENT = "Test";
@@ -56,6 +68,71 @@ public final class StaticServletTest {
 		assertEquals(EXPECTED_CONTENT, body.asString(UTF_8));
 	}
 
+	@Test
+	public void testGzipCompression() throws Exception {
+		Reactor reactor = getCurrentReactor();
+		StaticServlet staticServlet = StaticServlet.builder(reactor, ofPath(reactor, newCachedThreadPool(), resourcesPath).cached(reactor))
+			.withGzipCompression()
+			.build();
+
+		HttpResponse response = await(staticServlet.serve(HttpRequest.get("http://test.com:8080/index.html")
+			.withHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8")
+			.build()));
+		await(response.loadBody());
+		assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(EXPECTED_CONTENT, GzipProcessorUtils.fromGzip(response.getBody(), 1000).asString(UTF_8));
+
+		response = await(staticServlet.serve(HttpRequest.get("http://test.com:8080/index.html")
+			.withHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0")
+			.build()));
+		await(response.loadBody());
+		assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(EXPECTED_CONTENT, response.getBody().asString(UTF_8));
+
+		response = await(staticServlet.serve(HttpRequest.get("http://test.com:8080/index.html")
+			.withHeader(HttpHeaders.ACCEPT_ENCODING, "*;q=0, gzip")
+			.build()));
+		await(response.loadBody());
+		assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(EXPECTED_CONTENT, GzipProcessorUtils.fromGzip(response.getBody(), 1000).asString(UTF_8));
+	}
+
+	@Test
+	public void testPathLoaderOverHttp() throws IOException {
+		NioReactor reactor = getCurrentReactor();
+		byte[] bytes = new byte[1024 * 1024];
+		new Random(0).nextBytes(bytes);
+		Files.write(resourcesPath.resolve("large.bin"), bytes);
+
+		int port = getFreePort();
+		HttpServer server = HttpServer.builder(reactor, StaticServlet.create(reactor, ofPath(reactor, newCachedThreadPool(), resourcesPath)))
+			.withListenPort(port)
+			.build();
+		server.listen();
+
+		HttpClient client = HttpClient.builder(reactor, DnsClient.create(reactor, HttpUtils.inetAddress("8.8.8.8")))
+			.withKeepAliveTimeout(Duration.ofSeconds(1))
+			.build();
+		String url = "http://127.0.0.1:" + port;
+		List<byte[]> bodies = new ArrayList<>();
+		await(Promises.sequence(Stream.of("/large.bin", "/index.html", "/large.bin")
+			.map(path -> (AsyncRunnable) () -> client.request(HttpRequest.get(url + path).build())
+				.then(response -> {
+					assertEquals(String.valueOf(path.equals("/index.html") ? EXPECTED_CONTENT.length() : bytes.length),
+						response.getHeader(HttpHeaders.CONTENT_LENGTH));
+					return response.loadBody()
+						.map(ByteBuf::getArray)
+						.async();
+				})
+				.whenResult(bodies::add)
+				.toVoid()))
+			.whenComplete(server::close));
+
+		assertArrayEquals(bytes, bodies.get(0));
+		assertEquals(EXPECTED_CONTENT, new String(bodies.get(1), UTF_8));
+		assertArrayEquals(bytes, bodies.get(2));
+	}
+
 	@Test
 	public void testFileNotFoundPathLoader() {
 		Reactor reactor = getCurrentReactor();
@@ -0,0 +1,80 @@
+package io.activej.http.session;
+
+import io.activej.promise.Promises;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static io.activej.promise.TestUtils.await;
+import static io.activej.reactor.Reactor.getCurrentReactor;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public final class InMemorySessionStoreTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	private long currentTime;
+
+	@Before
+	public void setUp() {
+		currentTime = 0;
+	}
+
+	@Test
+	public void testExpiredSessionsAreRemovedInBackground() {
+		InMemorySessionStore<String> store = InMemorySessionStore.<String>builder(getCurrentReactor())
+			.withLifetime(Duration.ofMillis(100))
+			.withCleanupInterval(Duration.ofMillis(1))
+			.build();
+		store.now = () -> currentTime;
+
+		await(store.save("a", "session a"));
+		await(store.save("b", "session b"));
+		currentTime = 60;
+		assertEquals("session a", await(store.get("a")));
+
+		currentTime = 150;
+		await(Promises.delay(Duration.ofMillis(20)));
+		assertEquals(1, store.getSessions());
+		assertEquals(1, store.getExpiredSessions().getTotalCount());
+
+		currentTime = 200;
+		await(Promises.delay(Duration.ofMillis(20)));
+		assertEquals(0, store.getSessions());
+		assertNull(await(store.get("a")));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedSessionsAreEvicted() {
+		InMemorySessionStore<String> store = InMemorySessionStore.<String>builder(getCurrentReactor())
+			.withMaxSessions(2)
+			.build();
+
+		await(store.save("a", "session a"));
+		await(store.save("b", "session b"));
+		await(store.get("a"));
+		await(store.save("c", "session c"));
+
+		assertEquals(2, store.getSessions());
+		assertEquals(1, store.getEvictedSessions().getTotalCount());
+		assertNull(await(store.get("b")));
+		assertEquals("session a", await(store.get("a")));
+		assertEquals("session c", await(store.get("c")));
+	}
+
+	@Test
+	public void testSerialization() {
+		InMemorySessionStore<String> store = InMemorySessionStore.<String>builder(getCurrentReactor())
+			.withSerialization(value -> value.getBytes(UTF_8), bytes -> new String(bytes, UTF_8))
+			.build();
+
+		await(store.save("a", "session a"));
+		String session = await(store.get("a"));
+		assertEquals("session a", session);
+		assertNotSame(session, await(store.get("a")));
+	}
+}
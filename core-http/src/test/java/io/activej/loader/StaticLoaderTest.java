@@ -1,23 +1,31 @@
 package io.activej.loader;
 
 import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
+import io.activej.http.GzipProcessorUtils;
+import io.activej.http.loader.CacheStaticLoader;
 import io.activej.http.loader.IStaticLoader;
 import io.activej.http.loader.ResourceNotFoundException;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
 import io.activej.test.rules.ByteBufRule;
 import io.activej.test.rules.EventloopRule;
 import org.junit.ClassRule;
 import org.junit.Test;
 
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 import static io.activej.promise.TestUtils.await;
 import static io.activej.promise.TestUtils.awaitException;
 import static io.activej.reactor.Reactor.getCurrentReactor;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class StaticLoaderTest {
 	@ClassRule
@@ -91,4 +99,65 @@ public class StaticLoaderTest {
 		ByteBuf file = await(staticLoader.load("test.txt"));
 		assertNotNull(file);
 	}
+
+	@Test
+	public void testCacheEvictsLeastRecentlyUsed() {
+		Map<String, Integer> loads = new HashMap<>();
+		IStaticLoader loader = path -> {
+			loads.merge(path, 1, Integer::sum);
+			return Promise.of(ByteBuf.wrapForReading(new byte[100]));
+		};
+		CacheStaticLoader cache = CacheStaticLoader.builder(getCurrentReactor(), loader)
+			.withMaxSize(MemSize.of(250))
+			.build();
+
+		await(cache.load("a"));
+		await(cache.load("b"));
+		await(cache.load("a"));
+		await(cache.load("c"));
+		assertEquals(2, cache.getCachedResources());
+		assertEquals(200, cache.getCachedSize());
+		assertEquals(1, cache.getEvictions().getTotalCount());
+
+		await(cache.load("a"));
+		await(cache.load("b"));
+		assertEquals(Map.of("a", 1, "b", 2, "c", 1), loads);
+		assertEquals(2, cache.getHits().getTotalCount());
+		assertEquals(4, cache.getMisses().getTotalCount());
+	}
+
+	@Test
+	public void testCacheStoresGzippedVariant() throws Exception {
+		byte[] content = "content ".repeat(100).getBytes(UTF_8);
+		IStaticLoader loader = path -> Promise.of(ByteBuf.wrapForReading(content));
+		CacheStaticLoader cache = CacheStaticLoader.create(getCurrentReactor(), loader);
+
+		for (int i = 0; i < 3; i++) {
+			ByteBuf gzipped = await(cache.loadGzipped("file"));
+			assertArrayEquals(content, GzipProcessorUtils.fromGzip(gzipped, 10_000).asArray());
+		}
+		assertEquals(1, cache.getCompressions().getTotalCount());
+		assertArrayEquals(content, await(cache.load("file")).asArray());
+		assertTrue(cache.getCachedSize() > content.length);
+	}
+
+	@Test
+	public void testCacheExpiration() {
+		Map<String, Integer> loads = new HashMap<>();
+		IStaticLoader loader = path -> {
+			loads.merge(path, 1, Integer::sum);
+			return Promise.ofException(new ResourceNotFoundException("Not found"));
+		};
+		CacheStaticLoader cache = CacheStaticLoader.builder(getCurrentReactor(), loader)
+			.withExpiration(Duration.ofMillis(100))
+			.build();
+
+		awaitException(cache.load("a"));
+		awaitException(cache.load("a"));
+		assertEquals(1, (int) loads.get("a"));
+		await(Promises.delay(Duration.ofMillis(200)));
+		awaitException(cache.load("a"));
+		assertEquals(2, (int) loads.get("a"));
+		assertEquals(1, cache.getExpirations().getTotalCount());
+	}
 }
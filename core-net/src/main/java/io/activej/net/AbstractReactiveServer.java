@@ -21,6 +21,7 @@ import io.activej.common.inspector.BaseInspector;
 import io.activej.jmx.api.attribute.JmxAttribute;
 import io.activej.jmx.stats.EventStats;
 import io.activej.net.socket.tcp.ITcpSocket;
+import io.activej.net.socket.tcp.SslTcpSocket;
 import io.activej.net.socket.tcp.TcpSocket;
 import io.activej.net.socket.tcp.TcpSocket.Inspector;
 import io.activej.promise.Promise;
@@ -34,6 +35,7 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.InetAddress;
@@ -47,7 +49,6 @@ import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 
-import static io.activej.net.socket.tcp.SslTcpSocket.wrapServerSocket;
 import static io.activej.net.socket.tcp.TcpSocket.wrapChannel;
 import static io.activej.reactor.Reactive.checkInReactorThread;
 import static java.util.stream.Collectors.toList;
@@ -206,6 +207,13 @@ public abstract class AbstractReactiveServer extends AbstractNioReactive
 
 	protected abstract void serve(ITcpSocket socket, InetAddress remoteAddress);
 
+	/**
+	 * Configures an {@link SSLEngine} of an accepted SSL connection before its handshake begins,
+	 * e.g. to set up an application protocol negotiation.
+	 */
+	protected void configureSslEngine(SSLEngine sslEngine) {
+	}
+
 	protected void onListen() {
 	}
 
@@ -369,7 +377,12 @@ public abstract class AbstractReactiveServer extends AbstractNioReactive
 			reactor.closeChannel(socketChannel, null);
 			return;
 		}
-		socket = ssl ? wrapServerSocket(reactor, socket, sslContext, sslExecutor) : socket;
+		if (ssl) {
+			SSLEngine sslEngine = sslContext.createSSLEngine();
+			sslEngine.setUseClientMode(false);
+			configureSslEngine(sslEngine);
+			socket = SslTcpSocket.create(reactor, socket, sslEngine, sslExecutor);
+		}
 		serve(socket, remoteAddress);
 	}
 
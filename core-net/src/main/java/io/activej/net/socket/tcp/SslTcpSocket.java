@@ -64,6 +64,7 @@ public final class SslTcpSocket extends AbstractNioReactive implements ITcpSocke
 	private @Nullable SettablePromise<ByteBuf> read;
 	private @Nullable SettablePromise<Void> write;
 	private @Nullable Promise<Void> pendingUpstreamWrite;
+	private final SettablePromise<Void> handshake = new SettablePromise<>();
 
 	private SslTcpSocket(
 		NioReactor reactor, ITcpSocket socket, SSLEngine engine, Executor executor
@@ -149,6 +150,23 @@ public final class SslTcpSocket extends AbstractNioReactive implements ITcpSocke
 		return write;
 	}
 
+	/**
+	 * Returns a promise which completes once the SSL handshake of this socket is finished,
+	 * or completes exceptionally if this socket is closed before that.
+	 */
+	public Promise<Void> getHandshake() {
+		return handshake;
+	}
+
+	/**
+	 * Returns an application protocol negotiated during the SSL handshake (ALPN),
+	 * an empty string if no protocol has been negotiated, or {@code null}
+	 * if the handshake is not finished yet.
+	 */
+	public @Nullable String getApplicationProtocol() {
+		return handshake.isResult() ? engine.getApplicationProtocol() : null;
+	}
+
 	@Override
 	public boolean isReadAvailable() {
 		return engine2app != null && engine2app.canRead();
@@ -330,6 +348,10 @@ public final class SslTcpSocket extends AbstractNioReactive implements ITcpSocke
 			return;
 		}
 
+		if (!handshake.isComplete()) {
+			reactor.post(() -> handshake.trySet(null));
+		}
+
 		// write data to net
 		if (app2engine.canRead()) {
 			do {
@@ -432,6 +454,7 @@ public final class SslTcpSocket extends AbstractNioReactive implements ITcpSocke
 			write.setException(e);
 			write = null;
 		}
+		handshake.trySetException(e);
 	}
 
 	@Override
@@ -37,11 +37,14 @@ import io.activej.reactor.nio.NioChannelEventHandler;
 import io.activej.reactor.nio.NioReactor;
 import io.activej.reactor.schedule.ScheduledRunnable;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.time.Duration;
@@ -59,6 +62,7 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 	private static final int DEBUG_READ_OFFSET = ApplicationSettings.getInt(TcpSocket.class, "debugReadOffset", 0);
 
 	public static final int DEFAULT_READ_BUFFER_SIZE = ApplicationSettings.getMemSize(TcpSocket.class, "readBufferSize", kilobytes(16)).toInt();
+	public static final int DIRECT_WRITE_BUFFER_SIZE = ApplicationSettings.getMemSize(TcpSocket.class, "directWriteBufferSize", kilobytes(256)).toInt();
 	public static final int NO_TIMEOUT = 0;
 
 	private static final AtomicInteger CONNECTION_COUNT = new AtomicInteger(0);
@@ -69,6 +73,9 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 	private @Nullable ByteBuf readBuf;
 	private boolean readEndOfStream;
 	private @Nullable ByteBuf writeBuf;
+	private @Nullable FileChannel writeFile;
+	private long writeFilePosition;
+	private long writeFileRemaining;
 	private boolean writeEndOfStream;
 
 	private @Nullable SettablePromise<ByteBuf> read;
@@ -103,6 +110,8 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 
 		void onWrite(TcpSocket socket, ByteBuf buf, int bytes);
 
+		void onTransfer(TcpSocket socket, long bytes);
+
 		void onWriteError(TcpSocket socket, IOException e);
 
 		void onDisconnect(TcpSocket socket);
@@ -165,6 +174,11 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 				writeOverloaded.recordEvent();
 		}
 
+		@Override
+		public void onTransfer(TcpSocket socket, long bytes) {
+			writes.recordValue(bytes);
+		}
+
 		@Override
 		public void onWriteError(TcpSocket socket, IOException e) {
 			writeErrors.recordException(e, socket.getRemoteAddress());
@@ -326,7 +340,7 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 
 	private void updateInterests() {
 		assert !isClosed() && ops >= 0;
-		byte newOps = (byte) (((readBuf == null && !readEndOfStream) ? SelectionKey.OP_READ : 0) | (writeBuf == null || writeEndOfStream ? 0 : SelectionKey.OP_WRITE));
+		byte newOps = (byte) (((readBuf == null && !readEndOfStream) ? SelectionKey.OP_READ : 0) | (writeBuf == null && writeFile == null || writeEndOfStream ? 0 : SelectionKey.OP_WRITE));
 		if (key == null) {
 			ops = newOps;
 			try {
@@ -398,12 +412,9 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 			buf.tail(DEBUG_READ_OFFSET);
 			buf.head(DEBUG_READ_OFFSET);
 		}
-		ByteBuffer buffer = buf.toWriteByteBuffer();
-
 		int numRead;
 		try {
-			numRead = channel.read(buffer);
-			buf.ofWriteByteBuffer(buffer);
+			numRead = ByteBufPool.isDirect() ? readDirect(channel, buf) : readHeap(channel, buf);
 		} catch (IOException e) {
 			buf.recycle();
 			if (inspector != null) inspector.onReadError(this, e);
@@ -439,12 +450,37 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 		}
 	}
 
+	private static int readHeap(SocketChannel channel, ByteBuf buf) throws IOException {
+		ByteBuffer buffer = buf.toWriteByteBuffer();
+		int numRead = channel.read(buffer);
+		buf.ofWriteByteBuffer(buffer);
+		return numRead;
+	}
+
+	@VisibleForTesting
+	static int readDirect(SocketChannel channel, ByteBuf buf) throws IOException {
+		ByteBuffer direct = ByteBufPool.allocateDirect(buf.writeRemaining());
+		try {
+			direct.limit(buf.writeRemaining());
+			int numRead = channel.read(direct);
+			if (numRead > 0) {
+				direct.flip();
+				direct.get(buf.array(), buf.tail(), numRead);
+				buf.moveTail(numRead);
+			}
+			return numRead;
+		} finally {
+			ByteBufPool.recycleDirect(direct);
+		}
+	}
+
 	// write cycle
 	@Override
 	public Promise<Void> write(@Nullable ByteBuf buf) {
 		if (CHECKS) {
 			checkInReactorThread(this);
 			checkState(!writeEndOfStream, "End of stream has already been sent");
+			checkState(writeFile == null, "File transfer is in progress");
 		}
 		if (isClosed()) {
 			if (buf != null) buf.recycle();
@@ -468,6 +504,42 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 
 		if (write != null) return write;
 
+		return startWrite();
+	}
+
+	/**
+	 * Transfers a region of a file to the network by means of {@link FileChannel#transferTo},
+	 * so that file contents are not copied through the heap.
+	 * <p>
+	 * The region is sent after all the previously written data.
+	 * No other data may be written until the returned promise completes.
+	 *
+	 * @param fileChannel a file channel to transfer the data from, it is not closed by this socket
+	 * @param position    a position in the file to start the transfer from
+	 * @param count       a number of bytes to transfer
+	 * @return promise that represents successful transfer of the whole region
+	 */
+	public Promise<Void> transferFrom(FileChannel fileChannel, long position, long count) {
+		if (CHECKS) {
+			checkInReactorThread(this);
+			checkState(!writeEndOfStream, "End of stream has already been sent");
+			checkState(writeFile == null, "File transfer is in progress");
+		}
+		if (isClosed()) return Promise.ofException(new AsyncCloseException());
+		if (count == 0) {
+			return write == null ? Promise.complete() : write;
+		}
+
+		writeFile = fileChannel;
+		writeFilePosition = position;
+		writeFileRemaining = count;
+
+		if (write != null) return write;
+
+		return startWrite();
+	}
+
+	private Promise<Void> startWrite() {
 		try {
 			doWrite();
 		} catch (IOException e) {
@@ -475,7 +547,7 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 			return Promise.ofException(e);
 		}
 
-		if (this.writeBuf == null) {
+		if (writeBuf == null && writeFile == null) {
 			return Promise.complete();
 		}
 		SettablePromise<Void> write = new SettablePromise<>();
@@ -505,7 +577,7 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 			closeEx(e);
 			return;
 		}
-		if (writeBuf == null) {
+		if (writeBuf == null && writeFile == null) {
 			SettablePromise<@Nullable Void> write = this.write;
 			this.write = null;
 			write.set(null);
@@ -519,18 +591,18 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 		assert channel != null;
 		if (writeBuf != null) {
 			ByteBuf buf = this.writeBuf;
-			ByteBuffer buffer = buf.toReadByteBuffer();
 
+			int numWritten;
 			try {
-				channel.write(buffer);
+				numWritten = ByteBufPool.isDirect() ? writeDirect(channel, buf) : writeHeap(channel, buf);
 			} catch (IOException e) {
 				if (inspector != null) inspector.onWriteError(this, e);
 				throw e;
 			}
 
-			if (inspector != null) inspector.onWrite(this, buf, buffer.position() - buf.head());
+			if (inspector != null) inspector.onWrite(this, buf, numWritten);
 
-			buf.ofReadByteBuffer(buffer);
+			buf.moveHead(numWritten);
 
 			if (buf.canRead()) {
 				return;
@@ -540,6 +612,11 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 			}
 		}
 
+		if (writeFile != null) {
+			doTransfer(writeFile);
+			if (writeFile != null) return;
+		}
+
 		scheduledWriteTimeout = nullify(scheduledWriteTimeout, ScheduledRunnable::cancel);
 
 		if (writeEndOfStream) {
@@ -551,6 +628,58 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 		}
 	}
 
+	private void doTransfer(FileChannel fileChannel) throws IOException {
+		assert channel != null;
+		while (writeFileRemaining != 0) {
+			long numTransferred;
+			try {
+				numTransferred = fileChannel.transferTo(writeFilePosition, writeFileRemaining, channel);
+				if (numTransferred == 0 && writeFilePosition >= fileChannel.size()) {
+					throw new EOFException("File ended " + writeFileRemaining + " bytes before the end of the transferred region");
+				}
+			} catch (IOException e) {
+				if (inspector != null) inspector.onWriteError(this, e);
+				throw e;
+			}
+
+			if (numTransferred == 0) return;
+			if (inspector != null) inspector.onTransfer(this, numTransferred);
+
+			writeFilePosition += numTransferred;
+			writeFileRemaining -= numTransferred;
+		}
+		writeFile = null;
+	}
+
+	private static int writeHeap(SocketChannel channel, ByteBuf buf) throws IOException {
+		ByteBuffer buffer = buf.toReadByteBuffer();
+		return channel.write(buffer);
+	}
+
+	@VisibleForTesting
+	static int writeDirect(SocketChannel channel, ByteBuf buf) throws IOException {
+		ByteBuffer direct = ByteBufPool.allocateDirect(Math.min(buf.readRemaining(), DIRECT_WRITE_BUFFER_SIZE));
+		try {
+			int offset = buf.head();
+			int remaining = buf.readRemaining();
+			int total = 0;
+			while (remaining != 0) {
+				int length = Math.min(remaining, direct.capacity());
+				direct.clear();
+				direct.put(buf.array(), offset, length);
+				direct.flip();
+				int numWritten = channel.write(direct);
+				total += numWritten;
+				if (numWritten != length) break;
+				offset += length;
+				remaining -= length;
+			}
+			return total;
+		} finally {
+			ByteBufPool.recycleDirect(direct);
+		}
+	}
+
 	@Override
 	public void closeEx(Exception e) {
 		checkInReactorThread(this);
@@ -558,6 +687,7 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 		doClose();
 		readBuf = nullify(readBuf, ByteBuf::recycle);
 		writeBuf = nullify(writeBuf, ByteBuf::recycle);
+		writeFile = null;
 		scheduledReadTimeout = nullify(scheduledReadTimeout, ScheduledRunnable::cancel);
 		scheduledWriteTimeout = nullify(scheduledWriteTimeout, ScheduledRunnable::cancel);
 		read = nullify(read, SettablePromise::setException, e);
@@ -587,6 +717,7 @@ public final class TcpSocket extends AbstractNioReactive implements ITcpSocket,
 			"channel=" + (channel != null ? channel : "") +
 			", readBuf=" + readBuf +
 			", writeBuf=" + writeBuf +
+			(writeFile != null ? ", writeFileRemaining=" + writeFileRemaining : "") +
 			", readEndOfStream=" + readEndOfStream +
 			", writeEndOfStream=" + writeEndOfStream +
 			", read=" + read +
@@ -0,0 +1,206 @@
+package io.activej.net.socket.tcp;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.bytebuf.ByteBufStrings;
+import io.activej.bytebuf.ByteBufs;
+import io.activej.net.SimpleServer;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static io.activej.promise.TestUtils.await;
+import static io.activej.promise.TestUtils.awaitException;
+import static io.activej.reactor.Reactor.getCurrentReactor;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class TcpSocketTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testTransferFrom() throws IOException {
+		byte[] bytes = new byte[5 * 1024 * 1024];
+		new Random(0).nextBytes(bytes);
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, bytes);
+
+		try (FileChannel channel = FileChannel.open(file, READ)) {
+			ByteBuf received = serveAndReceive(socket ->
+				socket.write(ByteBufStrings.wrapAscii("head"))
+					.then(() -> socket.transferFrom(channel, 10, bytes.length - 20))
+					.then(() -> socket.write(ByteBufStrings.wrapAscii("tail"))));
+
+			byte[] expected = new byte[bytes.length - 20 + 8];
+			System.arraycopy("head".getBytes(UTF_8), 0, expected, 0, 4);
+			System.arraycopy(bytes, 10, expected, 4, bytes.length - 20);
+			System.arraycopy("tail".getBytes(UTF_8), 0, expected, expected.length - 4, 4);
+			assertArrayEquals(expected, received.asArray());
+		}
+	}
+
+	@Test
+	public void testTransferFromEmptyRegion() throws IOException {
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, new byte[]{1, 2, 3});
+
+		try (FileChannel channel = FileChannel.open(file, READ)) {
+			ByteBuf received = serveAndReceive(socket ->
+				socket.transferFrom(channel, 1, 0)
+					.then(() -> socket.write(ByteBufStrings.wrapAscii("tail"))));
+
+			assertEquals("tail", received.asString(UTF_8));
+		}
+	}
+
+	@Test
+	public void testTransferFromBeyondEndOfFile() throws IOException {
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, new byte[]{1, 2, 3});
+
+		try (FileChannel channel = FileChannel.open(file, READ)) {
+			InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+			SimpleServer.builder(getCurrentReactor(), socket -> {})
+				.withListenAddress(address)
+				.withAcceptOnce()
+				.build()
+				.listen();
+
+			Exception e = awaitException(TcpSocket.connect(getCurrentReactor(), address)
+				.then(socket -> socket.transferFrom(channel, 0, 10)
+					.whenComplete(socket::close)));
+
+			assertEquals(EOFException.class, e.getClass());
+		}
+	}
+
+	@Test
+	public void testDirectIoDoesNotAllocateTemporaryBuffers() throws Exception {
+		int[] sizes = {1, 100, 1000, 10_000};
+		try (ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			 SocketChannel client = SocketChannel.open(server.getLocalAddress());
+			 SocketChannel accepted = server.accept()) {
+
+			// pooled direct buffers of each size are allocated once
+			for (int size : sizes) {
+				transferDirect(client, accepted, size);
+			}
+
+			// unlike JDK's temporary buffers, pooled buffers are shared between threads
+			long directBuffers = getDirectBufferCount();
+			long pooledDirectBuffers = runInNewThread(() -> {
+				for (int size : sizes) {
+					transferDirect(client, accepted, size);
+				}
+			});
+			assertEquals(directBuffers, pooledDirectBuffers);
+
+			long heapDirectBuffers = runInNewThread(() -> {
+				client.write(ByteBuffer.wrap(new byte[100]));
+				accepted.read(ByteBuffer.allocate(100));
+			});
+			assertTrue(heapDirectBuffers > directBuffers);
+		}
+	}
+
+	private static long runInNewThread(IoRunnable runnable) throws Exception {
+		AtomicLong directBuffers = new AtomicLong();
+		AtomicReference<Exception> exception = new AtomicReference<>();
+		Thread thread = new Thread(() -> {
+			try {
+				runnable.run();
+				directBuffers.set(getDirectBufferCount());
+			} catch (Exception e) {
+				exception.set(e);
+			}
+		});
+		thread.start();
+		thread.join();
+		if (exception.get() != null) throw exception.get();
+		return directBuffers.get();
+	}
+
+	private static void transferDirect(SocketChannel from, SocketChannel to, int size) throws IOException {
+		byte[] bytes = new byte[size];
+		ThreadLocalRandom.current().nextBytes(bytes);
+		ByteBuf written = ByteBuf.wrapForReading(bytes);
+		while (written.canRead()) {
+			written.moveHead(TcpSocket.writeDirect(from, written));
+		}
+
+		ByteBuf received = ByteBufPool.allocate(size);
+		while (received.readRemaining() != size) {
+			TcpSocket.readDirect(to, received);
+		}
+		assertArrayEquals(bytes, received.asArray());
+	}
+
+	private static long getDirectBufferCount() {
+		return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+			.filter(pool -> pool.getName().equals("direct"))
+			.mapToLong(BufferPoolMXBean::getCount)
+			.sum();
+	}
+
+	private interface IoRunnable {
+		void run() throws IOException;
+	}
+
+	private static ByteBuf serveAndReceive(Function<TcpSocket, Promise<Void>> serverWrite) throws IOException {
+		InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+		SimpleServer.builder(getCurrentReactor(), socket ->
+				serverWrite.apply((TcpSocket) socket)
+					.then(() -> socket.write(null))
+					.whenComplete(socket::close))
+			.withListenAddress(address)
+			.withAcceptOnce()
+			.build()
+			.listen();
+
+		return await(TcpSocket.connect(getCurrentReactor(), address)
+			.then(socket -> {
+				ByteBufs bufs = new ByteBufs();
+				return Promises.<ByteBuf>until(null,
+						$ -> socket.read()
+							.whenResult(buf -> {if (buf != null) bufs.add(buf);}),
+						Objects::isNull)
+					.map($ -> bufs.takeRemaining())
+					.whenComplete(socket::close);
+			}));
+	}
+}
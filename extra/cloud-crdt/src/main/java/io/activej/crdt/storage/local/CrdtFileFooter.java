@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.crdt.storage.local;
+
+import io.activej.serializer.BinaryInput;
+import io.activej.serializer.BinaryOutput;
+import io.activej.serializer.BinarySerializer;
+import io.activej.serializer.CorruptedDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A footer that is appended to each file of {@link FileSystemCrdtStorage} right after CRDT records.
+ * <p>
+ * It contains a timestamp range and a key range of the records in a file,
+ * a sparse index of record blocks (first key of a block and its offset)
+ * and a Bloom filter of keys, so that files may be skipped or read partially.
+ * <p>
+ * A file ends with a fixed-size trailer: a size of a footer followed by a {@link #MAGIC} number.
+ * Files without a trailer (written by previous versions) are read entirely.
+ */
+final class CrdtFileFooter<K extends Comparable<K>> {
+	static final long MAGIC = 0x4352_4454_4654_5231L;
+	static final int TRAILER_SIZE = 4 + 8;
+
+	private static final byte VERSION = 2;
+	private static final int BLOOM_BITS_PER_KEY = 10;
+	private static final int BLOOM_HASHES = 7;
+
+	final long dataSize;
+	final long recordCount;
+	final long tombstoneCount;
+	final int level;
+	final long minTimestamp;
+	final long maxTimestamp;
+	final K minKey;
+	final K maxKey;
+	final List<K> indexKeys;
+	final long[] indexOffsets;
+	final long[] bloom;
+	final int bloomHashes;
+
+	CrdtFileFooter(
+		long dataSize, long recordCount, long tombstoneCount, int level, long minTimestamp, long maxTimestamp, K minKey, K maxKey,
+		List<K> indexKeys, long[] indexOffsets, long[] bloom, int bloomHashes
+	) {
+		this.dataSize = dataSize;
+		this.recordCount = recordCount;
+		this.tombstoneCount = tombstoneCount;
+		this.level = level;
+		this.minTimestamp = minTimestamp;
+		this.maxTimestamp = maxTimestamp;
+		this.minKey = minKey;
+		this.maxKey = maxKey;
+		this.indexKeys = indexKeys;
+		this.indexOffsets = indexOffsets;
+		this.bloom = bloom;
+		this.bloomHashes = bloomHashes;
+	}
+
+	static <K extends Comparable<K>> CrdtFileFooter<K> create(
+		long dataSize, long recordCount, long tombstoneCount, int level, long minTimestamp, long maxTimestamp, K minKey, K maxKey,
+		List<K> indexKeys, long[] indexOffsets, long[] keyHashes
+	) {
+		long bits = Math.max(64L, recordCount * BLOOM_BITS_PER_KEY);
+		long[] bloom = new long[(int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6)];
+		long totalBits = (long) bloom.length << 6;
+		for (int i = 0; i < recordCount; i++) {
+			long hash = keyHashes[i];
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int j = 0; j < BLOOM_HASHES; j++) {
+				long bit = Math.floorMod(h1 + (long) j * h2, totalBits);
+				bloom[(int) (bit >>> 6)] |= 1L << bit;
+			}
+		}
+		return new CrdtFileFooter<>(dataSize, recordCount, tombstoneCount, level, minTimestamp, maxTimestamp, minKey, maxKey,
+			indexKeys, indexOffsets, bloom, BLOOM_HASHES);
+	}
+
+	boolean mightContain(long keyHash) {
+		long totalBits = (long) bloom.length << 6;
+		int h1 = (int) keyHash;
+		int h2 = (int) (keyHash >>> 32);
+		for (int j = 0; j < bloomHashes; j++) {
+			long bit = Math.floorMod(h1 + (long) j * h2, totalBits);
+			if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+		}
+		return true;
+	}
+
+	boolean overlaps(K fromKey, K toKey) {
+		return minKey.compareTo(toKey) <= 0 && maxKey.compareTo(fromKey) >= 0;
+	}
+
+	/**
+	 * Returns an offset of a block that may contain the first record with a key not less than a given one
+	 */
+	long rangeStart(K fromKey) {
+		int lo = 0;
+		int hi = indexKeys.size() - 1;
+		int result = 0;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (indexKeys.get(mid).compareTo(fromKey) < 0) {
+				result = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return indexOffsets.length == 0 ? 0 : indexOffsets[result];
+	}
+
+	/**
+	 * Returns an offset of the end of the last block that may contain a record with a key not greater than a given one
+	 */
+	long rangeEnd(K toKey) {
+		int lo = 0;
+		int hi = indexKeys.size() - 1;
+		int result = indexKeys.size();
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (indexKeys.get(mid).compareTo(toKey) > 0) {
+				result = mid;
+				hi = mid - 1;
+			} else {
+				lo = mid + 1;
+			}
+		}
+		return result == indexKeys.size() ? dataSize : indexOffsets[result];
+	}
+
+	void encode(BinaryOutput out, BinarySerializer<K> keySerializer) {
+		out.writeByte(VERSION);
+		out.writeVarLong(dataSize);
+		out.writeVarLong(recordCount);
+		out.writeLong(minTimestamp);
+		out.writeLong(maxTimestamp);
+		keySerializer.encode(out, minKey);
+		keySerializer.encode(out, maxKey);
+		out.writeVarInt(indexKeys.size());
+		for (int i = 0; i < indexKeys.size(); i++) {
+			keySerializer.encode(out, indexKeys.get(i));
+			out.writeVarLong(indexOffsets[i]);
+		}
+		out.writeVarInt(bloomHashes);
+		out.writeVarInt(bloom.length);
+		for (long word : bloom) {
+			out.writeLong(word);
+		}
+		out.writeVarLong(tombstoneCount);
+		out.writeVarInt(level);
+	}
+
+	static <K extends Comparable<K>> CrdtFileFooter<K> decode(BinaryInput in, BinarySerializer<K> keySerializer) throws CorruptedDataException {
+		byte version = in.readByte();
+		if (version != 1 && version != VERSION) {
+			throw new CorruptedDataException("Unsupported CRDT file footer version: " + version);
+		}
+		long dataSize = in.readVarLong();
+		long recordCount = in.readVarLong();
+		long minTimestamp = in.readLong();
+		long maxTimestamp = in.readLong();
+		K minKey = keySerializer.decode(in);
+		K maxKey = keySerializer.decode(in);
+		int indexSize = in.readVarInt();
+		List<K> indexKeys = new ArrayList<>(indexSize);
+		long[] indexOffsets = new long[indexSize];
+		for (int i = 0; i < indexSize; i++) {
+			indexKeys.add(keySerializer.decode(in));
+			indexOffsets[i] = in.readVarLong();
+		}
+		int bloomHashes = in.readVarInt();
+		long[] bloom = new long[in.readVarInt()];
+		for (int i = 0; i < bloom.length; i++) {
+			bloom[i] = in.readLong();
+		}
+		long tombstoneCount = version == 1 ? 0 : in.readVarLong();
+		int level = version == 1 ? 0 : in.readVarInt();
+		return new CrdtFileFooter<>(dataSize, recordCount, tombstoneCount, level, minTimestamp, maxTimestamp, minKey, maxKey,
+			indexKeys, indexOffsets, bloom, bloomHashes);
+	}
+
+	static long hash(byte[] array, int from, int to) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = from; i < to; i++) {
+			h = (h ^ (array[i] & 0xFF)) * 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.crdt.storage.local;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.crdt.storage.local.FileSystemCrdtStorage.CrdtReducingData;
+import io.activej.datastream.processor.transformer.AbstractStreamTransformer;
+import io.activej.datastream.supplier.StreamDataAcceptor;
+import io.activej.serializer.BinaryOutput;
+import io.activej.serializer.BinarySerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import static java.lang.Math.max;
+
+/**
+ * Serializes sorted CRDT records into size-prefixed frames (the same framing that is used by
+ * {@link io.activej.datastream.csp.ChannelSerializer}) grouped into blocks of a given size,
+ * and appends a {@link CrdtFileFooter} after the last block.
+ */
+final class CrdtFileWriter<K extends Comparable<K>, S> extends AbstractStreamTransformer<CrdtReducingData<K, S>, ByteBuf> {
+	private static final int MAX_HEADER_SIZE = 5;
+
+	private final BinarySerializer<K> keySerializer;
+	private final BinarySerializer<CrdtReducingData<K, S>> serializer;
+	private final int blockSize;
+	private final int level;
+	private final LongConsumer writtenBytesConsumer;
+
+	private byte[] scratch = new byte[256];
+	private ByteBuf block;
+	private long offset;
+
+	private long recordCount;
+	private long tombstoneCount;
+	private long minTimestamp = Long.MAX_VALUE;
+	private long maxTimestamp = Long.MIN_VALUE;
+	private K minKey;
+	private K maxKey;
+	private long[] keyHashes = new long[64];
+	private final List<K> indexKeys = new ArrayList<>();
+	private long[] indexOffsets = new long[16];
+
+	CrdtFileWriter(
+		BinarySerializer<K> keySerializer, BinarySerializer<CrdtReducingData<K, S>> serializer, int blockSize,
+		int level, LongConsumer writtenBytesConsumer
+	) {
+		this.keySerializer = keySerializer;
+		this.serializer = serializer;
+		this.blockSize = blockSize;
+		this.level = level;
+		this.writtenBytesConsumer = writtenBytesConsumer;
+
+		getInput().getAcknowledgement()
+			.whenException(() -> {
+				if (block != null) {
+					block.recycle();
+					block = null;
+				}
+			});
+	}
+
+	@Override
+	protected StreamDataAcceptor<CrdtReducingData<K, S>> onResumed(StreamDataAcceptor<ByteBuf> output) {
+		return item -> write(item, output);
+	}
+
+	@Override
+	protected void onEndOfStream(StreamDataAcceptor<ByteBuf> output) {
+		if (block != null) {
+			flushBlock(output);
+		}
+		if (recordCount == 0) return;
+
+		CrdtFileFooter<K> footer = CrdtFileFooter.create(offset, recordCount, tombstoneCount, level, minTimestamp, maxTimestamp, minKey, maxKey,
+			indexKeys, Arrays.copyOf(indexOffsets, indexKeys.size()), keyHashes);
+		int footerSize = encode(out -> footer.encode(out, keySerializer));
+		ByteBuf buf = ByteBufPool.allocate(footerSize + CrdtFileFooter.TRAILER_SIZE);
+		buf.put(scratch, 0, footerSize);
+		buf.writeInt(footerSize);
+		buf.writeLong(CrdtFileFooter.MAGIC);
+		writtenBytesConsumer.accept(buf.readRemaining());
+		output.accept(buf);
+	}
+
+	private void write(CrdtReducingData<K, S> item, StreamDataAcceptor<ByteBuf> output) {
+		int keySize = encode(out -> keySerializer.encode(out, item.key()));
+		addStats(item, CrdtFileFooter.hash(scratch, 0, keySize));
+
+		int size = encode(out -> serializer.encode(out, item));
+		if (block != null && block.writeRemaining() < size + MAX_HEADER_SIZE) {
+			flushBlock(output);
+		}
+		if (block == null) {
+			block = ByteBufPool.allocate(max(blockSize, size + MAX_HEADER_SIZE));
+			addIndexEntry(item.key());
+		}
+		block.writeVarInt(size);
+		block.put(scratch, 0, size);
+		if (block.readRemaining() >= blockSize) {
+			flushBlock(output);
+		}
+	}
+
+	private void flushBlock(StreamDataAcceptor<ByteBuf> output) {
+		offset += block.readRemaining();
+		writtenBytesConsumer.accept(block.readRemaining());
+		output.accept(block);
+		block = null;
+	}
+
+	private void addStats(CrdtReducingData<K, S> item, long keyHash) {
+		if (recordCount == keyHashes.length) {
+			keyHashes = Arrays.copyOf(keyHashes, keyHashes.length * 2);
+		}
+		keyHashes[(int) recordCount++] = keyHash;
+		if (item.state() == null) tombstoneCount++;
+		minTimestamp = Math.min(minTimestamp, item.timestamp());
+		maxTimestamp = Math.max(maxTimestamp, item.timestamp());
+		if (minKey == null || item.key().compareTo(minKey) < 0) minKey = item.key();
+		if (maxKey == null || item.key().compareTo(maxKey) > 0) maxKey = item.key();
+	}
+
+	private void addIndexEntry(K key) {
+		int size = indexKeys.size();
+		if (size == indexOffsets.length) {
+			indexOffsets = Arrays.copyOf(indexOffsets, size * 2);
+		}
+		indexKeys.add(key);
+		indexOffsets[size] = offset;
+	}
+
+	private int encode(Encoder encoder) {
+		while (true) {
+			BinaryOutput out = new BinaryOutput(scratch);
+			try {
+				encoder.encode(out);
+				return out.pos();
+			} catch (ArrayIndexOutOfBoundsException e) {
+				scratch = new byte[scratch.length * 2];
+			}
+		}
+	}
+
+	private interface Encoder {
+		void encode(BinaryOutput out);
+	}
+}
@@ -20,8 +20,10 @@ import io.activej.async.function.AsyncRunnable;
 import io.activej.async.function.AsyncRunnables;
 import io.activej.async.service.ReactiveService;
 import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufs;
 import io.activej.common.ApplicationSettings;
 import io.activej.common.Checks;
+import io.activej.common.MemSize;
 import io.activej.common.builder.AbstractBuilder;
 import io.activej.crdt.CrdtData;
 import io.activej.crdt.CrdtException;
@@ -30,28 +32,35 @@ import io.activej.crdt.function.CrdtFilter;
 import io.activej.crdt.function.CrdtFunction;
 import io.activej.crdt.primitives.CrdtType;
 import io.activej.crdt.storage.ICrdtStorage;
+import io.activej.crdt.storage.local.compaction.CrdtCompactionStrategy;
+import io.activej.crdt.storage.local.compaction.CrdtCompactionTask;
+import io.activej.crdt.storage.local.compaction.CrdtFileInfo;
 import io.activej.crdt.util.CrdtDataBinarySerializer;
 import io.activej.csp.consumer.ChannelConsumer;
 import io.activej.csp.consumer.ChannelConsumers;
 import io.activej.datastream.consumer.StreamConsumer;
 import io.activej.datastream.consumer.StreamConsumers;
 import io.activej.datastream.csp.ChannelDeserializer;
-import io.activej.datastream.csp.ChannelSerializer;
+import io.activej.datastream.processor.StreamSplitter;
 import io.activej.datastream.processor.reducer.Reducer;
 import io.activej.datastream.processor.reducer.StreamReducer;
 import io.activej.datastream.processor.transformer.AbstractStreamTransformer;
+import io.activej.datastream.processor.transformer.StreamTransformer;
 import io.activej.datastream.processor.transformer.StreamTransformers;
+import io.activej.datastream.processor.transformer.impl.RateLimiter;
 import io.activej.datastream.stats.BasicStreamStats;
 import io.activej.datastream.stats.DetailedStreamStats;
 import io.activej.datastream.stats.StreamStats;
 import io.activej.datastream.supplier.StreamDataAcceptor;
 import io.activej.datastream.supplier.StreamSupplier;
+import io.activej.datastream.supplier.StreamSuppliers;
 import io.activej.fs.FileMetadata;
 import io.activej.fs.IFileSystem;
 import io.activej.fs.exception.FileNotFoundException;
 import io.activej.jmx.api.attribute.JmxAttribute;
 import io.activej.jmx.api.attribute.JmxOperation;
 import io.activej.jmx.stats.EventStats;
+import io.activej.jmx.stats.ValueStats;
 import io.activej.promise.Promise;
 import io.activej.promise.Promises;
 import io.activej.promise.SettablePromise;
@@ -59,6 +68,7 @@ import io.activej.promise.jmx.PromiseStats;
 import io.activej.reactor.AbstractReactive;
 import io.activej.reactor.Reactor;
 import io.activej.reactor.jmx.ReactiveJmxBeanWithStats;
+import io.activej.reactor.schedule.ScheduledRunnable;
 import io.activej.serializer.*;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
@@ -66,14 +76,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.function.Supplier;
 
+import static io.activej.common.Checks.checkArgument;
+import static io.activej.common.Utils.nullify;
+import static io.activej.common.collection.CollectionUtils.first;
 import static io.activej.common.collection.CollectorUtils.entriesToLinkedHashMap;
 import static io.activej.crdt.util.CrdtDataBinarySerializer.TIMESTAMP_SERIALIZER;
 import static io.activej.crdt.util.Utils.onItem;
 import static io.activej.reactor.Reactive.checkInReactorThread;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 @SuppressWarnings("rawtypes")
 public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends AbstractReactive
@@ -84,14 +102,34 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 
 	public static final Duration DEFAULT_SMOOTHING_WINDOW = ApplicationSettings.getDuration(FileSystemCrdtStorage.class, "smoothingWindow", Duration.ofMinutes(1));
 
+	public static final MemSize DEFAULT_INDEX_BLOCK_SIZE = ApplicationSettings.getMemSize(FileSystemCrdtStorage.class, "indexBlockSize", MemSize.kilobytes(64));
+
 	public static final String FILE_EXTENSION = ".bin";
 
+	private static final int FOOTER_READ_SIZE = 4096;
+
 	private final IFileSystem fileSystem;
 	private final CrdtFunction<S> function;
+	private final BinarySerializer<K> keySerializer;
 	private final BinarySerializer<CrdtReducingData<K, S>> serializer;
 
 	private @Nullable Set<String> taken;
 
+	private final Map<String, @Nullable CrdtFileFooter<K>> footers = new HashMap<>();
+
+	private int indexBlockSize = DEFAULT_INDEX_BLOCK_SIZE.toInt();
+
+	private CrdtCompactionStrategy<K> compactionStrategy = FileSystemCrdtStorage::pickFilesForConsolidation;
+	private @Nullable Duration compactionInterval;
+	private int maxConcurrentCompactions = 1;
+	private @Nullable MemSize compactionRateLimit;
+	private @Nullable Duration tombstoneGracePeriod;
+
+	private final Set<String> compacting = new HashSet<>();
+	private @Nullable ScheduledRunnable compactionSchedule;
+	private boolean stopped;
+	private boolean lastConsolidationIdle;
+
 	private Supplier<String> namingStrategy = () -> UUID.randomUUID().toString();
 
 	private CrdtFilter<S> filter = $ -> true;
@@ -114,14 +152,23 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 	private final EventStats downloadedItems = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
 	private final EventStats takenItems = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
 	private final EventStats removedItems = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+	private final EventStats skippedFiles = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
 
 	private final PromiseStats consolidationStats = PromiseStats.create(DEFAULT_SMOOTHING_WINDOW);
+	private final PromiseStats compactionStats = PromiseStats.create(DEFAULT_SMOOTHING_WINDOW);
+	private final ValueStats filesPerRead = ValueStats.create(DEFAULT_SMOOTHING_WINDOW);
+
+	private long uploadedBytes;
+	private long compactionReadBytes;
+	private long compactionWrittenBytes;
+	private int compactionBacklog;
 	// endregion
 
 	private FileSystemCrdtStorage(Reactor reactor, IFileSystem fileSystem, CrdtDataBinarySerializer<K, S> serializer, CrdtFunction<S> function) {
 		super(reactor);
 		this.fileSystem = fileSystem;
 		this.function = function;
+		this.keySerializer = serializer.getKeySerializer();
 		this.serializer = createSerializer(serializer);
 	}
 
@@ -164,6 +211,68 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 			return this;
 		}
 
+		/**
+		 * Sets an approximate size of a block of records referenced by a sparse key index of a file.
+		 * Smaller blocks make point and range reads more precise at the cost of a larger file footer.
+		 */
+		public Builder withIndexBlockSize(MemSize indexBlockSize) {
+			checkNotBuilt(this);
+			checkArgument(indexBlockSize.toLong() > 0, "Index block size must be positive");
+			FileSystemCrdtStorage.this.indexBlockSize = indexBlockSize.toInt();
+			return this;
+		}
+
+		/**
+		 * Sets a strategy that picks files to be merged by {@link #consolidate()}.
+		 * By default, the largest group of files of the same order of magnitude of size is merged.
+		 */
+		public Builder withCompactionStrategy(CrdtCompactionStrategy<K> compactionStrategy) {
+			checkNotBuilt(this);
+			FileSystemCrdtStorage.this.compactionStrategy = compactionStrategy;
+			return this;
+		}
+
+		/**
+		 * Enables continuous background compaction. A next round of compaction starts right after
+		 * a previous one if it has found some work, otherwise after a given interval.
+		 */
+		public Builder withCompactionInterval(Duration compactionInterval) {
+			checkNotBuilt(this);
+			checkArgument(compactionInterval.toMillis() > 0, "Compaction interval must be positive");
+			FileSystemCrdtStorage.this.compactionInterval = compactionInterval;
+			return this;
+		}
+
+		public Builder withMaxConcurrentCompactions(int maxConcurrentCompactions) {
+			checkNotBuilt(this);
+			checkArgument(maxConcurrentCompactions > 0, "Number of concurrent compactions must be positive");
+			FileSystemCrdtStorage.this.maxConcurrentCompactions = maxConcurrentCompactions;
+			return this;
+		}
+
+		/**
+		 * Limits a total write rate of concurrent compactions, in bytes per second.
+		 * A rate is applied to compacted records, whose sizes are estimated from footers of input files.
+		 * Reads are throttled accordingly, as compaction streams are backpressured.
+		 */
+		public Builder withCompactionRateLimit(MemSize bytesPerSecond) {
+			checkNotBuilt(this);
+			checkArgument(bytesPerSecond.toLong() > 0, "Compaction rate limit must be positive");
+			FileSystemCrdtStorage.this.compactionRateLimit = bytesPerSecond;
+			return this;
+		}
+
+		/**
+		 * Allows compaction to drop tombstones older than a given period, provided that no file
+		 * outside of a compaction overlaps the compacted key range.
+		 * By default, tombstones are never dropped.
+		 */
+		public Builder withTombstoneGracePeriod(Duration tombstoneGracePeriod) {
+			checkNotBuilt(this);
+			FileSystemCrdtStorage.this.tombstoneGracePeriod = tombstoneGracePeriod;
+			return this;
+		}
+
 		@Override
 		protected FileSystemCrdtStorage<K, S> doBuild() {
 			return FileSystemCrdtStorage.this;
@@ -174,7 +283,7 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 	public Promise<StreamConsumer<CrdtData<K, S>>> upload() {
 		if (CHECKS) checkInReactorThread(this);
 		String filename = namingStrategy.get() + FILE_EXTENSION;
-		return Promise.of(this.<CrdtData<K, S>>uploadNonEmpty(filename, CrdtReducingData::ofData)
+		return Promise.of(this.<CrdtData<K, S>>uploadNonEmpty(filename, CrdtReducingData::ofData, 0, bytes -> uploadedBytes += bytes)
 			.transformWith(detailedStats ? uploadStatsDetailed : uploadStats)
 			.transformWith(onItem(uploadedItems::recordEvent))
 			.withAcknowledgement(ack -> ack
@@ -185,10 +294,10 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 	public Promise<StreamSupplier<CrdtData<K, S>>> download(long timestamp) {
 		if (CHECKS) checkInReactorThread(this);
 		return Promises.retry(($, e) -> !(e instanceof FileNotFoundException),
-				() -> fileSystem.list("*")
-					.then(fileMap -> doDownload(fileMap.keySet(), timestamp, false))
+				() -> list()
+					.then(fileMap -> doDownload(fileMap, timestamp, false))
 					.map(supplier -> supplier
-						.transformWith(StreamTransformers.mapper(reducingData -> new CrdtData<>(reducingData.key, reducingData.timestamp, reducingData.state)))
+						.transformWith(StreamTransformers.mapper(FileSystemCrdtStorage::toCrdtData))
 						.transformWith(detailedStats ? downloadStatsDetailed : downloadStats)
 						.transformWith(onItem(downloadedItems::recordEvent))))
 			.mapException(e -> new CrdtException("Failed to download CRDT data", e));
@@ -202,31 +311,121 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 		}
 		taken = new HashSet<>();
 		return Promises.retry(($, e) -> !(e instanceof FileNotFoundException),
-				() -> fileSystem.list("*")
+				() -> list()
 					.whenResult(fileMap -> taken.addAll(fileMap.keySet()))
-					.then(fileMap -> doDownload(fileMap.keySet(), 0, false)
+					.then(fileMap -> doDownload(fileMap, 0, false)
 						.whenException(e -> taken = null)
 						.map(supplier -> supplier
-							.transformWith(StreamTransformers.mapper(reducingData -> new CrdtData<>(reducingData.key, reducingData.timestamp, reducingData.state)))
+							.transformWith(StreamTransformers.mapper(FileSystemCrdtStorage::toCrdtData))
 							.transformWith(detailedStats ? takeStatsDetailed : takeStats)
 							.transformWith(onItem(takenItems::recordEvent)))
 						.whenResult(supplier -> supplier.getAcknowledgement()
-							.then(() -> fileSystem.deleteAll(fileMap.keySet()))
+							.then(() -> deleteAll(fileMap.keySet()))
 							.whenComplete(() -> taken = null))))
 			.mapException(e -> new CrdtException("Failed to take CRDT data", e));
 	}
 
-	private Promise<StreamSupplier<CrdtReducingData<K, S>>> doDownload(Set<String> files, long timestamp, boolean includeTombstones) {
-		return Promises.toList(files.stream()
-				.map(fileName -> fileSystem.download(fileName)
+	/**
+	 * Returns a CRDT value of a given key, or {@code null} if there is no value for the key.
+	 * <p>
+	 * Only the files whose key range and Bloom filter may contain the key are read,
+	 * and only the block of a file that may contain the key is downloaded.
+	 */
+	public Promise<@Nullable CrdtData<K, S>> get(K key) {
+		if (CHECKS) checkInReactorThread(this);
+		byte[] keyBytes = encodeKey(key);
+		long keyHash = CrdtFileFooter.hash(keyBytes, 0, keyBytes.length);
+		return Promises.retry(($, e) -> !(e instanceof FileNotFoundException),
+				() -> list()
+					.then(fileMap -> doDownload(fileMap, (name, footer) -> footer.overlaps(key, key) && footer.mightContain(keyHash) ?
+						downloadRange(name, footer, key, key) :
+						null))
+					.then(supplier -> supplier
+						.transformWith(StreamTransformers.filter(reducingData -> reducingData.key.compareTo(key) == 0))
+						.toList()))
+			.map(list -> list.isEmpty() ? null : toCrdtData(list.get(0)))
+			.mapException(e -> new CrdtException("Failed to get CRDT data", e));
+	}
+
+	/**
+	 * Downloads CRDT values whose keys are in a given inclusive range, sorted by key.
+	 * <p>
+	 * Files whose key range does not overlap a given one are skipped,
+	 * and only the blocks of a file that may contain keys from the range are downloaded.
+	 */
+	public Promise<StreamSupplier<CrdtData<K, S>>> download(K fromKey, K toKey) {
+		if (CHECKS) checkInReactorThread(this);
+		return Promises.retry(($, e) -> !(e instanceof FileNotFoundException),
+				() -> list()
+					.then(fileMap -> doDownload(fileMap, (name, footer) -> footer.overlaps(fromKey, toKey) ?
+						downloadRange(name, footer, fromKey, toKey) :
+						null))
 					.map(supplier -> supplier
-						.transformWith(ChannelDeserializer.create(serializer))
-						.transformWith(StreamTransformers.filter(data -> data.timestamp >= timestamp))
-					)))
+						.transformWith(StreamTransformers.filter(reducingData ->
+							reducingData.key.compareTo(fromKey) >= 0 && reducingData.key.compareTo(toKey) <= 0))
+						.transformWith(StreamTransformers.mapper(FileSystemCrdtStorage::toCrdtData))
+						.transformWith(detailedStats ? downloadStatsDetailed : downloadStats)
+						.transformWith(onItem(downloadedItems::recordEvent))))
+			.mapException(e -> new CrdtException("Failed to download CRDT data", e));
+	}
+
+	private Promise<StreamSupplier<CrdtReducingData<K, S>>> doDownload(Map<String, FileMetadata> files, long timestamp, boolean includeTombstones) {
+		return doDownload(files, timestamp, new CrdtReducer(includeTombstones, Long.MIN_VALUE));
+	}
+
+	private Promise<StreamSupplier<CrdtReducingData<K, S>>> doDownload(Map<String, FileMetadata> files, long timestamp, CrdtReducer crdtReducer) {
+		return doDownload(files, (name, footer) -> {
+				if (footer.maxTimestamp < timestamp) return null;
+				Promise<StreamSupplier<CrdtReducingData<K, S>>> supplierPromise = downloadRecords(name, 0, footer.dataSize);
+				return footer.minTimestamp >= timestamp ?
+					supplierPromise :
+					supplierPromise.map(supplier -> supplier.transformWith(StreamTransformers.filter(data -> data.timestamp >= timestamp)));
+			},
+			(name, size) -> downloadRecords(name, 0, size)
+				.map(supplier -> supplier.transformWith(StreamTransformers.filter(data -> data.timestamp >= timestamp))),
+			crdtReducer);
+	}
+
+	private Promise<StreamSupplier<CrdtReducingData<K, S>>> doDownload(
+		Map<String, FileMetadata> files,
+		BiFunction<String, CrdtFileFooter<K>, @Nullable Promise<StreamSupplier<CrdtReducingData<K, S>>>> indexedDownloader
+	) {
+		return doDownload(files, indexedDownloader, (name, size) -> downloadRecords(name, 0, size), new CrdtReducer(false, Long.MIN_VALUE));
+	}
+
+	private Promise<StreamSupplier<CrdtReducingData<K, S>>> doDownload(
+		Map<String, FileMetadata> files,
+		BiFunction<String, CrdtFileFooter<K>, @Nullable Promise<StreamSupplier<CrdtReducingData<K, S>>>> indexedDownloader,
+		BiFunction<String, Long, Promise<StreamSupplier<CrdtReducingData<K, S>>>> fullDownloader,
+		CrdtReducer crdtReducer
+	) {
+		return Promises.toList(files.entrySet().stream()
+				.map(entry -> {
+					String name = entry.getKey();
+					long size = entry.getValue().getSize();
+					return getFooter(name, size)
+						.then(footer -> {
+							if (footer == null) return fullDownloader.apply(name, size);
+							Promise<StreamSupplier<CrdtReducingData<K, S>>> supplierPromise = indexedDownloader.apply(name, footer);
+							if (supplierPromise == null) {
+								skippedFiles.recordEvent();
+								return Promise.of(null);
+							}
+							return supplierPromise;
+						});
+				}))
 			.map(suppliers -> {
 				StreamReducer<K, CrdtReducingData<K, S>, CrdtAccumulator<S>> reducer = StreamReducer.create();
 
-				suppliers.forEach(supplier -> supplier.streamTo(reducer.newInput(x -> x.key, new CrdtReducer(includeTombstones))));
+				int filesRead = 0;
+				for (StreamSupplier<CrdtReducingData<K, S>> supplier : suppliers) {
+					if (supplier == null) continue;
+					supplier.streamTo(reducer.newInput(x -> x.key, crdtReducer));
+					filesRead++;
+				}
+				if (!crdtReducer.includeTombstones) {
+					filesPerRead.recordValue(filesRead);
+				}
 
 				return reducer.getOutput()
 					.withEndOfStream(eos -> eos
@@ -234,11 +433,81 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 			});
 	}
 
+	private Promise<StreamSupplier<CrdtReducingData<K, S>>> downloadRange(String name, CrdtFileFooter<K> footer, K fromKey, K toKey) {
+		long start = footer.rangeStart(fromKey);
+		long end = footer.rangeEnd(toKey);
+		return downloadRecords(name, start, end - start);
+	}
+
+	private Promise<StreamSupplier<CrdtReducingData<K, S>>> downloadRecords(String name, long offset, long limit) {
+		if (limit == 0) return Promise.of(StreamSuppliers.empty());
+		return fileSystem.download(name, offset, limit)
+			.map(supplier -> supplier.transformWith(ChannelDeserializer.create(serializer)));
+	}
+
+	private Promise<@Nullable CrdtFileFooter<K>> getFooter(String name, long size) {
+		if (footers.containsKey(name)) {
+			return Promise.of(footers.get(name));
+		}
+		if (size < CrdtFileFooter.TRAILER_SIZE) {
+			return Promise.of(null);
+		}
+		int tailSize = (int) Math.min(size, FOOTER_READ_SIZE);
+		return readBytes(name, size - tailSize, tailSize)
+			.then(tail -> {
+				BinaryInput in = new BinaryInput(tail, tailSize - CrdtFileFooter.TRAILER_SIZE);
+				int footerSize = in.readInt();
+				long magic = in.readLong();
+				if (magic != CrdtFileFooter.MAGIC || footerSize <= 0 || footerSize > size - CrdtFileFooter.TRAILER_SIZE) {
+					return Promise.of(null);
+				}
+				int footerOffset = tailSize - CrdtFileFooter.TRAILER_SIZE - footerSize;
+				if (footerOffset >= 0) {
+					return Promise.of(CrdtFileFooter.decode(new BinaryInput(tail, footerOffset), keySerializer));
+				}
+				return readBytes(name, size - CrdtFileFooter.TRAILER_SIZE - footerSize, footerSize)
+					.map(bytes -> CrdtFileFooter.decode(new BinaryInput(bytes), keySerializer));
+			})
+			.whenResult(footer -> footers.put(name, footer));
+	}
+
+	private Promise<byte[]> readBytes(String name, long offset, int limit) {
+		return fileSystem.download(name, offset, limit)
+			.then(supplier -> supplier.toCollector(ByteBufs.collector()))
+			.map(ByteBuf::asArray);
+	}
+
+	private Promise<Map<String, FileMetadata>> list() {
+		return fileSystem.list("*")
+			.whenResult(fileMap -> footers.keySet().retainAll(fileMap.keySet()));
+	}
+
+	private Promise<Void> deleteAll(Set<String> files) {
+		return fileSystem.deleteAll(files)
+			.whenResult(() -> footers.keySet().removeAll(files));
+	}
+
+	private byte[] encodeKey(K key) {
+		byte[] array = new byte[256];
+		while (true) {
+			try {
+				int size = keySerializer.encode(array, 0, key);
+				return Arrays.copyOf(array, size);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				array = new byte[array.length * 2];
+			}
+		}
+	}
+
+	private static <K extends Comparable<K>, S> CrdtData<K, S> toCrdtData(CrdtReducingData<K, S> reducingData) {
+		return new CrdtData<>(reducingData.key, reducingData.timestamp, reducingData.state);
+	}
+
 	@Override
 	public Promise<StreamConsumer<CrdtTombstone<K>>> remove() {
 		if (CHECKS) checkInReactorThread(this);
 		String filename = namingStrategy.get() + FILE_EXTENSION;
-		return Promise.of(this.<CrdtTombstone<K>>uploadNonEmpty(filename, CrdtReducingData::ofTombstone)
+		return Promise.of(this.<CrdtTombstone<K>>uploadNonEmpty(filename, CrdtReducingData::ofTombstone, 0, bytes -> uploadedBytes += bytes)
 			.transformWith(detailedStats ? removeStatsDetailed : removeStats)
 			.transformWith(onItem(removedItems::recordEvent))
 			.withAcknowledgement(ack -> ack
@@ -255,12 +524,18 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 	@Override
 	public Promise<?> start() {
 		checkInReactorThread(this);
+		if (compactionInterval != null) {
+			stopped = false;
+			scheduleCompaction(compactionInterval.toMillis());
+		}
 		return Promise.complete();
 	}
 
 	@Override
 	public Promise<?> stop() {
 		checkInReactorThread(this);
+		stopped = true;
+		compactionSchedule = nullify(compactionSchedule, ScheduledRunnable::cancel);
 		return Promise.complete();
 	}
 
@@ -270,29 +545,203 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 			.whenComplete(consolidationStats.recordStats());
 	}
 
+	private void scheduleCompaction(long delayMillis) {
+		assert compactionInterval != null;
+		compactionSchedule = reactor.delayBackground(delayMillis, () -> {
+			compactionSchedule = null;
+			consolidate()
+				.whenComplete((v, e) -> {
+					if (stopped) return;
+					scheduleCompaction(e == null && !lastConsolidationIdle ? 0 : compactionInterval.toMillis());
+				});
+		});
+	}
+
 	private Promise<Void> doConsolidate() {
-		return fileSystem.list("*")
-			.map(fileMap -> taken == null ?
-				fileMap :
-				fileMap.entrySet().stream()
-					.filter(entry -> !taken.contains(entry.getKey()))
-					.collect(entriesToLinkedHashMap()))
-			.map(FileSystemCrdtStorage::pickFilesForConsolidation)
-			.then(filesToConsolidate -> {
-				if (filesToConsolidate.isEmpty()) {
-					logger.info("No files to consolidate");
-					return Promise.complete();
-				}
+		return list()
+			.then(fileMap -> Promises.toList(fileMap.entrySet().stream()
+					.map(entry -> getFooter(entry.getKey(), entry.getValue().getSize())
+						.map(footer -> toFileInfo(entry.getKey(), entry.getValue().getSize(), footer))))
+				.then(files -> {
+					Set<String> busyFiles = files.stream()
+						.filter(CrdtFileInfo::busy)
+						.map(CrdtFileInfo::name)
+						.collect(toSet());
+					List<CrdtCompactionTask> tasks = compactionStrategy.pickTasks(files).stream()
+						.filter(task -> !task.files().isEmpty())
+						.filter(task -> task.files().size() > 1 || task.targetLevel() != levelOf(first(task.files())))
+						.filter(task -> fileMap.keySet().containsAll(task.files()) && Collections.disjoint(task.files(), busyFiles))
+						.toList();
+
+					// tasks which read or write the same non-overlapping level (above 0) run one at a time,
+					// as a task is picked without seeing outputs of the other one
+					Set<String> scheduledFiles = new HashSet<>();
+					Set<Integer> scheduledLevels = new HashSet<>();
+					List<CrdtCompactionTask> tasksToRun = new ArrayList<>();
+					for (CrdtCompactionTask task : tasks) {
+						if (tasksToRun.size() == maxConcurrentCompactions) break;
+						Set<Integer> levels = levelsOf(task);
+						if (!Collections.disjoint(scheduledFiles, task.files()) || !Collections.disjoint(scheduledLevels, levels)) continue;
+						scheduledFiles.addAll(task.files());
+						scheduledLevels.addAll(levels);
+						tasksToRun.add(task);
+					}
+					compactionBacklog = tasks.size() - tasksToRun.size();
+					lastConsolidationIdle = tasksToRun.isEmpty();
+
+					if (tasksToRun.isEmpty()) {
+						logger.info("No files to consolidate");
+						return Promise.complete();
+					}
+
+					List<Promise<Void>> compactions = new ArrayList<>();
+					for (CrdtCompactionTask task : tasksToRun) {
+						compactions.add(compact(task, filterFiles(fileMap, task.files()), files));
+					}
+					return Promises.all(compactions);
+				}))
+			.mapException(e -> new CrdtException("Files consolidation failed", e));
+	}
+
+	private Promise<Void> compact(CrdtCompactionTask task, Map<String, FileMetadata> inputs, List<CrdtFileInfo<K>> files) {
+		compacting.addAll(inputs.keySet());
+		compactionReadBytes += inputs.values().stream().mapToLong(FileMetadata::getSize).sum();
 
-				String name = namingStrategy.get() + FILE_EXTENSION;
+		long purgeTombstonesBefore = canPurgeTombstones(task, files) ?
+			reactor.currentTimeMillis() - tombstoneGracePeriod.toMillis() :
+			Long.MIN_VALUE;
+		List<K> splitKeys = task.targetFileSize() == 0 ? List.of() : computeSplitKeys(inputs.keySet(), task.targetFileSize());
 
-				logger.info("Started consolidating files into {} from {}", name, filesToConsolidate);
+		logger.info("Started consolidating {} files into level {} ({} parts) from {}",
+			inputs.size(), task.targetLevel(), splitKeys.size() + 1, inputs.keySet());
 
-				return doDownload(filesToConsolidate, 0, true)
-					.then(crdtSupplier -> crdtSupplier.streamTo(uploadNonEmpty(name, Function.identity())))
-					.then(() -> fileSystem.deleteAll(filesToConsolidate));
+		return doDownload(inputs, 0, new CrdtReducer(true, purgeTombstonesBefore))
+			.map(crdtSupplier -> crdtSupplier.transformWith(createCompactionThrottler(inputs.keySet())))
+			.then(crdtSupplier -> {
+				if (splitKeys.isEmpty()) {
+					return crdtSupplier.streamTo(uploadCompacted(task.targetLevel()));
+				}
+				StreamSplitter<CrdtReducingData<K, S>, CrdtReducingData<K, S>> splitter = StreamSplitter.create(
+					(item, acceptors) -> acceptors[partition(splitKeys, item.key)].accept(item));
+				List<Promise<Void>> uploads = new ArrayList<>();
+				for (int i = 0; i <= splitKeys.size(); i++) {
+					uploads.add(splitter.newOutput().streamTo(uploadCompacted(task.targetLevel())));
+				}
+				return crdtSupplier.streamTo(splitter.getInput())
+					.both(Promises.all(uploads));
 			})
-			.mapException(e -> new CrdtException("Files consolidation failed", e));
+			.then(() -> deleteAll(inputs.keySet()))
+			.whenComplete(() -> compacting.removeAll(inputs.keySet()))
+			.whenComplete(compactionStats.recordStats());
+	}
+
+	private StreamConsumer<CrdtReducingData<K, S>> uploadCompacted(int level) {
+		String name = namingStrategy.get() + FILE_EXTENSION;
+		return uploadNonEmpty(name, Function.identity(), level, bytes -> compactionWrittenBytes += bytes);
+	}
+
+	/**
+	 * Creates a single rate limiter for all the outputs of a compaction task.
+	 * A size of a record is estimated from footers of the task's input files
+	 */
+	private StreamTransformer<CrdtReducingData<K, S>, CrdtReducingData<K, S>> createCompactionThrottler(Set<String> inputs) {
+		if (compactionRateLimit == null) return StreamTransformers.identity();
+		long dataSize = 0;
+		long recordCount = 0;
+		for (String input : inputs) {
+			CrdtFileFooter<K> footer = footers.get(input);
+			if (footer == null) continue;
+			dataSize += footer.dataSize;
+			recordCount += footer.recordCount;
+		}
+		long recordSize = recordCount == 0 ? 1 : Math.max(1, dataSize / recordCount);
+		return RateLimiter.<CrdtReducingData<K, S>>builder((double) compactionRateLimit.toLong() / maxConcurrentCompactions, ChronoUnit.SECONDS)
+			.withTokenizer($ -> recordSize)
+			.build();
+	}
+
+	private boolean canPurgeTombstones(CrdtCompactionTask task, List<CrdtFileInfo<K>> files) {
+		if (tombstoneGracePeriod == null) return false;
+		K minKey = null;
+		K maxKey = null;
+		for (CrdtFileInfo<K> file : files) {
+			if (!task.files().contains(file.name())) continue;
+			if (!file.hasKeyRange()) {
+				return files.stream().allMatch(f -> task.files().contains(f.name()));
+			}
+			if (minKey == null || file.minKey().compareTo(minKey) < 0) minKey = file.minKey();
+			if (maxKey == null || file.maxKey().compareTo(maxKey) > 0) maxKey = file.maxKey();
+		}
+		for (CrdtFileInfo<K> file : files) {
+			if (!task.files().contains(file.name()) && file.overlaps(minKey, maxKey)) return false;
+		}
+		return true;
+	}
+
+	private List<K> computeSplitKeys(Set<String> files, long targetFileSize) {
+		TreeMap<K, Long> blockSizes = new TreeMap<>();
+		for (String file : files) {
+			CrdtFileFooter<K> footer = footers.get(file);
+			if (footer == null) continue;
+			for (int i = 0; i < footer.indexOffsets.length; i++) {
+				long end = i + 1 < footer.indexOffsets.length ? footer.indexOffsets[i + 1] : footer.dataSize;
+				blockSizes.merge(footer.indexKeys.get(i), end - footer.indexOffsets[i], Long::sum);
+			}
+		}
+
+		List<K> splitKeys = new ArrayList<>();
+		long size = 0;
+		for (Map.Entry<K, Long> entry : blockSizes.entrySet()) {
+			if (size >= targetFileSize) {
+				splitKeys.add(entry.getKey());
+				size = 0;
+			}
+			size += entry.getValue();
+		}
+		return splitKeys;
+	}
+
+	private static <K extends Comparable<K>> int partition(List<K> splitKeys, K key) {
+		int lo = 0;
+		int hi = splitKeys.size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (splitKeys.get(mid).compareTo(key) <= 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private CrdtFileInfo<K> toFileInfo(String name, long size, @Nullable CrdtFileFooter<K> footer) {
+		boolean busy = compacting.contains(name) || (taken != null && taken.contains(name));
+		return footer == null ?
+			new CrdtFileInfo<>(name, size, 0, 0, 0, null, null, busy) :
+			new CrdtFileInfo<>(name, footer.dataSize, footer.level, footer.recordCount, footer.tombstoneCount, footer.minKey, footer.maxKey, busy);
+	}
+
+	private int levelOf(String name) {
+		CrdtFileFooter<K> footer = footers.get(name);
+		return footer == null ? 0 : footer.level;
+	}
+
+	private Set<Integer> levelsOf(CrdtCompactionTask task) {
+		Set<Integer> levels = new HashSet<>();
+		if (task.targetLevel() > 0) levels.add(task.targetLevel());
+		for (String file : task.files()) {
+			int level = levelOf(file);
+			if (level > 0) levels.add(level);
+		}
+		return levels;
+	}
+
+	private static <K extends Comparable<K>> List<CrdtCompactionTask> pickFilesForConsolidation(List<CrdtFileInfo<K>> files) {
+		Set<String> picked = pickFilesForConsolidation(files.stream()
+			.filter(file -> !file.busy())
+			.collect(toMap(CrdtFileInfo::name, file -> FileMetadata.of(file.size(), 0))));
+		return picked.isEmpty() ? List.of() : List.of(CrdtCompactionTask.of(picked));
 	}
 
 	@VisibleForTesting
@@ -317,7 +766,15 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 		return groupToConsolidate;
 	}
 
-	private <T> StreamConsumer<T> uploadNonEmpty(String filename, Function<T, CrdtReducingData<K, S>> mapping) {
+	private static Map<String, FileMetadata> filterFiles(Map<String, FileMetadata> fileMap, Set<String> names) {
+		return fileMap.entrySet().stream()
+			.filter(entry -> names.contains(entry.getKey()))
+			.collect(entriesToLinkedHashMap());
+	}
+
+	private <T> StreamConsumer<T> uploadNonEmpty(
+		String filename, Function<T, CrdtReducingData<K, S>> mapping, int level, LongConsumer writtenBytesConsumer
+	) {
 		SettablePromise<ChannelConsumer<ByteBuf>> consumerPromise = new SettablePromise<>();
 		NonEmptyFilter<T> nonEmptyFilter = new NonEmptyFilter<>(() -> fileSystem.upload(filename)
 			.subscribe(consumerPromise));
@@ -326,17 +783,18 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 			supplier
 				.transformWith(nonEmptyFilter)
 				.transformWith(StreamTransformers.mapper(mapping))
-				.transformWith(ChannelSerializer.create(serializer))
+				.transformWith(new CrdtFileWriter<>(keySerializer, serializer, indexBlockSize, level, writtenBytesConsumer))
 				.withEndOfStream(eos -> eos
 					.whenComplete(() -> {
 						if (nonEmptyFilter.isEmpty()) {
 							consumerPromise.set(ChannelConsumers.recycling());
 						}
 					}))
-				.streamTo(consumerPromise));
+				.streamTo(StreamConsumers.ofChannelConsumer(ChannelConsumers.ofPromise(consumerPromise))));
 	}
 
-	private static <K extends Comparable<K>, S> BinarySerializer<CrdtReducingData<K, S>> createSerializer(CrdtDataBinarySerializer<K, S> serializer) {
+	@VisibleForTesting
+	static <K extends Comparable<K>, S> BinarySerializer<CrdtReducingData<K, S>> createSerializer(CrdtDataBinarySerializer<K, S> serializer) {
 		BinarySerializer<K> keySerializer = serializer.getKeySerializer();
 		BinarySerializer<@Nullable S> stateSerializer = BinarySerializers.ofNullable(serializer.getStateSerializer());
 		return new BinarySerializer<>() {
@@ -385,9 +843,11 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 
 	public final class CrdtReducer implements Reducer<K, CrdtReducingData<K, S>, CrdtReducingData<K, S>, CrdtAccumulator<S>> {
 		final boolean includeTombstones;
+		final long purgeTombstonesBefore;
 
-		CrdtReducer(boolean includeTombstones) {
+		CrdtReducer(boolean includeTombstones, long purgeTombstonesBefore) {
 			this.includeTombstones = includeTombstones;
+			this.purgeTombstonesBefore = purgeTombstonesBefore;
 		}
 
 		@Override
@@ -411,7 +871,7 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 		@Override
 		public void onComplete(StreamDataAcceptor<CrdtReducingData<K, S>> stream, K key, CrdtAccumulator<S> accumulator) {
 			if (accumulator.entries.isEmpty()) {
-				if (includeTombstones) {
+				if (includeTombstones && accumulator.tombstoneTimestamp >= purgeTombstonesBefore) {
 					stream.accept(new CrdtReducingData<>(key, null, accumulator.tombstoneTimestamp));
 				}
 				return;
@@ -533,5 +993,55 @@ public final class FileSystemCrdtStorage<K extends Comparable<K>, S> extends Abs
 	public EventStats getRemovedItems() {
 		return removedItems;
 	}
+
+	@JmxAttribute
+	public EventStats getSkippedFiles() {
+		return skippedFiles;
+	}
+
+	@JmxAttribute
+	public int getCachedFooters() {
+		return footers.size();
+	}
+
+	@JmxAttribute
+	public PromiseStats getCompactionStats() {
+		return compactionStats;
+	}
+
+	@JmxAttribute
+	public ValueStats getFilesPerRead() {
+		return filesPerRead;
+	}
+
+	@JmxAttribute
+	public long getUploadedBytes() {
+		return uploadedBytes;
+	}
+
+	@JmxAttribute
+	public long getCompactionReadBytes() {
+		return compactionReadBytes;
+	}
+
+	@JmxAttribute
+	public long getCompactionWrittenBytes() {
+		return compactionWrittenBytes;
+	}
+
+	@JmxAttribute
+	public double getWriteAmplification() {
+		return uploadedBytes == 0 ? 0 : (double) (uploadedBytes + compactionWrittenBytes) / uploadedBytes;
+	}
+
+	@JmxAttribute
+	public int getCompactionBacklog() {
+		return compactionBacklog;
+	}
+
+	@JmxAttribute
+	public int getActiveCompactionFiles() {
+		return compacting.size();
+	}
 	// endregion
 }
@@ -28,6 +28,8 @@ import io.activej.crdt.function.CrdtFilter;
 import io.activej.crdt.function.CrdtFunction;
 import io.activej.crdt.primitives.CrdtType;
 import io.activej.crdt.storage.ICrdtStorage;
+import io.activej.crdt.storage.local.memtable.CrdtMemtable;
+import io.activej.crdt.storage.local.memtable.HeapCrdtMemtable;
 import io.activej.datastream.consumer.StreamConsumer;
 import io.activej.datastream.consumer.ToListStreamConsumer;
 import io.activej.datastream.stats.BasicStreamStats;
@@ -47,9 +49,10 @@ import org.jetbrains.annotations.Nullable;
 import java.time.Duration;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static io.activej.common.Utils.nullify;
 import static io.activej.crdt.util.Utils.onItem;
@@ -65,11 +68,10 @@ public final class MapCrdtStorage<K extends Comparable<K>, S> extends AbstractRe
 
 	private final CrdtFunction<S> function;
 
-	private final NavigableMap<K, CrdtData<K, S>> map = new TreeMap<>();
-	private final NavigableMap<K, CrdtTombstone<K>> tombstones = new TreeMap<>();
+	private Supplier<? extends CrdtMemtable<K, S>> memtableFactory = HeapCrdtMemtable::create;
 
-	private NavigableMap<K, CrdtData<K, S>> takenMap;
-	private NavigableMap<K, CrdtTombstone<K>> takenTombstones;
+	private CrdtMemtable<K, S> map = HeapCrdtMemtable.create();
+	private @Nullable CrdtMemtable<K, S> takenMap;
 
 	private CrdtFilter<S> filter = $ -> true;
 
@@ -133,6 +135,19 @@ public final class MapCrdtStorage<K extends Comparable<K>, S> extends AbstractRe
 			return this;
 		}
 
+		/**
+		 * Sets a factory of memtables that hold the data of this storage.
+		 * <p>
+		 * By default, data is held in {@link HeapCrdtMemtable}. For large number of keys,
+		 * consider using {@link io.activej.crdt.storage.local.memtable.OffHeapCrdtMemtable}
+		 */
+		public Builder withMemtableFactory(Supplier<? extends CrdtMemtable<K, S>> memtableFactory) {
+			checkNotBuilt(this);
+			MapCrdtStorage.this.memtableFactory = memtableFactory;
+			MapCrdtStorage.this.map = memtableFactory.get();
+			return this;
+		}
+
 		@Override
 		protected MapCrdtStorage<K, S> doBuild() {
 			return MapCrdtStorage.this;
@@ -164,25 +179,21 @@ public final class MapCrdtStorage<K extends Comparable<K>, S> extends AbstractRe
 	public Promise<StreamSupplier<CrdtData<K, S>>> take() {
 		if (CHECKS) checkInReactorThread(this);
 		if (takenMap != null) {
-			assert takenTombstones != null;
 			return Promise.ofException(new CrdtException("Data is already being taken"));
 		}
-		takenMap = new TreeMap<>(map);
-		takenTombstones = new TreeMap<>(tombstones);
-		map.clear();
-		tombstones.clear();
+		takenMap = map;
+		map = memtableFactory.get();
 
-		StreamSupplier<CrdtData<K, S>> supplier = StreamSuppliers.ofIterable(takenMap.values())
+		StreamSupplier<CrdtData<K, S>> supplier = StreamSuppliers.ofIterable(takenMap)
 			.transformWith(detailedStats ? takeStatsDetailed : takeStats)
 			.transformWith(onItem(takenItems::recordEvent));
 		supplier.getAcknowledgement()
-			.whenResult(() -> {
-				takenMap = null;
-				takenTombstones = null;
-			})
+			.whenResult(() -> takenMap = null)
 			.mapException(e -> {
-				takenMap = nullify(takenMap, map -> map.values().forEach(this::doPut));
-				takenTombstones = nullify(takenTombstones, map -> map.values().forEach(this::doRemove));
+				takenMap = nullify(takenMap, map -> {
+					map.forEach(this::doPut);
+					map.tombstoneIterator().forEachRemaining(this::doRemove);
+				});
 
 				return new CrdtException("Error while downloading CRDT data", e);
 			});
@@ -219,32 +230,32 @@ public final class MapCrdtStorage<K extends Comparable<K>, S> extends AbstractRe
 	}
 
 	private Stream<CrdtData<K, S>> extract(long timestamp) {
-		Map<K, CrdtData<K, S>> map;
+		Stream<CrdtData<K, S>> stream;
 		if (takenMap == null) {
-			map = this.map;
+			stream = StreamSupport.stream(this.map.spliterator(), false);
 		} else {
-			map = new TreeMap<>();
+			Map<K, CrdtData<K, S>> map = new TreeMap<>();
 			doMerge(map, this.map);
 			doMerge(map, this.takenMap);
+			stream = map.values().stream();
 		}
 
-		return map.values().stream()
+		return stream
 			.filter(data -> data.getTimestamp() >= timestamp);
 	}
 
-	private void doMerge(Map<K, CrdtData<K, S>> to, Map<K, CrdtData<K, S>> from) {
-		assert takenTombstones != null;
+	private void doMerge(Map<K, CrdtData<K, S>> to, CrdtMemtable<K, S> from) {
+		assert takenMap != null;
 
-		for (Map.Entry<K, CrdtData<K, S>> entry : from.entrySet()) {
-			K key = entry.getKey();
-			CrdtData<K, S> data = entry.getValue();
+		for (CrdtData<K, S> data : from) {
+			K key = data.getKey();
 
-			CrdtTombstone<K> tombstone = tombstones.get(key);
+			CrdtTombstone<K> tombstone = map.getTombstone(key);
 			if (tombstone != null && tombstone.getTimestamp() >= data.getTimestamp()) {
 				continue;
 			}
 
-			CrdtTombstone<K> takenTombstone = takenTombstones.get(key);
+			CrdtTombstone<K> takenTombstone = takenMap.getTombstone(key);
 			if (takenTombstone != null && takenTombstone.getTimestamp() >= data.getTimestamp()) {
 				continue;
 			}
@@ -259,30 +270,34 @@ public final class MapCrdtStorage<K extends Comparable<K>, S> extends AbstractRe
 	private void doPut(CrdtData<K, S> data) {
 		K key = data.getKey();
 
-		CrdtTombstone<K> tombstone = tombstones.get(key);
-		if (tombstone != null) {
-			if (tombstone.getTimestamp() >= data.getTimestamp()) return;
-			tombstones.remove(key);
+		CrdtTombstone<K> tombstone = map.getTombstone(key);
+		if (tombstone != null && tombstone.getTimestamp() >= data.getTimestamp()) return;
+
+		CrdtData<K, S> prev = map.get(key);
+		if (prev == null) {
+			map.put(data);
+			return;
 		}
 
-		map.merge(key, data, (a, b) -> {
-			S merged = function.merge(a.getState(), a.getTimestamp(), b.getState(), b.getTimestamp());
-			long timestamp = Math.max(a.getTimestamp(), b.getTimestamp());
-			return filter.test(merged) ? new CrdtData<>(key, timestamp, merged) : null;
-		});
+		S merged = function.merge(prev.getState(), prev.getTimestamp(), data.getState(), data.getTimestamp());
+		long timestamp = Math.max(prev.getTimestamp(), data.getTimestamp());
+		if (filter.test(merged)) {
+			map.put(new CrdtData<>(key, timestamp, merged));
+		} else {
+			map.remove(key);
+		}
 	}
 
 	private boolean doRemove(CrdtTombstone<K> tombstone) {
 		K key = tombstone.getKey();
 
 		CrdtData<K, S> data = map.get(key);
-		boolean removed = data != null;
-		if (removed) {
-			if (data.getTimestamp() > tombstone.getTimestamp()) return false;
-			map.remove(key);
-		}
+		if (data != null && data.getTimestamp() > tombstone.getTimestamp()) return false;
 
-		tombstones.merge(key, tombstone, (a, b) -> new CrdtTombstone<>(key, Math.max(a.getTimestamp(), b.getTimestamp())));
+		CrdtTombstone<K> prev = map.getTombstone(key);
+		if (prev == null || prev.getTimestamp() < tombstone.getTimestamp()) {
+			map.putTombstone(tombstone);
+		}
 		return true;
 	}
 
@@ -362,6 +377,11 @@ public final class MapCrdtStorage<K extends Comparable<K>, S> extends AbstractRe
 		return detailedStats;
 	}
 
+	@JmxAttribute
+	public int getMemtableSize() {
+		return map.size();
+	}
+
 	@JmxAttribute
 	public BasicStreamStats getUploadStats() {
 		return uploadStats;
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.crdt.storage.local.compaction;
+
+import java.util.List;
+
+/**
+ * A policy that decides which files of {@link io.activej.crdt.storage.local.FileSystemCrdtStorage}
+ * should be merged together.
+ */
+public interface CrdtCompactionStrategy<K extends Comparable<K>> {
+	/**
+	 * Picks compaction tasks for given files, the most important task first.
+	 * <p>
+	 * Returned tasks must not share files and must not include {@link CrdtFileInfo#busy() busy} files.
+	 * Storage may start only a part of the tasks, the rest is considered a compaction backlog.
+	 */
+	List<CrdtCompactionTask> pickTasks(List<CrdtFileInfo<K>> files);
+}
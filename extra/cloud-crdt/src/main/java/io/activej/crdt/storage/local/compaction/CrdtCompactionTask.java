@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.crdt.storage.local.compaction;
+
+import java.util.Set;
+
+/**
+ * A single compaction: a set of files to be merged together.
+ *
+ * @param targetLevel    a level of the resulting files
+ * @param targetFileSize an approximate maximum size of a resulting file,
+ *                       or {@code 0} if the result should be written as a single file
+ */
+public record CrdtCompactionTask(Set<String> files, int targetLevel, long targetFileSize) {
+	public static CrdtCompactionTask of(Set<String> files) {
+		return new CrdtCompactionTask(files, 0, 0);
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.crdt.storage.local.compaction;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Describes a file of {@link io.activej.crdt.storage.local.FileSystemCrdtStorage} for compaction strategies.
+ * <p>
+ * Key range and record counts are taken from a file footer.
+ * Files without a footer have a {@code null} key range (which is considered to overlap any other range)
+ * and are considered to belong to level 0.
+ *
+ * @param size a size of records of a file, not including its footer
+ * @param busy whether a file is already being compacted or taken, and so cannot be a part of a new task
+ */
+public record CrdtFileInfo<K extends Comparable<K>>(
+	String name, long size, int level,
+	long recordCount, long tombstoneCount,
+	@Nullable K minKey, @Nullable K maxKey,
+	boolean busy
+) {
+	public boolean hasKeyRange() {
+		return minKey != null && maxKey != null;
+	}
+
+	public double getTombstoneRatio() {
+		return recordCount == 0 ? 0 : (double) tombstoneCount / recordCount;
+	}
+
+	public boolean overlaps(@Nullable K fromKey, @Nullable K toKey) {
+		if (!hasKeyRange() || fromKey == null || toKey == null) return true;
+		return minKey.compareTo(toKey) <= 0 && maxKey.compareTo(fromKey) >= 0;
+	}
+
+	public boolean overlaps(CrdtFileInfo<K> other) {
+		return overlaps(other.minKey, other.maxKey);
+	}
+}
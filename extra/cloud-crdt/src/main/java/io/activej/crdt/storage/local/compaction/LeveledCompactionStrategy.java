@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.crdt.storage.local.compaction;
+
+import io.activej.common.MemSize;
+import io.activej.common.builder.AbstractBuilder;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static io.activej.common.Checks.checkArgument;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * A leveled compaction strategy.
+ * <p>
+ * Uploaded files form level 0, where files may overlap by keys. Once there are at least
+ * {@code level0Threshold} files on level 0, they are merged with overlapping files of level 1.
+ * Files of each level starting from 1 are partitioned by key ranges (they do not overlap each other)
+ * and have a size of about {@code targetFileSize}. Once a total size of level {@code N} exceeds
+ * {@code baseLevelSize * fanout^(N - 1)}, one of its files is merged with overlapping files of level {@code N + 1}.
+ * <p>
+ * Files to be pushed to the next level are chosen in a round-robin manner by key,
+ * unless there is a file with a ratio of tombstones higher than {@code tombstoneThreshold}.
+ * <p>
+ * Leveled compaction keeps the number of files a read has to visit low, at the cost of higher write amplification.
+ */
+public final class LeveledCompactionStrategy<K extends Comparable<K>> implements CrdtCompactionStrategy<K> {
+	public static final int DEFAULT_LEVEL_0_THRESHOLD = 4;
+	public static final MemSize DEFAULT_BASE_LEVEL_SIZE = MemSize.megabytes(10);
+	public static final int DEFAULT_FANOUT = 10;
+	public static final MemSize DEFAULT_TARGET_FILE_SIZE = MemSize.megabytes(2);
+	public static final int DEFAULT_MAX_LEVELS = 7;
+	public static final double DEFAULT_TOMBSTONE_THRESHOLD = 0.2;
+
+	private int level0Threshold = DEFAULT_LEVEL_0_THRESHOLD;
+	private long baseLevelSize = DEFAULT_BASE_LEVEL_SIZE.toLong();
+	private int fanout = DEFAULT_FANOUT;
+	private long targetFileSize = DEFAULT_TARGET_FILE_SIZE.toLong();
+	private int maxLevels = DEFAULT_MAX_LEVELS;
+	private double tombstoneThreshold = DEFAULT_TOMBSTONE_THRESHOLD;
+
+	private final Map<Integer, K> cursors = new HashMap<>();
+
+	private LeveledCompactionStrategy() {
+	}
+
+	public static <K extends Comparable<K>> LeveledCompactionStrategy<K> create() {
+		return LeveledCompactionStrategy.<K>builder().build();
+	}
+
+	public static <K extends Comparable<K>> LeveledCompactionStrategy<K>.Builder builder() {
+		return new LeveledCompactionStrategy<K>().new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, LeveledCompactionStrategy<K>> {
+		private Builder() {}
+
+		public Builder withLevel0Threshold(int level0Threshold) {
+			checkNotBuilt(this);
+			checkArgument(level0Threshold >= 1, "Level 0 threshold must be positive");
+			LeveledCompactionStrategy.this.level0Threshold = level0Threshold;
+			return this;
+		}
+
+		public Builder withBaseLevelSize(MemSize baseLevelSize) {
+			checkNotBuilt(this);
+			checkArgument(baseLevelSize.toLong() > 0, "Base level size must be positive");
+			LeveledCompactionStrategy.this.baseLevelSize = baseLevelSize.toLong();
+			return this;
+		}
+
+		public Builder withFanout(int fanout) {
+			checkNotBuilt(this);
+			checkArgument(fanout >= 2, "Fanout must be at least 2");
+			LeveledCompactionStrategy.this.fanout = fanout;
+			return this;
+		}
+
+		public Builder withTargetFileSize(MemSize targetFileSize) {
+			checkNotBuilt(this);
+			checkArgument(targetFileSize.toLong() > 0, "Target file size must be positive");
+			LeveledCompactionStrategy.this.targetFileSize = targetFileSize.toLong();
+			return this;
+		}
+
+		public Builder withMaxLevels(int maxLevels) {
+			checkNotBuilt(this);
+			checkArgument(maxLevels >= 2, "There should be at least 2 levels");
+			LeveledCompactionStrategy.this.maxLevels = maxLevels;
+			return this;
+		}
+
+		public Builder withTombstoneThreshold(double tombstoneThreshold) {
+			checkNotBuilt(this);
+			checkArgument(tombstoneThreshold >= 0 && tombstoneThreshold <= 1, "Tombstone threshold must be in [0, 1]");
+			LeveledCompactionStrategy.this.tombstoneThreshold = tombstoneThreshold;
+			return this;
+		}
+
+		@Override
+		protected LeveledCompactionStrategy<K> doBuild() {
+			return LeveledCompactionStrategy.this;
+		}
+	}
+
+	@Override
+	public List<CrdtCompactionTask> pickTasks(List<CrdtFileInfo<K>> files) {
+		TreeMap<Integer, List<CrdtFileInfo<K>>> levels = new TreeMap<>();
+		for (CrdtFileInfo<K> file : files) {
+			levels.computeIfAbsent(Math.min(file.level(), maxLevels - 1), $ -> new ArrayList<>()).add(file);
+		}
+
+		List<Candidate<K>> candidates = new ArrayList<>();
+
+		List<CrdtFileInfo<K>> level0 = levels.getOrDefault(0, List.of());
+		if (level0.size() >= level0Threshold) {
+			List<CrdtFileInfo<K>> inputs = level0.stream().filter(file -> !file.busy()).toList();
+			if (!inputs.isEmpty()) {
+				addCandidate(candidates, (double) level0.size() / level0Threshold, inputs, 1, levels.getOrDefault(1, List.of()));
+			}
+		}
+
+		double maxLevelSize = baseLevelSize;
+		for (int level = 1; level < maxLevels - 1; level++, maxLevelSize *= fanout) {
+			List<CrdtFileInfo<K>> levelFiles = levels.getOrDefault(level, List.of());
+			long levelSize = levelFiles.stream().mapToLong(CrdtFileInfo::size).sum();
+			if (levelSize <= maxLevelSize) continue;
+
+			CrdtFileInfo<K> file = pickFile(level, levelFiles);
+			if (file == null) continue;
+			addCandidate(candidates, levelSize / maxLevelSize, List.of(file), level + 1, levels.getOrDefault(level + 1, List.of()));
+		}
+
+		candidates.sort(Comparator.comparingDouble(Candidate<K>::score).reversed());
+
+		List<CrdtCompactionTask> tasks = new ArrayList<>();
+		Set<String> usedFiles = new HashSet<>();
+		List<Candidate<K>> accepted = new ArrayList<>();
+		for (Candidate<K> candidate : candidates) {
+			if (candidate.files.stream().anyMatch(file -> usedFiles.contains(file.name()))) continue;
+			if (accepted.stream().anyMatch(other -> other.targetLevel == candidate.targetLevel && other.overlaps(candidate))) continue;
+			accepted.add(candidate);
+			candidate.files.forEach(file -> usedFiles.add(file.name()));
+			tasks.add(new CrdtCompactionTask(
+				candidate.files.stream().map(CrdtFileInfo::name).collect(toSet()),
+				candidate.targetLevel,
+				targetFileSize));
+		}
+		return tasks;
+	}
+
+	private void addCandidate(List<Candidate<K>> candidates, double score, List<CrdtFileInfo<K>> inputs, int targetLevel, List<CrdtFileInfo<K>> nextLevel) {
+		Candidate<K> inputRange = Candidate.of(score, inputs, targetLevel);
+		List<CrdtFileInfo<K>> taskFiles = new ArrayList<>(inputs);
+		for (CrdtFileInfo<K> file : nextLevel) {
+			if (!file.overlaps(inputRange.minKey, inputRange.maxKey)) continue;
+			if (file.busy()) return;
+			taskFiles.add(file);
+		}
+		candidates.add(Candidate.of(score, taskFiles, targetLevel));
+	}
+
+	private @Nullable CrdtFileInfo<K> pickFile(int level, List<CrdtFileInfo<K>> levelFiles) {
+		List<CrdtFileInfo<K>> available = levelFiles.stream()
+			.filter(file -> !file.busy())
+			.sorted(Comparator.comparing(CrdtFileInfo::minKey, Comparator.nullsFirst(Comparator.naturalOrder())))
+			.toList();
+		if (available.isEmpty()) return null;
+
+		CrdtFileInfo<K> tombstoneCandidate = available.stream()
+			.filter(file -> file.getTombstoneRatio() > tombstoneThreshold)
+			.max(Comparator.comparingDouble(CrdtFileInfo::getTombstoneRatio))
+			.orElse(null);
+		if (tombstoneCandidate != null) return tombstoneCandidate;
+
+		K cursor = cursors.get(level);
+		CrdtFileInfo<K> picked = available.get(0);
+		if (cursor != null) {
+			for (CrdtFileInfo<K> file : available) {
+				if (file.hasKeyRange() && file.minKey().compareTo(cursor) > 0) {
+					picked = file;
+					break;
+				}
+			}
+		}
+		if (picked.hasKeyRange()) {
+			cursors.put(level, picked.maxKey());
+		}
+		return picked;
+	}
+
+	private record Candidate<K extends Comparable<K>>(
+		double score, List<CrdtFileInfo<K>> files, int targetLevel, @Nullable K minKey, @Nullable K maxKey
+	) {
+		static <K extends Comparable<K>> Candidate<K> of(double score, List<CrdtFileInfo<K>> files, int targetLevel) {
+			K minKey = null;
+			K maxKey = null;
+			for (CrdtFileInfo<K> file : files) {
+				if (!file.hasKeyRange()) {
+					return new Candidate<>(score, files, targetLevel, null, null);
+				}
+				if (minKey == null || file.minKey().compareTo(minKey) < 0) minKey = file.minKey();
+				if (maxKey == null || file.maxKey().compareTo(maxKey) > 0) maxKey = file.maxKey();
+			}
+			return new Candidate<>(score, files, targetLevel, minKey, maxKey);
+		}
+
+		boolean overlaps(Candidate<K> other) {
+			if (minKey == null || maxKey == null || other.minKey == null || other.maxKey == null) return true;
+			return minKey.compareTo(other.maxKey) <= 0 && maxKey.compareTo(other.minKey) >= 0;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.crdt.storage.local.compaction;
+
+import io.activej.common.MemSize;
+import io.activej.common.builder.AbstractBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.activej.common.Checks.checkArgument;
+import static java.util.Comparator.comparingLong;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * A size-tiered compaction strategy.
+ * <p>
+ * Files of similar sizes are grouped into buckets, and a bucket is merged into a single file
+ * once it has at least {@code minThreshold} files. Files smaller than {@code minFileSize}
+ * are all considered to be of similar size.
+ * <p>
+ * Buckets with a high ratio of tombstones are merged first, then buckets with more files.
+ * Size-tiered compaction has low write amplification, but files of different buckets overlap by keys,
+ * so a read may have to visit each bucket.
+ */
+public final class SizeTieredCompactionStrategy<K extends Comparable<K>> implements CrdtCompactionStrategy<K> {
+	public static final int DEFAULT_MIN_THRESHOLD = 4;
+	public static final int DEFAULT_MAX_THRESHOLD = 32;
+	public static final double DEFAULT_BUCKET_LOW = 0.5;
+	public static final double DEFAULT_BUCKET_HIGH = 1.5;
+	public static final MemSize DEFAULT_MIN_FILE_SIZE = MemSize.kilobytes(64);
+	public static final double DEFAULT_TOMBSTONE_THRESHOLD = 0.2;
+
+	private int minThreshold = DEFAULT_MIN_THRESHOLD;
+	private int maxThreshold = DEFAULT_MAX_THRESHOLD;
+	private double bucketLow = DEFAULT_BUCKET_LOW;
+	private double bucketHigh = DEFAULT_BUCKET_HIGH;
+	private long minFileSize = DEFAULT_MIN_FILE_SIZE.toLong();
+	private double tombstoneThreshold = DEFAULT_TOMBSTONE_THRESHOLD;
+
+	private SizeTieredCompactionStrategy() {
+	}
+
+	public static <K extends Comparable<K>> SizeTieredCompactionStrategy<K> create() {
+		return SizeTieredCompactionStrategy.<K>builder().build();
+	}
+
+	public static <K extends Comparable<K>> SizeTieredCompactionStrategy<K>.Builder builder() {
+		return new SizeTieredCompactionStrategy<K>().new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, SizeTieredCompactionStrategy<K>> {
+		private Builder() {}
+
+		public Builder withThresholds(int minThreshold, int maxThreshold) {
+			checkNotBuilt(this);
+			checkArgument(minThreshold >= 2 && maxThreshold >= minThreshold, "Invalid thresholds");
+			SizeTieredCompactionStrategy.this.minThreshold = minThreshold;
+			SizeTieredCompactionStrategy.this.maxThreshold = maxThreshold;
+			return this;
+		}
+
+		public Builder withBucketBounds(double bucketLow, double bucketHigh) {
+			checkNotBuilt(this);
+			checkArgument(bucketLow > 0 && bucketLow <= 1 && bucketHigh >= 1, "Invalid bucket bounds");
+			SizeTieredCompactionStrategy.this.bucketLow = bucketLow;
+			SizeTieredCompactionStrategy.this.bucketHigh = bucketHigh;
+			return this;
+		}
+
+		public Builder withMinFileSize(MemSize minFileSize) {
+			checkNotBuilt(this);
+			SizeTieredCompactionStrategy.this.minFileSize = minFileSize.toLong();
+			return this;
+		}
+
+		public Builder withTombstoneThreshold(double tombstoneThreshold) {
+			checkNotBuilt(this);
+			checkArgument(tombstoneThreshold >= 0 && tombstoneThreshold <= 1, "Tombstone threshold must be in [0, 1]");
+			SizeTieredCompactionStrategy.this.tombstoneThreshold = tombstoneThreshold;
+			return this;
+		}
+
+		@Override
+		protected SizeTieredCompactionStrategy<K> doBuild() {
+			return SizeTieredCompactionStrategy.this;
+		}
+	}
+
+	@Override
+	public List<CrdtCompactionTask> pickTasks(List<CrdtFileInfo<K>> files) {
+		List<CrdtFileInfo<K>> sorted = files.stream()
+			.filter(file -> !file.busy())
+			.sorted(comparingLong(CrdtFileInfo::size))
+			.toList();
+
+		List<List<CrdtFileInfo<K>>> buckets = new ArrayList<>();
+		List<CrdtFileInfo<K>> bucket = new ArrayList<>();
+		long bucketSize = 0;
+		for (CrdtFileInfo<K> file : sorted) {
+			if (!bucket.isEmpty()) {
+				double average = (double) bucketSize / bucket.size();
+				boolean small = file.size() < minFileSize && average < minFileSize;
+				if (!small && (file.size() < average * bucketLow || file.size() > average * bucketHigh)) {
+					buckets.add(bucket);
+					bucket = new ArrayList<>();
+					bucketSize = 0;
+				}
+			}
+			bucket.add(file);
+			bucketSize += file.size();
+		}
+		if (!bucket.isEmpty()) {
+			buckets.add(bucket);
+		}
+
+		return buckets.stream()
+			.filter(b -> b.size() >= minThreshold)
+			.map(b -> b.subList(0, Math.min(b.size(), maxThreshold)))
+			.sorted(this::compareBuckets)
+			.map(b -> CrdtCompactionTask.of(b.stream().map(CrdtFileInfo::name).collect(toSet())))
+			.toList();
+	}
+
+	private int compareBuckets(List<CrdtFileInfo<K>> first, List<CrdtFileInfo<K>> second) {
+		double firstRatio = tombstoneRatio(first);
+		double secondRatio = tombstoneRatio(second);
+		boolean firstAbove = firstRatio > tombstoneThreshold;
+		boolean secondAbove = secondRatio > tombstoneThreshold;
+		if (firstAbove != secondAbove) return firstAbove ? -1 : 1;
+		if (firstAbove) return Double.compare(secondRatio, firstRatio);
+		return Integer.compare(second.size(), first.size());
+	}
+
+	private static double tombstoneRatio(List<? extends CrdtFileInfo<?>> files) {
+		long records = 0;
+		long tombstones = 0;
+		for (CrdtFileInfo<?> file : files) {
+			records += file.recordCount();
+			tombstones += file.tombstoneCount();
+		}
+		return records == 0 ? 0 : (double) tombstones / records;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.crdt.storage.local.memtable;
+
+import io.activej.crdt.CrdtData;
+import io.activej.crdt.CrdtTombstone;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+
+/**
+ * A sorted in-memory table of {@link io.activej.crdt.storage.local.MapCrdtStorage}.
+ * <p>
+ * Each key holds either CRDT data or a tombstone, never both.
+ * Iteration order is the order of keys.
+ */
+public interface CrdtMemtable<K extends Comparable<K>, S> extends Iterable<CrdtData<K, S>> {
+	@Nullable CrdtData<K, S> get(K key);
+
+	@Nullable CrdtTombstone<K> getTombstone(K key);
+
+	/**
+	 * Puts given data, replacing any data or tombstone stored at the same key
+	 */
+	void put(CrdtData<K, S> data);
+
+	/**
+	 * Puts given tombstone, replacing any data or tombstone stored at the same key
+	 */
+	void putTombstone(CrdtTombstone<K> tombstone);
+
+	void remove(K key);
+
+	/**
+	 * Returns an iterator over stored data in key order
+	 */
+	@Override
+	Iterator<CrdtData<K, S>> iterator();
+
+	/**
+	 * Returns an iterator over stored tombstones in key order
+	 */
+	Iterator<CrdtTombstone<K>> tombstoneIterator();
+
+	/**
+	 * Returns the number of stored data entries and tombstones
+	 */
+	int size();
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.crdt.storage.local.memtable;
+
+import io.activej.crdt.CrdtData;
+import io.activej.crdt.CrdtTombstone;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A memtable that stores data and tombstones as objects on the heap
+ */
+public final class HeapCrdtMemtable<K extends Comparable<K>, S> implements CrdtMemtable<K, S> {
+	private final NavigableMap<K, CrdtData<K, S>> map = new TreeMap<>();
+	private final NavigableMap<K, CrdtTombstone<K>> tombstones = new TreeMap<>();
+
+	private HeapCrdtMemtable() {
+	}
+
+	public static <K extends Comparable<K>, S> HeapCrdtMemtable<K, S> create() {
+		return new HeapCrdtMemtable<>();
+	}
+
+	@Override
+	public @Nullable CrdtData<K, S> get(K key) {
+		return map.get(key);
+	}
+
+	@Override
+	public @Nullable CrdtTombstone<K> getTombstone(K key) {
+		return tombstones.get(key);
+	}
+
+	@Override
+	public void put(CrdtData<K, S> data) {
+		tombstones.remove(data.getKey());
+		map.put(data.getKey(), data);
+	}
+
+	@Override
+	public void putTombstone(CrdtTombstone<K> tombstone) {
+		map.remove(tombstone.getKey());
+		tombstones.put(tombstone.getKey(), tombstone);
+	}
+
+	@Override
+	public void remove(K key) {
+		map.remove(key);
+		tombstones.remove(key);
+	}
+
+	@Override
+	public Iterator<CrdtData<K, S>> iterator() {
+		return map.values().iterator();
+	}
+
+	@Override
+	public Iterator<CrdtTombstone<K>> tombstoneIterator() {
+		return tombstones.values().iterator();
+	}
+
+	@Override
+	public int size() {
+		return map.size() + tombstones.size();
+	}
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.crdt.storage.local.memtable;
+
+import io.activej.common.ApplicationSettings;
+import io.activej.common.MemSize;
+import io.activej.common.builder.AbstractBuilder;
+import io.activej.crdt.CrdtData;
+import io.activej.crdt.CrdtTombstone;
+import io.activej.serializer.BinarySerializer;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A memtable that stores serialized keys and states in direct (off-heap) memory.
+ * <p>
+ * Entries are kept in a skip list whose nodes are allocated sequentially
+ * in large direct memory chunks, so that the number of heap objects does not depend
+ * on the number of stored keys. Keys are compared by their natural order,
+ * so they are decoded during lookups.
+ * <p>
+ * Nodes that are replaced or removed become garbage. Once garbage takes more than
+ * a half of allocated memory, live nodes are copied into new chunks.
+ * Iterators that were created before such copying keep traversing old chunks.
+ */
+public final class OffHeapCrdtMemtable<K extends Comparable<K>, S> implements CrdtMemtable<K, S> {
+	public static final MemSize DEFAULT_CHUNK_SIZE = ApplicationSettings.getMemSize(OffHeapCrdtMemtable.class, "chunkSize", MemSize.megabytes(4));
+
+	private static final int MAX_LEVEL = 16;
+	private static final long NIL = -1L;
+
+	// node layout
+	private static final int SIZE = 0;
+	private static final int LEVEL = 4;
+	private static final int TIMESTAMP = 8;
+	private static final int KEY_SIZE = 16;
+	private static final int STATE_SIZE = 20;
+	private static final int NEXT = 24;
+
+	private static final int TOMBSTONE = -1;
+
+	private final BinarySerializer<K> keySerializer;
+	private final BinarySerializer<S> stateSerializer;
+
+	private int chunkSize = DEFAULT_CHUNK_SIZE.toInt();
+
+	private List<ByteBuffer> chunks = new ArrayList<>();
+	private long[] head = newLinks();
+	private int level = 1;
+	private int size;
+
+	private long allocatedBytes;
+	private long garbageBytes;
+
+	private final long[] update = new long[MAX_LEVEL];
+	private byte[] keyBytes = new byte[64];
+	private byte[] stateBytes = new byte[256];
+	private byte[] readBuffer = new byte[256];
+
+	private long comparedNode;
+	private int comparedResult;
+
+	private OffHeapCrdtMemtable(BinarySerializer<K> keySerializer, BinarySerializer<S> stateSerializer) {
+		this.keySerializer = keySerializer;
+		this.stateSerializer = stateSerializer;
+	}
+
+	public static <K extends Comparable<K>, S> OffHeapCrdtMemtable<K, S> create(
+		BinarySerializer<K> keySerializer, BinarySerializer<S> stateSerializer
+	) {
+		return builder(keySerializer, stateSerializer).build();
+	}
+
+	public static <K extends Comparable<K>, S> OffHeapCrdtMemtable<K, S>.Builder builder(
+		BinarySerializer<K> keySerializer, BinarySerializer<S> stateSerializer
+	) {
+		return new OffHeapCrdtMemtable<>(keySerializer, stateSerializer).new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, OffHeapCrdtMemtable<K, S>> {
+		private Builder() {}
+
+		public Builder withChunkSize(MemSize chunkSize) {
+			checkNotBuilt(this);
+			checkArgument(chunkSize.toLong() >= 1024 && chunkSize.toLong() <= Integer.MAX_VALUE,
+				"Chunk size should be between 1KB and 2GB");
+			OffHeapCrdtMemtable.this.chunkSize = chunkSize.toInt();
+			return this;
+		}
+
+		@Override
+		protected OffHeapCrdtMemtable<K, S> doBuild() {
+			return OffHeapCrdtMemtable.this;
+		}
+	}
+
+	@Override
+	public @Nullable CrdtData<K, S> get(K key) {
+		long node = find(key);
+		if (node == NIL) return null;
+		ByteBuffer chunk = chunk(chunks, node);
+		int offset = offset(node);
+		if (chunk.getInt(offset + STATE_SIZE) == TOMBSTONE) return null;
+		return new CrdtData<>(key, chunk.getLong(offset + TIMESTAMP), decodeState(chunk, offset));
+	}
+
+	@Override
+	public @Nullable CrdtTombstone<K> getTombstone(K key) {
+		long node = find(key);
+		if (node == NIL) return null;
+		ByteBuffer chunk = chunk(chunks, node);
+		int offset = offset(node);
+		if (chunk.getInt(offset + STATE_SIZE) != TOMBSTONE) return null;
+		return new CrdtTombstone<>(key, chunk.getLong(offset + TIMESTAMP));
+	}
+
+	@Override
+	public void put(CrdtData<K, S> data) {
+		int keySize = encodeKey(data.getKey());
+		int stateSize = encodeState(data.getState());
+		upsert(data.getKey(), keySize, data.getTimestamp(), stateSize);
+	}
+
+	@Override
+	public void putTombstone(CrdtTombstone<K> tombstone) {
+		int keySize = encodeKey(tombstone.getKey());
+		upsert(tombstone.getKey(), keySize, tombstone.getTimestamp(), TOMBSTONE);
+	}
+
+	@Override
+	public void remove(K key) {
+		long node = find(key);
+		if (node == NIL) return;
+
+		int nodeLevel = chunk(chunks, node).getInt(offset(node) + LEVEL);
+		for (int i = 0; i < nodeLevel; i++) {
+			setForward(update[i], i, forward(chunks, node, i));
+		}
+		while (level > 1 && head[level - 1] == NIL) {
+			level--;
+		}
+		size--;
+		release(node);
+	}
+
+	@Override
+	public Iterator<CrdtData<K, S>> iterator() {
+		return new NodeIterator<>(false) {
+			@Override
+			CrdtData<K, S> decode(ByteBuffer chunk, int offset) {
+				return new CrdtData<>(decodeKey(chunk, offset), chunk.getLong(offset + TIMESTAMP), decodeState(chunk, offset));
+			}
+		};
+	}
+
+	@Override
+	public Iterator<CrdtTombstone<K>> tombstoneIterator() {
+		return new NodeIterator<>(true) {
+			@Override
+			CrdtTombstone<K> decode(ByteBuffer chunk, int offset) {
+				return new CrdtTombstone<>(decodeKey(chunk, offset), chunk.getLong(offset + TIMESTAMP));
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	public long getGarbageBytes() {
+		return garbageBytes;
+	}
+
+	private void upsert(K key, int keySize, long timestamp, int stateSize) {
+		int payloadSize = keySize + Math.max(stateSize, 0);
+		long node = find(key);
+		if (node != NIL) {
+			ByteBuffer chunk = chunk(chunks, node);
+			int offset = offset(node);
+			int nodeLevel = chunk.getInt(offset + LEVEL);
+			if (chunk.getInt(offset + SIZE) >= headerSize(nodeLevel) + payloadSize) {
+				write(node, timestamp, keySize, stateSize);
+				return;
+			}
+			long newNode = allocate(nodeLevel, payloadSize);
+			write(newNode, timestamp, keySize, stateSize);
+			for (int i = 0; i < nodeLevel; i++) {
+				setForward(newNode, i, forward(chunks, node, i));
+				setForward(update[i], i, newNode);
+			}
+			release(node);
+			return;
+		}
+
+		int nodeLevel = randomLevel();
+		for (; level < nodeLevel; level++) {
+			update[level] = NIL;
+		}
+		long newNode = allocate(nodeLevel, payloadSize);
+		write(newNode, timestamp, keySize, stateSize);
+		for (int i = 0; i < nodeLevel; i++) {
+			setForward(newNode, i, forward(chunks, update[i], i));
+			setForward(update[i], i, newNode);
+		}
+		size++;
+	}
+
+	/**
+	 * Searches for a node with a given key, filling {@link #update} with predecessors on each level
+	 */
+	private long find(K key) {
+		comparedNode = NIL;
+		long node = NIL;
+		for (int i = level - 1; i >= 0; i--) {
+			long next = forward(chunks, node, i);
+			while (next != NIL && compare(next, key) < 0) {
+				node = next;
+				next = forward(chunks, node, i);
+			}
+			update[i] = node;
+		}
+		long candidate = forward(chunks, node, 0);
+		return candidate != NIL && compare(candidate, key) == 0 ? candidate : NIL;
+	}
+
+	private int compare(long node, K key) {
+		if (node != comparedNode) {
+			comparedNode = node;
+			ByteBuffer chunk = chunk(chunks, node);
+			comparedResult = decodeKey(chunk, offset(node)).compareTo(key);
+		}
+		return comparedResult;
+	}
+
+	private void write(long node, long timestamp, int keySize, int stateSize) {
+		ByteBuffer chunk = chunk(chunks, node);
+		int offset = offset(node);
+		int dataOffset = offset + headerSize(chunk.getInt(offset + LEVEL));
+		chunk.putLong(offset + TIMESTAMP, timestamp);
+		chunk.putInt(offset + KEY_SIZE, keySize);
+		chunk.putInt(offset + STATE_SIZE, stateSize);
+		chunk.put(dataOffset, keyBytes, 0, keySize);
+		if (stateSize != TOMBSTONE) {
+			chunk.put(dataOffset + keySize, stateBytes, 0, stateSize);
+		}
+	}
+
+	private long allocate(int nodeLevel, int payloadSize) {
+		int nodeSize = headerSize(nodeLevel) + payloadSize;
+		ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+		if (chunk == null || chunk.remaining() < nodeSize) {
+			chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, nodeSize));
+			chunks.add(chunk);
+			allocatedBytes += chunk.capacity();
+		}
+		int offset = chunk.position();
+		chunk.position(offset + nodeSize);
+		chunk.putInt(offset + SIZE, nodeSize);
+		chunk.putInt(offset + LEVEL, nodeLevel);
+		return address(chunks.size() - 1, offset);
+	}
+
+	private void release(long node) {
+		garbageBytes += chunk(chunks, node).getInt(offset(node) + SIZE);
+		if (garbageBytes > chunkSize && garbageBytes > allocatedBytes / 2) {
+			compact();
+		}
+	}
+
+	private void compact() {
+		List<ByteBuffer> oldChunks = chunks;
+		long oldFirst = head[0];
+
+		chunks = new ArrayList<>();
+		head = newLinks();
+		allocatedBytes = 0;
+		garbageBytes = 0;
+		comparedNode = NIL;
+
+		long[] tails = newLinks();
+		for (long node = oldFirst; node != NIL; node = forward(oldChunks, node, 0)) {
+			ByteBuffer oldChunk = chunk(oldChunks, node);
+			int oldOffset = offset(node);
+			int nodeLevel = oldChunk.getInt(oldOffset + LEVEL);
+			int payloadSize = oldChunk.getInt(oldOffset + KEY_SIZE) + Math.max(oldChunk.getInt(oldOffset + STATE_SIZE), 0);
+
+			long newNode = allocate(nodeLevel, payloadSize);
+			ByteBuffer chunk = chunk(chunks, newNode);
+			int offset = offset(newNode);
+			chunk.put(offset + TIMESTAMP, oldChunk, oldOffset + TIMESTAMP, NEXT - TIMESTAMP);
+			chunk.put(offset + headerSize(nodeLevel), oldChunk, oldOffset + headerSize(nodeLevel), payloadSize);
+			for (int i = 0; i < nodeLevel; i++) {
+				setForward(newNode, i, NIL);
+				setForward(tails[i], i, newNode);
+				tails[i] = newNode;
+			}
+		}
+	}
+
+	private long forward(List<ByteBuffer> chunks, long node, int level) {
+		if (node == NIL) return head[level];
+		return chunk(chunks, node).getLong(offset(node) + NEXT + level * 8);
+	}
+
+	private void setForward(long node, int level, long next) {
+		if (node == NIL) {
+			head[level] = next;
+		} else {
+			chunk(chunks, node).putLong(offset(node) + NEXT + level * 8, next);
+		}
+	}
+
+	private K decodeKey(ByteBuffer chunk, int offset) {
+		int keySize = chunk.getInt(offset + KEY_SIZE);
+		byte[] bytes = read(chunk, offset + headerSize(chunk.getInt(offset + LEVEL)), keySize);
+		return keySerializer.decode(bytes, 0);
+	}
+
+	private S decodeState(ByteBuffer chunk, int offset) {
+		int keySize = chunk.getInt(offset + KEY_SIZE);
+		int stateSize = chunk.getInt(offset + STATE_SIZE);
+		byte[] bytes = read(chunk, offset + headerSize(chunk.getInt(offset + LEVEL)) + keySize, stateSize);
+		return stateSerializer.decode(bytes, 0);
+	}
+
+	private byte[] read(ByteBuffer chunk, int offset, int size) {
+		if (readBuffer.length < size) {
+			readBuffer = new byte[Math.max(size, readBuffer.length * 2)];
+		}
+		chunk.get(offset, readBuffer, 0, size);
+		return readBuffer;
+	}
+
+	private int encodeKey(K key) {
+		while (true) {
+			try {
+				return keySerializer.encode(keyBytes, 0, key);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				keyBytes = new byte[keyBytes.length * 2];
+			}
+		}
+	}
+
+	private int encodeState(S state) {
+		while (true) {
+			try {
+				return stateSerializer.encode(stateBytes, 0, state);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				stateBytes = new byte[stateBytes.length * 2];
+			}
+		}
+	}
+
+	private static int randomLevel() {
+		int bits = ThreadLocalRandom.current().nextInt();
+		int level = 1 + Integer.numberOfTrailingZeros(bits) / 2;
+		return Math.min(level, MAX_LEVEL);
+	}
+
+	private static int headerSize(int level) {
+		return NEXT + level * 8;
+	}
+
+	private static long[] newLinks() {
+		long[] links = new long[MAX_LEVEL];
+		Arrays.fill(links, NIL);
+		return links;
+	}
+
+	private static long address(int chunkIndex, int offset) {
+		return (long) chunkIndex << 32 | offset;
+	}
+
+	private static ByteBuffer chunk(List<ByteBuffer> chunks, long address) {
+		return chunks.get((int) (address >>> 32));
+	}
+
+	private static int offset(long address) {
+		return (int) address;
+	}
+
+	private abstract class NodeIterator<T> implements Iterator<T> {
+		private final List<ByteBuffer> chunks = OffHeapCrdtMemtable.this.chunks;
+		private final boolean tombstones;
+		private long node;
+
+		NodeIterator(boolean tombstones) {
+			this.tombstones = tombstones;
+			this.node = skip(head[0]);
+		}
+
+		abstract T decode(ByteBuffer chunk, int offset);
+
+		@Override
+		public boolean hasNext() {
+			return node != NIL;
+		}
+
+		@Override
+		public T next() {
+			if (node == NIL) throw new NoSuchElementException();
+			ByteBuffer chunk = chunk(chunks, node);
+			int offset = offset(node);
+			T result = decode(chunk, offset);
+			node = skip(forward(chunks, node, 0));
+			return result;
+		}
+
+		private long skip(long node) {
+			while (node != NIL && (chunk(chunks, node).getInt(offset(node) + STATE_SIZE) == TOMBSTONE) != tombstones) {
+				node = forward(chunks, node, 0);
+			}
+			return node;
+		}
+	}
+}
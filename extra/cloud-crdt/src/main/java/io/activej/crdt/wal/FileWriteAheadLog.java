@@ -20,6 +20,7 @@ import io.activej.async.function.AsyncRunnable;
 import io.activej.async.function.AsyncRunnables;
 import io.activej.async.service.ReactiveService;
 import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
 import io.activej.common.ApplicationSettings;
 import io.activej.common.Checks;
 import io.activej.common.builder.AbstractBuilder;
@@ -29,6 +30,7 @@ import io.activej.crdt.util.CrdtDataBinarySerializer;
 import io.activej.csp.consumer.ChannelConsumer;
 import io.activej.csp.consumer.ChannelConsumers;
 import io.activej.csp.file.ChannelFileWriter;
+import io.activej.csp.process.frame.BlockEncoder;
 import io.activej.csp.process.frame.ChannelFrameEncoder;
 import io.activej.csp.process.frame.FrameFormat;
 import io.activej.csp.process.frame.FrameFormats;
@@ -46,15 +48,18 @@ import io.activej.promise.jmx.PromiseStats;
 import io.activej.reactor.AbstractReactive;
 import io.activej.reactor.Reactor;
 import io.activej.reactor.jmx.ReactiveJmxBeanWithStats;
+import io.activej.reactor.schedule.ScheduledRunnable;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -67,8 +72,10 @@ import static io.activej.common.Checks.checkArgument;
 import static io.activej.crdt.util.Utils.deleteWalFiles;
 import static io.activej.crdt.util.Utils.getWalFiles;
 import static io.activej.crdt.wal.FileWriteAheadLog.FlushMode.*;
+import static io.activej.jmx.stats.JmxHistogram.POWERS_OF_TWO;
 import static io.activej.reactor.Reactive.checkInReactorThread;
 import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.*;
 import static java.util.stream.Collectors.toList;
 
 public final class FileWriteAheadLog<K extends Comparable<K>, S> extends AbstractReactive
@@ -81,6 +88,8 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 	public static final String EXT_CURRENT = ".current";
 	public static final FrameFormat FRAME_FORMAT = FrameFormats.lz4();
 
+	private static final int MAX_HEADER_SIZE = 5;
+
 	private static final Duration SMOOTHING_WINDOW = ApplicationSettings.getDuration(FileWriteAheadLog.class, "smoothingWindow", Duration.ofMinutes(5));
 
 	private final Executor executor;
@@ -99,6 +108,17 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 
 	private CurrentTimeProvider now = CurrentTimeProvider.ofSystem();
 
+	private @Nullable Duration groupCommitWindow;
+	private int groupCommitMaxBatchSize;
+
+	private List<CrdtData<K, S>> batch = new ArrayList<>();
+	private @Nullable SettablePromise<Void> batchPromise;
+	private long batchStartNanos;
+	private @Nullable ScheduledRunnable batchSchedule;
+	private boolean commitRequested;
+	private boolean committing;
+	private Promise<Void> lastCommit = Promise.complete();
+
 	// region JMX
 	private final PromiseStats putPromise = PromiseStats.create(SMOOTHING_WINDOW);
 	private final PromiseStats flushPromise = PromiseStats.create(SMOOTHING_WINDOW);
@@ -107,6 +127,13 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 	private final ValueStats totalFlushedSize = ValueStats.builder(SMOOTHING_WINDOW)
 		.withUnit("bytes")
 		.build();
+	private final ValueStats groupCommitLatency = ValueStats.builder(SMOOTHING_WINDOW)
+		.withUnit("microseconds")
+		.withHistogram(POWERS_OF_TWO)
+		.build();
+	private final ValueStats groupCommitBatchSize = ValueStats.builder(SMOOTHING_WINDOW)
+		.withHistogram(POWERS_OF_TWO)
+		.build();
 	private boolean detailedMonitoring;
 	// endregion
 
@@ -158,6 +185,23 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 			return this;
 		}
 
+		/**
+		 * Enables group commit mode.
+		 * <p>
+		 * Puts are accumulated in memory for at most {@code window} (or until {@code maxBatchSize}
+		 * puts are collected) and then written to the current WAL file as a single frame,
+		 * which is forced to the disk before all the put promises of a batch are completed.
+		 * At most one commit is in progress at any moment.
+		 */
+		public Builder withGroupCommit(Duration window, int maxBatchSize) {
+			checkNotBuilt(this);
+			checkArgument(!window.isNegative(), "Group commit window cannot be negative");
+			checkArgument(maxBatchSize > 0, "Max batch size must be positive");
+			FileWriteAheadLog.this.groupCommitWindow = window;
+			FileWriteAheadLog.this.groupCommitMaxBatchSize = maxBatchSize;
+			return this;
+		}
+
 		@Override
 		protected FileWriteAheadLog<K, S> doBuild() {
 			return FileWriteAheadLog.this;
@@ -175,8 +219,12 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 		totalPuts.recordEvent();
 
 		flushRequired = true;
-		return consumer.accept(new CrdtData<>(key, now.currentTimeMillis(), value))
-			.whenComplete(putPromise.recordStats());
+		CrdtData<K, S> data = new CrdtData<>(key, now.currentTimeMillis(), value);
+		Promise<Void> putPromise = groupCommitWindow == null ?
+			consumer.accept(data) :
+			addToBatch(data);
+		return putPromise
+			.whenComplete(this.putPromise.recordStats());
 	}
 
 	@Override
@@ -208,7 +256,74 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 		return stopping ? null : new WalConsumer(path.resolve(UUID.randomUUID() + EXT_CURRENT));
 	}
 
+	private Promise<Void> addToBatch(CrdtData<K, S> data) {
+		assert groupCommitWindow != null;
+		if (batchPromise == null) {
+			batchPromise = new SettablePromise<>();
+			batchStartNanos = System.nanoTime();
+			batchSchedule = reactor.delay(groupCommitWindow, () -> {
+				batchSchedule = null;
+				requestCommit();
+			});
+		}
+		SettablePromise<Void> batchPromise = this.batchPromise;
+		batch.add(data);
+		if (batch.size() >= groupCommitMaxBatchSize) {
+			requestCommit();
+		}
+		return batchPromise;
+	}
+
+	private void requestCommit() {
+		commitRequested = true;
+		if (committing || batchPromise == null) return;
+		commitRequested = false;
+		committing = true;
+
+		if (batchSchedule != null) {
+			batchSchedule.cancel();
+			batchSchedule = null;
+		}
+		List<CrdtData<K, S>> batch = this.batch;
+		SettablePromise<Void> batchPromise = this.batchPromise;
+		long batchStartNanos = this.batchStartNanos;
+		this.batch = new ArrayList<>();
+		this.batchPromise = null;
+
+		WalConsumer consumer = this.consumer;
+		lastCommit = batchPromise;
+		consumer.acceptAll(batch)
+			.then(consumer::force)
+			.whenResult(() -> {
+				groupCommitBatchSize.recordValue(batch.size());
+				groupCommitLatency.recordValue((System.nanoTime() - batchStartNanos) / 1_000);
+			})
+			.whenComplete(toLogger(logger, TRACE, "commit", batch.size(), this))
+			.whenComplete(batchPromise::set)
+			.whenComplete(() -> {
+				committing = false;
+				if (commitRequested) requestCommit();
+			});
+	}
+
+	private Promise<Void> commitPending() {
+		if (batchPromise != null) {
+			Promise<Void> pending = batchPromise;
+			requestCommit();
+			return pending.toTry().toVoid();
+		}
+		return lastCommit.toTry().toVoid();
+	}
+
 	private Promise<Void> doFlush() {
+		if (groupCommitWindow != null) {
+			return commitPending()
+				.then(this::rotate);
+		}
+		return rotate();
+	}
+
+	private Promise<Void> rotate() {
 		if (!flushRequired) {
 			logger.trace("Nothing to flush");
 			return Promise.complete();
@@ -311,12 +426,23 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 			}
 		};
 		private final Path walFile;
+		private final Promise<FileChannel> channel;
+		private final ChannelConsumer<ByteBuf> writer;
+		private final BlockEncoder encoder = FRAME_FORMAT.createEncoder();
 
 		private SettablePromise<Void> writeCallback;
 
 		public WalConsumer(Path walFile) {
 			this.walFile = walFile;
-			ChannelConsumer<ByteBuf> writer = ChannelConsumers.ofPromise(ChannelFileWriter.open(executor, walFile));
+			this.channel = Promise.ofBlocking(executor, () -> FileChannel.open(walFile, WRITE, CREATE_NEW, APPEND));
+			this.writer = ChannelConsumers.ofPromise(channel
+				.map(channel -> {
+					ChannelFileWriter.Builder builder = ChannelFileWriter.builder(reactor, executor, channel);
+					if (groupCommitWindow != null) builder.withForceOnClose(false);
+					return builder.build();
+				}));
+			if (groupCommitWindow != null) return;
+
 			internalSupplier.streamTo(StreamConsumers.ofSupplier(supplier -> supplier
 				.transformWith(ChannelSerializer.builder(serializer)
 					.withAutoFlushInterval(Duration.ZERO)
@@ -345,7 +471,44 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 			return writeCallback;
 		}
 
+		/**
+		 * Writes all the given items as a single frame, used by group commit mode
+		 */
+		public Promise<Void> acceptAll(List<CrdtData<K, S>> items) {
+			ByteBuf buf = ByteBufPool.allocate(items.size() * 32);
+			for (CrdtData<K, S> item : items) {
+				while (true) {
+					int pos = buf.tail() + MAX_HEADER_SIZE;
+					int size;
+					try {
+						size = serializer.encode(buf.array(), pos, item) - pos;
+					} catch (ArrayIndexOutOfBoundsException e) {
+						buf = ByteBufPool.ensureWriteRemaining(buf, buf.writeRemaining() * 2 + MAX_HEADER_SIZE);
+						continue;
+					}
+					buf.writeVarInt(size);
+					System.arraycopy(buf.array(), pos, buf.array(), buf.tail(), size);
+					buf.moveTail(size);
+					break;
+				}
+			}
+			ByteBuf encoded = encoder.encode(buf);
+			buf.recycle();
+			return writer.accept(encoded);
+		}
+
+		/**
+		 * Forces all the data written so far to the disk.
+		 * Fails if the file has already been closed, as the data may have not been synced
+		 */
+		public Promise<Void> force() {
+			return channel.then(channel -> Promise.ofBlocking(executor, () -> channel.force(false)));
+		}
+
 		public Promise<Void> finish() {
+			if (groupCommitWindow != null) {
+				return writer.acceptAll(encoder.encodeEndOfStreamBlock(), null);
+			}
 			internalSupplier.sendEndOfStream();
 			return internalSupplier.getAcknowledgement();
 		}
@@ -383,6 +546,16 @@ public final class FileWriteAheadLog<K extends Comparable<K>, S> extends Abstrac
 		return totalFlushedSize;
 	}
 
+	@JmxAttribute
+	public ValueStats getGroupCommitLatency() {
+		return groupCommitLatency;
+	}
+
+	@JmxAttribute
+	public ValueStats getGroupCommitBatchSize() {
+		return groupCommitBatchSize;
+	}
+
 	@JmxAttribute
 	public boolean isDetailedMonitoring() {
 		return detailedMonitoring;
@@ -9,6 +9,7 @@ import io.activej.crdt.storage.cluster.RendezvousPartitionGroup;
 import io.activej.crdt.storage.cluster.RendezvousPartitionScheme;
 import io.activej.crdt.storage.local.FileSystemCrdtStorage;
 import io.activej.crdt.storage.local.MapCrdtStorage;
+import io.activej.crdt.storage.local.memtable.OffHeapCrdtMemtable;
 import io.activej.crdt.util.CrdtDataBinarySerializer;
 import io.activej.datastream.consumer.StreamConsumers;
 import io.activej.datastream.supplier.StreamSupplier;
@@ -94,6 +95,13 @@ public class CrdtStorageAPITest {
 				(CrdtClientFactory) (executor, testFolder) ->
 					MapCrdtStorage.create(getCurrentReactor(), CRDT_FUNCTION)
 			},
+			new Object[]{
+				"CrdtStorage_MapOffHeap",
+				(CrdtClientFactory) (executor, testFolder) ->
+					MapCrdtStorage.<String, Integer>builder(getCurrentReactor(), CRDT_FUNCTION)
+						.withMemtableFactory(() -> OffHeapCrdtMemtable.create(UTF8_SERIALIZER, INT_SERIALIZER))
+						.build()
+			},
 			new Object[]{
 				"CrdtStorage_Cluster",
 				(CrdtClientFactory) (executor, testFolder) -> {
@@ -1,13 +1,18 @@
 package io.activej.crdt.storage.local;
 
+import io.activej.common.MemSize;
 import io.activej.crdt.CrdtData;
 import io.activej.crdt.CrdtTombstone;
 import io.activej.crdt.function.CrdtFunction;
+import io.activej.crdt.storage.local.compaction.CrdtCompactionTask;
+import io.activej.crdt.storage.local.compaction.LeveledCompactionStrategy;
 import io.activej.crdt.util.CrdtDataBinarySerializer;
+import io.activej.datastream.csp.ChannelSerializer;
 import io.activej.datastream.supplier.StreamSupplier;
 import io.activej.datastream.supplier.StreamSuppliers;
 import io.activej.fs.FileMetadata;
 import io.activej.fs.FileSystem;
+import io.activej.promise.Promises;
 import io.activej.reactor.Reactor;
 import io.activej.test.rules.ByteBufRule;
 import io.activej.test.rules.EventloopRule;
@@ -18,11 +23,13 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static io.activej.common.collection.CollectionUtils.first;
@@ -174,6 +181,191 @@ public final class FileSystemCrdtStorageTest {
 		assertEquals(expected, downloadedAfter);
 	}
 
+	@Test
+	public void testGet() {
+		FileSystemCrdtStorage<String, Set<Integer>> client = createIndexedClient();
+
+		await(StreamSuppliers.ofStream(IntStream.range(0, 1000)
+				.mapToObj(i -> new CrdtData<>(key(i), 100, Set.of(i))))
+			.streamTo(client.upload()));
+		await(StreamSuppliers.ofStream(IntStream.range(500, 1500)
+				.mapToObj(i -> new CrdtData<>(key(i), 200, Set.of(-i))))
+			.streamTo(client.upload()));
+
+		assertEquals(new CrdtData<>(key(10), 100, Set.of(10)), await(client.get(key(10))));
+		assertEquals(new CrdtData<>(key(700), 200, Set.of(700, -700)), await(client.get(key(700))));
+		assertEquals(new CrdtData<>(key(1499), 200, Set.of(-1499)), await(client.get(key(1499))));
+		assertNull(await(client.get(key(1500))));
+		assertNull(await(client.get("a")));
+
+		await(StreamSuppliers.ofValues(new CrdtTombstone<>(key(10), 150)).streamTo(client.remove()));
+		assertNull(await(client.get(key(10))));
+	}
+
+	@Test
+	public void testDownloadRange() {
+		FileSystemCrdtStorage<String, Set<Integer>> client = createIndexedClient();
+
+		await(StreamSuppliers.ofStream(IntStream.range(0, 1000)
+				.mapToObj(i -> new CrdtData<>(key(i), 100, Set.of(i))))
+			.streamTo(client.upload()));
+		await(StreamSuppliers.ofStream(IntStream.range(2000, 3000)
+				.mapToObj(i -> new CrdtData<>(key(i), 100, Set.of(i))))
+			.streamTo(client.upload()));
+
+		List<CrdtData<String, Set<Integer>>> expected = IntStream.range(250, 751)
+			.mapToObj(i -> new CrdtData<>(key(i), 100, Set.of(i)))
+			.toList();
+		assertEquals(expected, await(client.download(key(250), key(750)).then(StreamSupplier::toList)));
+		assertEquals(1, client.getSkippedFiles().getTotalCount());
+
+		assertTrue(await(client.download(key(1000), key(1999)).then(StreamSupplier::toList)).isEmpty());
+		assertEquals(List.of(new CrdtData<>(key(2999), 100, Set.of(2999))),
+			await(client.download(key(2999), key(9999)).then(StreamSupplier::toList)));
+	}
+
+	@Test
+	public void testDownloadSkipsOlderFiles() {
+		await(StreamSuppliers.ofValues(
+			new CrdtData<>("a", 100, Set.of(1)),
+			new CrdtData<>("b", 200, Set.of(2))
+		).streamTo(client.upload()));
+		await(StreamSuppliers.ofValues(
+			new CrdtData<>("b", 300, Set.of(3)),
+			new CrdtData<>("c", 400, Set.of(4))
+		).streamTo(client.upload()));
+
+		List<CrdtData<String, Set<Integer>>> expected = List.of(
+			new CrdtData<>("b", 300, Set.of(3)),
+			new CrdtData<>("c", 400, Set.of(4))
+		);
+		assertEquals(expected, await(client.download(250).then(StreamSupplier::toList)));
+		assertEquals(1, client.getSkippedFiles().getTotalCount());
+
+		assertEquals(List.of(new CrdtData<>("c", 400, Set.of(4))), await(client.download(350).then(StreamSupplier::toList)));
+	}
+
+	@Test
+	public void testFilesWithoutFooter() {
+		await(StreamSuppliers.ofValues(
+				new FileSystemCrdtStorage.CrdtReducingData<>("a", Set.of(1), 100),
+				new FileSystemCrdtStorage.CrdtReducingData<>("b", Set.of(2), 200))
+			.transformWith(ChannelSerializer.create(FileSystemCrdtStorage.createSerializer(SERIALIZER)))
+			.streamTo(fileSystem.upload("legacy" + FileSystemCrdtStorage.FILE_EXTENSION)));
+		await(StreamSuppliers.ofValues(new CrdtData<>("b", 300, Set.of(3))).streamTo(client.upload()));
+
+		List<CrdtData<String, Set<Integer>>> expected = List.of(
+			new CrdtData<>("a", 100, Set.of(1)),
+			new CrdtData<>("b", 300, Set.of(2, 3))
+		);
+		assertEquals(expected, await(client.download().then(StreamSupplier::toList)));
+		assertEquals(new CrdtData<>("a", 100, Set.of(1)), await(client.get("a")));
+		assertEquals(expected, await(client.download("a", "b").then(StreamSupplier::toList)));
+	}
+
+	@Test
+	public void testLeveledCompaction() {
+		FileSystemCrdtStorage<String, Set<Integer>> client = FileSystemCrdtStorage.builder(getCurrentReactor(), fileSystem, SERIALIZER, CRDT_FUNCTION)
+			.withIndexBlockSize(MemSize.bytes(256))
+			.withCompactionStrategy(LeveledCompactionStrategy.<String>builder()
+				.withLevel0Threshold(3)
+				.withTargetFileSize(MemSize.kilobytes(2))
+				.build())
+			.build();
+		await(client.start());
+
+		for (int i = 0; i < 3; i++) {
+			int offset = i * 100;
+			await(StreamSuppliers.ofStream(IntStream.range(offset, offset + 500)
+					.mapToObj(j -> new CrdtData<>(key(j), 100, Set.of(j))))
+				.streamTo(client.upload()));
+		}
+		List<CrdtData<String, Set<Integer>>> expected = await(client.download().then(StreamSupplier::toList));
+		assertEquals(700, expected.size());
+
+		await(client.consolidate());
+
+		Map<String, FileMetadata> files = await(fileSystem.list("**"));
+		assertTrue(files.size() > 1);
+		assertEquals(expected, await(client.download().then(StreamSupplier::toList)));
+		assertEquals(new CrdtData<>(key(350), 100, Set.of(350)), await(client.get(key(350))));
+		assertTrue(client.getCompactionWrittenBytes() > 0);
+		assertTrue(client.getWriteAmplification() > 1);
+
+		// level 1 is not overlapping, so the next round has nothing to do
+		await(client.consolidate());
+		assertEquals(files.keySet(), await(fileSystem.list("**")).keySet());
+	}
+
+	@Test
+	public void testCompactionTasksOfSameLevelRunOneAtATime() {
+		FileSystemCrdtStorage<String, Set<Integer>> client = FileSystemCrdtStorage.builder(getCurrentReactor(), fileSystem, SERIALIZER, CRDT_FUNCTION)
+			.withCompactionStrategy(files -> Stream.concat(
+					Stream.of(new CrdtCompactionTask(Set.of(), 1, 0)),
+					files.stream().map(file -> new CrdtCompactionTask(Set.of(file.name()), 1, 0)))
+				.toList())
+			.withMaxConcurrentCompactions(2)
+			.build();
+		await(client.start());
+
+		await(StreamSuppliers.ofValues(new CrdtData<>("a", 100, Set.of(1))).streamTo(client.upload()));
+		await(StreamSuppliers.ofValues(new CrdtData<>("b", 100, Set.of(2))).streamTo(client.upload()));
+
+		await(client.consolidate());
+
+		assertEquals(1, client.getCompactionBacklog());
+		assertEquals(2, await(fileSystem.list("**")).size());
+		assertEquals(List.of(
+				new CrdtData<>("a", 100, Set.of(1)),
+				new CrdtData<>("b", 100, Set.of(2))),
+			await(client.download().then(StreamSupplier::toList)));
+	}
+
+	@Test
+	public void testTombstonePurge() {
+		FileSystemCrdtStorage<String, Set<Integer>> client = FileSystemCrdtStorage.builder(getCurrentReactor(), fileSystem, SERIALIZER, CRDT_FUNCTION)
+			.withTombstoneGracePeriod(Duration.ZERO)
+			.build();
+		await(client.start());
+
+		await(StreamSuppliers.ofValues(
+			new CrdtData<>("a", 100, Set.of(1)),
+			new CrdtData<>("b", 100, Set.of(2))
+		).streamTo(client.upload()));
+		await(StreamSuppliers.ofValues(new CrdtTombstone<>("a", 200)).streamTo(client.remove()));
+
+		await(client.consolidate());
+		assertEquals(1, await(fileSystem.list("**")).size());
+		assertEquals(List.of(new CrdtData<>("b", 100, Set.of(2))), await(client.download().then(StreamSupplier::toList)));
+
+		// tombstone has been dropped, so older data is no longer shadowed
+		await(StreamSuppliers.ofValues(new CrdtData<>("a", 50, Set.of(3))).streamTo(client.upload()));
+		assertEquals(new CrdtData<>("a", 50, Set.of(3)), await(client.get("a")));
+	}
+
+	@Test
+	public void testBackgroundCompaction() {
+		FileSystemCrdtStorage<String, Set<Integer>> client = FileSystemCrdtStorage.builder(getCurrentReactor(), fileSystem, SERIALIZER, CRDT_FUNCTION)
+			.withCompactionInterval(Duration.ofMillis(10))
+			.withCompactionRateLimit(MemSize.megabytes(1))
+			.build();
+		await(client.start());
+
+		await(StreamSuppliers.ofValues(new CrdtData<>("a", 100, Set.of(1))).streamTo(client.upload()));
+		await(StreamSuppliers.ofValues(new CrdtData<>("b", 100, Set.of(2))).streamTo(client.upload()));
+
+		for (int i = 0; i < 100 && await(fileSystem.list("**")).size() != 1; i++) {
+			await(Promises.delay(Duration.ofMillis(10)));
+		}
+		await(client.stop());
+
+		assertEquals(1, await(fileSystem.list("**")).size());
+		assertEquals(List.of(
+				new CrdtData<>("a", 100, Set.of(1)),
+				new CrdtData<>("b", 100, Set.of(2))),
+			await(client.download().then(StreamSupplier::toList)));
+	}
+
 	@Test
 	public void pickFilesForConsolidation() {
 		testPickFilesForConsolidation(
@@ -210,6 +402,18 @@ public final class FileSystemCrdtStorageTest {
 			));
 	}
 
+	private FileSystemCrdtStorage<String, Set<Integer>> createIndexedClient() {
+		FileSystemCrdtStorage<String, Set<Integer>> client = FileSystemCrdtStorage.builder(getCurrentReactor(), fileSystem, SERIALIZER, CRDT_FUNCTION)
+			.withIndexBlockSize(MemSize.bytes(256))
+			.build();
+		await(client.start());
+		return client;
+	}
+
+	private static String key(int i) {
+		return String.format("key_%05d", i);
+	}
+
 	private static void testPickFilesForConsolidation(Set<String> expected, Map<String, Integer> fileToSizeMap) {
 		Map<String, FileMetadata> files = fileToSizeMap.entrySet().stream()
 			.collect(entriesToLinkedHashMap(size -> FileMetadata.of(size, 0)));
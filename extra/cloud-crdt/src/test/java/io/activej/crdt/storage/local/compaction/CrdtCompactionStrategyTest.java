@@ -0,0 +1,140 @@
+package io.activej.crdt.storage.local.compaction;
+
+import io.activej.common.MemSize;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public final class CrdtCompactionStrategyTest {
+
+	@Test
+	public void testSizeTieredGroupsSimilarSizes() {
+		SizeTieredCompactionStrategy<Integer> strategy = SizeTieredCompactionStrategy.<Integer>builder()
+			.withThresholds(3, 32)
+			.withMinFileSize(MemSize.bytes(10))
+			.build();
+
+		List<CrdtCompactionTask> tasks = strategy.pickTasks(List.of(
+			file("a", 1000, 0),
+			file("b", 1100, 0),
+			file("c", 900, 0),
+			file("d", 100_000, 0),
+			file("e", 110_000, 0),
+			file("f", 5, 0),
+			file("g", 7, 0)
+		));
+
+		assertEquals(1, tasks.size());
+		assertEquals(Set.of("a", "b", "c"), tasks.get(0).files());
+	}
+
+	@Test
+	public void testSizeTieredPrefersTombstones() {
+		SizeTieredCompactionStrategy<Integer> strategy = SizeTieredCompactionStrategy.<Integer>builder()
+			.withThresholds(2, 32)
+			.withMinFileSize(MemSize.bytes(10))
+			.build();
+
+		List<CrdtCompactionTask> tasks = strategy.pickTasks(List.of(
+			file("a", 1000, 0),
+			file("b", 1000, 0),
+			file("c", 1000, 0),
+			new CrdtFileInfo<>("d", 100_000, 0, 100, 50, 0, 10, false),
+			new CrdtFileInfo<>("e", 100_000, 0, 100, 50, 0, 10, false)
+		));
+
+		assertEquals(2, tasks.size());
+		assertEquals(Set.of("d", "e"), tasks.get(0).files());
+		assertEquals(Set.of("a", "b", "c"), tasks.get(1).files());
+	}
+
+	@Test
+	public void testSizeTieredSkipsBusyFiles() {
+		SizeTieredCompactionStrategy<Integer> strategy = SizeTieredCompactionStrategy.<Integer>builder()
+			.withThresholds(2, 32)
+			.build();
+
+		List<CrdtCompactionTask> tasks = strategy.pickTasks(List.of(
+			file("a", 1000, 0),
+			new CrdtFileInfo<>("b", 1000, 0, 10, 0, 0, 10, true)
+		));
+
+		assertTrue(tasks.isEmpty());
+	}
+
+	@Test
+	public void testLeveledMergesLevel0WithOverlappingLevel1() {
+		LeveledCompactionStrategy<Integer> strategy = LeveledCompactionStrategy.<Integer>builder()
+			.withLevel0Threshold(2)
+			.withTargetFileSize(MemSize.bytes(1000))
+			.build();
+
+		List<CrdtCompactionTask> tasks = strategy.pickTasks(List.of(
+			file("l0-a", 100, 0, 10, 20),
+			file("l0-b", 100, 0, 15, 30),
+			file("l1-a", 1000, 1, 0, 9),
+			file("l1-b", 1000, 1, 10, 19),
+			file("l1-c", 1000, 1, 20, 29),
+			file("l1-d", 1000, 1, 30, 39),
+			file("l1-e", 1000, 1, 40, 49)
+		));
+
+		assertEquals(1, tasks.size());
+		CrdtCompactionTask task = tasks.get(0);
+		assertEquals(Set.of("l0-a", "l0-b", "l1-b", "l1-c", "l1-d"), task.files());
+		assertEquals(1, task.targetLevel());
+		assertEquals(1000, task.targetFileSize());
+	}
+
+	@Test
+	public void testLeveledPushesOversizedLevelRoundRobin() {
+		LeveledCompactionStrategy<Integer> strategy = LeveledCompactionStrategy.<Integer>builder()
+			.withBaseLevelSize(MemSize.bytes(2500))
+			.build();
+
+		List<CrdtFileInfo<Integer>> files = new ArrayList<>(List.of(
+			file("l1-a", 1000, 1, 0, 9),
+			file("l1-b", 1000, 1, 10, 19),
+			file("l1-c", 1000, 1, 20, 29),
+			file("l2-a", 1000, 2, 0, 14),
+			file("l2-b", 1000, 2, 15, 50)
+		));
+
+		List<CrdtCompactionTask> first = strategy.pickTasks(files);
+		assertEquals(1, first.size());
+		assertEquals(Set.of("l1-a", "l2-a"), first.get(0).files());
+		assertEquals(2, first.get(0).targetLevel());
+
+		List<CrdtCompactionTask> second = strategy.pickTasks(files);
+		assertEquals(Set.of("l1-b", "l2-a", "l2-b"), second.get(0).files());
+
+		List<CrdtCompactionTask> third = strategy.pickTasks(files);
+		assertEquals(Set.of("l1-c", "l2-b"), third.get(0).files());
+	}
+
+	@Test
+	public void testLeveledSkipsTasksWithBusyFiles() {
+		LeveledCompactionStrategy<Integer> strategy = LeveledCompactionStrategy.<Integer>builder()
+			.withLevel0Threshold(1)
+			.build();
+
+		List<CrdtCompactionTask> tasks = strategy.pickTasks(List.of(
+			file("l0-a", 100, 0, 10, 20),
+			new CrdtFileInfo<>("l1-a", 1000, 1, 10, 0, 15, 25, true)
+		));
+
+		assertTrue(tasks.isEmpty());
+	}
+
+	private static CrdtFileInfo<Integer> file(String name, long size, int level) {
+		return new CrdtFileInfo<>(name, size, level, 10, 0, null, null, false);
+	}
+
+	private static CrdtFileInfo<Integer> file(String name, long size, int level, int minKey, int maxKey) {
+		return new CrdtFileInfo<>(name, size, level, 10, 0, minKey, maxKey, false);
+	}
+}
@@ -0,0 +1,125 @@
+package io.activej.crdt.storage.local.memtable;
+
+import io.activej.common.MemSize;
+import io.activej.crdt.CrdtData;
+import io.activej.crdt.CrdtTombstone;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static io.activej.serializer.BinarySerializers.INT_SERIALIZER;
+import static io.activej.serializer.BinarySerializers.UTF8_SERIALIZER;
+import static org.junit.Assert.*;
+
+public final class OffHeapCrdtMemtableTest {
+
+	@Test
+	public void testPutGetRemove() {
+		OffHeapCrdtMemtable<String, String> memtable = OffHeapCrdtMemtable.create(UTF8_SERIALIZER, UTF8_SERIALIZER);
+
+		memtable.put(new CrdtData<>("b", 10, "value b"));
+		memtable.put(new CrdtData<>("a", 20, "value a"));
+		memtable.putTombstone(new CrdtTombstone<>("c", 30));
+		assertEquals(3, memtable.size());
+
+		assertEquals(new CrdtData<>("a", 20, "value a"), memtable.get("a"));
+		assertNull(memtable.getTombstone("a"));
+		assertNull(memtable.get("c"));
+		assertEquals(new CrdtTombstone<>("c", 30), memtable.getTombstone("c"));
+		assertNull(memtable.get("d"));
+
+		// larger state does not fit into the old node
+		memtable.put(new CrdtData<>("b", 40, "a much longer value of b"));
+		assertEquals(new CrdtData<>("b", 40, "a much longer value of b"), memtable.get("b"));
+
+		memtable.put(new CrdtData<>("c", 50, "value c"));
+		assertNull(memtable.getTombstone("c"));
+		memtable.putTombstone(new CrdtTombstone<>("a", 60));
+		assertNull(memtable.get("a"));
+
+		assertEquals(List.of(
+			new CrdtData<>("b", 40, "a much longer value of b"),
+			new CrdtData<>("c", 50, "value c")
+		), toList(memtable.iterator()));
+		assertEquals(List.of(new CrdtTombstone<>("a", 60)), toList(memtable.tombstoneIterator()));
+
+		memtable.remove("b");
+		memtable.remove("a");
+		memtable.remove("x");
+		assertEquals(1, memtable.size());
+		assertEquals(List.of(new CrdtData<>("c", 50, "value c")), toList(memtable.iterator()));
+		assertFalse(memtable.tombstoneIterator().hasNext());
+	}
+
+	@Test
+	public void testRandomOperations() {
+		OffHeapCrdtMemtable<Integer, String> memtable = OffHeapCrdtMemtable.<Integer, String>builder(INT_SERIALIZER, UTF8_SERIALIZER)
+			.withChunkSize(MemSize.kilobytes(4))
+			.build();
+		HeapCrdtMemtable<Integer, String> expected = HeapCrdtMemtable.create();
+
+		Random random = new Random(0);
+		for (int i = 0; i < 100_000; i++) {
+			int key = random.nextInt(1000);
+			int op = random.nextInt(10);
+			if (op < 6) {
+				CrdtData<Integer, String> data = new CrdtData<>(key, i, "x".repeat(random.nextInt(30)));
+				memtable.put(data);
+				expected.put(data);
+			} else if (op < 8) {
+				CrdtTombstone<Integer> tombstone = new CrdtTombstone<>(key, i);
+				memtable.putTombstone(tombstone);
+				expected.putTombstone(tombstone);
+			} else {
+				memtable.remove(key);
+				expected.remove(key);
+			}
+			assertEquals(expected.get(key), memtable.get(key));
+			assertEquals(expected.getTombstone(key), memtable.getTombstone(key));
+		}
+
+		assertEquals(expected.size(), memtable.size());
+		assertEquals(toList(expected.iterator()), toList(memtable.iterator()));
+		assertEquals(toList(expected.tombstoneIterator()), toList(memtable.tombstoneIterator()));
+		assertTrue(memtable.getGarbageBytes() <= memtable.getAllocatedBytes() / 2 + MemSize.kilobytes(4).toLong());
+	}
+
+	@Test
+	public void testIteratorSurvivesCompaction() {
+		OffHeapCrdtMemtable<Integer, String> memtable = OffHeapCrdtMemtable.<Integer, String>builder(INT_SERIALIZER, UTF8_SERIALIZER)
+			.withChunkSize(MemSize.kilobytes(1))
+			.build();
+		for (int i = 0; i < 100; i++) {
+			memtable.put(new CrdtData<>(i, i, "value"));
+		}
+		long allocatedBefore = memtable.getAllocatedBytes();
+
+		Iterator<CrdtData<Integer, String>> iterator = memtable.iterator();
+		assertEquals(new CrdtData<>(0, 0, "value"), iterator.next());
+
+		for (int i = 40; i < 100; i++) {
+			memtable.remove(i);
+		}
+		assertTrue(memtable.getAllocatedBytes() < allocatedBefore);
+
+		// iterator keeps traversing old chunks, it sees every key that was present at the moment of compaction
+		List<Integer> keys = new ArrayList<>();
+		iterator.forEachRemaining(data -> keys.add(data.getKey()));
+		for (int i = 1; i < 40; i++) {
+			assertEquals(i, (int) keys.get(i - 1));
+		}
+		for (int i = 1; i < keys.size(); i++) {
+			assertTrue(keys.get(i - 1) < keys.get(i));
+		}
+		assertEquals(40, toList(memtable.iterator()).size());
+	}
+
+	private static <T> List<T> toList(Iterator<T> iterator) {
+		List<T> list = new ArrayList<>();
+		iterator.forEachRemaining(list::add);
+		return list;
+	}
+}
@@ -12,6 +12,7 @@ import io.activej.csp.supplier.ChannelSuppliers;
 import io.activej.datastream.csp.ChannelSerializer;
 import io.activej.datastream.supplier.StreamSuppliers;
 import io.activej.fs.FileSystem;
+import io.activej.promise.Promise;
 import io.activej.promise.Promises;
 import io.activej.reactor.Reactor;
 import io.activej.test.rules.ByteBufRule;
@@ -24,6 +25,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -39,6 +41,7 @@ import static io.activej.common.collection.CollectionUtils.first;
 import static io.activej.crdt.wal.FileWriteAheadLog.EXT_FINAL;
 import static io.activej.crdt.wal.FileWriteAheadLog.FRAME_FORMAT;
 import static io.activej.promise.TestUtils.await;
+import static io.activej.promise.TestUtils.awaitException;
 import static io.activej.reactor.Reactor.getCurrentReactor;
 import static io.activej.serializer.BinarySerializers.INT_SERIALIZER;
 import static io.activej.serializer.BinarySerializers.LONG_SERIALIZER;
@@ -297,6 +300,114 @@ public class FileWriteAheadLogTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void groupCommitBySize() {
+		wal = FileWriteAheadLog.builder(getCurrentReactor(), executor, path, serializer, uploader)
+			.withCurrentTimeProvider(TestCurrentTimeProvider.ofTimeSequence(100, 10))
+			.withGroupCommit(Duration.ofHours(1), 3)
+			.build();
+		await(wal.start());
+		List<CrdtData<Long, GSet<Integer>>> expected = List.of(
+			new CrdtData<>(1L, 140, GSet.of(1, 2, 3, 6, 9, 10, 11)),
+			new CrdtData<>(2L, 130, GSet.of(-12, 0, 2, 3, 100, 200))
+		);
+
+		Promise<Void> put1 = wal.put(1L, GSet.of(1, 2, 3));
+		Promise<Void> put2 = wal.put(2L, GSet.of(-12, 0, 200));
+		assertFalse(put1.isComplete());
+		assertFalse(put2.isComplete());
+		Promise<Void> put3 = wal.put(1L, GSet.of(1, 6));
+		await(put3);
+		assertTrue(put1.isResult());
+		assertTrue(put2.isResult());
+
+		assertEquals(1, wal.getGroupCommitBatchSize().getCount());
+		assertEquals(3, wal.getGroupCommitBatchSize().getLastValue());
+		assertEquals(1, wal.getGroupCommitLatency().getCount());
+
+		Promise<Void> put4 = wal.put(2L, GSet.of(2, 3, 100));
+		Promise<Void> put5 = wal.put(1L, GSet.of(9, 10, 11));
+		await(wal.flush());
+		assertTrue(put4.isResult());
+		assertTrue(put5.isResult());
+		assertEquals(2, wal.getGroupCommitBatchSize().getCount());
+		assertEquals(2, wal.getGroupCommitBatchSize().getLastValue());
+
+		List<CrdtData<Long, GSet<Integer>>> actual = await(await(storage.download()).toList());
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void groupCommitFailsOnClosedFile() {
+		wal = FileWriteAheadLog.builder(getCurrentReactor(), executor, path, serializer, uploader)
+			.withGroupCommit(Duration.ofHours(1), 1)
+			.build();
+
+		FileWriteAheadLog<Long, GSet<Integer>>.WalConsumer consumer = wal.new WalConsumer(path.resolve("closed.wal"));
+		await(consumer.finish());
+
+		Exception e = awaitException(consumer.force());
+		assertTrue(e instanceof ClosedChannelException);
+	}
+
+	@Test
+	public void groupCommitByWindow() {
+		wal = FileWriteAheadLog.builder(getCurrentReactor(), executor, path, serializer, uploader)
+			.withCurrentTimeProvider(TestCurrentTimeProvider.ofTimeSequence(100, 10))
+			.withGroupCommit(Duration.ofMillis(10), 1000)
+			.build();
+		await(wal.start());
+		List<CrdtData<Long, GSet<Integer>>> expected = List.of(
+			new CrdtData<>(1L, 120, GSet.of(1, 2, 3, 6)),
+			new CrdtData<>(2L, 110, GSet.of(-12, 0, 200))
+		);
+
+		await(
+			wal.put(1L, GSet.of(1, 2, 3)),
+			wal.put(2L, GSet.of(-12, 0, 200)),
+			wal.put(1L, GSet.of(1, 6))
+		);
+		assertEquals(1, wal.getGroupCommitBatchSize().getCount());
+		assertEquals(3, wal.getGroupCommitBatchSize().getLastValue());
+
+		await(wal.flush());
+
+		List<CrdtData<Long, GSet<Integer>>> actual = await(await(storage.download()).toList());
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void groupCommitRecovery() throws IOException {
+		wal = FileWriteAheadLog.builder(getCurrentReactor(), executor, path, serializer, uploader)
+			.withCurrentTimeProvider(TestCurrentTimeProvider.ofTimeSequence(100, 10))
+			.withGroupCommit(Duration.ZERO, 2)
+			.build();
+		await(wal.start());
+
+		await(
+			wal.put(1L, GSet.of(1, 2, 3)),
+			wal.put(2L, GSet.of(-12, 0, 200)),
+			wal.put(1L, GSet.of(1, 6))
+		);
+
+		// WAL file is not finished, simulating a crash
+		Path walFile;
+		try (Stream<Path> list = Files.list(path)) {
+			walFile = first(list.collect(toSet()));
+		}
+		assertTrue(Files.size(walFile) > 0);
+
+		wal = FileWriteAheadLog.create(getCurrentReactor(), executor, path, serializer, uploader);
+		await(wal.start());
+
+		List<CrdtData<Long, GSet<Integer>>> expected = List.of(
+			new CrdtData<>(1L, 120, GSet.of(1, 2, 3, 6)),
+			new CrdtData<>(2L, 110, GSet.of(-12, 0, 200))
+		);
+		List<CrdtData<Long, GSet<Integer>>> actual = await(await(storage.download()).toList());
+		assertEquals(expected, actual);
+	}
+
 	@SafeVarargs
 	private Path craftWALFile(CrdtData<Long, GSet<Integer>>... mockData) {
 		Path file = path.resolve(UUID.randomUUID() + EXT_FINAL);
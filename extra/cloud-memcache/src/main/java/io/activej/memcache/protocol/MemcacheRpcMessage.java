@@ -22,6 +22,7 @@ import io.activej.serializer.annotations.Serialize;
 import io.activej.serializer.annotations.SerializeClass;
 import io.activej.serializer.annotations.SerializeNullable;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.function.ToIntFunction;
@@ -95,25 +96,53 @@ public class MemcacheRpcMessage {
 	@SerializeClass(SliceSerializerDef.class)
 	public static final class Slice {
 		private final byte[] array;
+		private final ByteBuffer buffer;
 		private final int offset;
 		private final int length;
 
 		public Slice(byte[] array) {
 			this.array = array;
+			this.buffer = null;
 			this.offset = 0;
 			this.length = array.length;
 		}
 
 		public Slice(byte[] array, int offset, int length) {
 			this.array = array;
+			this.buffer = null;
 			this.offset = offset;
 			this.length = length;
 		}
 
+		/**
+		 * Creates a view into a (possibly off-heap) {@link ByteBuffer}.
+		 * The bytes are not copied until the slice is serialized
+		 */
+		public Slice(ByteBuffer buffer, int offset, int length) {
+			this.array = null;
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		/**
+		 * Returns the backing array, or {@code null} if this slice is a view into a {@link ByteBuffer}
+		 */
 		public byte[] array() {
 			return array;
 		}
 
+		/**
+		 * Returns the backing buffer, or {@code null} if this slice is backed by an array
+		 */
+		public ByteBuffer buffer() {
+			return buffer;
+		}
+
+		public boolean hasArray() {
+			return array != null;
+		}
+
 		public int offset() {
 			return offset;
 		}
@@ -121,5 +150,22 @@ public class MemcacheRpcMessage {
 		public int length() {
 			return length;
 		}
+
+		/**
+		 * Copies the contents of this slice into {@code dst}
+		 */
+		public void copyTo(byte[] dst, int dstOffset) {
+			if (array != null) {
+				System.arraycopy(array, offset, dst, dstOffset, length);
+			} else {
+				buffer.get(offset, dst, dstOffset, length);
+			}
+		}
+
+		public byte[] toArray() {
+			byte[] bytes = new byte[length];
+			copyTo(bytes, 0);
+			return bytes;
+		}
 	}
 }
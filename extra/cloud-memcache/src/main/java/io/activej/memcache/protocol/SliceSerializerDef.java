@@ -64,8 +64,8 @@ public class SliceSerializerDef extends AbstractSerializerDef implements Seriali
 
 	public static int write(byte[] output, int offset, Slice slice) {
 		offset = BinaryOutputUtils.writeVarInt(output, offset, slice.length());
-		offset = BinaryOutputUtils.write(output, offset, slice.array(), slice.offset(), slice.length());
-		return offset;
+		slice.copyTo(output, offset);
+		return offset + slice.length();
 	}
 
 	public static int writeNullable(byte[] output, int offset, Slice slice) {
@@ -74,8 +74,8 @@ public class SliceSerializerDef extends AbstractSerializerDef implements Seriali
 			return offset + 1;
 		} else {
 			offset = BinaryOutputUtils.writeVarInt(output, offset, slice.length() + 1);
-			offset = BinaryOutputUtils.write(output, offset, slice.array(), slice.offset(), slice.length());
-			return offset;
+			slice.copyTo(output, offset);
+			return offset + slice.length();
 		}
 	}
 
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.memcache.server;
+
+import io.activej.memcache.protocol.MemcacheRpcMessage.Slice;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A storage engine of a memcache-like server.
+ * <p>
+ * A storage works like a cache, so a previously put item may be absent
+ * when it is requested, due to eviction or expiration.
+ * <p>
+ * Returned slices may share memory with the storage, so their
+ * content is only valid until the next modification of the storage.
+ */
+public interface IMemcacheStorage {
+	/**
+	 * Returns the latest data stored for a given key
+	 *
+	 * @param key a key of an item
+	 * @return data stored for a key or {@code null} if there is no such item
+	 */
+	@Nullable Slice get(byte[] key);
+
+	/**
+	 * Stores data for a given key
+	 *
+	 * @param key    a key of an item
+	 * @param data   an array containing data to be stored
+	 * @param offset an offset of data in the array
+	 * @param length a length of data
+	 */
+	void put(byte[] key, byte[] data, int offset, int length);
+
+	default void put(byte[] key, byte[] data) {
+		put(key, data, 0, data.length);
+	}
+
+	/**
+	 * Writes stored data to a persistent medium, if a storage is backed by one.
+	 * May be called from a thread other than the one that modifies the storage
+	 */
+	default void flush() {
+	}
+
+	/**
+	 * Returns whether a storage is backed by a persistent medium and needs to be {@link #flush() flushed}
+	 */
+	default boolean isPersistent() {
+		return false;
+	}
+}
@@ -18,7 +18,9 @@ package io.activej.memcache.server;
 
 import io.activej.config.Config;
 import io.activej.eventloop.Eventloop;
+import io.activej.inject.annotation.Named;
 import io.activej.inject.annotation.Provides;
+import io.activej.inject.binding.OptionalDependency;
 import io.activej.inject.module.AbstractModule;
 import io.activej.promise.Promise;
 import io.activej.reactor.net.ServerSocketSettings;
@@ -26,6 +28,10 @@ import io.activej.reactor.net.SocketSettings;
 import io.activej.reactor.nio.NioReactor;
 import io.activej.rpc.server.RpcServer;
 
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static io.activej.common.MemSize.kilobytes;
 import static io.activej.config.converter.ConfigConverters.*;
 import static io.activej.launchers.initializers.ConfigConverters.ofFrameFormat;
@@ -44,14 +50,53 @@ public class MemcacheServerModule extends AbstractModule {
 	}
 
 	@Provides
-	RingBuffer ringBuffer(Config config) {
-		return RingBuffer.create(
-			config.get(ofInteger(), "memcache.buffers"),
-			config.get(ofMemSize(), "memcache.bufferCapacity").toInt());
+	IMemcacheStorage storage(Config config) {
+		String storage = config.get("memcache.storage", "ringBuffer");
+		return switch (storage) {
+			case "ringBuffer" -> RingBuffer.builder(
+					config.get(ofInteger(), "memcache.buffers"),
+					config.get(ofMemSize(), "memcache.bufferCapacity").toInt())
+				.withDirect(config.get(ofBoolean(), "memcache.direct", false))
+				.setIfNotNull(RingBuffer.Builder::withPersistenceDirectory, config.get(ofPath(), "memcache.persistenceDirectory", null))
+				.build();
+			case "segmentedLru" -> SegmentedLruStorage.builder(config.get(ofMemSize(), "memcache.maxMemory"))
+				.withPageSize(config.get(ofMemSize(), "memcache.pageSize", SegmentedLruStorage.DEFAULT_PAGE_SIZE))
+				.withMinChunkSize(config.get(ofMemSize(), "memcache.minChunkSize", SegmentedLruStorage.DEFAULT_MIN_CHUNK_SIZE))
+				.withGrowthFactor(config.get(ofDouble(), "memcache.growthFactor", SegmentedLruStorage.DEFAULT_GROWTH_FACTOR))
+				.withProtectedRatio(config.get(ofDouble(), "memcache.protectedRatio", SegmentedLruStorage.DEFAULT_PROTECTED_RATIO))
+				.withDefaultTtl(config.get(ofDuration(), "memcache.defaultTtl", Duration.ZERO))
+				.build();
+			default -> throw new IllegalArgumentException("Unknown memcache storage: " + storage);
+		};
+	}
+
+	/**
+	 * An executor is only created for a persistent storage, it is shut down
+	 * by a service graph after the storage flusher has stopped
+	 */
+	@Provides
+	@Named("storageFlush")
+	OptionalDependency<ExecutorService> storageFlushExecutor(IMemcacheStorage storage) {
+		return storage.isPersistent() ?
+			OptionalDependency.of(Executors.newSingleThreadExecutor()) :
+			OptionalDependency.empty();
+	}
+
+	@Provides
+	OptionalDependency<MemcacheStorageFlusher> storageFlusher(
+		NioReactor reactor, Config config, IMemcacheStorage storage, @Named("storageFlush") OptionalDependency<ExecutorService> executor
+	) {
+		if (!executor.isPresent()) return OptionalDependency.empty();
+		return OptionalDependency.of(MemcacheStorageFlusher.create(reactor, storage, executor.get(),
+			config.get(ofDuration(), "memcache.flushInterval", Duration.ofSeconds(10))));
 	}
 
+	/**
+	 * The server depends on the storage flusher, so that a persistent storage is flushed for the last time
+	 * only after the server has stopped
+	 */
 	@Provides
-	RpcServer server(NioReactor reactor, Config config, RingBuffer storage) {
+	RpcServer server(NioReactor reactor, Config config, IMemcacheStorage storage, OptionalDependency<MemcacheStorageFlusher> storageFlusher) {
 		return RpcServer.builder(reactor)
 			.withHandler(GetRequest.class,
 				request -> Promise.of(new GetResponse(storage.get(request.getKey()))))
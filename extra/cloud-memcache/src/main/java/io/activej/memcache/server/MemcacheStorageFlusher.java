@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.memcache.server;
+
+import io.activej.async.service.ReactiveService;
+import io.activej.promise.Promise;
+import io.activej.reactor.AbstractReactive;
+import io.activej.reactor.Reactor;
+import io.activej.reactor.schedule.ScheduledRunnable;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+import static io.activej.reactor.Reactive.checkInReactorThread;
+
+/**
+ * A service which periodically {@link IMemcacheStorage#flush() flushes} a storage in background
+ * and flushes it once more when stopped, so that persisted data does not depend on OS writeback
+ */
+public final class MemcacheStorageFlusher extends AbstractReactive implements ReactiveService {
+	private static final Logger logger = LoggerFactory.getLogger(MemcacheStorageFlusher.class);
+
+	private final IMemcacheStorage storage;
+	private final Executor executor;
+	private final Duration flushInterval;
+
+	private Promise<Void> flushPromise = Promise.complete();
+	private @Nullable ScheduledRunnable scheduledFlush;
+	private boolean stopped;
+
+	private MemcacheStorageFlusher(Reactor reactor, IMemcacheStorage storage, Executor executor, Duration flushInterval) {
+		super(reactor);
+		this.storage = storage;
+		this.executor = executor;
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Creates a flusher of a given storage
+	 *
+	 * @param executor      an executor which flushes a storage, it should outlive the flusher
+	 * @param flushInterval an interval between flushes, or {@link Duration#ZERO} to only flush when stopped
+	 */
+	public static MemcacheStorageFlusher create(Reactor reactor, IMemcacheStorage storage, Executor executor, Duration flushInterval) {
+		return new MemcacheStorageFlusher(reactor, storage, executor, flushInterval);
+	}
+
+	@Override
+	public Promise<?> start() {
+		checkInReactorThread(this);
+		scheduleFlush();
+		return Promise.complete();
+	}
+
+	@Override
+	public Promise<?> stop() {
+		checkInReactorThread(this);
+		stopped = true;
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel();
+			scheduledFlush = null;
+		}
+		return flushPromise
+			.then(this::flush);
+	}
+
+	private void scheduleFlush() {
+		if (flushInterval.isZero()) return;
+		scheduledFlush = reactor.delayBackground(flushInterval, () -> {
+			scheduledFlush = null;
+			flushPromise = flush()
+				.then(($, e) -> {
+					if (e != null) logger.warn("Failed to flush {}", storage, e);
+					if (!stopped) scheduleFlush();
+					return Promise.complete();
+				});
+		});
+	}
+
+	private Promise<Void> flush() {
+		return Promise.ofBlocking(executor, storage::flush);
+	}
+}
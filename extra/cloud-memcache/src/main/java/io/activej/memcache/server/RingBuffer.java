@@ -20,9 +20,18 @@ import com.carrotsearch.hppc.IntLongHashMap;
 import com.carrotsearch.hppc.LongLongHashMap;
 import com.carrotsearch.hppc.ObjectLongHashMap;
 import io.activej.common.Checks;
+import io.activej.common.builder.AbstractBuilder;
 import io.activej.jmx.stats.EventStats;
 import io.activej.memcache.protocol.MemcacheRpcMessage.Slice;
-
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Arrays;
 
@@ -30,20 +39,30 @@ import static io.activej.common.Checks.checkArgument;
 import static io.activej.common.StringFormatUtils.formatDuration;
 import static io.activej.jmx.stats.MBeanFormat.formatTimestamp;
 import static java.lang.System.currentTimeMillis;
+import static java.nio.file.StandardOpenOption.*;
 
 /**
  * The implementation to handle the big amount of data
  * It works like a cache, when you use it you shouldn't rely on the result,
  * because it can be rewritten by the new data when it overfills
  */
-public final class RingBuffer implements RingBufferMBean {
+public final class RingBuffer implements IMemcacheStorage, RingBufferMBean, AutoCloseable {
 	private static final boolean CHECKS = Checks.isEnabled(RingBuffer.class);
 
 	/**
 	 * The main class for the caching the byte-arrays
 	 */
 	public static class Buffer {
-		private final byte[] array;
+		static final int MAGIC = 0x52424632;
+		static final int HEADER_SIZE = 24;
+		private static final int MAGIC_OFFSET = 0;
+		private static final int TIMESTAMP_OFFSET = 4;
+		private static final int POSITION_OFFSET = 12;
+		private static final int GENERATION_OFFSET = 16;
+
+		private final ByteBuffer memory;
+		private final boolean persistent;
+		private final int start;
 		private final IntLongHashMap indexInt = new IntLongHashMap();
 		private final LongLongHashMap indexLong = new LongLongHashMap();
 		private final ObjectLongHashMap<byte[]> indexBytes = new ObjectLongHashMap<>() {
@@ -62,20 +81,94 @@ public final class RingBuffer implements RingBufferMBean {
 			}
 		};
 
-		private int position = 0;
+		private int position;
 		private long timestamp;
+		private long generation;
 
-		Buffer(int capacity) {
-			this.array = new byte[capacity];
+		private Buffer(ByteBuffer memory, boolean persistent) {
+			this.memory = memory;
+			this.persistent = persistent;
+			this.start = persistent ? HEADER_SIZE : 0;
+			this.position = start;
 			this.timestamp = currentTimeMillis();
 		}
 
-		void clear() {
+		Buffer(int capacity) {
+			this(ByteBuffer.wrap(new byte[capacity]), false);
+		}
+
+		static Buffer ofDirect(int capacity) {
+			return new Buffer(ByteBuffer.allocateDirect(capacity), false);
+		}
+
+		/**
+		 * Maps a segment file into memory. Each item is stored in a file together with its key,
+		 * so that the index could be restored from the existing file after restart
+		 */
+		static Buffer ofFile(Path file, int capacity) throws IOException {
+			long fileSize = (long) HEADER_SIZE + capacity;
+			checkArgument(fileSize <= Integer.MAX_VALUE, "Buffer capacity is too large for a mapped segment");
+			MappedByteBuffer mapped;
+			try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+				if (channel.size() != fileSize) {
+					channel.truncate(0);
+				}
+				mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+			}
+			Buffer buffer = new Buffer(mapped, true);
+			if (!buffer.recover()) {
+				buffer.clear(0);
+			}
+			return buffer;
+		}
+
+		private boolean recover() {
+			if (memory.getInt(MAGIC_OFFSET) != MAGIC) return false;
+			int limit = memory.getInt(POSITION_OFFSET);
+			if (limit < HEADER_SIZE || limit > memory.capacity()) return false;
+			timestamp = memory.getLong(TIMESTAMP_OFFSET);
+			generation = memory.getLong(GENERATION_OFFSET);
+			int pos = HEADER_SIZE;
+			while (pos + 4 <= limit) {
+				int keyLength = memory.getInt(pos);
+				if (keyLength < 0 || pos + 8L + keyLength > limit) break;
+				int dataLength = memory.getInt(pos + 4 + keyLength);
+				int dataOffset = pos + 8 + keyLength;
+				if (dataLength < 0 || (long) dataOffset + dataLength > limit) break;
+				byte[] key = new byte[keyLength];
+				memory.get(pos + 4, key);
+				index(key, ((long) dataLength << 32) | dataOffset);
+				pos = dataOffset + dataLength;
+			}
+			position = pos;
+			memory.putInt(POSITION_OFFSET, position);
+			return true;
+		}
+
+		/**
+		 * Clears the buffer, so that it could be reused
+		 *
+		 * @param generation a sequence number of the buffer, which is greater than that of any previously cleared buffer
+		 */
+		void clear(long generation) {
 			indexInt.clear();
 			indexLong.clear();
 			indexBytes.clear();
-			position = 0;
+			position = start;
 			timestamp = currentTimeMillis();
+			this.generation = generation;
+			if (persistent) {
+				memory.putInt(POSITION_OFFSET, position);
+				memory.putLong(TIMESTAMP_OFFSET, timestamp);
+				memory.putLong(GENERATION_OFFSET, generation);
+				memory.putInt(MAGIC_OFFSET, MAGIC);
+			}
+		}
+
+		void flush() {
+			if (persistent) {
+				((MappedByteBuffer) memory).force();
+			}
 		}
 
 		static int intValueOf(byte[] bytes) {
@@ -111,12 +204,28 @@ public final class RingBuffer implements RingBufferMBean {
 				return null;
 			int offset = (int) segment;
 			int size = (int) (segment >>> 32);
-			return new Slice(array, offset, size);
+			return memory.hasArray() ?
+				new Slice(memory.array(), offset, size) :
+				new Slice(memory, offset, size);
 		}
 
 		void put(byte[] key, byte[] data, int offset, int length) {
-			assert length <= remaining();
-			long segment = ((long) length << 32) | position;
+			assert recordSize(key, length) <= remaining();
+			if (persistent) {
+				memory.putInt(position, key.length);
+				memory.put(position + 4, key);
+				memory.putInt(position + 4 + key.length, length);
+				position += 8 + key.length;
+			}
+			index(key, ((long) length << 32) | position);
+			memory.put(position, data, offset, length);
+			position += length;
+			if (persistent) {
+				memory.putInt(POSITION_OFFSET, position);
+			}
+		}
+
+		private void index(byte[] key, long segment) {
 			if (key.length == 4) {
 				indexInt.put(intValueOf(key), segment);
 			} else if (key.length == 8) {
@@ -124,25 +233,45 @@ public final class RingBuffer implements RingBufferMBean {
 			} else {
 				indexBytes.put(key, segment);
 			}
-			System.arraycopy(data, offset, array, position, length);
-			position += length;
+		}
+
+		int recordSize(byte[] key, int length) {
+			return persistent ? 8 + key.length + length : length;
+		}
+
+		int capacity() {
+			return memory.capacity() - start;
 		}
 
 		int remaining() {
-			return array.length - position;
+			return memory.capacity() - position;
+		}
+
+		int size() {
+			return position - start;
 		}
 
 		long getTimestamp() {
 			return timestamp;
 		}
 
+		long getGeneration() {
+			return generation;
+		}
+
 		int items() {
 			return indexInt.size() + indexLong.size() + indexBytes.size();
 		}
 	}
 
-	private final Buffer[] ringBuffers;
+	private Buffer[] ringBuffers;
 	private int currentBuffer = 0;
+	private long generation;
+
+	private int amountBuffers;
+	private int bufferCapacity;
+	private boolean direct;
+	private @Nullable Path persistenceDirectory;
 
 	// JMX
 	private static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
@@ -151,18 +280,69 @@ public final class RingBuffer implements RingBufferMBean {
 	private final EventStats statsMisses = EventStats.create(SMOOTHING_WINDOW);
 	private int countCycles = 0;
 
+	private RingBuffer() {
+	}
+
 	public static RingBuffer create(int amountBuffers, int bufferCapacity) {
+		return builder(amountBuffers, bufferCapacity).build();
+	}
+
+	public static Builder builder(int amountBuffers, int bufferCapacity) {
 		checkArgument(amountBuffers > 0, "Amount of buffers should be greater than 0");
 		checkArgument(bufferCapacity > 0, "Buffer capacity should be greater than 0");
-		Buffer[] ringBuffers = new Buffer[amountBuffers];
-		for (int i = 0; i < amountBuffers; i++) {
-			ringBuffers[i] = new Buffer(bufferCapacity);
-		}
-		return new RingBuffer(ringBuffers);
+		RingBuffer ringBuffer = new RingBuffer();
+		ringBuffer.amountBuffers = amountBuffers;
+		ringBuffer.bufferCapacity = bufferCapacity;
+		return ringBuffer.new Builder();
 	}
 
-	private RingBuffer(Buffer[] ringBuffers) {
-		this.ringBuffers = ringBuffers;
+	public final class Builder extends AbstractBuilder<Builder, RingBuffer> {
+		private Builder() {}
+
+		/**
+		 * Allocates buffers outside of Java heap, so that the cached data
+		 * does not increase heap size and GC pauses
+		 */
+		public Builder withDirect(boolean direct) {
+			checkNotBuilt(this);
+			RingBuffer.this.direct = direct;
+			return this;
+		}
+
+		/**
+		 * Maps buffers onto segment files in a given directory.
+		 * The data of mapped buffers is stored outside of Java heap and survives restarts,
+		 * so that a restarted server starts with the data that was cached before
+		 */
+		public Builder withPersistenceDirectory(Path persistenceDirectory) {
+			checkNotBuilt(this);
+			RingBuffer.this.persistenceDirectory = persistenceDirectory;
+			return this;
+		}
+
+		@Override
+		protected RingBuffer doBuild() {
+			ringBuffers = new Buffer[amountBuffers];
+			if (persistenceDirectory != null) {
+				try {
+					Files.createDirectories(persistenceDirectory);
+					for (int i = 0; i < amountBuffers; i++) {
+						ringBuffers[i] = Buffer.ofFile(persistenceDirectory.resolve("segment-" + i + ".dat"), bufferCapacity);
+						if (ringBuffers[i].getGeneration() > ringBuffers[currentBuffer].getGeneration()) {
+							currentBuffer = i;
+						}
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				generation = ringBuffers[currentBuffer].getGeneration();
+			} else {
+				for (int i = 0; i < amountBuffers; i++) {
+					ringBuffers[i] = direct ? Buffer.ofDirect(bufferCapacity) : new Buffer(bufferCapacity);
+				}
+			}
+			return RingBuffer.this;
+		}
 	}
 
 	/**
@@ -172,6 +352,7 @@ public final class RingBuffer implements RingBufferMBean {
 	 * @param key of your item
 	 * @return the item in case your item is still present in {@link Buffer}
 	 */
+	@Override
 	public Slice get(byte[] key) {
 		statsGets.recordEvent();
 		for (int i = 0; i < ringBuffers.length; i++) {
@@ -193,6 +374,7 @@ public final class RingBuffer implements RingBufferMBean {
 	 * @param key  is used as a pointer for the cached {@code data}
 	 * @param data is thing to need to cache
 	 */
+	@Override
 	public void put(byte[] key, byte[] data) {
 		put(key, data, 0, data.length);
 	}
@@ -201,20 +383,41 @@ public final class RingBuffer implements RingBufferMBean {
 	 * The same to the above method,
 	 * there are extra params to handle the {@code data}
 	 */
+	@Override
 	public void put(byte[] key, byte[] data, int offset, int length) {
-		if (CHECKS) checkArgument(data.length <= ringBuffers[currentBuffer].array.length,
+		if (CHECKS) checkArgument(ringBuffers[currentBuffer].recordSize(key, length) <= ringBuffers[currentBuffer].capacity(),
 			"Size of data is larger than the size of buffer");
 		statsPuts.recordEvent();
-		if (ringBuffers[currentBuffer].remaining() < length) {
+		if (ringBuffers[currentBuffer].remaining() < ringBuffers[currentBuffer].recordSize(key, length)) {
 			if (currentBuffer == ringBuffers.length - 1) {
 				countCycles++;
 			}
 			currentBuffer = (currentBuffer + 1) % ringBuffers.length;
-			ringBuffers[currentBuffer].clear();
+			ringBuffers[currentBuffer].clear(++generation);
 		}
 		ringBuffers[currentBuffer].put(key, data, offset, length);
 	}
 
+	/**
+	 * Flushes the contents of mapped buffers to the segment files
+	 */
+	@Override
+	public void flush() {
+		for (Buffer ringBuffer : ringBuffers) {
+			ringBuffer.flush();
+		}
+	}
+
+	@Override
+	public boolean isPersistent() {
+		return persistenceDirectory != null;
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+
 	private long getLifetimeMillis() {
 		return currentTimeMillis() - ringBuffers[(currentBuffer + 1) % ringBuffers.length].getTimestamp();
 	}
@@ -294,7 +497,7 @@ public final class RingBuffer implements RingBufferMBean {
 	public long getSize() {
 		long size = 0;
 		for (Buffer ringBuffer : ringBuffers) {
-			size += ringBuffer.position;
+			size += ringBuffer.size();
 		}
 		return size;
 	}
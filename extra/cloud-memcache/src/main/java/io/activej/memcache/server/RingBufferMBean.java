@@ -19,6 +19,8 @@ package io.activej.memcache.server;
 public interface RingBufferMBean {
 	void reset();
 
+	void flush();
+
 	String getStatsPuts();
 
 	double getStatsPutsRate();
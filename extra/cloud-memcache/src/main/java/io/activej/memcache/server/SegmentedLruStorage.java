@@ -0,0 +1,624 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.memcache.server;
+
+import com.carrotsearch.hppc.ObjectLongHashMap;
+import io.activej.common.MemSize;
+import io.activej.common.builder.AbstractBuilder;
+import io.activej.common.time.CurrentTimeProvider;
+import io.activej.jmx.stats.EventStats;
+import io.activej.memcache.protocol.MemcacheRpcMessage.Slice;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A storage engine with a single global index, memory divided into slab classes
+ * by item size and a segmented LRU eviction within each slab class.
+ * <p>
+ * Memory is allocated in pages of a fixed size, each page belongs to a slab class
+ * and is split into chunks of the class chunk size. An item occupies a single chunk
+ * of the smallest class which fits the item.
+ * <p>
+ * Items of each slab class are kept in two LRU segments. New items are put into
+ * a probationary segment, items which are read again are promoted to a protected
+ * segment. When a protected segment outgrows its share, its least recently used items
+ * are demoted back to the probationary segment. Items are evicted from the tail of
+ * the probationary segment first, so that a burst of writes does not wipe out
+ * frequently read items.
+ * <p>
+ * Items may have a time-to-live, expired items are removed lazily on access
+ * and are preferred to live items when choosing a victim for eviction.
+ * <p>
+ * This class is not thread-safe and should be used from a single thread
+ */
+public final class SegmentedLruStorage implements IMemcacheStorage, SegmentedLruStorageMBean {
+	public static final MemSize DEFAULT_PAGE_SIZE = MemSize.megabytes(1);
+	public static final MemSize DEFAULT_MIN_CHUNK_SIZE = MemSize.bytes(64);
+	public static final double DEFAULT_GROWTH_FACTOR = 1.25;
+	public static final double DEFAULT_PROTECTED_RATIO = 0.8;
+
+	private static final int NIL = -1;
+	private static final byte FREE = 0;
+	private static final byte PROBATION = 1;
+	private static final byte PROTECTED = 2;
+
+	/**
+	 * A number of least recently used items of each segment which are checked for expiration before evicting a live item
+	 */
+	private static final int EVICTION_SCAN_DEPTH = 5;
+
+	private long maxMemory;
+	private int pageSize = DEFAULT_PAGE_SIZE.toInt();
+	private int minChunkSize = DEFAULT_MIN_CHUNK_SIZE.toInt();
+	private double growthFactor = DEFAULT_GROWTH_FACTOR;
+	private double protectedRatio = DEFAULT_PROTECTED_RATIO;
+	private long defaultTtlMillis;
+	private CurrentTimeProvider now = CurrentTimeProvider.ofSystem();
+
+	private final ObjectLongHashMap<byte[]> index = new ObjectLongHashMap<>() {
+		@Override
+		protected int hashKey(byte[] key) {
+			return Arrays.hashCode(key);
+		}
+
+		@Override
+		protected boolean equals(Object v1, Object v2) {
+			return Arrays.equals((byte[]) v1, (byte[]) v2);
+		}
+	};
+
+	private SlabClass[] slabClasses;
+	private long allocatedMemory;
+
+	// JMX
+	private static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
+	private final EventStats statsPuts = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats statsGets = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats statsMisses = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats statsEvictions = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats statsExpirations = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats statsRejections = EventStats.create(SMOOTHING_WINDOW);
+	private long size;
+
+	private SegmentedLruStorage() {
+	}
+
+	public static SegmentedLruStorage create(MemSize maxMemory) {
+		return builder(maxMemory).build();
+	}
+
+	public static Builder builder(MemSize maxMemory) {
+		checkArgument(maxMemory.toLong() > 0, "Maximum memory should be greater than 0");
+		SegmentedLruStorage storage = new SegmentedLruStorage();
+		storage.maxMemory = maxMemory.toLong();
+		return storage.new Builder();
+	}
+
+	public final class Builder extends AbstractBuilder<Builder, SegmentedLruStorage> {
+		private Builder() {}
+
+		/**
+		 * Sets a size of memory pages, which is also a maximum size of an item
+		 */
+		public Builder withPageSize(MemSize pageSize) {
+			checkNotBuilt(this);
+			checkArgument(pageSize.toLong() > 0 && pageSize.toLong() <= Integer.MAX_VALUE, "Illegal page size");
+			SegmentedLruStorage.this.pageSize = pageSize.toInt();
+			return this;
+		}
+
+		/**
+		 * Sets a chunk size of the smallest slab class
+		 */
+		public Builder withMinChunkSize(MemSize minChunkSize) {
+			checkNotBuilt(this);
+			checkArgument(minChunkSize.toLong() > 0, "Minimum chunk size should be greater than 0");
+			SegmentedLruStorage.this.minChunkSize = minChunkSize.toInt();
+			return this;
+		}
+
+		/**
+		 * Sets a factor by which chunk sizes of consecutive slab classes grow
+		 */
+		public Builder withGrowthFactor(double growthFactor) {
+			checkNotBuilt(this);
+			checkArgument(growthFactor > 1.0, "Growth factor should be greater than 1");
+			SegmentedLruStorage.this.growthFactor = growthFactor;
+			return this;
+		}
+
+		/**
+		 * Sets a maximum share of items in a protected segment of each slab class
+		 */
+		public Builder withProtectedRatio(double protectedRatio) {
+			checkNotBuilt(this);
+			checkArgument(protectedRatio >= 0.0 && protectedRatio < 1.0, "Protected ratio should be in range [0, 1)");
+			SegmentedLruStorage.this.protectedRatio = protectedRatio;
+			return this;
+		}
+
+		/**
+		 * Sets a time-to-live of items which are put without an explicit time-to-live
+		 */
+		public Builder withDefaultTtl(Duration defaultTtl) {
+			checkNotBuilt(this);
+			checkArgument(!defaultTtl.isNegative(), "Time-to-live should not be negative");
+			SegmentedLruStorage.this.defaultTtlMillis = defaultTtl.toMillis();
+			return this;
+		}
+
+		public Builder withCurrentTimeProvider(CurrentTimeProvider now) {
+			checkNotBuilt(this);
+			SegmentedLruStorage.this.now = now;
+			return this;
+		}
+
+		@Override
+		protected SegmentedLruStorage doBuild() {
+			checkArgument(minChunkSize <= pageSize, "Minimum chunk size should not be greater than page size");
+			checkArgument(pageSize <= maxMemory, "Page size should not be greater than maximum memory");
+			List<SlabClass> classes = new ArrayList<>();
+			int chunkSize = minChunkSize;
+			while (chunkSize < pageSize) {
+				classes.add(new SlabClass(chunkSize, pageSize / chunkSize));
+				chunkSize = Math.max(chunkSize + 1, (int) Math.min(pageSize, ((long) (chunkSize * growthFactor) + 7) & ~7L));
+			}
+			classes.add(new SlabClass(pageSize, 1));
+			slabClasses = classes.toArray(new SlabClass[0]);
+			return SegmentedLruStorage.this;
+		}
+	}
+
+	@Override
+	public @Nullable Slice get(byte[] key) {
+		statsGets.recordEvent();
+		long location = index.getOrDefault(key, -1L);
+		if (location < 0) {
+			statsMisses.recordEvent();
+			return null;
+		}
+		SlabClass slabClass = slabClasses[(int) (location >>> 32)];
+		int chunk = (int) location;
+		if (slabClass.isExpired(chunk, now.currentTimeMillis())) {
+			statsExpirations.recordEvent();
+			remove(slabClass, chunk);
+			statsMisses.recordEvent();
+			return null;
+		}
+		slabClass.touch(chunk);
+		return slabClass.slice(chunk);
+	}
+
+	@Override
+	public void put(byte[] key, byte[] data, int offset, int length) {
+		put(key, data, offset, length, defaultTtlMillis);
+	}
+
+	/**
+	 * Stores data for a given key with a given time-to-live
+	 *
+	 * @param ttl a time-to-live of an item, zero means that an item never expires
+	 */
+	public void put(byte[] key, byte[] data, int offset, int length, Duration ttl) {
+		checkArgument(!ttl.isNegative(), "Time-to-live should not be negative");
+		put(key, data, offset, length, ttl.toMillis());
+	}
+
+	private void put(byte[] key, byte[] data, int offset, int length, long ttlMillis) {
+		checkArgument(length <= pageSize, "Size of data is larger than the size of page");
+		statsPuts.recordEvent();
+
+		int classIndex = classIndexOf(length);
+		SlabClass slabClass = slabClasses[classIndex];
+		long location = index.getOrDefault(key, -1L);
+		int chunk;
+		if (location >= 0 && (int) (location >>> 32) == classIndex) {
+			// an old item fits into the same slab class, its chunk is reused
+			freeChunk(slabClass, (int) location);
+			chunk = slabClass.pollFree();
+		} else {
+			// an old item is only freed once a new chunk is secured, so a rejected put keeps it
+			chunk = allocateChunk(slabClass);
+			if (chunk == NIL) {
+				statsRejections.recordEvent();
+				return;
+			}
+			// an allocation may have evicted the old item
+			location = index.getOrDefault(key, -1L);
+			if (location >= 0) {
+				freeChunk(slabClasses[(int) (location >>> 32)], (int) location);
+			}
+		}
+		long expiration = ttlMillis == 0 ? 0 : now.currentTimeMillis() + ttlMillis;
+		slabClass.store(chunk, key, data, offset, length, expiration);
+		size += length;
+		index.put(key, (long) classIndex << 32 | chunk);
+	}
+
+	private int classIndexOf(int length) {
+		int lo = 0;
+		int hi = slabClasses.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (slabClasses[mid].chunkSize < length) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private int allocateChunk(SlabClass slabClass) {
+		if (slabClass.freeHead == NIL) {
+			if (allocatedMemory + pageSize <= maxMemory) {
+				allocatedMemory += pageSize;
+				slabClass.addPage();
+			} else if (slabClass.items() != 0) {
+				evict(slabClass);
+			} else {
+				SlabClass donor = null;
+				for (SlabClass candidate : slabClasses) {
+					if (candidate != slabClass && (donor == null || candidate.pages.length > donor.pages.length)) {
+						donor = candidate;
+					}
+				}
+				if (donor == null || donor.pages.length == 0) return NIL;
+				releaseLastPage(donor);
+				slabClass.addPage();
+			}
+		}
+		return slabClass.pollFree();
+	}
+
+	private void evict(SlabClass slabClass) {
+		long currentTime = now.currentTimeMillis();
+		int expired = slabClass.findExpired(PROBATION, currentTime);
+		if (expired == NIL) {
+			expired = slabClass.findExpired(PROTECTED, currentTime);
+		}
+		if (expired != NIL) {
+			statsExpirations.recordEvent();
+			remove(slabClass, expired);
+			return;
+		}
+		int victim = slabClass.tails[PROBATION] != NIL ? slabClass.tails[PROBATION] : slabClass.tails[PROTECTED];
+		statsEvictions.recordEvent();
+		slabClass.evictions++;
+		remove(slabClass, victim);
+	}
+
+	private void releaseLastPage(SlabClass slabClass) {
+		int newCapacity = slabClass.capacity - slabClass.chunksPerPage;
+		for (int chunk = newCapacity; chunk < slabClass.capacity; chunk++) {
+			if (slabClass.segments[chunk] != FREE) {
+				statsEvictions.recordEvent();
+				slabClass.evictions++;
+				remove(slabClass, chunk);
+			}
+		}
+		slabClass.removeLastPage();
+	}
+
+	private void remove(SlabClass slabClass, int chunk) {
+		index.remove(slabClass.keys[chunk]);
+		freeChunk(slabClass, chunk);
+	}
+
+	private void freeChunk(SlabClass slabClass, int chunk) {
+		size -= slabClass.lengths[chunk];
+		slabClass.free(chunk);
+	}
+
+	private final class SlabClass {
+		final int chunkSize;
+		final int chunksPerPage;
+
+		byte[][] pages = new byte[0][];
+		int capacity;
+
+		byte[][] keys = new byte[0][];
+		int[] lengths = new int[0];
+		long[] expirations = new long[0];
+		byte[] segments = new byte[0];
+		int[] prev = new int[0];
+		int[] next = new int[0];
+
+		int freeHead = NIL;
+
+		final int[] heads = {NIL, NIL, NIL};
+		final int[] tails = {NIL, NIL, NIL};
+		final int[] sizes = new int[3];
+
+		long evictions;
+
+		SlabClass(int chunkSize, int chunksPerPage) {
+			this.chunkSize = chunkSize;
+			this.chunksPerPage = chunksPerPage;
+		}
+
+		int items() {
+			return sizes[PROBATION] + sizes[PROTECTED];
+		}
+
+		boolean isExpired(int chunk, long currentTime) {
+			long expiration = expirations[chunk];
+			return expiration != 0 && expiration <= currentTime;
+		}
+
+		/**
+		 * Looks for an expired item among a few least recently used items of a given segment
+		 *
+		 * @return a chunk of an expired item, or {@code NIL} if there is none
+		 */
+		int findExpired(byte segment, long currentTime) {
+			int chunk = tails[segment];
+			for (int i = 0; i < EVICTION_SCAN_DEPTH && chunk != NIL; i++) {
+				if (isExpired(chunk, currentTime)) return chunk;
+				chunk = prev[chunk];
+			}
+			return NIL;
+		}
+
+		Slice slice(int chunk) {
+			return new Slice(pages[chunk / chunksPerPage], (chunk % chunksPerPage) * chunkSize, lengths[chunk]);
+		}
+
+		void store(int chunk, byte[] key, byte[] data, int offset, int length, long expiration) {
+			System.arraycopy(data, offset, pages[chunk / chunksPerPage], (chunk % chunksPerPage) * chunkSize, length);
+			keys[chunk] = key;
+			lengths[chunk] = length;
+			expirations[chunk] = expiration;
+			linkFirst(PROBATION, chunk);
+		}
+
+		void touch(int chunk) {
+			unlink(chunk);
+			linkFirst(PROTECTED, chunk);
+			int maxProtected = (int) (capacity * protectedRatio);
+			while (sizes[PROTECTED] > maxProtected) {
+				int demoted = tails[PROTECTED];
+				unlink(demoted);
+				linkFirst(PROBATION, demoted);
+			}
+		}
+
+		void free(int chunk) {
+			unlink(chunk);
+			keys[chunk] = null;
+			lengths[chunk] = 0;
+			expirations[chunk] = 0;
+			next[chunk] = freeHead;
+			freeHead = chunk;
+		}
+
+		int pollFree() {
+			int chunk = freeHead;
+			freeHead = next[chunk];
+			return chunk;
+		}
+
+		void addPage() {
+			pages = Arrays.copyOf(pages, pages.length + 1);
+			pages[pages.length - 1] = new byte[chunksPerPage * chunkSize];
+			int newCapacity = capacity + chunksPerPage;
+			if (keys.length < newCapacity) {
+				keys = Arrays.copyOf(keys, newCapacity);
+				lengths = Arrays.copyOf(lengths, newCapacity);
+				expirations = Arrays.copyOf(expirations, newCapacity);
+				segments = Arrays.copyOf(segments, newCapacity);
+				prev = Arrays.copyOf(prev, newCapacity);
+				next = Arrays.copyOf(next, newCapacity);
+			}
+			for (int chunk = newCapacity - 1; chunk >= capacity; chunk--) {
+				segments[chunk] = FREE;
+				next[chunk] = freeHead;
+				freeHead = chunk;
+			}
+			capacity = newCapacity;
+		}
+
+		void removeLastPage() {
+			pages = Arrays.copyOf(pages, pages.length - 1);
+			capacity -= chunksPerPage;
+			freeHead = NIL;
+			for (int chunk = capacity - 1; chunk >= 0; chunk--) {
+				if (segments[chunk] == FREE) {
+					next[chunk] = freeHead;
+					freeHead = chunk;
+				}
+			}
+		}
+
+		private void linkFirst(byte segment, int chunk) {
+			int head = heads[segment];
+			segments[chunk] = segment;
+			prev[chunk] = NIL;
+			next[chunk] = head;
+			if (head != NIL) {
+				prev[head] = chunk;
+			} else {
+				tails[segment] = chunk;
+			}
+			heads[segment] = chunk;
+			sizes[segment]++;
+		}
+
+		private void unlink(int chunk) {
+			byte segment = segments[chunk];
+			int p = prev[chunk];
+			int n = next[chunk];
+			if (p != NIL) {
+				next[p] = n;
+			} else {
+				heads[segment] = n;
+			}
+			if (n != NIL) {
+				prev[n] = p;
+			} else {
+				tails[segment] = p;
+			}
+			segments[chunk] = FREE;
+			sizes[segment]--;
+		}
+
+		@Override
+		public String toString() {
+			return chunkSize + "," + pages.length + "," + items() + "," + sizes[PROTECTED] + "," + evictions;
+		}
+	}
+
+	// JMX
+	@Override
+	public void reset() {
+		statsMisses.resetStats();
+		statsEvictions.resetStats();
+		statsExpirations.resetStats();
+		statsRejections.resetStats();
+		for (SlabClass slabClass : slabClasses) {
+			slabClass.evictions = 0;
+		}
+	}
+
+	@Override
+	public String getStatsPuts() {
+		return statsPuts.toString();
+	}
+
+	@Override
+	public double getStatsPutsRate() {
+		return statsPuts.getSmoothedRate();
+	}
+
+	@Override
+	public long getStatsPutsTotal() {
+		return statsPuts.getTotalCount();
+	}
+
+	@Override
+	public String getStatsGets() {
+		return statsGets.toString();
+	}
+
+	@Override
+	public double getStatsGetsRate() {
+		return statsGets.getSmoothedRate();
+	}
+
+	@Override
+	public long getStatsGetsTotal() {
+		return statsGets.getTotalCount();
+	}
+
+	@Override
+	public String getStatsMisses() {
+		return statsMisses.toString();
+	}
+
+	@Override
+	public double getStatsMissesRate() {
+		return statsMisses.getSmoothedRate();
+	}
+
+	@Override
+	public long getStatsMissesTotal() {
+		return statsMisses.getTotalCount();
+	}
+
+	@Override
+	public String getStatsEvictions() {
+		return statsEvictions.toString();
+	}
+
+	@Override
+	public double getStatsEvictionsRate() {
+		return statsEvictions.getSmoothedRate();
+	}
+
+	@Override
+	public long getStatsEvictionsTotal() {
+		return statsEvictions.getTotalCount();
+	}
+
+	@Override
+	public String getStatsExpirations() {
+		return statsExpirations.toString();
+	}
+
+	@Override
+	public long getStatsExpirationsTotal() {
+		return statsExpirations.getTotalCount();
+	}
+
+	@Override
+	public String getStatsRejections() {
+		return statsRejections.toString();
+	}
+
+	@Override
+	public long getStatsRejectionsTotal() {
+		return statsRejections.getTotalCount();
+	}
+
+	/**
+	 * Is used to figure out the amount of items which are stored
+	 *
+	 * @return amount of stored items
+	 */
+	@Override
+	public int getItems() {
+		return index.size();
+	}
+
+	/**
+	 * Is used to get the total size of stored items
+	 *
+	 * @return total size of stored items
+	 */
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public long getAllocatedMemory() {
+		return allocatedMemory;
+	}
+
+	@Override
+	public long getMaxMemory() {
+		return maxMemory;
+	}
+
+	@Override
+	public List<String> getSlabClasses() {
+		List<String> result = new ArrayList<>(slabClasses.length + 1);
+		result.add("ChunkSize,Pages,Items,Protected,Evicted");
+		for (SlabClass slabClass : slabClasses) {
+			if (slabClass.pages.length != 0 || slabClass.evictions != 0) {
+				result.add(slabClass.toString());
+			}
+		}
+		return result;
+	}
+}
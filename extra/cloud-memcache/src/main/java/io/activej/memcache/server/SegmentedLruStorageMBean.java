@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.memcache.server;
+
+import java.util.List;
+
+public interface SegmentedLruStorageMBean {
+	void reset();
+
+	String getStatsPuts();
+
+	double getStatsPutsRate();
+
+	long getStatsPutsTotal();
+
+	String getStatsGets();
+
+	double getStatsGetsRate();
+
+	long getStatsGetsTotal();
+
+	String getStatsMisses();
+
+	double getStatsMissesRate();
+
+	long getStatsMissesTotal();
+
+	String getStatsEvictions();
+
+	double getStatsEvictionsRate();
+
+	long getStatsEvictionsTotal();
+
+	String getStatsExpirations();
+
+	long getStatsExpirationsTotal();
+
+	String getStatsRejections();
+
+	long getStatsRejectionsTotal();
+
+	int getItems();
+
+	long getSize();
+
+	long getAllocatedMemory();
+
+	long getMaxMemory();
+
+	List<String> getSlabClasses();
+}
@@ -1,14 +1,23 @@
 package io.activej.memcache.server;
 
 import io.activej.memcache.protocol.MemcacheRpcMessage.Slice;
+import io.activej.memcache.protocol.SliceSerializerDef;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
 
 public class RingBufferTest {
 	private final byte[] BASE_KEY = new byte[]{0};
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Test
 	public void testGetItem() {
 		int amountBuffers = 10;
@@ -129,6 +138,106 @@ public class RingBufferTest {
 		assertEquals(expectedNumberCycles, buffer.getFullCycles());
 	}
 
+	@Test
+	public void testDirectBuffers() {
+		RingBuffer ringBuffer = RingBuffer.builder(2, 100)
+			.withDirect(true)
+			.build();
+
+		byte[] key = {1, 2, 3, 4};
+		byte[] value = {10, 20, 30};
+		ringBuffer.put(key, value);
+
+		Slice slice = ringBuffer.get(key);
+		assertNotNull(slice);
+		assertFalse(slice.hasArray());
+		assertTrue(slice.buffer().isDirect());
+		assertArrayEquals(value, slice.toArray());
+
+		byte[] output = new byte[10];
+		int end = SliceSerializerDef.write(output, 0, slice);
+		assertEquals(1 + value.length, end);
+		assertEquals(value.length, output[0]);
+		assertArrayEquals(value, Arrays.copyOfRange(output, 1, end));
+	}
+
+	@Test
+	public void testPersistence() throws IOException {
+		Path directory = temporaryFolder.newFolder().toPath();
+		int amountBuffers = 3;
+		int bufferCapacity = 100;
+
+		RingBuffer ringBuffer = RingBuffer.builder(amountBuffers, bufferCapacity)
+			.withPersistenceDirectory(directory)
+			.build();
+		for (int i = 0; i < 10; i++) {
+			ringBuffer.put(new byte[]{(byte) i}, new byte[]{(byte) i, (byte) (i * 2)});
+		}
+		int items = ringBuffer.getItems();
+		long size = ringBuffer.getSize();
+		String currentBuffer = ringBuffer.getCurrentBuffer();
+		ringBuffer.close();
+
+		RingBuffer restored = RingBuffer.builder(amountBuffers, bufferCapacity)
+			.withPersistenceDirectory(directory)
+			.build();
+		assertEquals(items, restored.getItems());
+		assertEquals(size, restored.getSize());
+		assertEquals(currentBuffer, restored.getCurrentBuffer());
+		for (int i = 0; i < 10; i++) {
+			Slice slice = restored.get(new byte[]{(byte) i});
+			assertNotNull(slice);
+			assertArrayEquals(new byte[]{(byte) i, (byte) (i * 2)}, slice.toArray());
+		}
+
+		restored.put(new byte[]{0}, new byte[]{42});
+		assertArrayEquals(new byte[]{42}, restored.get(new byte[]{0}).toArray());
+		restored.close();
+	}
+
+	@Test
+	public void testPersistenceAfterManyCycles() throws IOException {
+		Path directory = temporaryFolder.newFolder().toPath();
+		int amountBuffers = 3;
+		int bufferCapacity = 100;
+
+		RingBuffer ringBuffer = RingBuffer.builder(amountBuffers, bufferCapacity)
+			.withPersistenceDirectory(directory)
+			.build();
+		// all segments are rotated within a few milliseconds, so their timestamps are likely to be equal
+		for (int i = 0; i < 100; i++) {
+			ringBuffer.put(new byte[]{(byte) i}, new byte[]{(byte) i, (byte) (i * 2)});
+		}
+		String currentBuffer = ringBuffer.getCurrentBuffer();
+		ringBuffer.close();
+
+		RingBuffer restored = RingBuffer.builder(amountBuffers, bufferCapacity)
+			.withPersistenceDirectory(directory)
+			.build();
+		assertEquals(currentBuffer, restored.getCurrentBuffer());
+		restored.put(new byte[]{100}, new byte[]{100});
+		assertArrayEquals(new byte[]{99, (byte) 198}, restored.get(new byte[]{99}).toArray());
+		assertArrayEquals(new byte[]{100}, restored.get(new byte[]{100}).toArray());
+		restored.close();
+	}
+
+	@Test
+	public void testPersistenceWithDifferentCapacity() throws IOException {
+		Path directory = temporaryFolder.newFolder().toPath();
+
+		RingBuffer ringBuffer = RingBuffer.builder(2, 100)
+			.withPersistenceDirectory(directory)
+			.build();
+		ringBuffer.put(new byte[]{1}, new byte[]{1});
+		ringBuffer.close();
+
+		RingBuffer restored = RingBuffer.builder(2, 200)
+			.withPersistenceDirectory(directory)
+			.build();
+		assertEquals(0, restored.getItems());
+		assertNull(restored.get(new byte[]{1}));
+	}
+
 	private void fillBufferFully(RingBuffer buffer, byte[] item, int finalNumberItems) {
 		for (int i = 0; i < finalNumberItems; i++) {
 			byte[] newKey = new byte[i];
@@ -0,0 +1,195 @@
+package io.activej.memcache.server;
+
+import io.activej.memcache.protocol.MemcacheRpcMessage.Slice;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static io.activej.common.MemSize.bytes;
+import static io.activej.common.MemSize.megabytes;
+import static org.junit.Assert.*;
+
+public class SegmentedLruStorageTest {
+
+	@Test
+	public void testPutAndGet() {
+		SegmentedLruStorage storage = SegmentedLruStorage.create(megabytes(4));
+
+		storage.put(key(1), value(1, 10));
+		storage.put(key(2), value(2, 100));
+
+		assertArrayEquals(value(1, 10), toBytes(storage.get(key(1))));
+		assertArrayEquals(value(2, 100), toBytes(storage.get(key(2))));
+		assertNull(storage.get(key(3)));
+		assertEquals(2, storage.getItems());
+		assertEquals(110, storage.getSize());
+		assertEquals(1, storage.getStatsMissesTotal());
+	}
+
+	@Test
+	public void testOverwrite() {
+		SegmentedLruStorage storage = SegmentedLruStorage.create(megabytes(4));
+
+		storage.put(key(1), value(1, 10));
+		storage.put(key(1), value(2, 200));
+
+		assertArrayEquals(value(2, 200), toBytes(storage.get(key(1))));
+		assertEquals(1, storage.getItems());
+		assertEquals(200, storage.getSize());
+	}
+
+	@Test
+	public void testFrequentlyReadItemsSurviveWriteBurst() {
+		SegmentedLruStorage storage = SegmentedLruStorage.builder(bytes(1024))
+			.withPageSize(bytes(1024))
+			.withMinChunkSize(bytes(64))
+			.build();
+
+		// 16 chunks of 64 bytes
+		for (int i = 0; i < 4; i++) {
+			storage.put(key(i), value(i, 64));
+			assertNotNull(storage.get(key(i)));
+		}
+
+		for (int i = 100; i < 200; i++) {
+			storage.put(key(i), value(i, 64));
+		}
+
+		for (int i = 0; i < 4; i++) {
+			assertArrayEquals(value(i, 64), toBytes(storage.get(key(i))));
+		}
+		assertEquals(16, storage.getItems());
+		assertEquals(100 - 12, storage.getStatsEvictionsTotal());
+		assertNull(storage.get(key(100)));
+		assertNotNull(storage.get(key(199)));
+	}
+
+	@Test
+	public void testExpiration() {
+		long[] time = {1000};
+		SegmentedLruStorage storage = SegmentedLruStorage.builder(megabytes(4))
+			.withCurrentTimeProvider(() -> time[0])
+			.withDefaultTtl(Duration.ofSeconds(10))
+			.build();
+
+		storage.put(key(1), value(1, 10));
+		byte[] value = value(2, 10);
+		storage.put(key(2), value, 0, value.length, Duration.ZERO);
+
+		time[0] += 9_999;
+		assertNotNull(storage.get(key(1)));
+
+		time[0] += 1;
+		assertNull(storage.get(key(1)));
+		assertNotNull(storage.get(key(2)));
+		assertEquals(1, storage.getStatsExpirationsTotal());
+		assertEquals(1, storage.getItems());
+		assertEquals(10, storage.getSize());
+	}
+
+	@Test
+	public void testExpiredItemsAreEvictedFirst() {
+		long[] time = {1000};
+		SegmentedLruStorage storage = SegmentedLruStorage.builder(bytes(1024))
+			.withPageSize(bytes(1024))
+			.withMinChunkSize(bytes(64))
+			.withCurrentTimeProvider(() -> time[0])
+			.build();
+
+		// 16 chunks of 64 bytes, a live item is at the tail of probationary segment
+		byte[] live = value(0, 64);
+		storage.put(key(0), live, 0, live.length, Duration.ZERO);
+		for (int i = 1; i < 16; i++) {
+			byte[] value = value(i, 64);
+			storage.put(key(i), value, 0, value.length, i == 1 ? Duration.ofSeconds(10) : Duration.ZERO);
+		}
+
+		time[0] += 10_000;
+		storage.put(key(100), value(100, 64));
+
+		assertArrayEquals(live, toBytes(storage.get(key(0))));
+		assertNull(storage.get(key(1)));
+		assertNotNull(storage.get(key(100)));
+		assertEquals(1, storage.getStatsExpirationsTotal());
+		assertEquals(0, storage.getStatsEvictionsTotal());
+		assertEquals(16, storage.getItems());
+	}
+
+	@Test
+	public void testPageReassignment() {
+		SegmentedLruStorage storage = SegmentedLruStorage.builder(bytes(2048))
+			.withPageSize(bytes(1024))
+			.withMinChunkSize(bytes(64))
+			.build();
+
+		for (int i = 0; i < 32; i++) {
+			storage.put(key(i), value(i, 64));
+		}
+		assertEquals(32, storage.getItems());
+
+		storage.put(key(1000), value(1000, 1000));
+
+		assertArrayEquals(value(1000, 1000), toBytes(storage.get(key(1000))));
+		assertEquals(17, storage.getItems());
+		assertEquals(2048, storage.getAllocatedMemory());
+		assertEquals(0, storage.getStatsRejectionsTotal());
+	}
+
+	@Test
+	public void testOverwriteWhenMemoryIsFull() {
+		SegmentedLruStorage storage = SegmentedLruStorage.builder(bytes(2048))
+			.withPageSize(bytes(1024))
+			.withMinChunkSize(bytes(64))
+			.build();
+
+		// 32 chunks of 64 bytes
+		for (int i = 0; i < 32; i++) {
+			storage.put(key(i), value(i, 64));
+		}
+		assertEquals(2048, storage.getAllocatedMemory());
+
+		storage.put(key(0), value(100, 60));
+
+		assertArrayEquals(value(100, 60), toBytes(storage.get(key(0))));
+		for (int i = 1; i < 32; i++) {
+			assertArrayEquals(value(i, 64), toBytes(storage.get(key(i))));
+		}
+		assertEquals(32, storage.getItems());
+		assertEquals(31 * 64 + 60, storage.getSize());
+		assertEquals(0, storage.getStatsEvictionsTotal());
+
+		storage.put(key(1), value(101, 1000));
+
+		assertArrayEquals(value(101, 1000), toBytes(storage.get(key(1))));
+		assertArrayEquals(value(100, 60), toBytes(storage.get(key(0))));
+		assertNull(storage.get(key(31)));
+		assertEquals(16, storage.getItems());
+		assertEquals(60 + 14 * 64 + 1000, storage.getSize());
+		assertEquals(0, storage.getStatsRejectionsTotal());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testItemLargerThanPage() {
+		SegmentedLruStorage storage = SegmentedLruStorage.builder(bytes(4096))
+			.withPageSize(bytes(1024))
+			.build();
+
+		storage.put(key(1), value(1, 1025));
+	}
+
+	private static byte[] key(int i) {
+		return new byte[]{(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i};
+	}
+
+	private static byte[] value(int i, int length) {
+		byte[] bytes = new byte[length];
+		Arrays.fill(bytes, (byte) i);
+		return bytes;
+	}
+
+	private static byte[] toBytes(Slice slice) {
+		assertNotNull(slice);
+		return Arrays.copyOfRange(slice.array(), slice.offset(), slice.offset() + slice.length());
+	}
+}
@@ -26,6 +26,7 @@ import io.activej.common.time.Stopwatch;
 import io.activej.csp.process.frame.ChannelFrameDecoder;
 import io.activej.csp.process.frame.ChannelFrameEncoder;
 import io.activej.csp.process.frame.FrameFormat;
+import io.activej.csp.supplier.ChannelSupplier;
 import io.activej.csp.supplier.ChannelSuppliers;
 import io.activej.datastream.consumer.StreamConsumer;
 import io.activej.datastream.consumer.StreamConsumers;
@@ -51,9 +52,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 import static io.activej.common.Checks.checkArgument;
 import static io.activej.common.function.FunctionEx.identity;
@@ -67,6 +70,7 @@ public final class Multilog<T> extends AbstractReactive
 	private static final Logger logger = LoggerFactory.getLogger(Multilog.class);
 
 	public static final MemSize DEFAULT_BUFFER_SIZE = MemSize.kilobytes(256);
+	public static final MemSize DEFAULT_READ_AHEAD_BUFFER_SIZE = MemSize.megabytes(1);
 
 	private final IFileSystem fileSystem;
 	private final LogNamingScheme namingScheme;
@@ -77,6 +81,10 @@ public final class Multilog<T> extends AbstractReactive
 	private boolean ignoreMalformedLogs;
 	private final FrameFormat frameFormat;
 
+	private @Nullable Executor decodeExecutor;
+	private int readAheadFiles;
+	private MemSize readAheadBufferSize = DEFAULT_READ_AHEAD_BUFFER_SIZE;
+
 	private final StreamRegistry<String> streamReads = StreamRegistry.create();
 	private final StreamRegistry<String> streamWrites = StreamRegistry.create();
 
@@ -139,6 +147,29 @@ public final class Multilog<T> extends AbstractReactive
 			return this;
 		}
 
+		/**
+		 * Enables parallel reading of log files.
+		 * <p>
+		 * While a log file is being read, downloads of up to {@code readAheadFiles} next log files
+		 * are started, each of them buffering up to {@link #withReadAheadBufferSize read-ahead buffer size}
+		 * bytes of encoded data. Frame decoding and deserialization are moved to a given executor.
+		 * The order of items and the resulting {@link LogPosition} are the same as for a sequential read.
+		 */
+		public Builder withParallelRead(Executor decodeExecutor, int readAheadFiles) {
+			checkNotBuilt(this);
+			checkArgument(readAheadFiles >= 0, "Number of read-ahead files cannot be negative");
+			Multilog.this.decodeExecutor = decodeExecutor;
+			Multilog.this.readAheadFiles = readAheadFiles;
+			return this;
+		}
+
+		public Builder withReadAheadBufferSize(MemSize readAheadBufferSize) {
+			checkNotBuilt(this);
+			checkArgument(readAheadBufferSize.toLong() > 0, "Read-ahead buffer size must be positive");
+			Multilog.this.readAheadBufferSize = readAheadBufferSize;
+			return this;
+		}
+
 		@Override
 		protected Multilog<T> doBuild() {
 			return Multilog.this;
@@ -207,6 +238,9 @@ public final class Multilog<T> extends AbstractReactive
 	}
 
 	private StreamSupplierWithResult<T, LogPosition> readLogFiles(String logPartition, LogPosition startPosition, List<LogPosition> logFiles, boolean lastFile) {
+		if (decodeExecutor != null) {
+			return readLogFilesParallel(logPartition, startPosition, logFiles, lastFile);
+		}
 		SettablePromise<LogPosition> positionPromise = new SettablePromise<>();
 
 		Iterator<StreamSupplier<T>> logFileStreams = new Iterator<StreamSupplier<T>>() {
@@ -239,23 +273,7 @@ public final class Multilog<T> extends AbstractReactive
 					logger.trace("Read log file `{}` from: {}", currentLogFile, position);
 
 				return StreamSuppliers.ofPromise(
-					fileSystem.download(namingScheme.path(logPartition, currentLogFile), position, Long.MAX_VALUE)
-						.then(Promise::of,
-							e -> {
-								if (ignoreMalformedLogs && e instanceof IllegalOffsetException) {
-									if (logger.isWarnEnabled()) {
-										logger.warn(
-											"Ignoring log file whose size is less than log position {} {}:`{}` in {}, " +
-											"previous position: {}",
-											position, fileSystem,
-											namingScheme.path(logPartition, currentPosition.getLogFile()), sw,
-											countingFormat.getCount(),
-											e);
-									}
-									return Promise.of(ChannelSuppliers.<ByteBuf>empty());
-								}
-								return Promise.ofException(e);
-							})
+					download(logPartition, currentPosition, sw, countingFormat)
 						.map(fileStream -> {
 							countingFormat.resetCount();
 							sw.reset().start();
@@ -272,44 +290,149 @@ public final class Multilog<T> extends AbstractReactive
 									supplier.withEndOfStream(eos ->
 										eos.map(identity(),
 											e -> {
-												if (e instanceof TruncatedDataException && !it.hasNext() && lastFile) {
-													return null;
-												}
-												if (ignoreMalformedLogs && e instanceof MalformedDataException) {
-													if (!logger.isWarnEnabled()) return null;
-
-													logger.warn(
-														"Ignoring malformed log file {}:`{}` in {}, " +
-														"previous position: {}",
-														fileSystem,
-														namingScheme.path(logPartition, currentPosition.getLogFile()),
-														sw, countingFormat.getCount(),
-														e);
+												if (isIgnored(e, !it.hasNext() && lastFile, logPartition, currentPosition, sw, countingFormat)) {
 													return null;
-												} else {
-													throw e;
 												}
+												throw e;
 											})))
 								.transformWith(ChannelDeserializer.create(serializer))
 								.withEndOfStream(eos ->
-									eos.whenComplete(($, e) -> log(e)));
+									eos.whenComplete(($, e) -> log(e, logPartition, currentPosition, sw, countingFormat)));
 						}));
 			}
+		};
+
+		return StreamSupplierWithResult.of(StreamSuppliers.concat(logFileStreams), positionPromise);
+	}
+
+	private StreamSupplierWithResult<T, LogPosition> readLogFilesParallel(String logPartition, LogPosition startPosition, List<LogPosition> logFiles, boolean lastFile) {
+		SettablePromise<LogPosition> positionPromise = new SettablePromise<>();
+		ArrayDeque<PrefetchingLogFileSupplier<T>> prefetched = new ArrayDeque<>();
+
+		Iterator<StreamSupplier<T>> logFileStreams = new Iterator<StreamSupplier<T>>() {
+			final Stopwatch sw = Stopwatch.createUnstarted();
+
+			final CountingFrameFormat countingFormat = new CountingFrameFormat(frameFormat);
+			int currentIndex = -1;
+			int prefetchIndex;
+			LogPosition currentPosition;
+
+			@Override
+			public boolean hasNext() {
+				if (currentIndex + 1 < logFiles.size()) return true;
+				positionPromise.trySet(getLogPosition());
+				return false;
+			}
 
-			private void log(Exception e) {
-				if (e == null && logger.isTraceEnabled()) {
-					logger.trace("Finish log file {}:`{}` in {}, compressed bytes: {} ({} bytes/s)",
-						fileSystem, namingScheme.path(logPartition, currentPosition.getLogFile()),
-						sw, countingFormat.getCount(), countingFormat.getCount() / Math.max(sw.elapsed(SECONDS), 1));
-				} else if (e != null && logger.isErrorEnabled()) {
-					logger.error("Error on log file {}:`{}` in {}, compressed bytes: {} ({} bytes/s)",
-						fileSystem, namingScheme.path(logPartition, currentPosition.getLogFile()),
-						sw, countingFormat.getCount(), countingFormat.getCount() / Math.max(sw.elapsed(SECONDS), 1), e);
+			LogPosition getLogPosition() {
+				if (currentPosition == null)
+					return startPosition;
+
+				return LogPosition.create(currentPosition.getLogFile(), currentPosition.getPosition() + countingFormat.getCount());
+			}
+
+			@Override
+			public StreamSupplier<T> next() {
+				currentIndex++;
+				for (; prefetchIndex < logFiles.size() && prefetchIndex <= currentIndex + readAheadFiles; prefetchIndex++) {
+					prefetched.add(prefetch(prefetchIndex));
 				}
+				currentPosition = logFiles.get(currentIndex);
+				if (logger.isTraceEnabled())
+					logger.trace("Read log file `{}` from: {}", currentPosition.getLogFile(), currentPosition.getPosition());
+
+				countingFormat.resetCount();
+				sw.reset().start();
+				LogPosition position = currentPosition;
+				return prefetched.remove()
+					.withEndOfStream(eos ->
+						eos.whenComplete(($, e) -> log(e, logPartition, position, sw, countingFormat)));
+			}
+
+			private PrefetchingLogFileSupplier<T> prefetch(int index) {
+				LogPosition position = logFiles.get(index);
+				boolean isLastFile = index == logFiles.size() - 1 && lastFile;
+				assert decodeExecutor != null;
+				return new PrefetchingLogFileSupplier<>(
+					download(logPartition, position, sw, countingFormat)
+						.map(fileStream -> fileStream
+							.transformWith(streamReads.register(
+								logPartition + ":" + position.getLogFile() +
+								"@" + position.getPosition()))
+							.transformWith(streamReadStats)),
+					decodeExecutor, countingFormat.createDecoder(), serializer, readAheadBufferSize.toInt(),
+					e -> isIgnored(e, isLastFile, logPartition, position, sw, countingFormat));
 			}
 		};
 
-		return StreamSupplierWithResult.of(StreamSuppliers.concat(logFileStreams), positionPromise);
+		StreamSupplier<T> supplier = StreamSuppliers.concat(logFileStreams);
+		supplier.getAcknowledgement()
+			.whenComplete(() -> {
+				while (!prefetched.isEmpty()) {
+					prefetched.remove().close();
+				}
+			});
+		return StreamSupplierWithResult.of(supplier, positionPromise);
+	}
+
+	private Promise<ChannelSupplier<ByteBuf>> download(
+		String logPartition, LogPosition logPosition, Stopwatch sw, CountingFrameFormat countingFormat
+	) {
+		long position = logPosition.getPosition();
+		return fileSystem.download(namingScheme.path(logPartition, logPosition.getLogFile()), position, Long.MAX_VALUE)
+			.then(Promise::of,
+				e -> {
+					if (ignoreMalformedLogs && e instanceof IllegalOffsetException) {
+						if (logger.isWarnEnabled()) {
+							logger.warn(
+								"Ignoring log file whose size is less than log position {} {}:`{}` in {}, " +
+								"previous position: {}",
+								position, fileSystem,
+								namingScheme.path(logPartition, logPosition.getLogFile()), sw,
+								countingFormat.getCount(),
+								e);
+						}
+						return Promise.of(ChannelSuppliers.<ByteBuf>empty());
+					}
+					return Promise.ofException(e);
+				});
+	}
+
+	private boolean isIgnored(
+		Exception e, boolean lastFile, String logPartition, LogPosition logPosition, Stopwatch sw,
+		CountingFrameFormat countingFormat
+	) {
+		if (e instanceof TruncatedDataException && lastFile) {
+			return true;
+		}
+		if (ignoreMalformedLogs && e instanceof MalformedDataException) {
+			if (!logger.isWarnEnabled()) return true;
+
+			logger.warn(
+				"Ignoring malformed log file {}:`{}` in {}, " +
+				"previous position: {}",
+				fileSystem,
+				namingScheme.path(logPartition, logPosition.getLogFile()),
+				sw, countingFormat.getCount(),
+				e);
+			return true;
+		}
+		return false;
+	}
+
+	private void log(
+		@Nullable Exception e, String logPartition, LogPosition logPosition, Stopwatch sw,
+		CountingFrameFormat countingFormat
+	) {
+		if (e == null && logger.isTraceEnabled()) {
+			logger.trace("Finish log file {}:`{}` in {}, compressed bytes: {} ({} bytes/s)",
+				fileSystem, namingScheme.path(logPartition, logPosition.getLogFile()),
+				sw, countingFormat.getCount(), countingFormat.getCount() / Math.max(sw.elapsed(SECONDS), 1));
+		} else if (e != null && logger.isErrorEnabled()) {
+			logger.error("Error on log file {}:`{}` in {}, compressed bytes: {} ({} bytes/s)",
+				fileSystem, namingScheme.path(logPartition, logPosition.getLogFile()),
+				sw, countingFormat.getCount(), countingFormat.getCount() / Math.max(sw.elapsed(SECONDS), 1), e);
+		}
 	}
 
 	private static void validateLogPartition(String logPartition) {
@@ -326,6 +449,16 @@ public final class Multilog<T> extends AbstractReactive
 		return bufferSize;
 	}
 
+	@JmxAttribute
+	public int getReadAheadFiles() {
+		return readAheadFiles;
+	}
+
+	@JmxAttribute
+	public MemSize getReadAheadBufferSize() {
+		return readAheadBufferSize;
+	}
+
 	@JmxAttribute
 	public Duration getAutoFlushInterval() {
 		return autoFlushInterval;
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.multilog;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.bytebuf.ByteBufs;
+import io.activej.common.exception.MalformedDataException;
+import io.activej.common.exception.TruncatedDataException;
+import io.activej.common.exception.UnexpectedDataException;
+import io.activej.csp.process.frame.BlockDecoder;
+import io.activej.csp.process.frame.MissingEndOfStreamBlockException;
+import io.activej.csp.process.frame.TruncatedBlockException;
+import io.activej.csp.supplier.ChannelSupplier;
+import io.activej.datastream.supplier.AbstractStreamSupplier;
+import io.activej.promise.Promise;
+import io.activej.serializer.BinarySerializer;
+import io.activej.serializer.CorruptedDataException;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+import static io.activej.csp.process.frame.BlockDecoder.END_OF_STREAM;
+
+/**
+ * A supplier of a single log file that starts downloading the file as soon as it is created,
+ * buffering up to {@code readAheadSize} bytes of encoded data before it is streamed anywhere.
+ * <p>
+ * Frame decoding and deserialization are performed in batches on a given executor,
+ * one batch at a time, so that the order of items is preserved.
+ */
+final class PrefetchingLogFileSupplier<T> extends AbstractStreamSupplier<T> {
+	private final Executor executor;
+	private final BlockDecoder decoder;
+	private final BinarySerializer<T> serializer;
+	private final int readAheadSize;
+	private final Predicate<Exception> isIgnored;
+
+	private @Nullable ChannelSupplier<ByteBuf> input;
+	private final ByteBufs incoming = new ByteBufs();
+	private boolean reading;
+	private boolean inputEnd;
+
+	// accessed by a decoding task
+	private final ByteBufs encoded = new ByteBufs();
+	private ByteBuf decoded = ByteBuf.empty();
+
+	private boolean decoding;
+	private boolean framesEnd;
+
+	PrefetchingLogFileSupplier(
+		Promise<ChannelSupplier<ByteBuf>> inputPromise, Executor executor, BlockDecoder decoder,
+		BinarySerializer<T> serializer, int readAheadSize, Predicate<Exception> isIgnored
+	) {
+		this.executor = executor;
+		this.decoder = decoder;
+		this.serializer = serializer;
+		this.readAheadSize = readAheadSize;
+		this.isIgnored = isIgnored;
+		inputPromise
+			.whenResult(input -> {
+				if (getAcknowledgement().isComplete()) {
+					input.close();
+					return;
+				}
+				this.input = input;
+				read();
+			})
+			.whenException(this::closeEx);
+	}
+
+	@Override
+	protected void onResumed() {
+		process();
+	}
+
+	private void read() {
+		if (reading || inputEnd || input == null || incoming.remainingBytes() >= readAheadSize) return;
+		reading = true;
+		input.get()
+			.whenResult(buf -> {
+				reading = false;
+				if (getAcknowledgement().isComplete()) {
+					if (buf != null) buf.recycle();
+					return;
+				}
+				if (buf != null) {
+					incoming.add(buf);
+				} else {
+					inputEnd = true;
+				}
+				read();
+				process();
+			})
+			.whenException(e -> {
+				reading = false;
+				fail(e);
+			});
+	}
+
+	private void process() {
+		if (decoding || getAcknowledgement().isComplete() || isEndOfStream() || !isReady()) return;
+		if (framesEnd) {
+			checkTrailingData();
+			return;
+		}
+		if (incoming.isEmpty() && !inputEnd) return;
+
+		while (!incoming.isEmpty()) {
+			encoded.add(incoming.take());
+		}
+		boolean last = inputEnd;
+		read();
+
+		decoding = true;
+		Promise.ofBlocking(executor, () -> decode(last))
+			.whenComplete((result, e) -> {
+				decoding = false;
+				if (getAcknowledgement().isComplete()) {
+					recycle();
+					return;
+				}
+				if (e != null) {
+					closeEx(e);
+					return;
+				}
+				for (T item : result.items()) {
+					send(item);
+				}
+				if (result.exception() != null) {
+					fail(result.exception());
+					return;
+				}
+				framesEnd = result.endOfStream();
+				process();
+			});
+	}
+
+	private DecodeResult<T> decode(boolean last) {
+		boolean endOfStream = false;
+		Exception exception = null;
+		try {
+			while (!encoded.isEmpty()) {
+				ByteBuf frame = decoder.decode(encoded);
+				if (frame == null) break;
+				decoder.reset();
+				if (frame == END_OF_STREAM) {
+					endOfStream = true;
+					break;
+				}
+				decoded = ByteBufPool.append(decoded, frame);
+			}
+			if (!endOfStream && last) {
+				if (!encoded.isEmpty()) {
+					throw new TruncatedBlockException(new TruncatedDataException());
+				}
+				if (!decoder.ignoreMissingEndOfStreamBlock()) {
+					throw new MissingEndOfStreamBlockException(new TruncatedDataException());
+				}
+				endOfStream = true;
+			}
+		} catch (MalformedDataException e) {
+			exception = e;
+		}
+
+		List<T> items = new ArrayList<>();
+		try {
+			deserialize(items);
+			if ((endOfStream || exception != null) && decoded.canRead()) {
+				throw new TruncatedDataException("Truncated serialized data stream");
+			}
+		} catch (MalformedDataException e) {
+			exception = e;
+		}
+		return new DecodeResult<>(items, endOfStream, exception);
+	}
+
+	private void deserialize(List<T> items) throws MalformedDataException {
+		byte[] array = decoded.array();
+		while (decoded.canRead()) {
+			int pos = decoded.head();
+			int remaining = decoded.readRemaining();
+
+			int dataSize = 0;
+			int headerSize = 0;
+			boolean headerComplete = false;
+			while (headerSize < remaining) {
+				byte b = array[pos + headerSize];
+				dataSize |= (b & 0x7F) << (7 * headerSize++);
+				if (b >= 0) {
+					headerComplete = true;
+					break;
+				}
+				if (headerSize == 4) throw new MalformedDataException("Invalid header size");
+			}
+			if (!headerComplete) break;
+			if (dataSize == 0) throw new TruncatedDataException("Unexpected end-of-stream");
+			if (remaining < headerSize + dataSize) break;
+
+			try {
+				items.add(serializer.decode(array, pos + headerSize));
+			} catch (CorruptedDataException e) {
+				throw new MalformedDataException("Data is corrupted", e);
+			}
+			decoded.moveHead(headerSize + dataSize);
+		}
+	}
+
+	private void checkTrailingData() {
+		if (!encoded.isEmpty() || !incoming.isEmpty()) {
+			fail(new UnexpectedDataException("Unexpected data after end-of-stream"));
+		} else if (inputEnd) {
+			sendEndOfStream();
+		}
+	}
+
+	private void fail(Exception e) {
+		if (isIgnored.test(e)) {
+			if (input != null) input.close();
+			sendEndOfStream();
+		} else {
+			closeEx(e);
+		}
+	}
+
+	private void recycle() {
+		encoded.recycle();
+		decoded.recycle();
+		decoded = ByteBuf.empty();
+	}
+
+	@Override
+	protected void onCleanup() {
+		if (input != null) input.close();
+		incoming.recycle();
+		if (!decoding) recycle();
+	}
+
+	private record DecodeResult<T>(List<T> items, boolean endOfStream, @Nullable Exception exception) {
+	}
+}
@@ -1,7 +1,9 @@
 package io.activej.multilog;
 
 import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
 import io.activej.common.MemSize;
+import io.activej.csp.process.frame.BlockEncoder;
 import io.activej.csp.process.frame.FrameFormat;
 import io.activej.csp.process.frame.FrameFormats;
 import io.activej.csp.process.transformer.ChannelTransformers;
@@ -26,6 +28,7 @@ import org.junit.runners.Parameterized.Parameter;
 import org.junit.runners.Parameterized.Parameters;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map.Entry;
@@ -36,6 +39,7 @@ import static io.activej.multilog.LogNamingScheme.NAME_PARTITION_REMAINDER_SEQ;
 import static io.activej.promise.TestUtils.await;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 @RunWith(Parameterized.class)
 public class MultilogTest {
@@ -57,11 +61,16 @@ public class MultilogTest {
 	@Parameter(2)
 	public int endOfStreamBlockSize;
 
+	@Parameter(3)
+	public boolean parallelRead;
+
 	@Parameters(name = "{0}")
 	public static Collection<Object[]> getParameters() {
 		return List.of(
-			new Object[]{"LZ4 format", FrameFormats.lz4(), 8},
-			new Object[]{"Legacy LZ4 format", FrameFormats.lz4Legacy(), 21}
+			new Object[]{"LZ4 format", FrameFormats.lz4(), 8, false},
+			new Object[]{"Legacy LZ4 format", FrameFormats.lz4Legacy(), 21, false},
+			new Object[]{"LZ4 format, parallel read", FrameFormats.lz4(), 8, true},
+			new Object[]{"Legacy LZ4 format, parallel read", FrameFormats.lz4Legacy(), 21, true}
 		);
 	}
 
@@ -70,7 +79,7 @@ public class MultilogTest {
 		Reactor reactor = Reactor.getCurrentReactor();
 		FileSystem fs = FileSystem.create(reactor, newSingleThreadExecutor(), temporaryFolder.getRoot().toPath());
 		await(fs.start());
-		IMultilog<String> multilog = Multilog.create(reactor, fs, frameFormat, BinarySerializers.UTF8_SERIALIZER, NAME_PARTITION_REMAINDER_SEQ);
+		IMultilog<String> multilog = multilogBuilder(reactor, fs).build();
 		String testPartition = "testPartition";
 
 		List<String> values = List.of("test1", "test2", "test3");
@@ -87,10 +96,7 @@ public class MultilogTest {
 		Path storage = temporaryFolder.getRoot().toPath();
 		FileSystem fs = FileSystem.create(reactor, newSingleThreadExecutor(), storage);
 		await(fs.start());
-		IMultilog<String> multilog = Multilog.builder(reactor, fs,
-				frameFormat,
-				BinarySerializers.UTF8_SERIALIZER,
-				NAME_PARTITION_REMAINDER_SEQ)
+		IMultilog<String> multilog = multilogBuilder(reactor, fs)
 			.withBufferSize(1)
 			.build();
 
@@ -119,10 +125,7 @@ public class MultilogTest {
 		Path storage = temporaryFolder.getRoot().toPath();
 		FileSystem fs = FileSystem.create(reactor, newSingleThreadExecutor(), storage);
 		await(fs.start());
-		IMultilog<String> multilog = Multilog.builder(reactor, fs,
-				frameFormat,
-				BinarySerializers.UTF8_SERIALIZER,
-				NAME_PARTITION_REMAINDER_SEQ)
+		IMultilog<String> multilog = multilogBuilder(reactor, fs)
 			.withIgnoreMalformedLogs(true)
 			.build();
 
@@ -158,15 +161,46 @@ public class MultilogTest {
 		assertEquals(values, readLog(multilog, partition2));
 	}
 
+	@Test
+	public void testIgnoringMalformedSerializedData() {
+		assumeTrue("Only prefetching supplier is checked", parallelRead);
+
+		Reactor reactor = Reactor.getCurrentReactor();
+		Path storage = temporaryFolder.getRoot().toPath();
+		FileSystem fs = FileSystem.create(reactor, newSingleThreadExecutor(), storage);
+		await(fs.start());
+		IMultilog<String> multilog = multilogBuilder(reactor, fs)
+			.withIgnoreMalformedLogs(true)
+			.build();
+
+		String partition = "partition";
+
+		await(StreamSuppliers.ofIterable(List.of("test1", "test2", "test3")).streamTo(multilog.write(partition)));
+
+		// valid frames, malformed item header after the first item
+		byte[] item = new byte[16];
+		int itemSize = BinarySerializers.UTF8_SERIALIZER.encode(item, 1, "test1") - 1;
+		item[0] = (byte) itemSize;
+		ByteBuf data = ByteBufPool.allocate(itemSize + 5);
+		data.write(item, 0, itemSize + 1);
+		data.write(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80});
+		BlockEncoder encoder = frameFormat.createEncoder();
+		ByteBuf encoded = ByteBufPool.append(encoder.encode(data), encoder.encodeEndOfStreamBlock());
+		data.recycle();
+
+		await(fs.list("*" + partition + "*")
+			.then(map -> ChannelSuppliers.ofValue(encoded).streamTo(fs.upload(first(map.keySet())))));
+
+		assertEquals(List.of("test1"), readLog(multilog, partition));
+	}
+
 	@Test
 	public void testIgnoringReadsPastFileSize() {
 		Reactor reactor = Reactor.getCurrentReactor();
 		Path storage = temporaryFolder.getRoot().toPath();
 		FileSystem fs = FileSystem.create(reactor, newSingleThreadExecutor(), storage);
 		await(fs.start());
-		IMultilog<String> multilog = Multilog.builder(reactor, fs,
-				frameFormat,
-				BinarySerializers.UTF8_SERIALIZER, NAME_PARTITION_REMAINDER_SEQ)
+		IMultilog<String> multilog = multilogBuilder(reactor, fs)
 			.withIgnoreMalformedLogs(true)
 			.build();
 
@@ -201,11 +235,7 @@ public class MultilogTest {
 
 		await(fs.start());
 
-		IMultilog<String> multilog = Multilog.builder(reactor,
-				fs,
-				frameFormat,
-				BinarySerializers.UTF8_SERIALIZER,
-				NAME_PARTITION_REMAINDER_SEQ)
+		IMultilog<String> multilog = multilogBuilder(reactor, fs)
 			.withBufferSize(MemSize.bytes(1))
 			.build();
 
@@ -240,6 +270,52 @@ public class MultilogTest {
 		assertEquals(position, await(supplierWithResult.getResult()).getPosition());
 	}
 
+	@Test
+	public void testReadMultipleFiles() {
+		Reactor reactor = Reactor.getCurrentReactor();
+		FileSystem fs = FileSystem.builder(reactor, newSingleThreadExecutor(), temporaryFolder.getRoot().toPath())
+			.withReaderBufferSize(MemSize.bytes(16))
+			.build();
+		await(fs.start());
+		IMultilog<String> multilog = multilogBuilder(reactor, fs)
+			.withReadAheadBufferSize(MemSize.bytes(32))
+			.build();
+		String partition = "partition";
+
+		List<String> values = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			List<String> batch = new ArrayList<>();
+			for (int j = 0; j < 100; j++) {
+				batch.add("value_" + i + "_" + j);
+			}
+			await(StreamSuppliers.ofIterable(batch).streamTo(multilog.write(partition)));
+			values.addAll(batch);
+		}
+		assertTrue(await(fs.list("*" + partition + "*")).size() > 1);
+
+		StreamSupplierWithResult<String, LogPosition> supplierWithResult = StreamSupplierWithResult.ofPromise(
+			multilog.read(partition, new LogFile("", 0), 0, null));
+		ToListStreamConsumer<String> consumerToList = ToListStreamConsumer.create();
+		await(supplierWithResult.getSupplier().streamTo(consumerToList));
+		assertEquals(values, consumerToList.getList());
+
+		LogPosition pos = await(supplierWithResult.getResult());
+		supplierWithResult = StreamSupplierWithResult.ofPromise(
+			multilog.read(partition, pos.getLogFile(), pos.getPosition(), null));
+		consumerToList = ToListStreamConsumer.create();
+		await(supplierWithResult.getSupplier().streamTo(consumerToList));
+		assertTrue(consumerToList.getList().isEmpty());
+		assertEquals(pos, await(supplierWithResult.getResult()));
+	}
+
+	private Multilog<String>.Builder multilogBuilder(Reactor reactor, FileSystem fs) {
+		Multilog<String>.Builder builder = Multilog.builder(reactor, fs, frameFormat, BinarySerializers.UTF8_SERIALIZER, NAME_PARTITION_REMAINDER_SEQ);
+		if (parallelRead) {
+			builder.withParallelRead(newSingleThreadExecutor(), 2);
+		}
+		return builder;
+	}
+
 	private static <T> List<T> readLog(IMultilog<T> multilog, String partition) {
 		ToListStreamConsumer<T> listConsumer = ToListStreamConsumer.create();
 		await(StreamSupplierWithResult.ofPromise(